@@ -0,0 +1,211 @@
+package org.example.demo2.bench;
+
+import org.example.demo2.model.AcquisitionConfig;
+import org.example.demo2.model.HysteresisData;
+import org.example.demo2.model.SampleFormat;
+import org.example.demo2.service.AcquisitionFrame;
+import org.example.demo2.service.ContinuousAcquisitionService;
+import org.example.demo2.service.DataAcquisitionService;
+import org.example.demo2.service.DeviceSessionService;
+import org.example.demo2.service.LoopAveragingService;
+import org.example.demo2.service.StatisticsService;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * BENCHMARK PRZEPUSTOWOŚCI AKWIZYCJI (END-TO-END)
+ * ===============================================
+ *
+ * Uruchamia DataAcquisitionService na SimulatedAnalogDevice dla rosnących
+ * częstotliwości próbkowania i mierzy dla trybów:
+ * - snapshot:   powtarzane acquire() + analiza (statystyki, binning) - kolejno
+ * - continuous: ContinuousAcquisitionService - odczyt kolejnego bufora w trakcie
+ *               całkowania i analizy poprzedniego
+ * - streaming:  stream() w trybie ACQMODE_RECORD
+ *
+ * Mierzone wielkości:
+ * - osiągnięta przepustowość [S/s na kanał] i wypełnienie (przepustowość / fs)
+ * - opóźnienie od dostępności porcji w FIFO do jej odczytu (p50 / p99 / p99.9)
+ * - zużycie CPU procesu (czas CPU / czas rzeczywisty; 100% = jeden rdzeń)
+ * - utracone próbki (tylko streaming - przepełnienie FIFO)
+ *
+ * Maksymalna przepustowość ciągła = najwyższe fs, do którego (włącznie) streaming
+ * nie traci próbek na żadnym szczeblu. Wynik JSON: target/throughput-result.json.
+ *
+ * Uruchomienie:
+ * java -cp target/benchmarks.jar org.example.demo2.bench.AcquisitionThroughputBenchmark [chunk] [fifo] [sekundy] [format]
+ *
+ * format (SampleFormat: FLOAT64, FLOAT32, INT16) dotyczy trybu snapshot - INT16
+ * odczytuje kody przez analogInData16, a statystyki liczy wprost na kodach.
+ */
+public final class AcquisitionThroughputBenchmark {
+
+    private static final int[] RATES_HZ = {
+            100_000, 200_000, 500_000, 1_000_000, 2_000_000,
+            5_000_000, 10_000_000, 20_000_000, 50_000_000
+    };
+
+    private static final String SNAPSHOT = "snapshot";
+    private static final String CONTINUOUS = "continuous";
+    private static final String STREAMING = "streaming";
+
+    private static final StatisticsService STATISTICS = new StatisticsService();
+    private static final LoopAveragingService AVERAGING = new LoopAveragingService();
+
+    private static final class Result {
+        String mode;
+        int rateHz;
+        double throughput;
+        long lost;
+        double p50Us, p99Us, p999Us;
+        double cpuPercent;
+
+        String toJson() {
+            return String.format(Locale.ROOT,
+                    "{\"mode\":\"%s\",\"rateHz\":%d,\"throughput\":%.0f,\"lost\":%d,"
+                            + "\"latencyP50Us\":%.1f,\"latencyP99Us\":%.1f,\"latencyP999Us\":%.1f,\"cpuPercent\":%.1f}",
+                    mode, rateHz, throughput, lost, p50Us, p99Us, p999Us, cpuPercent);
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        int chunk = args.length > 0 ? Integer.parseInt(args[0]) : 4096;
+        int fifo = args.length > 1 ? Integer.parseInt(args[1]) : 32 * 1024;
+        double seconds = args.length > 2 ? Double.parseDouble(args[2]) : 2.0;
+        SampleFormat format = args.length > 3 ? SampleFormat.valueOf(args[3]) : SampleFormat.FLOAT64;
+
+        System.out.printf(Locale.ROOT, "chunk=%d, fifo=%d, czas=%.1f s, format=%s%n", chunk, fifo, seconds, format.name());
+        System.out.printf("%-11s %12s %12s %8s %10s %10s %10s %7s %10s%n",
+                "tryb", "fs [S/s]", "odczyt", "wypeł.", "p50 [us]", "p99 [us]", "p99.9", "CPU %", "utracone");
+
+        List<Result> results = new ArrayList<>();
+        int maxSustained = 0;
+        boolean sustained = true;
+        for (int rate : RATES_HZ) {
+            Result snapshot = run(SNAPSHOT, rate, chunk, fifo, seconds, format);
+            Result continuous = run(CONTINUOUS, rate, chunk, fifo, seconds, SampleFormat.FLOAT64);
+            Result streaming = run(STREAMING, rate, chunk, fifo, seconds, SampleFormat.FLOAT64);
+            print(snapshot);
+            print(continuous);
+            print(streaming);
+            results.add(snapshot);
+            results.add(continuous);
+            results.add(streaming);
+            // Liczy się ciągłość: pierwsza częstotliwość ze stratami kończy zakres
+            if (sustained && streaming.lost == 0) {
+                maxSustained = rate;
+            } else {
+                sustained = false;
+            }
+        }
+        System.out.printf(Locale.ROOT, "%nMaksymalna przepustowość ciągła (streaming, bez strat): %d S/s%n", maxSustained);
+
+        StringBuilder json = new StringBuilder();
+        json.append(String.format(Locale.ROOT, "{\"chunk\":%d,\"fifo\":%d,\"seconds\":%.1f,\"maxSustainedHz\":%d,\"results\":[",
+                chunk, fifo, seconds, maxSustained));
+        for (int i = 0; i < results.size(); i++) {
+            if (i > 0) json.append(',');
+            json.append("\n  ").append(results.get(i).toJson());
+        }
+        json.append("\n]}\n");
+        write(Path.of("target", "throughput-result.json"), json.toString());
+    }
+
+    private static Result run(String mode, int rate, int chunk, int fifo, double seconds,
+                              SampleFormat format) throws Exception {
+        SimulatedAnalogDevice device = new SimulatedAnalogDevice(chunk, fifo);
+        DeviceSessionService session = new DeviceSessionService(device);
+        DataAcquisitionService service = new DataAcquisitionService(session);
+        session.openAsync();
+        session.awaitOpen(5_000); // otwieranie sesji nie wchodzi do mierzonego okna
+
+        AcquisitionConfig config = new AcquisitionConfig();
+        config.setSampleRateHz(rate);
+        config.setSampleFormat(format);
+        config.setBufferSize(mode.equals(STREAMING) ? fifo : AcquisitionConfig.DEVICE_BUFFER_SIZE);
+
+        long durationNs = (long) (seconds * 1e9);
+        AtomicLong samples = new AtomicLong();
+        long cpuStart = processCpuTimeNs();
+        long start = System.nanoTime();
+        try {
+            switch (mode) {
+                case STREAMING -> service.stream(config,
+                        (ch0, ch1, lost) -> samples.addAndGet(ch0.length),
+                        () -> System.nanoTime() - start >= durationNs);
+                case CONTINUOUS -> {
+                    ContinuousAcquisitionService continuous = new ContinuousAcquisitionService(service);
+                    continuous.start(config, ContinuousAcquisitionService.DEFAULT_DEPTH, (AcquisitionFrame frame) -> {
+                        analyse(frame.getData());
+                        samples.addAndGet(frame.getData().getCh0Data().length);
+                        frame.release();
+                    }, Throwable::printStackTrace);
+                    Thread.sleep(durationNs / 1_000_000);
+                    continuous.stop();
+                }
+                default -> {
+                    while (System.nanoTime() - start < durationNs) {
+                        HysteresisData data = service.acquire(config);
+                        analyse(data);
+                        samples.addAndGet(data.getCh0Channel().length());
+                    }
+                }
+            }
+        } finally {
+            session.close();
+        }
+        long wallNs = System.nanoTime() - start;
+        long cpuNs = processCpuTimeNs() - cpuStart;
+
+        Result r = new Result();
+        r.mode = mode;
+        r.rateHz = rate;
+        r.throughput = samples.get() / (wallNs * 1e-9);
+        r.lost = device.getLostTotal();
+        r.cpuPercent = 100.0 * cpuNs / wallNs;
+        long[] lat = device.sortedLatenciesNs();
+        r.p50Us = percentile(lat, 0.50) / 1e3;
+        r.p99Us = percentile(lat, 0.99) / 1e3;
+        r.p999Us = percentile(lat, 0.999) / 1e3;
+        return r;
+    }
+
+    /**
+     * Analiza jak w UI po każdym pomiarze (bez rysowania).
+     */
+    private static void analyse(HysteresisData data) {
+        STATISTICS.compute(data.getCh0IntegratedChannel());
+        STATISTICS.compute(data.getCh1Channel());
+        AVERAGING.average(data.getCh0IntegratedChannel(), data.getCh1Channel(), 1, LoopAveragingService.DEFAULT_BINS);
+    }
+
+    private static long processCpuTimeNs() {
+        return ((com.sun.management.OperatingSystemMXBean) ManagementFactory.getOperatingSystemMXBean())
+                .getProcessCpuTime();
+    }
+
+    private static double percentile(long[] sorted, double q) {
+        if (sorted.length == 0) return 0;
+        return sorted[Math.min(sorted.length - 1, (int) (q * sorted.length))];
+    }
+
+    private static void print(Result r) {
+        System.out.printf(Locale.ROOT, "%-11s %12d %12.0f %7.1f%% %10.1f %10.1f %10.1f %7.1f %10d%n",
+                r.mode, r.rateHz, r.throughput, 100.0 * r.throughput / r.rateHz,
+                r.p50Us, r.p99Us, r.p999Us, r.cpuPercent, r.lost);
+    }
+
+    private static void write(Path path, String content) throws IOException {
+        Files.createDirectories(path.getParent());
+        Files.writeString(path, content, StandardCharsets.UTF_8);
+        System.out.println("Wynik: " + path.toAbsolutePath());
+    }
+}
@@ -0,0 +1,31 @@
+package org.example.demo2.bench;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * PUNKT WEJŚCIA BENCHMARKÓW
+ *
+ * Domyślnie: wszystkie benchmarki, profiler alokacji (-prof gc) i wynik w formacie
+ * JSON w target/jmh-result.json - pliki z kolejnych wersji można porównać
+ * (np. jmh.morethan.io). Standardowe opcje JMH z linii poleceń mają pierwszeństwo,
+ * np. java -jar target/benchmarks.jar SignalProcessing -p size=1000000
+ */
+public final class BenchmarkRunner {
+
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+        Options options = new OptionsBuilder()
+                .parent(new CommandLineOptions(args))
+                .addProfiler(GCProfiler.class)
+                .resultFormat(ResultFormatType.JSON)
+                .result("target/jmh-result.json")
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,86 @@
+package org.example.demo2.bench;
+
+import org.example.demo2.service.KernelSelector;
+import org.example.demo2.service.LoopAveragingService;
+import org.example.demo2.service.ScalarKernels;
+import org.example.demo2.service.SignalKernels;
+import org.example.demo2.service.SignalProcessingService;
+import org.example.demo2.service.StatisticsService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JĄDRA SKALARNE VS SIMD (VECTOR API)
+ *
+ * Te same serwisy co SignalProcessingBenchmark, ale z jawnie podaną implementacją
+ * jąder (@Param kernels). Fork dostaje --add-modules=jdk.incubator.vector, więc
+ * wariant "vector" jest zawsze dostępny; przed pomiarem przechodzi samosprawdzenie
+ * (KernelSelector.verify) - niezgodność przerywa benchmark.
+ *
+ * - statistics: min/max/Σx² (StatisticsService.compute)
+ * - scale: przeliczenie na jednostki fizyczne (SignalProcessingService.scale)
+ * - averagingFullResolution: zakres X + kody binów + sumy (LoopAveragingService, step = 1)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g", "--add-modules=jdk.incubator.vector"})
+public class KernelBenchmark {
+
+    @Param({"1000", "100000", "1000000", "10000000"})
+    public int size;
+
+    @Param({"scalar", "vector"})
+    public String kernels;
+
+    private SyntheticLoop data;
+    private double[] scaled;
+    private StatisticsService statistics;
+    private SignalProcessingService signalProcessing;
+    private LoopAveragingService averaging;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        SignalKernels impl = ScalarKernels.INSTANCE;
+        if (kernels.equals("vector")) {
+            impl = KernelSelector.vector();
+            if (impl == null) throw new IllegalStateException("Brak modułu jdk.incubator.vector");
+            String mismatch = KernelSelector.verify(impl);
+            if (mismatch != null) throw new IllegalStateException("Jądra SIMD niezgodne: " + mismatch);
+        }
+        data = SyntheticLoop.generate(size);
+        scaled = new double[size];
+        statistics = new StatisticsService(impl);
+        signalProcessing = new SignalProcessingService(impl);
+        averaging = new LoopAveragingService(impl);
+    }
+
+    @Benchmark
+    public StatisticsService.Stats statistics() {
+        return statistics.compute(data.ch0Integrated);
+    }
+
+    @Benchmark
+    public double[] scale() {
+        return signalProcessing.scale(data.ch0Integrated, 1.7e-3, scaled);
+    }
+
+    @Benchmark
+    public Object averagingFullResolution() {
+        return averaging.average(data.ch1, data.ch0Integrated, 1, LoopAveragingService.DEFAULT_BINS);
+    }
+}
@@ -0,0 +1,76 @@
+package org.example.demo2.bench;
+
+import org.example.demo2.service.LoopAveragingService;
+import org.example.demo2.service.SignalProcessingService;
+import org.example.demo2.service.StatisticsService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * BENCHMARKI GORĄCYCH ŚCIEŻEK PRZETWARZANIA
+ *
+ * - integrate: cyfrowy filtr RC (SignalProcessingService.integrate)
+ * - statistics: min/max/RMS (StatisticsService.compute)
+ * - averaging: detekcja kierunku + binning pętli (LoopAveragingService.average),
+ *   z tym samym krokiem decymacji co MainController
+ *
+ * Rozmiary bufora od 1k do 10M próbek. Alokacje: uruchomić z -prof gc
+ * (BenchmarkRunner robi to domyślnie).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+public class SignalProcessingBenchmark {
+
+    // Ta sama wartość co AcquisitionConfig.DEFAULT_PLOT_POINTS
+    private static final int PLOT_POINTS = 10_000;
+
+    @Param({"1000", "10000", "100000", "1000000", "10000000"})
+    public int size;
+
+    private SyntheticLoop data;
+    private final SignalProcessingService signalProcessing = new SignalProcessingService();
+    private final StatisticsService statistics = new StatisticsService();
+    private final LoopAveragingService averaging = new LoopAveragingService();
+
+    @Setup(Level.Trial)
+    public void setup() {
+        data = SyntheticLoop.generate(size);
+    }
+
+    @Benchmark
+    public double[] integrate() {
+        return signalProcessing.integrate(data.ch0, SyntheticLoop.SAMPLE_RATE_HZ);
+    }
+
+    @Benchmark
+    public StatisticsService.Stats statistics() {
+        return statistics.compute(data.ch0Integrated);
+    }
+
+    @Benchmark
+    public Object averaging() {
+        int step = Math.max(1, size / PLOT_POINTS);
+        return averaging.average(data.ch1, data.ch0Integrated, step, LoopAveragingService.DEFAULT_BINS);
+    }
+
+    @Benchmark
+    public Object averagingFullResolution() {
+        return averaging.average(data.ch1, data.ch0Integrated, 1, LoopAveragingService.DEFAULT_BINS);
+    }
+}
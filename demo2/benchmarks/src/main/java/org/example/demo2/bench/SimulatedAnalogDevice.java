@@ -0,0 +1,299 @@
+package org.example.demo2.bench;
+
+import org.example.demo2.model.AcquisitionConfig;
+import org.example.demo2.service.AnalogDevice;
+
+import java.util.Arrays;
+
+/**
+ * SYMULOWANE URZĄDZENIE POMIAROWE
+ * ===============================
+ *
+ * Zastępuje Analog Discovery w benchmarku przepustowości. Próbki "powstają" w czasie
+ * rzeczywistym z zadaną częstotliwością (analogInFrequency) i stają się dostępne
+ * porcjami po chunkSize próbek - jak transfery USB z FIFO urządzenia.
+ *
+ * - ACQMODE_SINGLE: po starcie produkuje dokładnie bufferSize próbek i staje
+ * - ACQMODE_RECORD: produkuje bez końca; zaległość ponad fifoCapacity jest
+ *   odrzucana i raportowana jako utracone próbki (analogInStatusRecord)
+ *
+ * Produkcja liczona jest leniwie przy analogInStatus (bez osobnego wątku), więc
+ * koszt CPU symulatora to tylko kopiowanie próbek z gotowej tablicy.
+ *
+ * analogInData16 zwraca kody 16-bitowe dla zakresu ustawionego analogInChannelRange
+ * (tablice kodów liczone raz przy zmianie zakresu).
+ *
+ * Dla każdej porcji odczytanej przez analogInData(CH0) zapisywane jest opóźnienie:
+ * czas od chwili, gdy najstarsza odczytana próbka stała się dostępna, do odczytu.
+ */
+public class SimulatedAnalogDevice implements AnalogDevice {
+
+    private static final int TABLE_SIZE = SyntheticLoop.SAMPLE_RATE_HZ;
+
+    private final int chunkSize;
+    private final int fifoCapacity;
+    private final double[] ch0Table;
+    private final double[] ch1Table;
+    private final double[] rangeV = {AcquisitionConfig.DEFAULT_INPUT_RANGE_V, AcquisitionConfig.DEFAULT_INPUT_RANGE_V};
+    private final short[][] codeTables = new short[2][];
+
+    private double rateHz = SyntheticLoop.SAMPLE_RATE_HZ;
+    private int bufferSize = 4096;
+    private int mode = ACQMODE_SINGLE;
+
+    private boolean running;
+    private long startNs;
+    private long produced;            // próbki dostępne od startu (wielokrotność chunkSize)
+    private long read0, read1;        // kursory odczytu kanałów
+    private long lostTotal;
+    private long lostSinceStatus;
+    private int available;            // stan z ostatniego analogInStatus
+
+    private long[] latenciesNs = new long[1024];
+    private int latencyCount;
+
+    public SimulatedAnalogDevice(int chunkSize, int fifoCapacity) {
+        this.chunkSize = chunkSize;
+        this.fifoCapacity = fifoCapacity;
+        SyntheticLoop loop = SyntheticLoop.generate(TABLE_SIZE);
+        this.ch0Table = loop.ch0;
+        this.ch1Table = loop.ch1;
+    }
+
+    public long getLostTotal() {
+        return lostTotal;
+    }
+
+    /**
+     * Opóźnienia odczytu zebrane od ostatniego resetStatistics() [ns], posortowane.
+     */
+    public long[] sortedLatenciesNs() {
+        long[] copy = Arrays.copyOf(latenciesNs, latencyCount);
+        Arrays.sort(copy);
+        return copy;
+    }
+
+    public void resetStatistics() {
+        latencyCount = 0;
+        lostTotal = 0;
+    }
+
+    @Override
+    public boolean open() {
+        return true;
+    }
+
+    @Override
+    public void closeAll() {
+        running = false;
+    }
+
+    // ===== WEJŚCIA ANALOGOWE =====
+
+    @Override
+    public boolean analogInChannelEnable(int channel, boolean enable) {
+        return true;
+    }
+
+    @Override
+    public boolean analogInChannelRange(int channel, double rangeV) {
+        if (this.rangeV[channel] != rangeV) codeTables[channel] = null;
+        this.rangeV[channel] = rangeV;
+        return true;
+    }
+
+    @Override
+    public double analogInChannelRangeGet(int channel) {
+        return rangeV[channel];
+    }
+
+    @Override
+    public double analogInChannelOffsetGet(int channel) {
+        return 0;
+    }
+
+    @Override
+    public boolean analogInFrequency(double hz) {
+        rateHz = hz;
+        return true;
+    }
+
+    @Override
+    public boolean analogInBufferSize(int samples) {
+        bufferSize = samples;
+        return true;
+    }
+
+    @Override
+    public boolean analogInAcquisitionMode(int mode) {
+        this.mode = mode;
+        return true;
+    }
+
+    @Override
+    public boolean analogInRecordLength(double seconds) {
+        return true;
+    }
+
+    @Override
+    public boolean analogInConfigure(boolean reconfigure, boolean start) {
+        running = start;
+        if (start) {
+            startNs = System.nanoTime();
+            produced = 0;
+            read0 = 0;
+            read1 = 0;
+            available = 0;
+            lostSinceStatus = 0;
+        }
+        return true;
+    }
+
+    @Override
+    public boolean analogInStatus(boolean readData) {
+        if (running) {
+            long elapsed = (long) ((System.nanoTime() - startNs) * 1e-9 * rateHz);
+            produced = elapsed / chunkSize * chunkSize;
+            if (mode == ACQMODE_SINGLE) {
+                // Ostatnia, niepełna porcja bufora jest dostępna od razu po jego zapełnieniu
+                produced = elapsed >= bufferSize ? bufferSize : Math.min(produced, bufferSize);
+            } else if (produced - read0 > fifoCapacity) {
+                // Przepełnienie FIFO - najstarsze próbki przepadają
+                long drop = produced - read0 - fifoCapacity;
+                read0 += drop;
+                read1 += drop;
+                lostSinceStatus += drop;
+                lostTotal += drop;
+            }
+        }
+        available = (int) (produced - read0);
+        return true;
+    }
+
+    @Override
+    public int analogInSamplesValid() {
+        return available;
+    }
+
+    @Override
+    public void analogInStatusRecord(int[] availableLostCorrupt) {
+        availableLostCorrupt[0] = available;
+        availableLostCorrupt[1] = (int) Math.min(Integer.MAX_VALUE, lostSinceStatus);
+        availableLostCorrupt[2] = 0;
+        lostSinceStatus = 0;
+    }
+
+    @Override
+    public double[] analogInData(int channel, int samples) {
+        double[] out = new double[samples];
+        if (channel == 0) {
+            recordLatency(read0);
+            copy(ch0Table, read0, out);
+            read0 += samples;
+        } else {
+            copy(ch1Table, read1, out);
+            read1 += samples;
+        }
+        return out;
+    }
+
+    @Override
+    public boolean analogInRecordLossSupported() {
+        return true;
+    }
+
+    @Override
+    public boolean analogInData16(int channel, short[] dst, int dstPos, int samples) {
+        if (channel == 0) {
+            recordLatency(read0);
+            copy(codeTable(0), read0, dst, dstPos, samples);
+            read0 += samples;
+        } else {
+            copy(codeTable(1), read1, dst, dstPos, samples);
+            read1 += samples;
+        }
+        return true;
+    }
+
+    // Kody jak FDwfAnalogInStatusData16: napięcie = kod × zakres/65536
+    private short[] codeTable(int channel) {
+        if (codeTables[channel] == null) {
+            double[] volts = channel == 0 ? ch0Table : ch1Table;
+            short[] codes = new short[TABLE_SIZE];
+            for (int i = 0; i < TABLE_SIZE; i++) {
+                long code = Math.round(volts[i] * 65536 / rangeV[channel]);
+                codes[i] = (short) Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE, code));
+            }
+            codeTables[channel] = codes;
+        }
+        return codeTables[channel];
+    }
+
+    private static void copy(double[] table, long from, double[] out) {
+        copy(table, from, out, 0, out.length);
+    }
+
+    // Tablica cykliczna od próbki from do out[outPos..outPos+count)
+    private static void copy(Object table, long from, Object out, int outPos, int count) {
+        int pos = (int) (from % TABLE_SIZE);
+        int done = 0;
+        while (done < count) {
+            int n = Math.min(count - done, TABLE_SIZE - pos);
+            System.arraycopy(table, pos, out, outPos + done, n);
+            done += n;
+            pos = 0;
+        }
+    }
+
+    private void recordLatency(long firstSample) {
+        long readySample = (firstSample / chunkSize + 1) * chunkSize;
+        if (mode == ACQMODE_SINGLE) readySample = Math.min(readySample, bufferSize);
+        long chunkReadyNs = startNs + (long) (readySample * 1e9 / rateHz);
+        if (latencyCount == latenciesNs.length) {
+            latenciesNs = Arrays.copyOf(latenciesNs, latencyCount * 2);
+        }
+        latenciesNs[latencyCount++] = Math.max(0, System.nanoTime() - chunkReadyNs);
+    }
+
+    // ===== GENERATOR - bez efektu w symulacji =====
+
+    @Override
+    public boolean analogOutNodeEnable(int channel, boolean enable) {
+        return true;
+    }
+
+    @Override
+    public boolean analogOutNodeFunction(int channel, int function) {
+        return true;
+    }
+
+    @Override
+    public boolean analogOutNodeFrequency(int channel, double hz) {
+        return true;
+    }
+
+    @Override
+    public boolean analogOutNodeAmplitude(int channel, double amplitude) {
+        return true;
+    }
+
+    @Override
+    public boolean analogOutNodeOffset(int channel, double offset) {
+        return true;
+    }
+
+    @Override
+    public boolean analogOutNodeData(int channel, double[] data, int count) {
+        return true;
+    }
+
+    @Override
+    public boolean analogOutConfigure(int channel, boolean start) {
+        return true;
+    }
+
+    @Override
+    public boolean digitalOutReset() {
+        return true;
+    }
+}
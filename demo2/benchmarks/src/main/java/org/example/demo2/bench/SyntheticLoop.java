@@ -0,0 +1,46 @@
+package org.example.demo2.bench;
+
+import java.util.Random;
+
+/**
+ * SYNTETYCZNE PRZEBIEGI B-H DO BENCHMARKÓW
+ *
+ * Model pętli: H(t) = H_m sin(ωt), B(t) = B_s tanh((H ∓ H_c) / a)
+ * (znak zależy od kierunku zmian H - gałąź rosnąca/malejąca) plus szum.
+ * CH0 to napięcie indukowane ~ dB/dt, CH1 to napięcie na boczniku ~ H.
+ *
+ * Dane są deterministyczne (stałe ziarno), więc kolejne uruchomienia są porównywalne.
+ */
+public final class SyntheticLoop {
+
+    public static final int SAMPLE_RATE_HZ = 100_000;
+    public static final double EXCITATION_HZ = 50.0;
+
+    public final double[] ch0;
+    public final double[] ch1;
+    public final double[] ch0Integrated;
+
+    private SyntheticLoop(int n) {
+        ch0 = new double[n];
+        ch1 = new double[n];
+        ch0Integrated = new double[n];
+    }
+
+    public static SyntheticLoop generate(int n) {
+        SyntheticLoop s = new SyntheticLoop(n);
+        Random rnd = new Random(42);
+        double w = 2 * Math.PI * EXCITATION_HZ / SAMPLE_RATE_HZ;
+        double hc = 0.15, a = 0.25, noise = 1e-3;
+        double bPrev = 0;
+        for (int i = 0; i < n; i++) {
+            double h = Math.sin(w * i);
+            double rising = Math.cos(w * i) >= 0 ? 1 : -1;
+            double b = Math.tanh((h - rising * hc) / a);
+            s.ch1[i] = h + noise * rnd.nextGaussian();
+            s.ch0Integrated[i] = b;
+            s.ch0[i] = (b - bPrev) * SAMPLE_RATE_HZ * 1e-3 + noise * rnd.nextGaussian();
+            bPrev = b;
+        }
+        return s;
+    }
+}
@@ -9,6 +9,9 @@ module org.example.demo2 {
     requires org.kordamp.bootstrapfx.core;
 
     requires java.desktop;
+    requires jdk.management;  // tempo alokacji w nakładce wydajności
+    requires jdk.jfr;         // własne zdarzenia Flight Recorder (pakiet metrics)
+    requires static jdk.incubator.vector;  // jądra SIMD (VectorKernels), tylko z --add-modules
     requires static org.knowm.xchart;
     requires waveforms4j;   // <-- add this line
 
@@ -18,6 +21,7 @@ module org.example.demo2 {
     opens org.example.demo2.Test to javafx.fxml;
     exports org.example.demo2.controller;
     opens org.example.demo2.controller to javafx.fxml;
+    exports org.example.demo2.metrics;
     exports org.example.demo2.model;
     exports org.example.demo2.service;
 }
\ No newline at end of file
@@ -1,6 +1,10 @@
 package org.example.demo2.controller;
 
+import javafx.animation.AnimationTimer; // Licznik pulsów wątku FX (czas klatki)
+import javafx.animation.KeyFrame;    // Klatka harmonogramu odświeżania
+import javafx.animation.Timeline;    // Okresowe odświeżanie nakładki wydajności
 import javafx.application.Platform;  // Dla operacji na wątku UI w JavaFX
+import javafx.collections.ObservableList; // Lista punktów serii (podgląd przewijany)
 import javafx.fxml.FXML;             // Adnotacja do wstrzykiwania elementów FXML
 import javafx.fxml.Initializable;    // Interfejs do inicjalizacji kontrolera
 import javafx.geometry.Insets;       // Marginesy i dopełnienia w layoutach
@@ -13,18 +17,58 @@ import javafx.scene.control.*;       // Kontrolki UI (Label, Spinner, TextField
 import javafx.scene.layout.HBox;     // Kontener poziomy
 import javafx.scene.paint.Color;     // Kolory w JavaFX
 import javafx.scene.shape.Rectangle; // Prostokąt do rysowania
+import javafx.util.Duration;         // Okres odświeżania nakładki
+import org.example.demo2.metrics.FrameRenderEvent; // Zdarzenie JFR rysowania
+import org.example.demo2.metrics.MetricsRegistry;  // Rejestr metryk (zrzut do pliku)
+import org.example.demo2.metrics.PerformanceMonitor; // Dane nakładki wydajności
+import org.example.demo2.metrics.PipelineMetrics;  // Czasy etapów potoku
 import org.example.demo2.model.AcquisitionConfig; // Model konfiguracji akwizycji
+import org.example.demo2.model.AveragedLoop;      // Uśredniona pętla (wynik binningu)
+import org.example.demo2.model.ChannelDelay;      // Wynik kalibracji opóźnienia CH1 względem CH0
+import org.example.demo2.model.BinningMode;       // Podział osi X przy uśrednianiu (równy/adaptacyjny)
+import org.example.demo2.model.CycleMetrics;      // Parametry pętli jednego cyklu (online)
+import org.example.demo2.model.FilterSpec;        // Parametry filtru szumów przed całkowaniem
+import org.example.demo2.model.FilterType;        // Rodzaj filtru szumów (FIR/IIR/mediana)
 import org.example.demo2.model.HysteresisData;    // Model danych histerezy
 import org.example.demo2.model.PhysicalParameters; // Model parametrów fizycznych
+import org.example.demo2.model.RegulationResult;   // Wynik regulacji amplitudy
+import org.example.demo2.model.SampleChannel;      // Kanał próbek (double/float)
+import org.example.demo2.model.SampleFormat;       // Format przechowywania próbek
+import org.example.demo2.model.SweepConfig;        // Konfiguracja sweepu wzbudzenia
+import org.example.demo2.model.SweepPoint;         // Punkt wyniku sweepu
+import org.example.demo2.service.AcquisitionFrame;       // Ramka z puli buforów trybu ciągłego
+import org.example.demo2.service.AnalysisCache;          // Pamięć podręczna statystyk i pętli (LRU)
+import org.example.demo2.service.ContinuousAcquisitionService; // Akwizycja ciągła (wielokrotne buforowanie)
 import org.example.demo2.service.DataAcquisitionService; // Serwis akwizycji danych
+import org.example.demo2.service.DelayCalibrationService; // Kalibracja opóźnienia między kanałami
+import org.example.demo2.service.DeviceSessionService;   // Sesja połączenia z urządzeniem
+import org.example.demo2.service.DwfAnalogDevice;        // Adapter DWF -> AnalogDevice
+import org.example.demo2.service.ExcitationRegulationService; // Regulacja B_peak/H_peak
+import org.example.demo2.service.ExcitationSweepService; // Serwis sweepu wzbudzenia
+import org.example.demo2.service.FilterBank;             // Projekt filtrów szumów (walidacja ustawień)
+import org.example.demo2.service.FilterStage;            // Limit kompensowanego opóźnienia
+import org.example.demo2.service.KernelSelector;         // Wybrane jądra SIMD/skalarne (status)
+import org.example.demo2.service.LoopAnalysisService;    // Serwis analizy pętli (B_peak, straty)
+import org.example.demo2.service.LoopAveragingService;   // Uśrednianie pętli (binning)
+import org.example.demo2.service.OnlineLoopTracker;      // Parametry pętli na każdy cykl (strumień)
+import org.example.demo2.service.ParallelAnalysisService; // Analiza długich rekordów (fork-join)
+import org.example.demo2.service.RollingAcquisitionService; // Podgląd przewijany (strumień → bufor pierścieniowy)
+import org.example.demo2.service.RollingSampleBuffer;     // Bufor pierścieniowy z obwiednią min/max
 import org.example.demo2.service.SignalProcessingService; // Serwis przetwarzania sygnałów
 import org.example.demo2.service.StatisticsService;       // Serwis statystyk
+import org.example.demo2.service.TrendStore;              // Trend parametrów pętli (pliki mapowane)
+import org.example.demo2.service.WaveformGenerator;       // Własne przebiegi generatora (funcCustom)
 import org.knowm.waveforms4j.DWF;    // Biblioteka do komunikacji z Analog Discovery
 
+import java.io.IOException;          // Błąd otwarcia magazynu trendu
+import java.lang.System.Logger.Level; // Poziom wpisów logu (błędy wątków roboczych)
 import java.net.URL;                 // Klasa reprezentująca URL (dla Initializable)
+import java.nio.file.Path;           // Ścieżka pliku zrzutu metryk
 import java.util.ArrayList;          // Lista dynamiczna
 import java.util.List;               // Interfejs listy
+import java.util.Locale;             // Kropka dziesiętna w polach liczbowych
 import java.util.ResourceBundle;     // Bundle zasobów (dla Initializable)
+import java.util.concurrent.atomic.AtomicReference; // Ramka oczekująca na narysowanie
 
 /**
  * Główny kontroler aplikacji pomiaru histerezy.
@@ -33,11 +77,25 @@ import java.util.ResourceBundle;     // Bundle zasobów (dla Initializable)
  */
 public class MainController implements Initializable {
 
+    private static final System.Logger LOG = System.getLogger(MainController.class.getName());
+
     // Wstrzyknięte komponenty FXML - widok definiowany w pliku FXML
     @FXML private Spinner<Integer> sampleRateSpinner;
     @FXML private Spinner<Double> acquisitionTimeSpinner;
     @FXML private Spinner<Integer> bufferSizeSpinner;
+    @FXML private ComboBox<SampleFormat> sampleFormatBox;  // Format przechowywania próbek (double/float)
+    @FXML private ComboBox<BinningMode> binningModeBox;   // Tryb binningu uśrednionej pętli
+    @FXML private ComboBox<FilterType> filterTypeBox;     // Rodzaj filtru szumów CH0/CH1
+    @FXML private TextField filterCutoffField, filterOrderField; // Odcięcie [Hz] i rząd filtru
+    @FXML private TextField channelDelayField;            // Opóźnienie CH1 względem CH0 [µs] (kalibracja)
+    @FXML private Spinner<Integer> pointsPerCycleSpinner; // Przepróbkowanie do punktów na okres (0 = wył.)
     @FXML private Label infoLabel;
+    @FXML private ToggleButton continuousToggle;          // Włączenie akwizycji ciągłej
+    @FXML private ToggleButton rollToggle;                // Podgląd przewijany (ostatnie N sekund)
+    @FXML private ToggleButton trendRecordToggle;         // Zapis parametrów cykli do trendu
+    @FXML private Label deviceStatusLabel;                // Stan połączenia z urządzeniem
+    @FXML private ToggleButton perfOverlayToggle;         // Włączenie nakładki wydajności
+    @FXML private Label perfOverlayLabel;                 // Nakładka z czasami etapów i stanem FIFO
 
     /// sekcja danych z pomiarów
     @FXML private LineChart<Number, Number> timeChartCH0; // Wykres czasowy dla kanału 0 (napięcie → indukcja B)
@@ -59,6 +117,18 @@ public class MainController implements Initializable {
     @FXML private Spinner<Double> freqSpinner;
     @FXML private Spinner<Double> ampSpinner;
     @FXML private Spinner<Double> offsetSpinner;
+    @FXML private TextField waveParamField;               // Parametr kształtu własnego (składowa DC / czas zbocza)
+
+    /// sekcja sweepu wzbudzenia
+    @FXML private TextField sweepStartField, sweepStopField, sweepStepsField; // Zakres amplitud sweepu
+    @FXML private TextField sweepFreqField, sweepSettleField;                 // Lista częstotliwości i czas ustalania
+    @FXML private TextArea sweepResultArea;                                   // Tabela wyników sweepu
+    @FXML private Button sweepStartButton;                                    // Blokowany na czas sweepu
+
+    /// sekcja regulacji wzbudzenia
+    @FXML private ComboBox<String> regTargetBox;                              // B_peak lub H_peak
+    @FXML private TextField regSetpointField, regToleranceField;              // Wartość zadana i tolerancja
+    @FXML private Label regResultLabel;                                       // Wynik regulacji
 
     /// zmienne pomocnicze do uzupełniania wykresów
     // Serie danych dla wykresów
@@ -69,20 +139,68 @@ public class MainController implements Initializable {
 
     // Serwisy i modele
     private final DWF dwf = new DWF();                    // Instancja biblioteki WaveForms (komunikacja z urządzeniem)
+    private DeviceSessionService deviceSession;
     private DataAcquisitionService acquisitionService;
-    private StatisticsService statisticsService;
     private SignalProcessingService signalProcessingService;
+    private ParallelAnalysisService analysisService;       // Statystyki i binning (równolegle dla długich rekordów)
+    private AnalysisCache analysisCache;                   // Wyniki analysisService zapamiętane po odcisku danych
     private AcquisitionConfig config;
     private PhysicalParameters physicalParams;
+    private ExcitationSweepService sweepService;
+    private ExcitationRegulationService regulationService;
+    private DelayCalibrationService delayCalibrationService;
+    private ContinuousAcquisitionService continuousService;
+    private RollingAcquisitionService rollingService;
+    private final WaveformGenerator waveformGenerator = new WaveformGenerator();
+
+    private volatile HysteresisData lastData;            // Ostatnia akwizycja (źródło predystorsji)
+    private volatile double lastDataRateHz;               // Częstotliwość próbek lastData (po przepróbkowaniu lub surowa)
+    private HysteresisData shownData;                     // Pomiar na wykresach (wątek FX)
+    private long shownFingerprint;                        // Jego odcisk - klucz w analysisCache
+    private double plottedHScale = 1, plottedBScale = 1;  // Skale, w których narysowano punkty wykresu XY
+    private BinningMode binningMode = BinningMode.GRADIENT; // Przedziały gęściej w stromym obszarze koercji
+    private String filterError;                           // Powód wyłączenia filtru przy błędnych ustawieniach (null = OK)
+    private double[] customTable;                         // Tablica aktualnie wgrana do generatora (null = funkcja wbudowana)
+
+    // Tryb ciągły: ramka czekająca na narysowanie (najnowsza wygrywa) i ramka wyświetlana (wątek FX)
+    private final AtomicReference<AcquisitionFrame> pendingFrame = new AtomicReference<>();
+    private AcquisitionFrame shownFrame;
+
+    // Podgląd przewijany: odświeżanie co klatkę z obwiedni bufora (stały koszt klatki)
+    private AnimationTimer rollTimer;
+    private final double[] rollMin0 = new double[RollingSampleBuffer.DEFAULT_BUCKETS];
+    private final double[] rollMax0 = new double[RollingSampleBuffer.DEFAULT_BUCKETS];
+    private final double[] rollMin1 = new double[RollingSampleBuffer.DEFAULT_BUCKETS];
+    private final double[] rollMax1 = new double[RollingSampleBuffer.DEFAULT_BUCKETS];
+    private final AtomicReference<CycleMetrics> lastCycle = new AtomicReference<>(); // Ostatni domknięty cykl
+
+    // Trend: magazyn otwierany przy pierwszym użyciu (-Ddemo2.trend.dir, domyślnie ~/demo2-trend)
+    private volatile TrendStore trendStore;
+    private volatile boolean trendRecording;
+    private TrendWindow trendWindow;
+
+    // Nakładka wydajności - odświeżana 2x na sekundę, tylko gdy widoczna
+    private static final Duration PERF_REFRESH = Duration.millis(500);
+    private PerformanceMonitor performanceMonitor;
+    private Timeline perfRefresh;
+    private AnimationTimer frameTimer;
 
     @Override
     public void initialize(URL location, ResourceBundle resources) {
         // Inicjalizacja wszystkich komponentów przy uruchomieniu kontrolera
         config = new AcquisitionConfig();
         physicalParams = new PhysicalParameters();
-        statisticsService = new StatisticsService();
         signalProcessingService = new SignalProcessingService();
-        acquisitionService = new DataAcquisitionService(dwf);
+        analysisService = new ParallelAnalysisService();
+        analysisCache = new AnalysisCache(analysisService, AnalysisCache.DEFAULT_MAX_BYTES);
+        deviceSession = new DeviceSessionService(new DwfAnalogDevice(dwf));
+        acquisitionService = new DataAcquisitionService(deviceSession);
+        LoopAnalysisService loopAnalysisService = new LoopAnalysisService();
+        sweepService = new ExcitationSweepService(acquisitionService, loopAnalysisService);
+        regulationService = new ExcitationRegulationService(acquisitionService, loopAnalysisService);
+        delayCalibrationService = new DelayCalibrationService(acquisitionService);
+        continuousService = new ContinuousAcquisitionService(acquisitionService);
+        rollingService = new RollingAcquisitionService(acquisitionService);
 
         initializeCharts();
         initializeSpinners();
@@ -90,6 +208,81 @@ public class MainController implements Initializable {
         setupCustomLegend();
         setupCanvasBinding();
         updateInfoLabel();
+
+        // Otwarcie urządzenia w tle - okno pojawia się od razu, stan widoczny w etykiecie
+        deviceSession.addStateListener(state -> Platform.runLater(() -> updateDeviceStatus(state)));
+        deviceSession.openAsync();
+
+        // Okresowy zrzut metryk do pliku: -Ddemo2.metrics.file=metrics.log [-Ddemo2.metrics.period=10]
+        String metricsFile = System.getProperty("demo2.metrics.file");
+        if (metricsFile != null) {
+            MetricsRegistry.getDefault().startDump(Path.of(metricsFile),
+                    Long.getLong("demo2.metrics.period", 10));
+        }
+    }
+
+    private String perfOverlayText() {
+        // Metryki okna + wybrane jądra (wersja skalarna z powodem, gdy SIMD nie przeszło samosprawdzenia)
+        return performanceMonitor.sample() + "\njądra        " + KernelSelector.status();
+    }
+
+    @FXML
+    private void handlePerfOverlayToggle() {
+        // Włączenie/wyłączenie nakładki wydajności nad wykresami
+        boolean on = perfOverlayToggle.isSelected();
+        perfOverlayLabel.setVisible(on);
+
+        if (on) {
+            performanceMonitor = new PerformanceMonitor(MetricsRegistry.getDefault()); // Okno liczone od teraz
+            perfRefresh = new Timeline(new KeyFrame(PERF_REFRESH,
+                    e -> perfOverlayLabel.setText(perfOverlayText())));
+            perfRefresh.setCycleCount(Timeline.INDEFINITE);
+            perfRefresh.play();
+
+            // Czas klatki = odstęp między kolejnymi pulsami wątku FX
+            frameTimer = new AnimationTimer() {
+                private long last;
+
+                @Override
+                public void handle(long now) {
+                    if (last != 0) PipelineMetrics.FX_FRAME.record(now - last);
+                    last = now;
+                }
+            };
+            frameTimer.start();
+            perfOverlayLabel.setText(perfOverlayText());
+        } else {
+            stopPerfOverlay();
+        }
+    }
+
+    private void stopPerfOverlay() {
+        if (perfRefresh != null) perfRefresh.stop();
+        if (frameTimer != null) frameTimer.stop();
+        perfRefresh = null;
+        frameTimer = null;
+    }
+
+    private void updateDeviceStatus(DeviceSessionService.State state) {
+        // Aktualizacja etykiety stanu połączenia z urządzeniem
+        switch (state) {
+            case CONNECTING -> {
+                deviceStatusLabel.setText("Urządzenie: łączenie...");
+                deviceStatusLabel.setStyle("-fx-font-weight: bold; -fx-text-fill: #b7950b;");
+            }
+            case OPEN -> {
+                deviceStatusLabel.setText("Urządzenie: połączone");
+                deviceStatusLabel.setStyle("-fx-font-weight: bold; -fx-text-fill: #1e8449;");
+            }
+            case LOST -> {
+                deviceStatusLabel.setText("Urządzenie: utracone - ponowne łączenie...");
+                deviceStatusLabel.setStyle("-fx-font-weight: bold; -fx-text-fill: #c0392b;");
+            }
+            default -> {
+                deviceStatusLabel.setText("Urządzenie: rozłączone");
+                deviceStatusLabel.setStyle("-fx-font-weight: bold; -fx-text-fill: #555;");
+            }
+        }
     }
 
     private void setupCanvasBinding() {
@@ -125,6 +318,8 @@ public class MainController implements Initializable {
         xyChart.getData().addAll(xyRaw, xyAvg);                    // Dodanie obu serii do wykresu
         xyChart.setAnimated(false);
         xyChart.setLegendVisible(false);                           // Ukrycie standardowej legendy (używamy własnej)
+        xyChart.getXAxis().setLabel("H [A/m]");                    // Pętla w jednostkach fizycznych (PhysicalParameters)
+        xyChart.getYAxis().setLabel("B [T]");
     }
 
     private void initializeSpinners() {
@@ -150,11 +345,11 @@ public class MainController implements Initializable {
             calculateBufferFromTime();                             // Przeliczenie rozmiaru bufora z czasu
         });
 
-        // Konfiguracja spinnera rozmiaru bufora (od 100 do 1,000,000 próbek)
+        // Konfiguracja spinnera rozmiaru bufora (od 100 próbek do limitu pamięci dla formatu próbek)
         bufferSizeSpinner.setValueFactory(
                 new SpinnerValueFactory.IntegerSpinnerValueFactory(
                         AcquisitionConfig.MIN_BUFFER_SIZE,         // Minimalny bufor (100)
-                        AcquisitionConfig.MAX_BUFFER_SIZE,         // Maksymalny bufor (1,000,000) -- ograniczony z powodu problemow z wydajnością
+                        AcquisitionConfig.maxBufferSize(config.getSampleFormat()), // Maksymalny bufor - część sterty (kanały segmentowane)
                         config.getBufferSize(), 100));
         bufferSizeSpinner.setEditable(true);
         bufferSizeSpinner.valueProperty().addListener((obs, oldVal, newVal) -> {
@@ -162,12 +357,59 @@ public class MainController implements Initializable {
             calculateTimeFromBuffer();                             // Przeliczenie czasu z rozmiaru bufora
         });
 
+        // Format próbek - float32 zmniejsza o połowę pamięć długich rekordów
+        sampleFormatBox.getItems().addAll(SampleFormat.values());
+        sampleFormatBox.setValue(config.getSampleFormat());
+        sampleFormatBox.valueProperty().addListener((obs, oldVal, newVal) -> {
+            config.setSampleFormat(newVal);
+            // Mniejsze próbki = dłuższy rekord w tej samej pamięci
+            ((SpinnerValueFactory.IntegerSpinnerValueFactory) bufferSizeSpinner.getValueFactory())
+                    .setMax(AcquisitionConfig.maxBufferSize(newVal));
+            calculateBufferFromTime();
+        });
+
+        // Binning pętli - zmiana od razu przelicza pokazany pomiar (bez akwizycji)
+        binningModeBox.getItems().addAll(BinningMode.values());
+        binningModeBox.setValue(binningMode);
+        binningModeBox.valueProperty().addListener((obs, oldVal, newVal) -> {
+            binningMode = newVal;
+            if (shownData != null) showData(shownData);
+        });
 
+        // Filtr szumów - działa od następnej akwizycji (tryby ciągłe: od ponownego startu)
+        filterTypeBox.getItems().addAll(FilterType.values());
+        filterTypeBox.setValue(config.getFilter().getType());
+        filterCutoffField.setText("1000");
+        filterOrderField.setText("63");
+        filterTypeBox.valueProperty().addListener((obs, oldVal, newVal) -> updateFilterStage());
+        filterCutoffField.textProperty().addListener((obs, oldVal, newVal) -> updateFilterStage());
+        filterOrderField.textProperty().addListener((obs, oldVal, newVal) -> updateFilterStage());
+        updateFilterStage();
+
+        // Opóźnienie CH1 - wpisane ręcznie albo z kalibracji (przycisk "Kalibruj")
+        channelDelayField.setText("0");
+        channelDelayField.textProperty().addListener((obs, oldVal, newVal) -> updateFilterStage());
+
+        // Przepróbkowanie do stałej liczby punktów na okres generatora (freqSpinner)
+        pointsPerCycleSpinner.setValueFactory(
+                new SpinnerValueFactory.IntegerSpinnerValueFactory(0, 65_536, config.getPointsPerCycle(), 64));
+        pointsPerCycleSpinner.setEditable(true);
+        pointsPerCycleSpinner.valueProperty().addListener((obs, oldVal, newVal) -> {
+            config.setPointsPerCycle(newVal);
+            updateInfoLabel();
+        });
+        // Tryb ciągły nie przepróbkowuje - ustawienie zablokowane na czas pomiaru ciągłego
+        pointsPerCycleSpinner.disableProperty().bind(continuousToggle.selectedProperty());
 
         //--- konfiguracja generatora ---//
         // Konfiguracja spinnerów dla generatora sygnałów (wyjście analogowe)
         freqSpinner.setValueFactory(new SpinnerValueFactory.DoubleSpinnerValueFactory(1.0, 20_000.0, 100.0, 10.0));
         freqSpinner.setEditable(true);                             // Częstotliwość od 1Hz do 20kHz, domyślnie 100Hz krok 10hz
+        config.setExcitationHz(freqSpinner.getValue());            // Okres przepróbkowania = okres generatora
+        freqSpinner.valueProperty().addListener((obs, oldVal, newVal) -> {
+            config.setExcitationHz(newVal);
+            updateInfoLabel();
+        });
 
         ampSpinner.setValueFactory(new SpinnerValueFactory.DoubleSpinnerValueFactory(0.0, 5.0, 2.0, 0.1));
         ampSpinner.setEditable(true);                              // Amplituda od 0 do 5V, domyślnie 2V
@@ -184,9 +426,19 @@ public class MainController implements Initializable {
         turnsBField.setText(String.valueOf(physicalParams.getTurnsB()));
         areaField.setText(String.valueOf(physicalParams.getArea()));
 
+        // Każda edycja parametru od razu przeskalowuje wyświetlaną pętlę i parametry
+        for (TextField field : List.of(turnsExcField, pathLenField, shuntField, turnsBField, areaField)) {
+            field.textProperty().addListener((obs, oldVal, newVal) -> applyPhysicalParameters());
+        }
+
         // Konfiguracja ComboBox z kształtami fal wyjściowych
         waveBox.getItems().addAll("SINUS", "PROSTOKĄT", "TRÓJKĄT", "STAŁA"); // Dostępne kształty fal
+        waveBox.getItems().addAll("SINUS+DC", "TRAPEZ (dB/dt)");             // Kształty własne (WaveformGenerator)
         waveBox.setValue("SINUS");                                           // Domyślny kształt - sinus
+
+        // Wielkość regulowana w pętli zamkniętej
+        regTargetBox.getItems().addAll("B_peak [T]", "H_peak [A/m]");
+        regTargetBox.setValue("B_peak [T]");
     }
 
     private void setupCustomLegend() {
@@ -223,10 +475,10 @@ public class MainController implements Initializable {
             calculatedBuffer = AcquisitionConfig.MIN_BUFFER_SIZE;            // Ustaw minimum
             acquisitionTimeSpinner.getValueFactory().setValue(              // Korekta czasu
                     (double) AcquisitionConfig.MIN_BUFFER_SIZE / config.getSampleRateHz());
-        } else if (calculatedBuffer > AcquisitionConfig.MAX_BUFFER_SIZE) {
-            calculatedBuffer = AcquisitionConfig.MAX_BUFFER_SIZE;           // Ustaw maximum
+        } else if (calculatedBuffer > AcquisitionConfig.maxBufferSize(config.getSampleFormat())) {
+            calculatedBuffer = AcquisitionConfig.maxBufferSize(config.getSampleFormat()); // Ustaw maximum (limit pamięci)
             acquisitionTimeSpinner.getValueFactory().setValue(              // Korekta czasu
-                    (double) AcquisitionConfig.MAX_BUFFER_SIZE / config.getSampleRateHz());
+                    (double) calculatedBuffer / config.getSampleRateHz());
         }
 
         config.setBufferSize(calculatedBuffer);                             // Zapisanie nowego rozmiaru bufora
@@ -249,40 +501,333 @@ public class MainController implements Initializable {
             sampleRateSpinner.getValueFactory().setValue(1000); // Ustaw domyślną 1000 Hz
         }
         calculateBufferFromTime();                       // Przeliczenie bufora dla nowej częstotliwości
-        updateInfoLabel();                               // Odświeżenie informacji
+        updateFilterStage();                                  // Odcięcie filtru musi leżeć poniżej fs/2
+    }
+
+    private void updateFilterStage() {
+        // Filtr szumów i opóźnienie CH1 z pól UI; błędne ustawienia wyłączają filtr (opis w infoLabel)
+        FilterType type = filterTypeBox.getValue();
+        filterCutoffField.setDisable(type == null || !type.hasCutoff());
+        filterOrderField.setDisable(type == null || type == FilterType.NONE);
+        filterError = null;
+        FilterSpec spec = FilterSpec.NONE;
+        if (type != null && type != FilterType.NONE) {
+            try {
+                double cutoff = type.hasCutoff() ? Double.parseDouble(filterCutoffField.getText()) : 0;
+                spec = new FilterSpec(type, cutoff, Integer.parseInt(filterOrderField.getText().trim()));
+                FilterBank.create(spec, config.getSampleRateHz()); // walidacja względem fs (współczynniki zostają w pamięci)
+            } catch (IllegalArgumentException e) {           // także NumberFormatException
+                filterError = e.getMessage();
+                spec = FilterSpec.NONE;
+            }
+        }
+        config.setFilter(spec);
+
+        double delaySec = 0;
+        try {
+            delaySec = Double.parseDouble(channelDelayField.getText()) * 1e-6;
+            if (Math.abs(delaySec * config.getSampleRateHz()) > FilterStage.MAX_DELAY_SAMPLES) {
+                filterError = "opóźnienie CH1 ponad " + FilterStage.MAX_DELAY_SAMPLES + " próbek";
+                delaySec = 0;
+            }
+        } catch (NumberFormatException e) {
+            // Pole w trakcie edycji - bez kompensacji do czasu poprawnej wartości
+        }
+        config.setChannelDelaySec(delaySec);
+        updateInfoLabel();
+    }
+
+    @FXML
+    private void handleCalibrateDelay() {
+        // Kalibracja opóźnienia: oba wejścia podłączone do tego samego sygnału odniesienia
+        if (continuousService.isRunning() || rollingService.isRunning()) return; // Urządzenie zajęte
+        AcquisitionConfig calibrationConfig = new AcquisitionConfig(config);
+        infoLabel.setText("Kalibracja opóźnienia - CH0 i CH1 podłączone do wspólnego sygnału...");
+        new Thread(() -> {
+            try {
+                ChannelDelay delay = delayCalibrationService.calibrate(calibrationConfig);
+                Platform.runLater(() -> {
+                    channelDelayField.setText(String.format(Locale.ROOT, "%.4f", delay.getDelaySeconds() * 1e6));
+                    infoLabel.setText("Opóźnienie CH1: " + delay);
+                });
+            } catch (Exception e) {
+                Platform.runLater(() -> infoLabel.setText("Kalibracja opóźnienia nieudana: " + e.getMessage()));
+            }
+        }, "delay-calibration").start();
     }
 
     private void updateInfoLabel() {
         // Aktualizacja etykiety z informacjami o bieżących parametrach akwizycji
         double actualTime = config.calculateTimeFromBuffer(); // Rzeczywisty czas obliczony z bufora
-        infoLabel.setText(String.format("Bufor: %d próbek, Czas: %.3fs, Częstotliwość: %d Hz",
-                config.getBufferSize(), actualTime, config.getSampleRateHz()));
+        infoLabel.setText(String.format("Bufor: %d próbek, Czas: %.3fs, Częstotliwość: %d Hz, Filtr: %s, Opóźnienie CH1: %.3f µs%s",
+                config.getBufferSize(), actualTime, config.getSampleRateHz(), config.getFilter(),
+                config.getChannelDelaySec() * 1e6,
+                filterError != null ? " (nieaktywny: " + filterError + ")" : "")
+                + (config.isCycleResampling()
+                        ? String.format(", Analiza: %d pkt/okres (%.0f Hz)",
+                                config.getPointsPerCycle(), config.getAnalysisSampleRateHz())
+                        : ""));
     }
 
     @FXML
     private void handleAcquire() {
         // Obsługa przycisku "Acquire" - rozpoczyna akwizycję danych
+        if (continuousService.isRunning() || rollingService.isRunning()) return; // Tryby ciągłe i tak dostarczają nowe pomiary
         updateAcquisitionParameters();                   // Aktualizacja parametrów przed pomiarem
 
         // Uruchomienie akwizycji w osobnym wątku, aby nie blokować interfejsu użytkownika
         new Thread(() -> {
             try {
                 // Akwizycja danych z urządzenia (pomiar napięć na obu kanałach)
+                double rateHz = config.getAnalysisSampleRateHz();
                 HysteresisData data = acquisitionService.acquire(config);
+                lastDataRateHz = rateHz;
+                lastData = data;
 
                 // Aktualizacja UI musi być wykonana w wątku JavaFX (Platform.runLater)
-                Platform.runLater(() -> {
-                    updateStats(data.getCh0Integrated(), data.getCh1Data());        // Obliczenie statystyk
-                    updateTimeChart(data.getCh0Integrated(), data.getCh1Data());    // Rysowanie wykresów czasowych
-                    updateXYChart(data.getCh0Integrated(), data.getCh1Data());      // Rysowanie wykresu XY
-                    drawHysteresisLoop(data.getCh0Integrated(), data.getCh1Data()); // Rysowanie pętli na Canvas
-                });
+                Platform.runLater(() -> showData(data));
             } catch (Exception e) {
-                e.printStackTrace();                   // Obsługa błędów
+                LOG.log(Level.ERROR, "Akwizycja nieudana", e); // Obsługa błędów
             }
         }).start();                                    // Start wątku akwizycji
     }
 
+    private void showData(HysteresisData data) {
+        // Statystyki, wykresy i Canvas dla jednego pomiaru (wątek FX)
+        // Kanały w formacie akwizycji (double lub float) - bez kopii do double[]
+        SampleChannel ch0 = data.getCh0IntegratedChannel();
+        SampleChannel ch1 = data.getCh1Channel();
+        long fp = AnalysisCache.fingerprint(ch0, ch1); // Klucz wyników w analysisCache
+        shownData = data;
+        shownFingerprint = fp;
+        updateStats(fp, ch0, ch1);        // Obliczenie statystyk
+        long chartStart = System.nanoTime();
+        FrameRenderEvent chartEvent = new FrameRenderEvent();
+        chartEvent.begin();
+        updateTimeChart(ch0, ch1);        // Rysowanie wykresów czasowych
+        updateXYChart(fp, ch1, ch0);      // Rysowanie wykresu XY (H na osi X, B na osi Y)
+        PipelineMetrics.CHART_UPDATE.recordSince(chartStart);
+        chartEvent.finish(FrameRenderEvent.CHARTS, ch1.length());
+        drawHysteresisLoop(fp, ch1, ch0); // Rysowanie pętli na Canvas (ta sama pętla z pamięci podręcznej)
+    }
+
+    private void applyPhysicalParameters() {
+        // Zmiana zwojów/długości drogi/bocznika/przekroju: tylko przeskalowanie wyników
+        // ostatniego pomiaru - uśredniona pętla (w woltach) pochodzi z analysisCache,
+        // punkty wykresu XY są mnożone przez stosunek nowej i starej skali
+        if (!updatePhysicalParameters()) return;        // Któreś pole niepoprawne - skale bez zmian
+        double hScale = physicalParams.hScale();
+        double bScale = physicalParams.bScale();
+        if (!isUsableScale(hScale) || !isUsableScale(bScale)) return; // Pole w trakcie edycji (np. "0.")
+        if (shownData == null) return;
+
+        SampleChannel hSig = shownData.getCh1Channel();
+        SampleChannel bSig = shownData.getCh0IntegratedChannel();
+        int step = Math.max(1, hSig.length() / AcquisitionConfig.DEFAULT_PLOT_POINTS);
+        AveragedLoop loop = analysisCache.average(shownFingerprint, hSig, bSig, step, LoopAveragingService.AUTO_BINS, binningMode);
+        rescaleXYChart(hScale, bScale);
+        renderLoop(loop, hScale, bScale, hSig.length());
+        if (!loop.isEmpty()) {
+            computeHysteresisStats(loop.getRisingX(), loop.getRisingY(), loop.getFallingX(), loop.getFallingY());
+        }
+    }
+
+    private void rescaleXYChart(double hScale, double bScale) {
+        // Przekształcenie afiniczne narysowanych punktów - bez ponownego czytania próbek
+        double kx = hScale / plottedHScale;
+        double ky = bScale / plottedBScale;
+        for (XYChart.Data<Number, Number> point : xyRaw.getData()) {
+            point.setXValue(point.getXValue().doubleValue() * kx);
+            point.setYValue(point.getYValue().doubleValue() * ky);
+        }
+        for (XYChart.Data<Number, Number> point : xyAvg.getData()) {
+            point.setXValue(point.getXValue().doubleValue() * kx);
+            point.setYValue(point.getYValue().doubleValue() * ky);
+        }
+        plottedHScale = hScale;
+        plottedBScale = bScale;
+    }
+
+    private static boolean isUsableScale(double scale) {
+        return scale > 0 && Double.isFinite(scale);
+    }
+
+    @FXML
+    private void handleContinuousToggle() {
+        // Pomiar ciągły: urządzenie zapisuje kolejny bufor, gdy poprzedni jest przetwarzany i rysowany
+        if (!continuousToggle.isSelected()) {
+            stopContinuous();
+            return;
+        }
+        stopRolling();                                   // Urządzenie obsługuje jeden tryb naraz
+        updateAcquisitionParameters();
+        if (config.isCycleResampling()) {
+            infoLabel.setText("Pomiar ciągły bez przepróbkowania - punkty na okres ("
+                    + config.getPointsPerCycle() + ") dotyczą tylko pomiaru pojedynczego i podglądu przewijanego");
+        }
+
+        // Ramki: urządzenie + całkowanie + oczekująca na FX + wyświetlana (lastData)
+        continuousService.start(config, ContinuousAcquisitionService.DEFAULT_DEPTH + 1,
+                this::onContinuousFrame,
+                e -> Platform.runLater(() -> {
+                    continuousToggle.setSelected(false);
+                    infoLabel.setText("Pomiar ciągły przerwany: " + e.getMessage());
+                }));
+    }
+
+    private void onContinuousFrame(AcquisitionFrame frame) {
+        // Wątek przetwarzania: jeśli FX nie narysował jeszcze poprzedniej ramki, zastępujemy ją nowszą
+        AcquisitionFrame skipped = pendingFrame.getAndSet(frame);
+        if (skipped != null) {
+            skipped.release();
+        } else {
+            Platform.runLater(this::showPendingFrame);
+        }
+    }
+
+    private void showPendingFrame() {
+        AcquisitionFrame frame = pendingFrame.getAndSet(null);
+        if (frame == null) return;
+
+        showData(frame.getData());
+        lastDataRateHz = config.getSampleRateHz();      // Tryb ciągły nie przepróbkowuje
+        lastData = frame.getData();
+        if (shownFrame != null) shownFrame.release(); // Poprzednia ramka wraca do puli
+        shownFrame = frame;
+    }
+
+    @FXML
+    private void handleRollToggle() {
+        // Podgląd przewijany: strumień bez końca, na wykresach czasowych ostatnie N sekund (czas akwizycji)
+        if (!rollToggle.isSelected()) {
+            stopRolling();
+            return;
+        }
+        continuousToggle.setSelected(false);
+        stopContinuous();
+        updateAcquisitionParameters();
+        updatePhysicalParameters();
+
+        // B_sat/B_r/H_c liczone na bieżąco dla każdego cyklu - etykiety pokazują ostatni
+        lastCycle.set(null);
+        long startMillis = System.currentTimeMillis();
+        double sampleRate = config.getAnalysisSampleRateHz(); // Po przepróbkowaniu - częstotliwość punktów na okres
+        OnlineLoopTracker tracker = new OnlineLoopTracker(sampleRate,
+                physicalParams.hScale(), physicalParams.bScale(), cycle -> {
+                    lastCycle.set(cycle);
+                    // Czas cyklu z numeru próbki - porcje strumienia przychodzą z opóźnieniem
+                    TrendStore store = trendStore;
+                    if (trendRecording && store != null) {
+                        store.append(startMillis + Math.round(cycle.getEndSample() * 1000.0 / sampleRate), cycle);
+                    }
+                });
+        RollingSampleBuffer buffer = rollingService.start(config, config.getBufferSize(), tracker,
+                e -> Platform.runLater(() -> {
+                    stopRolling();
+                    infoLabel.setText("Podgląd przewijany przerwany: " + e.getMessage());
+                }));
+        if (!deviceSession.getDevice().analogInRecordLossSupported()) {
+            // waveforms4j bez FDwfAnalogInStatusRecord - przepełnienie FIFO nie jest widoczne
+            infoLabel.setText("Podgląd przewijany: urządzenie nie raportuje utraconych próbek - "
+                    + "przy przepełnieniu FIFO luki w strumieniu nie są wykrywane");
+        }
+        double bucketSeconds = buffer.getBucketSize() / sampleRate;
+        rollTimer = new AnimationTimer() {
+            @Override
+            public void handle(long now) {
+                drawRolling(buffer, bucketSeconds);
+            }
+        };
+        rollTimer.start();
+    }
+
+    private void drawRolling(RollingSampleBuffer buffer, double bucketSeconds) {
+        // Obwiednia min/max: dla każdego przedziału dwa punkty (min, max) w tej samej chwili
+        // - widoczne są też szpilki krótsze niż przedział. Oś X: czas względem teraz [s]
+        long chartStart = System.nanoTime();
+        int n = buffer.envelope(rollMin0, rollMax0, rollMin1, rollMax1);
+        setEnvelope(timeCh0, rollMin0, rollMax0, n, bucketSeconds);
+        setEnvelope(timeCh1, rollMin1, rollMax1, n, bucketSeconds);
+        PipelineMetrics.CHART_UPDATE.recordSince(chartStart);
+
+        CycleMetrics cycle = lastCycle.getAndSet(null);
+        if (cycle != null) {
+            bsatLabel.setText(String.format("%.4f", cycle.getBPeak())); // Amplituda B w cyklu [T]
+            brLabel.setText(String.format("%.4f", cycle.getBr()));     // (B_r+ - B_r-) / 2 [T]
+            hcLabel.setText(String.format("%.4f", cycle.getHc()));     // (H_c+ - H_c-) / 2 [A/m]
+        }
+    }
+
+    private static void setEnvelope(XYChart.Series<Number, Number> series, double[] min, double[] max,
+                                     int n, double bucketSeconds) {
+        // Punkty serii są używane ponownie - bez alokacji po zapełnieniu okna
+        ObservableList<XYChart.Data<Number, Number>> points = series.getData();
+        if (points.size() > 2 * n) points.remove(2 * n, points.size());
+        for (int k = 0; k < n; k++) {
+            double t = (k + 1 - n) * bucketSeconds;
+            setPoint(points, 2 * k, t, min[k]);
+            setPoint(points, 2 * k + 1, t, max[k]);
+        }
+    }
+
+    private static void setPoint(ObservableList<XYChart.Data<Number, Number>> points, int i, double x, double y) {
+        if (i < points.size()) {
+            XYChart.Data<Number, Number> point = points.get(i);
+            point.setXValue(x);
+            point.setYValue(y);
+        } else {
+            points.add(new XYChart.Data<>(x, y));
+        }
+    }
+
+    private void stopRolling() {
+        if (rollTimer != null) rollTimer.stop();
+        rollTimer = null;
+        rollToggle.setSelected(false);
+        try {
+            rollingService.stop();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @FXML
+    private void handleTrendRecordToggle() {
+        // Zapis parametrów każdego cyklu (podgląd przewijany) do magazynu trendu
+        boolean on = trendRecordToggle.isSelected() && openTrendStore() != null;
+        trendRecordToggle.setSelected(on);
+        trendRecording = on;
+    }
+
+    @FXML
+    private void handleShowTrend() {
+        // Okno wykresu trendu - czyta poziomy zagregowane, nie surowe cykle
+        TrendStore store = openTrendStore();
+        if (store == null) return;
+        if (trendWindow == null) trendWindow = new TrendWindow(store);
+        trendWindow.show();
+    }
+
+    private TrendStore openTrendStore() {
+        if (trendStore != null) return trendStore;
+        Path dir = Path.of(System.getProperty("demo2.trend.dir",
+                Path.of(System.getProperty("user.home"), "demo2-trend").toString()));
+        try {
+            trendStore = new TrendStore(dir);
+        } catch (IOException e) {
+            infoLabel.setText("Nie można otworzyć trendu " + dir + ": " + e.getMessage());
+        }
+        return trendStore;
+    }
+
+    private void stopContinuous() {
+        try {
+            continuousService.stop();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
     @FXML
     private void handleQuick100ms() {
         // Ustawienie szybkiego czasu akwizycji 100ms (przydatne do testów)
@@ -306,39 +851,234 @@ public class MainController implements Initializable {
         // Obsługa przycisku "Apply & On" - konfiguruje i włącza generator sygnałów
         updatePhysicalParameters();                    // Aktualizacja parametrów fizycznych z pól tekstowych
 
-        // Konfiguracja generatora sygnałów (wyjście analogowe) z wybranymi parametrami
-        acquisitionService.configureAnalogOut(
-                waveBox.getValue(),
-                freqSpinner.getValue(),
-                ampSpinner.getValue(),
-                offsetSpinner.getValue());
+        String wave = waveBox.getValue();
+        try {
+            customTable = customWaveTable(wave);   // Kształt własny - tablica z cache generatora
+        } catch (IllegalArgumentException e) {
+            infoLabel.setText("Błędny parametr kształtu \"" + wave + "\": " + waveParamField.getText());
+            return;
+        }
+        if (customTable != null) {
+            // Tablica wgrywana do urządzenia tylko przy zmianie
+            try {
+                acquisitionService.configureAnalogOutCustom(
+                        customTable, freqSpinner.getValue(), ampSpinner.getValue(), offsetSpinner.getValue());
+            } catch (IllegalStateException e) {
+                infoLabel.setText("Błąd generatora: " + e.getMessage());
+                return;
+            }
+        } else {
+            // Konfiguracja generatora sygnałów (wyjście analogowe) z wybranymi parametrami
+            acquisitionService.configureAnalogOut(
+                    wave,
+                    freqSpinner.getValue(),
+                    ampSpinner.getValue(),
+                    offsetSpinner.getValue());
+        }
 
         acquisitionService.enableAnalogOut(true);       // Włączenie wyjścia analogowego
     }
 
+    /**
+     * Tablica kształtu własnego (SINUS+DC, TRAPEZ) z parametrem z waveParamField;
+     * null dla funkcji wbudowanych generatora.
+     *
+     * @throws IllegalArgumentException błędny parametr kształtu
+     */
+    private double[] customWaveTable(String wave) {
+        if (!wave.equals("SINUS+DC") && !wave.startsWith("TRAPEZ")) return null;
+        double param = Double.parseDouble(waveParamField.getText());
+        return wave.equals("SINUS+DC")
+                ? waveformGenerator.sineWithBias(param)
+                : waveformGenerator.trapezoid(param);
+    }
+
+    @FXML
+    private void handlePredistort() {
+        // Jeden krok korekcji przebiegu generatora tak, aby B(t) z ostatniego pomiaru dążyło do sinusa
+        HysteresisData data = lastData;
+        if (data == null) return;                        // Brak pomiaru do korekcji
+
+        double[] base = customTable != null && customTable.length == WaveformGenerator.TABLE_SIZE
+                ? customTable
+                : waveformGenerator.sineWithBias(0.0);   // Start od czystego sinusa
+        double samplesPerCycle = lastDataRateHz / freqSpinner.getValue();
+
+        try {
+            customTable = waveformGenerator.predistort(
+                    base, data.getCh0Integrated(), data.getCh1Data(), samplesPerCycle, 0.5);
+        } catch (IllegalArgumentException e) {
+            LOG.log(Level.WARNING, "Predystorsja przebiegu nieudana", e);
+            return;
+        }
+        try {
+            acquisitionService.configureAnalogOutCustom(
+                    customTable, freqSpinner.getValue(), ampSpinner.getValue(), offsetSpinner.getValue());
+        } catch (IllegalStateException e) {
+            infoLabel.setText("Błąd generatora: " + e.getMessage());
+            return;
+        }
+        acquisitionService.enableAnalogOut(true);
+    }
+
     @FXML
     private void handleOutputOff() {
         // Obsługa przycisku "Output Off" - wyłącza generator sygnałów
         acquisitionService.enableAnalogOut(false);      // Wyłączenie wyjścia analogowego
     }
 
-    private void updatePhysicalParameters() {
-        // Aktualizacja parametrów fizycznych na podstawie wartości z pól tekstowych
+    @FXML
+    private void handleSweepStart() {
+        // Obsługa przycisku "Uruchom sweep" - seria pomiarów dla kolejnych amplitud/częstotliwości
+        if (sweepService.isRunning()) return;         // Jeden sweep naraz
+        updatePhysicalParameters();
+        updateAcquisitionParameters();
+
+        SweepConfig sweep;
+        try {
+            List<Double> amplitudes = SweepConfig.linearRange(
+                    Double.parseDouble(sweepStartField.getText()),
+                    Double.parseDouble(sweepStopField.getText()),
+                    Integer.parseInt(sweepStepsField.getText()));
+
+            // Pusta lista częstotliwości = bieżąca częstotliwość generatora
+            List<Double> frequencies = new ArrayList<>();
+            for (String f : sweepFreqField.getText().split("[,; ]+")) {
+                if (!f.isBlank()) frequencies.add(Double.parseDouble(f));
+            }
+            if (frequencies.isEmpty()) frequencies.add(freqSpinner.getValue());
+
+            // Kształt własny przechodzi do sweepu jako tablica (configureAnalogOutCustom)
+            sweep = new SweepConfig(waveBox.getValue(), customWaveTable(waveBox.getValue()), amplitudes, frequencies,
+                    offsetSpinner.getValue(), Long.parseLong(sweepSettleField.getText()));
+        } catch (IllegalArgumentException e) {
+            sweepResultArea.setText("Błędne parametry sweepu: " + e.getMessage());
+            return;
+        }
+
+        double hScale = physicalParams.hScale();
+        double bScale = physicalParams.bScale();
+        int total = sweep.getPointCount();
+        List<SweepPoint> done = new ArrayList<>();
+        sweepResultArea.setText("Sweep: 0/" + total);
+        sweepStartButton.setDisable(true);
+
+        // Sweep trwa długo (czas ustalania × liczba punktów) - zawsze poza wątkiem UI
+        new Thread(() -> {
+            try {
+                List<SweepPoint> points = sweepService.run(sweep, config, hScale, bScale, point ->
+                        Platform.runLater(() -> {
+                            done.add(point);
+                            sweepResultArea.setText("Sweep: " + done.size() + "/" + total + "\n"
+                                    + ExcitationSweepService.formatTable(done));
+                        }));
+                Platform.runLater(() -> sweepResultArea.setText(ExcitationSweepService.formatTable(points)));
+            } catch (Exception e) {
+                LOG.log(Level.ERROR, "Sweep wzbudzenia przerwany błędem", e);
+                Platform.runLater(() -> sweepResultArea.appendText("\nBłąd sweepu: " + e.getMessage()));
+            } finally {
+                Platform.runLater(() -> sweepStartButton.setDisable(false));
+            }
+        }, "excitation-sweep").start();
+    }
+
+    @FXML
+    private void handleSweepStop() {
+        // Przerwanie sweepu - bieżący punkt porzucany, zmierzone punkty zostają w wyniku
+        sweepService.cancel();
+    }
+
+    @FXML
+    private void handleRegulate() {
+        // Obsługa przycisku "Reguluj amplitudę" - automatyczne dobranie amplitudy do zadanego B_peak/H_peak
+        updatePhysicalParameters();
+        updateAcquisitionParameters();
+
+        double setpoint, tolerance;
         try {
-            physicalParams.setTurnsExc(Double.parseDouble(turnsExcField.getText()));
-            physicalParams.setPathLen(Double.parseDouble(pathLenField.getText()));
-            physicalParams.setShunt(Double.parseDouble(shuntField.getText()));
-            physicalParams.setTurnsB(Double.parseDouble(turnsBField.getText()));
-            physicalParams.setArea(Double.parseDouble(areaField.getText()));
+            setpoint = Double.parseDouble(regSetpointField.getText());
+            tolerance = Double.parseDouble(regToleranceField.getText()) / 100.0;
         } catch (NumberFormatException e) {
-            // W przypadku błędu konwersji (nieprawidłowy format) zachowujemy poprzednie wartości
+            regResultLabel.setText("Błędna wartość zadana lub tolerancja");
+            return;
+        }
+
+        ExcitationRegulationService.Target target = regTargetBox.getValue().startsWith("H")
+                ? ExcitationRegulationService.Target.H_PEAK
+                : ExcitationRegulationService.Target.B_PEAK;
+        double frequency = freqSpinner.getValue();
+        double startAmplitude = ampSpinner.getValue();
+        double hScale = physicalParams.hScale();
+        double bScale = physicalParams.bScale();
+
+        // Generator musi pracować z bieżącym kształtem i częstotliwością przed startem regulacji
+        String wave = waveBox.getValue();
+        double[] table;
+        try {
+            table = customWaveTable(wave);
+        } catch (IllegalArgumentException e) {
+            regResultLabel.setText("Błędny parametr kształtu \"" + wave + "\": " + waveParamField.getText());
+            return;
         }
+        if (table != null) {
+            customTable = table;
+            try {
+                acquisitionService.configureAnalogOutCustom(table, frequency, startAmplitude, offsetSpinner.getValue());
+            } catch (IllegalStateException e) {
+                regResultLabel.setText("Błąd generatora: " + e.getMessage());
+                return;
+            }
+        } else {
+            customTable = null;
+            acquisitionService.configureAnalogOut(wave, frequency, startAmplitude, offsetSpinner.getValue());
+        }
+        acquisitionService.enableAnalogOut(true);
+        regResultLabel.setText("Regulacja...");
+
+        new Thread(() -> {
+            try {
+                RegulationResult result = regulationService.regulate(target, setpoint, tolerance, 20,
+                        startAmplitude, frequency, config, hScale, bScale);
+                Platform.runLater(() -> {
+                    regResultLabel.setText(String.format("%s: A = %.4f V, zmierzone = %.4g, iteracje = %d, czas = %d ms",
+                            result.isLocked() ? "Zablokowano" : "Brak zbieżności",
+                            result.getAmplitude(), result.getMeasured(),
+                            result.getIterations(), result.getTimeToLockMs()));
+                    ampSpinner.getValueFactory().setValue(result.getAmplitude()); // Spinner pokazuje dobraną amplitudę
+                });
+            } catch (Exception e) {
+                LOG.log(Level.ERROR, "Regulacja wzbudzenia przerwana błędem", e);
+                Platform.runLater(() -> regResultLabel.setText("Błąd regulacji: " + e.getMessage()));
+            }
+        }, "excitation-regulation").start();
+    }
+
+    private boolean updatePhysicalParameters() {
+        // Aktualizacja parametrów fizycznych na podstawie wartości z pól tekstowych.
+        // Najpierw parsowanie wszystkich pól, zapis dopiero gdy każde jest poprawne -
+        // błąd w jednym polu (edycja w toku) nie zostawia mieszanki starych i nowych wartości
+        double turnsExc, pathLen, shunt, turnsB, area;
+        try {
+            turnsExc = Double.parseDouble(turnsExcField.getText());
+            pathLen = Double.parseDouble(pathLenField.getText());
+            shunt = Double.parseDouble(shuntField.getText());
+            turnsB = Double.parseDouble(turnsBField.getText());
+            area = Double.parseDouble(areaField.getText());
+        } catch (NumberFormatException e) {
+            return false;                                  // Zachowujemy poprzednie wartości
+        }
+        physicalParams.setTurnsExc(turnsExc);
+        physicalParams.setPathLen(pathLen);
+        physicalParams.setShunt(shunt);
+        physicalParams.setTurnsB(turnsB);
+        physicalParams.setArea(area);
+        return true;
     }
 
-    private void updateStats(double[] ch0, double[] ch1) {
+    private void updateStats(long fp, SampleChannel ch0, SampleChannel ch1) {
         // Obliczenie statystyk dla obu kanałów i aktualizacja etykiet UI
-        StatisticsService.Stats stats0 = statisticsService.compute(ch0); // obliczane w statisticsService
-        StatisticsService.Stats stats1 = statisticsService.compute(ch1);
+        StatisticsService.Stats stats0 = analysisCache.statistics(fp, 0, ch0); // obliczane w ParallelAnalysisService
+        StatisticsService.Stats stats1 = analysisCache.statistics(fp, 1, ch1);
 
         // Aktualizacja etykiet kanału 0
         min0.setText(stats0.getMin());
@@ -353,96 +1093,55 @@ public class MainController implements Initializable {
         rms1.setText(stats1.getRms());
     }
 
-    private void updateTimeChart(double[] ch0, double[] ch1) {
+    private void updateTimeChart(SampleChannel ch0, SampleChannel ch1) {
         // Aktualizacja wykresów czasowych - redukcja liczby punktów dla wydajności
         timeCh0.getData().clear();  // Wyczyszczenie poprzednich danych
         timeCh1.getData().clear();
 
         // Obliczenie kroku próbkowania dla wykresu (redukcja do ~DEFAULT_PLOT_POINTS punktów)
-        int step = Math.max(1, ch0.length / AcquisitionConfig.DEFAULT_PLOT_POINTS);
+        int step = Math.max(1, ch0.length() / AcquisitionConfig.DEFAULT_PLOT_POINTS);
 
         // Dodanie punktów do wykresów z uwzględnieniem kroku próbkowania
-        for (int i = 0, p = 0; i < ch0.length; i += step, p++) {
-            timeCh0.getData().add(new XYChart.Data<>(p, ch0[i])); // Indeks p jako czas (próbki)
-            timeCh1.getData().add(new XYChart.Data<>(p, ch1[i]));
+        for (int i = 0, p = 0; i < ch0.length(); i += step, p++) {
+            timeCh0.getData().add(new XYChart.Data<>(p, ch0.get(i))); // Indeks p jako czas (próbki)
+            timeCh1.getData().add(new XYChart.Data<>(p, ch1.get(i)));
         }
     }
 
-    private void updateXYChart(double[] xSig, double[] ySig) {
+    private void updateXYChart(long fp, SampleChannel xSig, SampleChannel ySig) {
         // Aktualizacja wykresu XY (pętla histerezy) z algorytmem uśredniania
         xyRaw.getData().clear();  //usuwanie starych danych
         xyAvg.getData().clear();
 
-        int step = Math.max(1, xSig.length / AcquisitionConfig.DEFAULT_PLOT_POINTS); // Krok redukcji
+        int step = Math.max(1, xSig.length() / AcquisitionConfig.DEFAULT_PLOT_POINTS); // Krok redukcji
 
-        // Klasa pomocnicza do przechowywania punktów z informacją o kierunku
-        class DataPoint {
-            double x, y;  // Współrzędne punktu
-            int direction; // Kierunek: +1 (rosnące x), -1 (malejące x)
+        // Punkty w jednostkach fizycznych: x = H [A/m], y = B [T]
+        if (!updatePhysicalParameters()) return;        // Któreś pole niepoprawne - skale bez zmian
+        double hScale = physicalParams.hScale();
+        double bScale = physicalParams.bScale();
+        if (!isUsableScale(hScale) || !isUsableScale(bScale)) {
+            hScale = 1;  // Niepoprawne parametry - wykres w woltach do czasu poprawienia pól
+            bScale = 1;
         }
+        plottedHScale = hScale;
+        plottedBScale = bScale;
 
-        List<DataPoint> points = new ArrayList<>();  // Lista wszystkich punktów
-
-        // Przeglądanie sygnałów z detekcją kierunku zmiany
-        for (int i = step; i < xSig.length; i += step) {
-            double dx = xSig[i] - xSig[i - step];  // Różnica x między kolejnymi punktami
-            if (Math.abs(dx) < 1e-9) continue;     // Pomijanie punktów bez zmiany (pionowe linie)
-
-            DataPoint dp = new DataPoint();
-            dp.x = xSig[i];                        // Wartość x (proporcjonalna do H)
-            dp.y = ySig[i];                        // Wartość y (proporcjonalna do B)
-            dp.direction = dx > 0 ? 1 : -1;        // Określenie kierunku (rosnąco/malejąco)
-            points.add(dp);                        // Dodanie do listy
-
-            // Dodanie surowego punktu do wykresu
-            XYChart.Data<Number, Number> dataPoint = new XYChart.Data<>(dp.x, dp.y);
-            xyRaw.getData().add(dataPoint);
+        // Surowe punkty: co step próbek, z pominięciem punktów bez zmiany x (pionowe linie)
+        for (int i = step; i < xSig.length(); i += step) {
+            double dx = xSig.get(i) - xSig.get(i - step);  // Różnica x między kolejnymi punktami
+            if (Math.abs(dx) < 1e-9) continue;
+            xyRaw.getData().add(new XYChart.Data<>(xSig.get(i) * hScale, ySig.get(i) * bScale));
         }
 
-        if (points.isEmpty()) return;  // Brak punktów do przetworzenia
-
-        // Algorytm uśredniania: podział osi x na przedziały (biny)
-        int bins = 150;  // Liczba przedziałów dla uśredniania
-        double xmin = points.stream().mapToDouble(v -> v.x).min().orElse(0);  // Minimalna wartość x
-        double xmax = points.stream().mapToDouble(v -> v.x).max().orElse(1);  // Maksymalna wartość x
-        double dx = (xmax - xmin) / (bins - 1);  // Szerokość przedziału
+        // Uśrednianie w przedziałach osi x osobno dla gałęzi rosnącej i malejącej
+        AveragedLoop loop = analysisCache.average(fp, xSig, ySig, step, LoopAveragingService.AUTO_BINS, binningMode);
+        if (loop.isEmpty()) return;  // Brak punktów do przetworzenia
 
-        // Tablice do sumowania wartości y w przedziałach dla obu kierunków
-        double[] sumRising = new double[bins], sumFalling = new double[bins];
-        int[] countRising = new int[bins], countFalling = new int[bins];
-
-        // Przydzielanie punktów do przedziałów w zależności od kierunku
-        for (DataPoint dp : points) {
-            int b = (int)((dp.x - xmin) / dx);  // Indeks przedziału
-            if (b < 0 || b >= bins) continue;   // Zabezpieczenie przed wyjściem poza zakres
-            if (dp.direction > 0) {              // Punkty z rosnącym x (górna gałąź)
-                sumRising[b] += dp.y;
-                countRising[b]++;
-            } else {                             // Punkty z malejącym x (dolna gałąź)
-                sumFalling[b] += dp.y;
-                countFalling[b]++;
-            }
+        for (int i = 0; i < loop.getRisingX().size(); i++) {
+            xyAvg.getData().add(new XYChart.Data<>(loop.getRisingX().get(i) * hScale, loop.getRisingY().get(i) * bScale));
         }
-
-        // Listy dla uśrednionych punktów (dla każdej gałęzi osobno)
-        List<Double> risingX = new ArrayList<>();
-        List<Double> risingY = new ArrayList<>();
-        List<Double> fallingX = new ArrayList<>();
-        List<Double> fallingY = new ArrayList<>();
-
-        // Obliczenie uśrednionych wartości y w każdym przedziale
-        for (int i = 0; i < bins; i++) {
-            double x = xmin + i * dx;  // Środek przedziału na osi x
-            if (countRising[i] > 0) {  // Jeśli są punkty w przedziale dla rosnącego kierunku
-                risingX.add(x);
-                risingY.add(sumRising[i] / countRising[i]);  // Średnia y
-                xyAvg.getData().add(new XYChart.Data<>(x, sumRising[i] / countRising[i]));
-            }
-            if (countFalling[i] > 0) { // Jeśli są punkty w przedziale dla malejącego kierunku
-                fallingX.add(x);
-                fallingY.add(sumFalling[i] / countFalling[i]); // Średnia y
-                xyAvg.getData().add(new XYChart.Data<>(x, sumFalling[i] / countFalling[i]));
-            }
+        for (int i = 0; i < loop.getFallingX().size(); i++) {
+            xyAvg.getData().add(new XYChart.Data<>(loop.getFallingX().get(i) * hScale, loop.getFallingY().get(i) * bScale));
         }
 
         // Aktualizacja stylów punktów na wykresie w wątku JavaFX
@@ -471,11 +1170,25 @@ public class MainController implements Initializable {
         });
 
         // Obliczenie parametrów histerezy z uśrednionych danych
-        computeHysteresisStats(risingX, risingY, fallingX, fallingY);
+        computeHysteresisStats(loop.getRisingX(), loop.getRisingY(), loop.getFallingX(), loop.getFallingY());
     }
 
-    private void drawHysteresisLoop(double[] xSig, double[] ySig) {
+    private void drawHysteresisLoop(long fp, SampleChannel xSig, SampleChannel ySig) {
         // Rysowanie pętli histerezy na Canvas (bardziej kontrolowane niż wykres)
+        int step = Math.max(1, xSig.length() / AcquisitionConfig.DEFAULT_PLOT_POINTS); // Krok redukcji
+
+        // Uśrednianie jak w updateXYChart - wynik z analysisCache, bez drugiego binningu
+        AveragedLoop loop = analysisCache.average(fp, xSig, ySig, step, LoopAveragingService.AUTO_BINS, binningMode);
+        double hScale = physicalParams.hScale();
+        double bScale = physicalParams.bScale();
+        renderLoop(loop, isUsableScale(hScale) ? hScale : 1, isUsableScale(bScale) ? bScale : 1, xSig.length());
+    }
+
+    private void renderLoop(AveragedLoop loop, double hScale, double bScale, int samples) {
+        // Pętla rysowana w woltach (kształt nie zależy od skali), opisy siatki w A/m i T
+        long renderStart = System.nanoTime();
+        FrameRenderEvent renderEvent = new FrameRenderEvent();
+        renderEvent.begin();
         GraphicsContext g = hysteresisCanvas.getGraphicsContext2D(); // Kontekst graficzny
         double w = hysteresisCanvas.getWidth();   // Szerokość Canvas
         double h = hysteresisCanvas.getHeight();  // Wysokość Canvas
@@ -484,72 +1197,13 @@ public class MainController implements Initializable {
         g.setFill(Color.BLACK);    // Tło czarne
         g.fillRect(0, 0, w, h);
 
-        int step = Math.max(1, xSig.length / AcquisitionConfig.DEFAULT_PLOT_POINTS); // Krok redukcji
-
-        class DataPoint {
-            double x, y;
-            int direction;
-        }
-
-        List<DataPoint> points = new ArrayList<>();
-
-        // Analogiczny algorytm jak w updateXYChart, ale dla rysowania na Canvas
-        for (int i = step; i < xSig.length; i += step) {
-            double dx = xSig[i] - xSig[i - step];
-            if (Math.abs(dx) < 1e-9) continue;
-
-            DataPoint dp = new DataPoint();
-            dp.x = xSig[i];
-            dp.y = ySig[i];
-            dp.direction = dx > 0 ? 1 : -1;
-            points.add(dp);
-        }
-
-        if (points.isEmpty()) return;
-
-        // Uśrednianie jak w updateXYChart
-        int bins = 150;
-        double xmin = points.stream().mapToDouble(v -> v.x).min().orElse(0);
-        double xmax = points.stream().mapToDouble(v -> v.x).max().orElse(1);
-        double dx = (xmax - xmin) / (bins - 1);
-
-        double[] sumRising = new double[bins], sumFalling = new double[bins];
-        int[] countRising = new int[bins], countFalling = new int[bins];
-
-        for (DataPoint dp : points) {
-            int b = (int)((dp.x - xmin) / dx);
-            if (b < 0 || b >= bins) continue;
-            if (dp.direction > 0) {
-                sumRising[b] += dp.y;
-                countRising[b]++;
-            } else {
-                sumFalling[b] += dp.y;
-                countFalling[b]++;
-            }
-        }
-
-        List<Double> risingX = new ArrayList<>();
-        List<Double> risingY = new ArrayList<>();
-        List<Double> fallingX = new ArrayList<>();
-        List<Double> fallingY = new ArrayList<>();
-
-        for (int i = 0; i < bins; i++) {
-            double x = xmin + i * dx;
-            if (countRising[i] > 0) {
-                risingX.add(x);
-                risingY.add(sumRising[i] / countRising[i]);
-            }
-            if (countFalling[i] > 0) {
-                fallingX.add(x);
-                fallingY.add(sumFalling[i] / countFalling[i]);
-            }
-        }
-
-        System.out.println("DEBUG Canvas: risingX.size()=" + risingX.size() + ", fallingX.size()=" + fallingX.size());
-        System.out.println("DEBUG Canvas: width=" + w + ", height=" + h);
+        List<Double> risingX = loop.getRisingX();
+        List<Double> risingY = loop.getRisingY();
+        List<Double> fallingX = loop.getFallingX();
+        List<Double> fallingY = loop.getFallingY();
 
         if (risingX.isEmpty() && fallingX.isEmpty()) {
-            System.out.println("DEBUG Canvas: Both lists empty, returning");
+            PipelineMetrics.CANVAS_EMPTY.increment();  // Brak pętli do narysowania
             return;
         }
 
@@ -573,10 +1227,6 @@ public class MainController implements Initializable {
         double sx = w / (canvasXmax - canvasXmin);  // Skala dla osi X
         double sy = h / (canvasYmax - canvasYmin);  // Skala dla osi Y
 
-        System.out.println("DEBUG Canvas: xmin=" + canvasXmin + ", xmax=" + canvasXmax);
-        System.out.println("DEBUG Canvas: ymin=" + canvasYmin + ", ymax=" + canvasYmax);
-        System.out.println("DEBUG Canvas: sx=" + sx + ", sy=" + sy);
-
         // Rysowanie uśrednionej pętli histerezy
         g.setStroke(Color.PURPLE);  // Kolor fioletowy
         g.setLineWidth(3);          // Grubość linii 3 piksele
@@ -624,11 +1274,24 @@ public class MainController implements Initializable {
             g.strokeLine(x, 0, x, h);    // Linia przez całą wysokość
         }
 
+        // Wartości linii siatki w jednostkach fizycznych
+        g.setFill(Color.LIGHTGRAY);
+        g.setFont(javafx.scene.text.Font.font("Arial", 10));
+        for (int i = 1; i < 5; i++) {
+            double b = (canvasYmin + i * (canvasYmax - canvasYmin) / 5) * bScale;
+            double hv = (canvasXmin + i * (canvasXmax - canvasXmin) / 5) * hScale;
+            g.fillText(String.format("%.3g", b), 4, h - (i * h / 5) - 3);
+            g.fillText(String.format("%.3g", hv), i * w / 5 + 3, h - 24);
+        }
+
         // Dodanie opisów osi
         g.setFill(Color.WHITE);
         g.setFont(javafx.scene.text.Font.font("Arial", 12));
         g.fillText("B [T]", 10, 20);                   // Oś Y - indukcja magnetyczna
         g.fillText("H [A/m]", w - 50, h - 10);         // Oś X - natężenie pola magnetycznego
+
+        PipelineMetrics.CANVAS_RENDER.recordSince(renderStart);
+        renderEvent.finish(FrameRenderEvent.CANVAS, samples);
     }
 
     private void computeHysteresisStats(List<Double> rx, List<Double> ry,
@@ -658,7 +1321,20 @@ public class MainController implements Initializable {
 
     public void shutdown() {
         // Metoda wywoływana przy zamykaniu aplikacji - sprzątanie zasobów
-        acquisitionService.reset();       // Zatrzymanie akwizycji i wyłączenie generatora
-        dwf.FDwfDeviceCloseAll();         // Zamknięcie połączenia z urządzeniem DWF
+        stopContinuous();                 // Zatrzymanie pomiaru ciągłego (przed zamknięciem urządzenia)
+        stopRolling();                    // Zatrzymanie podglądu przewijanego
+        if (deviceSession.isOpen()) {
+            acquisitionService.reset();   // Zatrzymanie akwizycji i wyłączenie generatora
+        }
+        deviceSession.close();            // Zamknięcie sesji i połączenia z urządzeniem DWF
+        MetricsRegistry.getDefault().stopDump();
+        stopPerfOverlay();
+        if (trendStore != null) {
+            try {
+                trendStore.close();       // Zapis stron mapowanych na dysk
+            } catch (IOException e) {
+                LOG.log(Level.WARNING, "Zamknięcie magazynu trendu nieudane", e);
+            }
+        }
     }
 }
\ No newline at end of file
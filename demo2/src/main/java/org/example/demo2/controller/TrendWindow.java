@@ -0,0 +1,123 @@
+package org.example.demo2.controller;
+
+import javafx.animation.KeyFrame;
+import javafx.animation.Timeline;
+import javafx.collections.FXCollections;
+import javafx.geometry.Insets;
+import javafx.geometry.Pos;
+import javafx.scene.Scene;
+import javafx.scene.chart.LineChart;
+import javafx.scene.chart.NumberAxis;
+import javafx.scene.chart.XYChart;
+import javafx.scene.control.ComboBox;
+import javafx.scene.control.Label;
+import javafx.scene.layout.BorderPane;
+import javafx.scene.layout.HBox;
+import javafx.stage.Stage;
+import javafx.util.Duration;
+import org.example.demo2.model.TrendMetric;
+import org.example.demo2.model.TrendSeries;
+import org.example.demo2.service.TrendStore;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * OKNO TRENDU PARAMETRÓW PĘTLI
+ * ============================
+ *
+ * Wykres min / średnia / max wybranego parametru w oknie czasu (1 h, doba, tydzień)
+ * z poziomów zagregowanych TrendStore - najwyżej MAX_POINTS punktów na serię
+ * niezależnie od liczby zapisanych cykli. Oś X: czas względem teraz [h].
+ * Odświeżanie co REFRESH, tylko gdy okno jest otwarte.
+ */
+class TrendWindow {
+
+    private static final int MAX_POINTS = 2000;
+    private static final Duration REFRESH = Duration.seconds(5);
+
+    private static final String[] RANGE_LABELS = {"Ostatnia godzina", "Ostatnia doba", "Ostatni tydzień"};
+    private static final long[] RANGE_MS = {3_600_000L, 86_400_000L, 7 * 86_400_000L};
+
+    private final TrendStore store;
+    private final Stage stage = new Stage();
+    private final ComboBox<TrendMetric> metricBox = new ComboBox<>(FXCollections.observableArrayList(TrendMetric.values()));
+    private final ComboBox<String> rangeBox = new ComboBox<>(FXCollections.observableArrayList(RANGE_LABELS));
+    private final Label resolutionLabel = new Label();
+    private final NumberAxis yAxis = new NumberAxis();
+    private final XYChart.Series<Number, Number> minSeries = new XYChart.Series<>();
+    private final XYChart.Series<Number, Number> meanSeries = new XYChart.Series<>();
+    private final XYChart.Series<Number, Number> maxSeries = new XYChart.Series<>();
+    private final Timeline refresh = new Timeline(new KeyFrame(REFRESH, e -> refresh()));
+
+    TrendWindow(TrendStore store) {
+        this.store = store;
+
+        NumberAxis xAxis = new NumberAxis();
+        xAxis.setLabel("Czas względem teraz [h]");
+        yAxis.setForceZeroInRange(false);
+        LineChart<Number, Number> chart = new LineChart<>(xAxis, yAxis);
+        chart.setCreateSymbols(false);
+        chart.setAnimated(false);
+        minSeries.setName("min");
+        meanSeries.setName("średnia");
+        maxSeries.setName("max");
+        chart.getData().add(minSeries);
+        chart.getData().add(meanSeries);
+        chart.getData().add(maxSeries);
+
+        metricBox.getSelectionModel().select(TrendMetric.BR);
+        rangeBox.getSelectionModel().select(1);
+        metricBox.setOnAction(e -> refresh());
+        rangeBox.setOnAction(e -> refresh());
+
+        HBox controls = new HBox(10, new Label("Parametr:"), metricBox, new Label("Okno:"), rangeBox, resolutionLabel);
+        controls.setAlignment(Pos.CENTER_LEFT);
+        controls.setPadding(new Insets(8));
+
+        BorderPane root = new BorderPane(chart);
+        root.setTop(controls);
+        stage.setTitle("Trend parametrów pętli");
+        stage.setScene(new Scene(root, 900, 500));
+        stage.setOnHidden(e -> refresh.stop());
+        refresh.setCycleCount(Timeline.INDEFINITE);
+    }
+
+    void show() {
+        refresh();
+        refresh.play();
+        stage.show();
+        stage.toFront();
+    }
+
+    private void refresh() {
+        TrendMetric metric = metricBox.getValue();
+        long now = System.currentTimeMillis();
+        TrendSeries series = store.query(now - RANGE_MS[rangeBox.getSelectionModel().getSelectedIndex()], now + 1, MAX_POINTS);
+
+        // Nowe listy podmieniane naraz - jeden przebieg układu wykresu zamiast N
+        List<XYChart.Data<Number, Number>> min = new ArrayList<>(series.size());
+        List<XYChart.Data<Number, Number>> mean = new ArrayList<>(series.size());
+        List<XYChart.Data<Number, Number>> max = new ArrayList<>(series.size());
+        for (int i = 0; i < series.size(); i++) {
+            double mv = series.getMean(metric, i);
+            if (Double.isNaN(mv)) continue;  // przedział bez poprawnej wartości
+            double t = (series.getTime(i) - now) / 3_600_000.0;
+            min.add(new XYChart.Data<>(t, series.getMin(metric, i)));
+            mean.add(new XYChart.Data<>(t, mv));
+            max.add(new XYChart.Data<>(t, series.getMax(metric, i)));
+        }
+        minSeries.getData().setAll(min);
+        meanSeries.getData().setAll(mean);
+        maxSeries.getData().setAll(max);
+        yAxis.setLabel(metric.toString());
+        resolutionLabel.setText(series.size() + " pkt, " + resolutionText(series.getResolutionMs()));
+    }
+
+    private static String resolutionText(long resolutionMs) {
+        if (resolutionMs == 0) return "dane z każdego cyklu";
+        if (resolutionMs < 60_000) return "przedziały " + resolutionMs / 1000 + " s";
+        if (resolutionMs < 3_600_000) return "przedziały " + resolutionMs / 60_000 + " min";
+        return "przedziały " + resolutionMs / 3_600_000 + " h";
+    }
+}
@@ -0,0 +1,56 @@
+package org.example.demo2.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Frequency;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import org.example.demo2.model.AcquisitionConfig;
+
+/**
+ * Zdarzenie JFR obejmujące całą akwizycję (acquire() lub stream()) z parametrami
+ * AcquisitionConfig. Początek i koniec zdarzenia wyznaczają okno pomiaru na osi
+ * czasu JMC - obok pauz GC i pracy wątku FX.
+ */
+@Name("org.example.demo2.Acquisition")
+@Label("Acquisition")
+@Category({"Demo2", "Acquisition"})
+@Description("Single-buffer acquisition or streaming session")
+public class AcquisitionEvent extends jdk.jfr.Event {
+
+    @Label("Mode")
+    public String mode;
+
+    @Label("Sample Rate")
+    @Frequency
+    public long sampleRateHz;
+
+    @Label("Buffer Size")
+    public int bufferSize;
+
+    @Label("Acquisition Time [s]")
+    public double acquisitionTime;
+
+    @Label("Input Range [V]")
+    public double inputRangeV;
+
+    @Label("Samples Read")
+    public long samplesRead;
+
+    @Label("Reconnect Attempts")
+    public int reconnects;
+
+    public void finish(String mode, AcquisitionConfig config, long samplesRead, int reconnects) {
+        end();
+        if (shouldCommit()) {
+            this.mode = mode;
+            this.sampleRateHz = config.getSampleRateHz();
+            this.bufferSize = config.getBufferSize();
+            this.acquisitionTime = config.getAcquisitionTime();
+            this.inputRangeV = config.getInputRangeV();
+            this.samplesRead = samplesRead;
+            this.reconnects = reconnects;
+            commit();
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package org.example.demo2.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Licznik zdarzeń (monotoniczny). LongAdder - tani zapis z wielu wątków.
+ */
+public class Counter {
+
+    private final String name;
+    private final LongAdder adder = new LongAdder();
+
+    Counter(String name) {
+        this.name = name;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void increment() {
+        adder.increment();
+    }
+
+    public void add(long delta) {
+        adder.add(delta);
+    }
+
+    public long get() {
+        return adder.sum();
+    }
+}
@@ -0,0 +1,41 @@
+package org.example.demo2.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Threshold;
+
+/**
+ * Jedno odpytanie FIFO urządzenia (status + odczyt dostępnych próbek).
+ *
+ * Pętla odczytu odpytuje urządzenie bez przerwy, więc domyślny próg 100 us
+ * zostawia w nagraniu tylko wolne odpytania (zacięcia USB/sterownika); próg 0
+ * w ustawieniach nagrania rejestruje każde odpytanie.
+ */
+@Name("org.example.demo2.FifoPoll")
+@Label("FIFO Poll")
+@Category({"Demo2", "Acquisition"})
+@Description("Device status poll and FIFO read")
+@Threshold("100 us")
+public class FifoPollEvent extends jdk.jfr.Event {
+
+    @Label("Samples Valid")
+    public int samplesValid;
+
+    @Label("Samples Read")
+    public int samplesRead;
+
+    @Label("Samples Lost")
+    public int samplesLost;
+
+    public void finish(int samplesValid, int samplesRead, int samplesLost) {
+        end();
+        if (shouldCommit()) {
+            this.samplesValid = samplesValid;
+            this.samplesRead = samplesRead;
+            this.samplesLost = samplesLost;
+            commit();
+        }
+    }
+}
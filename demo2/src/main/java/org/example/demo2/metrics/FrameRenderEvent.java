@@ -0,0 +1,34 @@
+package org.example.demo2.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Rysowanie wyników na wątku FX (wykresy lub Canvas).
+ */
+@Name("org.example.demo2.FrameRender")
+@Label("Frame Render")
+@Category({"Demo2", "Rendering"})
+@Description("Chart update or canvas render on the FX thread")
+public class FrameRenderEvent extends jdk.jfr.Event {
+
+    public static final String CHARTS = "charts";
+    public static final String CANVAS = "canvas";
+
+    @Label("Target")
+    public String target;
+
+    @Label("Samples")
+    public int samples;
+
+    public void finish(String target, int samples) {
+        end();
+        if (shouldCommit()) {
+            this.target = target;
+            this.samples = samples;
+            commit();
+        }
+    }
+}
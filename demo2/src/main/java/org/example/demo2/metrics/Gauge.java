@@ -0,0 +1,26 @@
+package org.example.demo2.metrics;
+
+/**
+ * Wartość chwilowa (np. zapełnienie FIFO). Ostatni zapis wygrywa.
+ */
+public class Gauge {
+
+    private final String name;
+    private volatile double value;
+
+    Gauge(String name) {
+        this.name = name;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void set(double value) {
+        this.value = value;
+    }
+
+    public double get() {
+        return value;
+    }
+}
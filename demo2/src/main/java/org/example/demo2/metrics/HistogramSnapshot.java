@@ -0,0 +1,77 @@
+package org.example.demo2.metrics;
+
+import java.util.Locale;
+
+/**
+ * Niezmienna kopia stanu LatencyHistogram.
+ *
+ * since() daje histogram przyrostowy między dwiema migawkami - dzięki temu
+ * percentyle można liczyć dla ostatniego okna (np. 1 s), a nie całego czasu pracy.
+ * Maksimum jest zawsze globalne (nie da się go odjąć).
+ */
+public class HistogramSnapshot {
+
+    private final String name;
+    private final long[] counts;
+    private final long count;
+    private final long sumNs;
+    private final long maxNs;
+
+    HistogramSnapshot(String name, long[] counts, long count, long sumNs, long maxNs) {
+        this.name = name;
+        this.counts = counts;
+        this.count = count;
+        this.sumNs = sumNs;
+        this.maxNs = maxNs;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public long getMaxNs() {
+        return maxNs;
+    }
+
+    public double getMeanNs() {
+        return count == 0 ? 0 : (double) sumNs / count;
+    }
+
+    /**
+     * Percentyl [ns] (górna granica przedziału), q z zakresu 0..1.
+     */
+    public long percentileNs(double q) {
+        if (count == 0) return 0;
+        long rank = Math.max(1, (long) Math.ceil(q * count));
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) return Math.min(LatencyHistogram.upperBoundOf(i), maxNs);
+        }
+        return maxNs;
+    }
+
+    /**
+     * Pomiary zarejestrowane po migawce earlier.
+     */
+    public HistogramSnapshot since(HistogramSnapshot earlier) {
+        long[] diff = new long[counts.length];
+        for (int i = 0; i < counts.length; i++) {
+            diff[i] = counts[i] - earlier.counts[i];
+        }
+        return new HistogramSnapshot(name, diff, count - earlier.count, sumNs - earlier.sumNs, maxNs);
+    }
+
+    /**
+     * Jedna linia: liczba, średnia, p50/p90/p99, max - w mikrosekundach.
+     */
+    public String format() {
+        return String.format(Locale.ROOT, "%-18s n=%-8d mean=%9.1f p50=%9.1f p90=%9.1f p99=%9.1f max=%9.1f us",
+                name, count, getMeanNs() / 1e3, percentileNs(0.50) / 1e3, percentileNs(0.90) / 1e3,
+                percentileNs(0.99) / 1e3, maxNs / 1e3);
+    }
+}
@@ -0,0 +1,107 @@
+package org.example.demo2.metrics;
+
+import java.io.IOException;
+import java.lang.System.Logger.Level;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.DoubleSupplier;
+
+/**
+ * REJESTR METRYK
+ * ==============
+ *
+ * Liczniki, wartości chwilowe i histogramy czasów etapów przetwarzania.
+ * Metryki tworzone są raz (przy pierwszym odwołaniu po nazwie), później zapis
+ * odbywa się bez blokad - serwisy trzymają referencje w polach statycznych
+ * (PipelineMetrics).
+ *
+ * snapshot() daje spójną kopię do wyświetlenia; startDump() co zadany okres
+ * dopisuje migawkę do pliku tekstowego.
+ */
+public class MetricsRegistry {
+
+    private static final System.Logger LOG = System.getLogger(MetricsRegistry.class.getName());
+    private static final MetricsRegistry DEFAULT = new MetricsRegistry();
+
+    private final Map<String, Counter> counters = new ConcurrentHashMap<>();
+    private final Map<String, Gauge> gauges = new ConcurrentHashMap<>();
+    private final Map<String, DoubleSupplier> computedGauges = new ConcurrentHashMap<>();
+    private final Map<String, LatencyHistogram> histograms = new ConcurrentHashMap<>();
+
+    private ScheduledExecutorService dumpExecutor;
+
+    /**
+     * Rejestr współdzielony przez całą aplikację.
+     */
+    public static MetricsRegistry getDefault() {
+        return DEFAULT;
+    }
+
+    public Counter counter(String name) {
+        return counters.computeIfAbsent(name, Counter::new);
+    }
+
+    public Gauge gauge(String name) {
+        return gauges.computeIfAbsent(name, Gauge::new);
+    }
+
+    /**
+     * Wartość chwilowa liczona przy każdej migawce (zastępuje wcześniejszą o tej nazwie).
+     */
+    public void gauge(String name, DoubleSupplier supplier) {
+        computedGauges.put(name, supplier);
+    }
+
+    public LatencyHistogram histogram(String name) {
+        return histograms.computeIfAbsent(name, LatencyHistogram::new);
+    }
+
+    public MetricsSnapshot snapshot() {
+        Map<String, Long> c = new TreeMap<>();
+        counters.forEach((k, v) -> c.put(k, v.get()));
+        Map<String, Double> g = new TreeMap<>();
+        gauges.forEach((k, v) -> g.put(k, v.get()));
+        computedGauges.forEach((k, v) -> g.put(k, v.getAsDouble()));
+        Map<String, HistogramSnapshot> h = new TreeMap<>();
+        histograms.forEach((k, v) -> h.put(k, v.snapshot()));
+        return new MetricsSnapshot(Instant.now(), c, g, h);
+    }
+
+    /**
+     * Okresowy zrzut migawki do pliku (dopisywanie) na wątku "metrics-dump".
+     */
+    public synchronized void startDump(Path file, long periodSeconds) {
+        stopDump();
+        dumpExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "metrics-dump");
+            t.setDaemon(true);
+            return t;
+        });
+        dumpExecutor.scheduleAtFixedRate(() -> dump(file), periodSeconds, periodSeconds, TimeUnit.SECONDS);
+    }
+
+    public synchronized void stopDump() {
+        if (dumpExecutor != null) {
+            dumpExecutor.shutdownNow();
+            dumpExecutor = null;
+        }
+    }
+
+    public void dump(Path file) {
+        try {
+            Files.writeString(file, snapshot().format(), StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            LOG.log(Level.WARNING, "Zrzut metryk do " + file + " nieudany", e);
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package org.example.demo2.metrics;
+
+import java.time.Instant;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Migawka wszystkich metryk rejestru w jednej chwili (mapy posortowane po nazwie).
+ */
+public class MetricsSnapshot {
+
+    private final Instant time;
+    private final Map<String, Long> counters;
+    private final Map<String, Double> gauges;
+    private final Map<String, HistogramSnapshot> histograms;
+
+    MetricsSnapshot(Instant time, Map<String, Long> counters, Map<String, Double> gauges,
+                    Map<String, HistogramSnapshot> histograms) {
+        this.time = time;
+        this.counters = counters;
+        this.gauges = gauges;
+        this.histograms = histograms;
+    }
+
+    public Instant getTime() {
+        return time;
+    }
+
+    public Map<String, Long> getCounters() {
+        return counters;
+    }
+
+    public Map<String, Double> getGauges() {
+        return gauges;
+    }
+
+    public Map<String, HistogramSnapshot> getHistograms() {
+        return histograms;
+    }
+
+    public long counter(String name) {
+        return counters.getOrDefault(name, 0L);
+    }
+
+    public double gauge(String name) {
+        return gauges.getOrDefault(name, 0.0);
+    }
+
+    public HistogramSnapshot histogram(String name) {
+        return histograms.get(name);
+    }
+
+    /**
+     * Postać tekstowa (zrzut do pliku / logu).
+     */
+    public String format() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("=== METRYKI ").append(time).append(" ===\n");
+        counters.forEach((k, v) -> sb.append(String.format("%-18s %d%n", k, v)));
+        gauges.forEach((k, v) -> sb.append(String.format(Locale.ROOT, "%-18s %.4f%n", k, v)));
+        histograms.values().forEach(h -> sb.append(h.format()).append('\n'));
+        return sb.toString();
+    }
+}
@@ -0,0 +1,106 @@
+package org.example.demo2.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * MONITOR WYDAJNOŚCI (DANE DLA NAKŁADKI W UI)
+ * ===========================================
+ *
+ * Każde wywołanie sample() porównuje bieżącą migawkę rejestru z poprzednią
+ * i zwraca tekst z wartościami dla ostatniego okna:
+ * - akwizycje/s i próbki/s (przyrost liczników / czas okna)
+ * - zapełnienie FIFO przy ostatnim odpytaniu, próbki utracone/uszkodzone
+ * - p50/p99 czasów etapów potoku (histogramy przyrostowe)
+ * - czas klatki wątku FX
+ * - tempo alokacji na stercie (suma bajtów zaalokowanych przez żyjące wątki)
+ *
+ * Wywoływany z niską, stałą częstotliwością (np. 2 Hz) - sam koszt migawki
+ * to kopia ~1000 liczników na histogram.
+ */
+public class PerformanceMonitor {
+
+    private static final List<String> STAGES = List.of(
+            "device.poll", "fifo.drain", "filtering", "integration", "statistics",
+            "binning", "chart.update", "canvas.render");
+
+    private final MetricsRegistry registry;
+    private final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+
+    private MetricsSnapshot previous;
+    private long previousNs;
+    private long previousAllocated;
+
+    public PerformanceMonitor(MetricsRegistry registry) {
+        this.registry = registry;
+        this.previous = registry.snapshot();
+        this.previousNs = System.nanoTime();
+        this.previousAllocated = allocatedBytes();
+    }
+
+    public synchronized String sample() {
+        MetricsSnapshot now = registry.snapshot();
+        long nowNs = System.nanoTime();
+        long allocated = allocatedBytes();
+        double dt = Math.max(1e-3, (nowNs - previousNs) * 1e-9);
+
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format(Locale.ROOT, "akwizycje/s   %10.1f%n",
+                (now.counter("acquisitions") - previous.counter("acquisitions")) / dt));
+        sb.append(String.format(Locale.ROOT, "próbki/s      %10.0f%n",
+                (now.counter("samples.read") - previous.counter("samples.read")) / dt));
+        sb.append(String.format(Locale.ROOT, "FIFO          %9.1f%%%n", 100 * now.gauge("fifo.fill")));
+        sb.append(String.format(Locale.ROOT, "utracone      %10d (+%d)%n", now.counter("samples.lost"),
+                now.counter("samples.lost") - previous.counter("samples.lost")));
+        sb.append(String.format(Locale.ROOT, "uszkodzone    %10d (+%d)%n", now.counter("samples.corrupt"),
+                now.counter("samples.corrupt") - previous.counter("samples.corrupt")));
+
+        sb.append(String.format("%n%-14s %9s %9s%n", "etap [ms]", "p50", "p99"));
+        for (String stage : STAGES) {
+            appendWindow(sb, stage, now, previous);
+        }
+        appendWindow(sb, "fx.frame", now, previous);
+
+        if (allocated >= 0 && previousAllocated >= 0) {
+            // Zakończone wątki wypadają z sumy - ujemny przyrost traktujemy jak 0
+            double mbPerSec = Math.max(0, allocated - previousAllocated) / dt / (1024 * 1024);
+            sb.append(String.format(Locale.ROOT, "%nalokacja     %8.1f MB/s", mbPerSec));
+        } else {
+            sb.append(String.format("%nalokacja          n/d"));
+        }
+
+        previous = now;
+        previousNs = nowNs;
+        previousAllocated = allocated;
+        return sb.toString();
+    }
+
+    private static void appendWindow(StringBuilder sb, String name, MetricsSnapshot now, MetricsSnapshot before) {
+        HistogramSnapshot h = now.histogram(name);
+        HistogramSnapshot h0 = before.histogram(name);
+        if (h == null) return;
+        HistogramSnapshot window = h0 != null ? h.since(h0) : h;
+        if (window.getCount() == 0) {
+            sb.append(String.format("%-14s %9s %9s%n", name, "-", "-"));
+        } else {
+            sb.append(String.format(Locale.ROOT, "%-14s %9.3f %9.3f%n", name,
+                    window.percentileNs(0.50) / 1e6, window.percentileNs(0.99) / 1e6));
+        }
+    }
+
+    /**
+     * Suma bajtów zaalokowanych przez żyjące wątki; -1 gdy JVM tego nie udostępnia.
+     */
+    private long allocatedBytes() {
+        if (!(threads instanceof com.sun.management.ThreadMXBean)) return -1;
+        com.sun.management.ThreadMXBean t = (com.sun.management.ThreadMXBean) threads;
+        if (!t.isThreadAllocatedMemorySupported() || !t.isThreadAllocatedMemoryEnabled()) return -1;
+        long sum = 0;
+        for (long bytes : t.getThreadAllocatedBytes(t.getAllThreadIds())) {
+            if (bytes > 0) sum += bytes;
+        }
+        return sum;
+    }
+}
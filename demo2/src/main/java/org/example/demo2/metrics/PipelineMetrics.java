@@ -0,0 +1,49 @@
+package org.example.demo2.metrics;
+
+/**
+ * METRYKI ETAPÓW POTOKU POMIAROWEGO
+ * =================================
+ *
+ * urządzenie → [device.poll] → [fifo.drain] → [filtering] → [integration] → [statistics]
+ *            → [binning] → [chart.update] / [canvas.render]
+ *
+ * Histogramy w nanosekundach, w rejestrze domyślnym.
+ */
+public final class PipelineMetrics {
+
+    private static final MetricsRegistry REGISTRY = MetricsRegistry.getDefault();
+
+    // ===== CZASY ETAPÓW =====
+    public static final LatencyHistogram DEVICE_POLL = REGISTRY.histogram("device.poll");
+    public static final LatencyHistogram FIFO_DRAIN = REGISTRY.histogram("fifo.drain");
+    public static final LatencyHistogram FILTERING = REGISTRY.histogram("filtering");
+    public static final LatencyHistogram INTEGRATION = REGISTRY.histogram("integration");
+    public static final LatencyHistogram STATISTICS = REGISTRY.histogram("statistics");
+    public static final LatencyHistogram BINNING = REGISTRY.histogram("binning");
+    public static final LatencyHistogram CHART_UPDATE = REGISTRY.histogram("chart.update");
+    public static final LatencyHistogram CANVAS_RENDER = REGISTRY.histogram("canvas.render");
+    // Odstęp między kolejnymi pulsami wątku FX (mierzony tylko przy włączonej nakładce)
+    public static final LatencyHistogram FX_FRAME = REGISTRY.histogram("fx.frame");
+
+    // ===== LICZNIKI =====
+    public static final Counter ACQUISITIONS = REGISTRY.counter("acquisitions");
+    public static final Counter SAMPLES_READ = REGISTRY.counter("samples.read");
+    public static final Counter SAMPLES_LOST = REGISTRY.counter("samples.lost");
+    public static final Counter SAMPLES_CORRUPT = REGISTRY.counter("samples.corrupt");
+    public static final Counter DEVICE_LOST = REGISTRY.counter("device.lost");
+    public static final Counter CANVAS_EMPTY = REGISTRY.counter("canvas.empty");
+    // Ramki trybu ciągłego nadpisane przed przetworzeniem (przetwarzanie nie nadążało)
+    public static final Counter FRAMES_DROPPED = REGISTRY.counter("frames.dropped");
+    // Wyniki analizy wzięte z AnalysisCache / policzone od nowa
+    public static final Counter CACHE_HITS = REGISTRY.counter("analysis.cache.hits");
+    public static final Counter CACHE_MISSES = REGISTRY.counter("analysis.cache.misses");
+
+    // ===== WARTOŚCI CHWILOWE =====
+    // Próbki dostępne przy ostatnim odpytaniu / rozmiar bufora urządzenia (0..1)
+    public static final Gauge FIFO_FILL = REGISTRY.gauge("fifo.fill");
+    // Wywołania DWF pominięte dzięki DeviceStateCache w ostatniej akwizycji
+    public static final Gauge CALLS_SAVED_LAST = REGISTRY.gauge("device.calls.saved.last");
+
+    private PipelineMetrics() {
+    }
+}
@@ -0,0 +1,40 @@
+package org.example.demo2.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Etap przetwarzania sygnału: całkowanie, statystyki, binning, analiza pętli.
+ */
+@Name("org.example.demo2.Processing")
+@Label("Processing")
+@Category({"Demo2", "Processing"})
+@Description("Signal processing stage")
+public class ProcessingEvent extends jdk.jfr.Event {
+
+    public static final String INTEGRATION = "integration";
+    public static final String STATISTICS = "statistics";
+    public static final String BINNING = "binning";
+    public static final String LOOP_ANALYSIS = "loop-analysis";
+
+    @Label("Stage")
+    public String stage;
+
+    @Label("Samples")
+    public int samples;
+
+    /**
+     * Zakończenie etapu; pola wypełniane tylko gdy zdarzenie będzie zapisane
+     * (przy wyłączonym JFR to jedno sprawdzenie flagi).
+     */
+    public void finish(String stage, int samples) {
+        end();
+        if (shouldCommit()) {
+            this.stage = stage;
+            this.samples = samples;
+            commit();
+        }
+    }
+}
@@ -17,9 +17,21 @@ package org.example.demo2.model;
  *   Zależność: acquisitionTime = bufferSize / sampleRateHz
  *   Przykład: 4000 próbek / 10000 Hz = 0.4 s
  *
- * - inputRangeV: zakres wejściowy [V] - maksymalne napięcie wejściowe
- *   Dla DWF typowe zakresy: ±5V, ±10V, ±25V
+ * - inputRangeV: zakres wejściowy [V] - międzyszczytowo, jak w FDwfAnalogInChannelRangeSet
+ *   (25 V = ±12.5 V); skala kodów kanałów INT16 = inputRangeV / 65536
  *   Mniejszy zakres = wyższa rozdzielczość pomiaru
+ *
+ * - sampleFormat: format przechowywania próbek (SampleFormat)
+ *   FLOAT32 = połowa pamięci na sekundę pomiaru przy długich rekordach
+ *
+ * - filter: filtr szumów CH0/CH1 przed całkowaniem (FilterSpec, domyślnie brak)
+ *
+ * - channelDelaySec: opóźnienie CH1 względem CH0 [s] (kalibracja - ChannelDelay),
+ *   kompensowane przed całkowaniem; > 0 = CH1 spóźniony
+ *
+ * - pointsPerCycle, excitationHz: przepróbkowanie rekordu do stałej liczby punktów
+ *   na okres wzbudzenia (CycleResampler); 0 = wyłączone / częstotliwość nieznana.
+ *   Dane po przepróbkowaniu mają częstotliwość getAnalysisSampleRateHz()
  */
 public class AcquisitionConfig {
 
@@ -37,9 +49,24 @@ public class AcquisitionConfig {
     // Zakres napięcia wejściowego w woltach
     private double inputRangeV;
 
+    // Format przechowywania próbek w HysteresisData
+    private SampleFormat sampleFormat;
+
+    // Filtr szumów stosowany do obu kanałów przed całkowaniem
+    private FilterSpec filter;
+
+    // Opóźnienie CH1 względem CH0 w sekundach (niezależne od sampleRateHz)
+    private double channelDelaySec;
+
+    // Punkty na okres wzbudzenia po przepróbkowaniu (0 = bez przepróbkowania)
+    private int pointsPerCycle;
+
+    // Częstotliwość wzbudzenia [Hz] - okres, do którego przepróbkowujemy (0 = nieznana)
+    private double excitationHz;
+
     // ===== STAŁE DOMYŚLNE I OGRANICZENIA =====
 
-    // Domyślny zakres napięcia wejściowego: ±25V
+    // Domyślny zakres napięcia wejściowego: 25 V międzyszczytowo
     public static final double DEFAULT_INPUT_RANGE_V = 25.0;
 
     // Domyślna liczba punktów na wykresach
@@ -50,16 +77,19 @@ public class AcquisitionConfig {
     public static final double MIN_ACQUISITION_TIME = 0.01;
 
     // Maksymalny czas akwizycji: 10s
-    // Dłuższy czas może powodować przepełnienie bufora i problemy z pamięcią
+    // Długość rekordu ogranicza dodatkowo pamięć (maxBufferSize)
     public static final double MAX_ACQUISITION_TIME = 10.0;
 
     // Minimalny rozmiar bufora: 100 próbek
     // Mniej próbek nie pozwoli na sensowną analizę sygnału
     public static final int MIN_BUFFER_SIZE = 100;
 
-    // Maksymalny rozmiar bufora: 10000 próbek
-    // Ograniczenie wynikające z możliwości urządzenia DWF i pamięci RAM
-    public static final int MAX_BUFFER_SIZE = 10000;
+    // Bufor pojedynczego pomiaru urządzenia DWF (ACQMODE_SINGLE): 10000 próbek
+    // Dłuższe rekordy są nagrywane w trybie ACQMODE_RECORD do kanałów segmentowanych
+    public static final int DEVICE_BUFFER_SIZE = 10000;
+
+    // Część pamięci sterty (-Xmx) przeznaczona na jeden rekord
+    private static final double RECORD_MEMORY_FRACTION = 0.25;
 
     /// Konstruktor Domyslny
     public AcquisitionConfig() {
@@ -74,6 +104,33 @@ public class AcquisitionConfig {
 
         // Ustawienie zakresu wejściowego na wartość domyślną (±25V)
         this.inputRangeV = DEFAULT_INPUT_RANGE_V;
+
+        // Próbki jako double - jak dotychczas
+        this.sampleFormat = SampleFormat.FLOAT64;
+
+        // Bez filtrowania - surowe próbki jak dotychczas
+        this.filter = FilterSpec.NONE;
+
+        // Kanały traktowane jako równoczesne - do czasu kalibracji opóźnienia
+        this.channelDelaySec = 0;
+
+        // Próbki z częstotliwością urządzenia - bez przepróbkowania
+        this.pointsPerCycle = 0;
+        this.excitationHz = 0;
+    }
+
+    /// Konstruktor kopiujący - używany przez wątki robocze (sweep, regulacja),
+    /// aby zmiany w UI nie modyfikowały konfiguracji w trakcie pomiaru
+    public AcquisitionConfig(AcquisitionConfig other) {
+        this.sampleRateHz = other.sampleRateHz;
+        this.bufferSize = other.bufferSize;
+        this.acquisitionTime = other.acquisitionTime;
+        this.inputRangeV = other.inputRangeV;
+        this.sampleFormat = other.sampleFormat;
+        this.filter = other.filter;
+        this.channelDelaySec = other.channelDelaySec;
+        this.pointsPerCycle = other.pointsPerCycle;
+        this.excitationHz = other.excitationHz;
     }
 
     // ===== GETTERY I SETTERY =====
@@ -110,6 +167,72 @@ public class AcquisitionConfig {
         this.inputRangeV = inputRangeV;
     }
 
+    /**
+     * Maksymalny rozmiar bufora dla formatu próbek - rekord (ch0, ch1, całka)
+     * zajmuje co najwyżej RECORD_MEMORY_FRACTION maksymalnej sterty.
+     */
+    public static int maxBufferSize(SampleFormat format) {
+        long budget = (long) (Runtime.getRuntime().maxMemory() * RECORD_MEMORY_FRACTION);
+        long samples = budget / format.getRecordBytesPerSample();
+        return (int) Math.max(DEVICE_BUFFER_SIZE, Math.min(Integer.MAX_VALUE - 8, samples));
+    }
+
+    public SampleFormat getSampleFormat() {
+        return sampleFormat;
+    }
+
+    public void setSampleFormat(SampleFormat sampleFormat) {
+        this.sampleFormat = sampleFormat;
+    }
+
+    public FilterSpec getFilter() {
+        return filter;
+    }
+
+    public void setFilter(FilterSpec filter) {
+        this.filter = filter == null ? FilterSpec.NONE : filter;
+    }
+
+    public double getChannelDelaySec() {
+        return channelDelaySec;
+    }
+
+    public void setChannelDelaySec(double channelDelaySec) {
+        this.channelDelaySec = channelDelaySec;
+    }
+
+    public int getPointsPerCycle() {
+        return pointsPerCycle;
+    }
+
+    public void setPointsPerCycle(int pointsPerCycle) {
+        this.pointsPerCycle = Math.max(0, pointsPerCycle);
+    }
+
+    public double getExcitationHz() {
+        return excitationHz;
+    }
+
+    public void setExcitationHz(double excitationHz) {
+        this.excitationHz = excitationHz > 0 && Double.isFinite(excitationHz) ? excitationHz : 0;
+    }
+
+    /**
+     * Czy rekordy są przepróbkowywane do pointsPerCycle punktów na okres.
+     */
+    public boolean isCycleResampling() {
+        return pointsPerCycle > 0 && excitationHz > 0;
+    }
+
+    /**
+     * Częstotliwość próbkowania danych po akwizycji [Hz] - excitationHz·pointsPerCycle
+     * przy przepróbkowaniu, w przeciwnym razie sampleRateHz. Tej wartości używa
+     * analiza (próbki na okres), czasy cykli i osie czasu.
+     */
+    public double getAnalysisSampleRateHz() {
+        return isCycleResampling() ? excitationHz * pointsPerCycle : sampleRateHz;
+    }
+
     // ===== METODY OBLICZENIOWE ===== //
     public int calculateBufferFromTime() {
         // Mnożymy czas (w sekundach) przez częstotliwość (próbki/sekundę)
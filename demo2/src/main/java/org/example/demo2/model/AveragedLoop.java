@@ -0,0 +1,45 @@
+package org.example.demo2.model;
+
+import java.util.List;
+
+/**
+ * UŚREDNIONA PĘTLA HISTEREZY
+ *
+ * Wynik binningu: średnie Y w przedziałach osi X, osobno dla gałęzi rosnącej
+ * (dx > 0) i malejącej (dx < 0). Punkty są uporządkowane rosnąco po X.
+ */
+public class AveragedLoop {
+
+    private final List<Double> risingX;
+    private final List<Double> risingY;
+    private final List<Double> fallingX;
+    private final List<Double> fallingY;
+
+    public AveragedLoop(List<Double> risingX, List<Double> risingY,
+                        List<Double> fallingX, List<Double> fallingY) {
+        this.risingX = risingX;
+        this.risingY = risingY;
+        this.fallingX = fallingX;
+        this.fallingY = fallingY;
+    }
+
+    public List<Double> getRisingX() {
+        return risingX;
+    }
+
+    public List<Double> getRisingY() {
+        return risingY;
+    }
+
+    public List<Double> getFallingX() {
+        return fallingX;
+    }
+
+    public List<Double> getFallingY() {
+        return fallingY;
+    }
+
+    public boolean isEmpty() {
+        return risingX.isEmpty() && fallingX.isEmpty();
+    }
+}
@@ -0,0 +1,32 @@
+package org.example.demo2.model;
+
+/**
+ * PODZIAŁ OSI X PRZY UŚREDNIANIU PĘTLI
+ * ====================================
+ *
+ * - UNIFORM: przedziały równej szerokości między min i max X (dotychczasowy algorytm)
+ * - EQUAL_COUNT: przedziały o równej liczbie punktów (kwantyle X) - gęsto tam,
+ *   gdzie pętla spędza najwięcej czasu
+ * - GRADIENT: przedziały o równej "długości łuku" gałęzi (udział ΔX + udział ΔY) -
+ *   gęsto w stromym obszarze koercji, rzadko w nasyceniu
+ *
+ * Tryby adaptacyjne liczą granice osobno dla gałęzi rosnącej i malejącej
+ * (strome odcinki leżą przy +H_c i -H_c).
+ */
+public enum BinningMode {
+
+    UNIFORM("równe przedziały"),
+    EQUAL_COUNT("równa liczność (kwantyle)"),
+    GRADIENT("wg nachylenia B(H)");
+
+    private final String label;
+
+    BinningMode(String label) {
+        this.label = label;
+    }
+
+    @Override
+    public String toString() {
+        return label;
+    }
+}
@@ -0,0 +1,48 @@
+package org.example.demo2.model;
+
+/**
+ * WYNIK KALIBRACJI OPÓŹNIENIA MIĘDZY KANAŁAMI
+ * ===========================================
+ *
+ * delaySamples > 0 - CH1 (bocznik, H) spóźniony względem CH0 (cewka, B) o tyle
+ * próbek (część ułamkowa z interpolacji szczytu korelacji). correlation to
+ * znormalizowana korelacja w szczycie (1 = identyczne przebiegi).
+ */
+public class ChannelDelay {
+
+    private final double delaySamples;
+    private final double correlation;
+    private final int sampleRateHz;
+
+    public ChannelDelay(double delaySamples, double correlation, int sampleRateHz) {
+        this.delaySamples = delaySamples;
+        this.correlation = correlation;
+        this.sampleRateHz = sampleRateHz;
+    }
+
+    public double getDelaySamples() {
+        return delaySamples;
+    }
+
+    /**
+     * Opóźnienie w sekundach - niezależne od częstotliwości próbkowania,
+     * w tej postaci trzymane w AcquisitionConfig.
+     */
+    public double getDelaySeconds() {
+        return delaySamples / sampleRateHz;
+    }
+
+    public double getCorrelation() {
+        return correlation;
+    }
+
+    public int getSampleRateHz() {
+        return sampleRateHz;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%.3f próbki (%.3f µs), korelacja %.4f",
+                delaySamples, getDelaySeconds() * 1e6, correlation);
+    }
+}
@@ -0,0 +1,108 @@
+package org.example.demo2.model;
+
+/**
+ * PARAMETRY JEDNEGO CYKLU PĘTLI HISTEREZY (ANALIZA ONLINE)
+ *
+ * Wynik OnlineLoopTracker po domknięciu cyklu wzbudzenia, w jednostkach fizycznych.
+ * Wartości, których w cyklu nie dało się wyznaczyć (brak przejścia przez zero), są NaN.
+ * Obiekt niemutowalny - można go bezpiecznie przekazywać między wątkami.
+ */
+public class CycleMetrics {
+
+    // Numer cyklu od startu śledzenia (od 0)
+    private final long index;
+
+    // Początek i koniec cyklu [próbki od startu, z interpolacją przejścia H przez zero]
+    private final double startSample;
+    private final double endSample;
+
+    // Amplitudy: (max - min) / 2 [T], [A/m]
+    private final double bPeak;
+    private final double hPeak;
+
+    // Remanencja: B przy H = 0 na gałęzi opadającej (+) i narastającej (-) [T]
+    private final double brPlus;
+    private final double brMinus;
+
+    // Koercja: H przy B = 0 na gałęzi narastającej (+) i opadającej (-) [A/m]
+    private final double hcPlus;
+    private final double hcMinus;
+
+    // Energia tracona w cyklu: ∮H dB [J/m³] i straty mocy f × ∮H dB [W/m³]
+    private final double lossPerCycle;
+    private final double specificPower;
+
+    public CycleMetrics(long index, double startSample, double endSample, double bPeak, double hPeak,
+                        double brPlus, double brMinus, double hcPlus, double hcMinus,
+                        double lossPerCycle, double specificPower) {
+        this.index = index;
+        this.startSample = startSample;
+        this.endSample = endSample;
+        this.bPeak = bPeak;
+        this.hPeak = hPeak;
+        this.brPlus = brPlus;
+        this.brMinus = brMinus;
+        this.hcPlus = hcPlus;
+        this.hcMinus = hcMinus;
+        this.lossPerCycle = lossPerCycle;
+        this.specificPower = specificPower;
+    }
+
+    public long getIndex() {
+        return index;
+    }
+
+    public double getStartSample() {
+        return startSample;
+    }
+
+    public double getEndSample() {
+        return endSample;
+    }
+
+    public double getBPeak() {
+        return bPeak;
+    }
+
+    public double getHPeak() {
+        return hPeak;
+    }
+
+    public double getBrPlus() {
+        return brPlus;
+    }
+
+    public double getBrMinus() {
+        return brMinus;
+    }
+
+    public double getHcPlus() {
+        return hcPlus;
+    }
+
+    public double getHcMinus() {
+        return hcMinus;
+    }
+
+    public double getLossPerCycle() {
+        return lossPerCycle;
+    }
+
+    public double getSpecificPower() {
+        return specificPower;
+    }
+
+    /**
+     * Remanencja jako połowa rozpiętości B_r+ - B_r- [T].
+     */
+    public double getBr() {
+        return 0.5 * (brPlus - brMinus);
+    }
+
+    /**
+     * Koercja jako połowa rozpiętości H_c+ - H_c- [A/m].
+     */
+    public double getHc() {
+        return 0.5 * (hcPlus - hcMinus);
+    }
+}
@@ -0,0 +1,48 @@
+package org.example.demo2.model;
+
+/**
+ * Kanał przechowywany jako double[] - 8 B/próbkę, bez konwersji.
+ */
+public final class DoubleChannel implements SampleChannel {
+
+    private final double[] samples;
+
+    public DoubleChannel(double[] samples) {
+        this.samples = samples;
+    }
+
+    @Override
+    public int length() {
+        return samples.length;
+    }
+
+    @Override
+    public SampleFormat format() {
+        return SampleFormat.FLOAT64;
+    }
+
+    @Override
+    public double get(int index) {
+        return samples[index];
+    }
+
+    @Override
+    public void set(int index, double value) {
+        samples[index] = value;
+    }
+
+    @Override
+    public void read(int from, double[] dst, int dstPos, int count) {
+        System.arraycopy(samples, from, dst, dstPos, count);
+    }
+
+    @Override
+    public void write(int from, double[] src, int srcPos, int count) {
+        System.arraycopy(src, srcPos, samples, from, count);
+    }
+
+    @Override
+    public double[] array() {
+        return samples;
+    }
+}
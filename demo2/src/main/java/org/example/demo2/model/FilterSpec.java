@@ -0,0 +1,72 @@
+package org.example.demo2.model;
+
+import java.util.Objects;
+
+/**
+ * PARAMETRY FILTRU SZUMÓW (NIEZMIENNE)
+ * ====================================
+ *
+ * Typ filtru, częstotliwość odcięcia [Hz] i rząd (znaczenie rzędu - FilterType).
+ * Obiekt jest kluczem pamięci współczynników w FilterBank, stąd equals/hashCode.
+ * Zgodność odcięcia z częstotliwością próbkowania sprawdza FilterBank - tu nie
+ * jest ona jeszcze znana.
+ */
+public final class FilterSpec {
+
+    public static final FilterSpec NONE = new FilterSpec(FilterType.NONE, 0, 0);
+
+    private final FilterType type;
+    private final double cutoffHz;
+    private final int order;
+
+    public FilterSpec(FilterType type, double cutoffHz, int order) {
+        this.type = Objects.requireNonNull(type, "type");
+        if (type != FilterType.NONE && order < 1) {
+            throw new IllegalArgumentException("Filter order must be positive: " + order);
+        }
+        if (type.hasCutoff() && !(cutoffHz > 0 && Double.isFinite(cutoffHz))) {
+            throw new IllegalArgumentException("Filter cutoff must be positive: " + cutoffHz);
+        }
+        this.cutoffHz = type.hasCutoff() ? cutoffHz : 0;
+        this.order = type == FilterType.NONE ? 0 : order;
+    }
+
+    public FilterType getType() {
+        return type;
+    }
+
+    public double getCutoffHz() {
+        return cutoffHz;
+    }
+
+    public int getOrder() {
+        return order;
+    }
+
+    public boolean isNone() {
+        return type == FilterType.NONE;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof FilterSpec)) return false;
+        FilterSpec other = (FilterSpec) o;
+        return type == other.type && order == other.order
+                && Double.compare(cutoffHz, other.cutoffHz) == 0;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(type, cutoffHz, order);
+    }
+
+    @Override
+    public String toString() {
+        return switch (type) {
+            case NONE -> type.toString();
+            case MEDIAN -> type + " (" + order + " próbek)";
+            default -> type + " (" + cutoffHz + " Hz, rząd " + order + ")";
+        };
+    }
+}
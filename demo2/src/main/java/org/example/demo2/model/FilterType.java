@@ -0,0 +1,39 @@
+package org.example.demo2.model;
+
+/**
+ * RODZAJ FILTRU SZUMÓW PRZED CAŁKOWANIEM
+ * ======================================
+ *
+ * - NONE: surowe próbki (dotychczasowe zachowanie)
+ * - FIR_LOWPASS: dolnoprzepustowy FIR (sinc z oknem Blackmana), liniowa faza;
+ *   rząd = liczba współczynników
+ * - BIQUAD_LOWPASS: dolnoprzepustowy Butterworth jako kaskada sekcji biquad;
+ *   rząd = rząd filtru (2 na sekcję)
+ * - MEDIAN: mediana ruchoma - usuwa pojedyncze szpilki przełączania bez
+ *   zaokrąglania zboczy; rząd = długość okna
+ */
+public enum FilterType {
+
+    NONE("brak"),
+    FIR_LOWPASS("FIR dolnoprzepustowy"),
+    BIQUAD_LOWPASS("IIR Butterworth (biquad)"),
+    MEDIAN("mediana ruchoma");
+
+    private final String label;
+
+    FilterType(String label) {
+        this.label = label;
+    }
+
+    /**
+     * Czy filtr korzysta z częstotliwości odcięcia (mediana jej nie ma).
+     */
+    public boolean hasCutoff() {
+        return this == FIR_LOWPASS || this == BIQUAD_LOWPASS;
+    }
+
+    @Override
+    public String toString() {
+        return label;
+    }
+}
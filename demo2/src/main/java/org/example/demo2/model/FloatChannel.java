@@ -0,0 +1,57 @@
+package org.example.demo2.model;
+
+/**
+ * Kanał przechowywany jako float[] - 4 B/próbkę.
+ *
+ * Zapis zaokrągla do najbliższego float (błąd względny ≤ 6e-8, czyli ~0.001 LSB
+ * przetwornika 14-bitowego przy pełnym zakresie); odczyt poszerza bez straty.
+ */
+public final class FloatChannel implements SampleChannel {
+
+    private final float[] samples;
+
+    public FloatChannel(float[] samples) {
+        this.samples = samples;
+    }
+
+    @Override
+    public int length() {
+        return samples.length;
+    }
+
+    @Override
+    public SampleFormat format() {
+        return SampleFormat.FLOAT32;
+    }
+
+    @Override
+    public double get(int index) {
+        return samples[index];
+    }
+
+    @Override
+    public void set(int index, double value) {
+        samples[index] = (float) value;
+    }
+
+    @Override
+    public void read(int from, double[] dst, int dstPos, int count) {
+        for (int k = 0; k < count; k++) {
+            dst[dstPos + k] = samples[from + k];
+        }
+    }
+
+    @Override
+    public void write(int from, double[] src, int srcPos, int count) {
+        for (int k = 0; k < count; k++) {
+            samples[from + k] = (float) src[srcPos + k];
+        }
+    }
+
+    @Override
+    public void gather(int from, int step, double[] dst, int dstPos, int count) {
+        for (int k = 0, i = from; k < count; k++, i += step) {
+            dst[dstPos + k] = samples[i];
+        }
+    }
+}
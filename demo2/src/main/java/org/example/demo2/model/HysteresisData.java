@@ -4,41 +4,70 @@ package org.example.demo2.model;
  * KLASA PRZECHOWUJĄCA DANE POMIAROWE PĘTLI HISTEREZY
  *
  * dane są przygotowane przez signal processing serice zanim  tu są przechowane. to tylko kontener na nie
+ *
+ * Kanały są przechowywane w formacie SampleFormat (double, float lub kody int16). Gettery
+ * zwracające double[] są bez kopii tylko dla formatu FLOAT64 - w gorących
+ * ścieżkach należy używać getterów *Channel().
  */
 public class HysteresisData {
 
     /**
      * SUROWE DANE Z KANAŁU CH0 - CEWKA POMIAROWA
      */
-    private final double[] ch0Data;
+    private final SampleChannel ch0Data;
 
     /**
      * SUROWE DANE Z KANAŁU CH1 - POMIAR PRĄDU (SHUNT)
      */
-    private final double[] ch1Data;
+    private final SampleChannel ch1Data;
 
     /**
      * SCAŁKOWANE DANE Z KANAŁU CH0 - INDUKCJA MAGNETYCZNA
      */
-    private final double[] ch0Integrated;
+    private final SampleChannel ch0Integrated;
 
 
     public HysteresisData(double[] ch0Data, double[] ch1Data, double[] ch0Integrated) {
         // Zapisanie referencji do tablic
+        this(SampleChannel.of(ch0Data), SampleChannel.of(ch1Data), SampleChannel.of(ch0Integrated));
+    }
+
+    public HysteresisData(SampleChannel ch0Data, SampleChannel ch1Data, SampleChannel ch0Integrated) {
         this.ch0Data = ch0Data;
         this.ch1Data = ch1Data;
         this.ch0Integrated = ch0Integrated;
     }
 
-    public double[] getCh0Data() {
+    public SampleChannel getCh0Channel() {
         return ch0Data;
     }
 
-    public double[] getCh1Data() {
+    public SampleChannel getCh1Channel() {
         return ch1Data;
     }
 
-    public double[] getCh0Integrated() {
+    public SampleChannel getCh0IntegratedChannel() {
         return ch0Integrated;
     }
+
+    public double[] getCh0Data() {
+        return ch0Data.toDoubleArray();
+    }
+
+    public double[] getCh1Data() {
+        return ch1Data.toDoubleArray();
+    }
+
+    public double[] getCh0Integrated() {
+        return ch0Integrated.toDoubleArray();
+    }
+
+    /**
+     * Rozmiar próbek w pamięci [B] - wszystkie trzy kanały.
+     */
+    public long getSampleBytes() {
+        return (long) ch0Data.length() * ch0Data.format().getBytesPerSample()
+                + (long) ch1Data.length() * ch1Data.format().getBytesPerSample()
+                + (long) ch0Integrated.length() * ch0Integrated.format().getBytesPerSample();
+    }
 }
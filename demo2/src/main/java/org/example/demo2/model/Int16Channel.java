@@ -0,0 +1,100 @@
+package org.example.demo2.model;
+
+/**
+ * Kanał przechowywany jako surowe kody przetwornika (short[]) - 2 B/próbkę.
+ *
+ * Napięcie = kod × gain + offset, gdzie gain = zakres/65536 (skalowanie
+ * FDwfAnalogInStatusData16). Zakres i offset kanału ustawiane są przez
+ * calibrate() po konfiguracji wejść, przed zapisem próbek. Przetwornik Analog Discovery ma 14 bitów, więc
+ * kod 16-bitowy przechowuje próbkę bez straty; zapis wartości double
+ * zaokrągla do najbliższego kodu i obcina do zakresu.
+ */
+public final class Int16Channel implements SampleChannel {
+
+    private final short[] codes;
+    private double gain;
+    private double offset;
+
+    /**
+     * @param rangeV zakres wejściowy kanału [V] (międzyszczytowo)
+     * @param offsetV offset kanału [V]
+     */
+    public Int16Channel(short[] codes, double rangeV, double offsetV) {
+        this.codes = codes;
+        calibrate(rangeV, offsetV);
+    }
+
+    /**
+     * Skala kodów dla zakresu i offsetu kanału odczytanych z urządzenia.
+     * Zmienia interpretację już zapisanych kodów - wywoływane przed akwizycją.
+     */
+    public void calibrate(double rangeV, double offsetV) {
+        if (!(rangeV > 0)) {
+            throw new IllegalArgumentException("Zakres wejściowy musi być dodatni: " + rangeV);
+        }
+        this.gain = rangeV / 65536;
+        this.offset = offsetV;
+    }
+
+    /**
+     * Surowe kody - bez kopii (odczyt FDwfAnalogInStatusData16 wprost do kanału,
+     * statystyki liczone na kodach w StatisticsService).
+     */
+    public short[] codes() {
+        return codes;
+    }
+
+    public double getGain() {
+        return gain;
+    }
+
+    public double getOffset() {
+        return offset;
+    }
+
+    @Override
+    public int length() {
+        return codes.length;
+    }
+
+    @Override
+    public SampleFormat format() {
+        return SampleFormat.INT16;
+    }
+
+    @Override
+    public double get(int index) {
+        return codes[index] * gain + offset;
+    }
+
+    @Override
+    public void set(int index, double value) {
+        codes[index] = quantize(value);
+    }
+
+    @Override
+    public void read(int from, double[] dst, int dstPos, int count) {
+        for (int k = 0; k < count; k++) {
+            dst[dstPos + k] = codes[from + k] * gain + offset;
+        }
+    }
+
+    @Override
+    public void write(int from, double[] src, int srcPos, int count) {
+        for (int k = 0; k < count; k++) {
+            codes[from + k] = quantize(src[srcPos + k]);
+        }
+    }
+
+    @Override
+    public void gather(int from, int step, double[] dst, int dstPos, int count) {
+        for (int k = 0, i = from; k < count; k++, i += step) {
+            dst[dstPos + k] = codes[i] * gain + offset;
+        }
+    }
+
+    private short quantize(double value) {
+        long code = Math.round((value - offset) / gain);
+        return (short) Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE, code));
+    }
+}
@@ -0,0 +1,45 @@
+package org.example.demo2.model;
+
+/**
+ * PARAMETRY PĘTLI HISTEREZY W JEDNOSTKACH FIZYCZNYCH
+ *
+ * Wynik analizy jednej akwizycji: amplitudy B i H oraz straty na cykl.
+ * Obiekt niemutowalny - można go bezpiecznie przekazywać między wątkami.
+ */
+public class LoopMetrics {
+
+    // Amplituda indukcji: (B_max - B_min) / 2 [T]
+    private final double bPeak;
+
+    // Amplituda natężenia pola: (H_max - H_min) / 2 [A/m]
+    private final double hPeak;
+
+    // Energia tracona w jednym cyklu: ∮H dB [J/m³]
+    private final double lossPerCycle;
+
+    // Straty mocy: f × ∮H dB [W/m³]
+    private final double specificPower;
+
+    public LoopMetrics(double bPeak, double hPeak, double lossPerCycle, double specificPower) {
+        this.bPeak = bPeak;
+        this.hPeak = hPeak;
+        this.lossPerCycle = lossPerCycle;
+        this.specificPower = specificPower;
+    }
+
+    public double getBPeak() {
+        return bPeak;
+    }
+
+    public double getHPeak() {
+        return hPeak;
+    }
+
+    public double getLossPerCycle() {
+        return lossPerCycle;
+    }
+
+    public double getSpecificPower() {
+        return specificPower;
+    }
+}
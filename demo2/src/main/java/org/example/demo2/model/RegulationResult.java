@@ -0,0 +1,44 @@
+package org.example.demo2.model;
+
+/**
+ * WYNIK REGULACJI AMPLITUDY WZBUDZENIA
+ *
+ * locked = true oznacza, że zmierzona wartość weszła w zadaną tolerancję.
+ * iterations i timeToLockMs pozwalają ocenić szybkość zbieżności regulatora.
+ */
+public class RegulationResult {
+
+    private final boolean locked;
+    private final double amplitude;
+    private final double measured;
+    private final int iterations;
+    private final long timeToLockMs;
+
+    public RegulationResult(boolean locked, double amplitude, double measured, int iterations, long timeToLockMs) {
+        this.locked = locked;
+        this.amplitude = amplitude;
+        this.measured = measured;
+        this.iterations = iterations;
+        this.timeToLockMs = timeToLockMs;
+    }
+
+    public boolean isLocked() {
+        return locked;
+    }
+
+    public double getAmplitude() {
+        return amplitude;
+    }
+
+    public double getMeasured() {
+        return measured;
+    }
+
+    public int getIterations() {
+        return iterations;
+    }
+
+    public long getTimeToLockMs() {
+        return timeToLockMs;
+    }
+}
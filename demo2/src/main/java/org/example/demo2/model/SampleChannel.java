@@ -0,0 +1,73 @@
+package org.example.demo2.model;
+
+/**
+ * KANAŁ PRÓBEK (NIEZALEŻNY OD FORMATU PRZECHOWYWANIA)
+ * ===================================================
+ *
+ * Jeden kanał pomiarowy przechowywany w formacie SampleFormat:
+ * - DoubleChannel: double[] (8 B/próbkę) - dotychczasowy format
+ * - FloatChannel:  float[]  (4 B/próbkę) - przetwornik Analog Discovery ma
+ *   14 bitów, więc 24-bitowa mantysa float nie traci informacji o napięciu
+ * - Int16Channel:  short[]  (2 B/próbkę) - surowe kody ADC ze skalą i offsetem kanału
+ *
+ * Serwisy przetwarzania czytają kanał blokami (read/gather) do krótkiego bufora
+ * double - poszerzanie odbywa się "w locie", bez kopii całego rekordu. Dla kanału
+ * double array() zwraca tablicę bez kopii i serwisy używają dotychczasowej ścieżki.
+ */
+public interface SampleChannel {
+
+    int length();
+
+    SampleFormat format();
+
+    double get(int index);
+
+    void set(int index, double value);
+
+    /**
+     * dst[dstPos..dstPos+count) = próbki from..from+count (poszerzone do double).
+     */
+    void read(int from, double[] dst, int dstPos, int count);
+
+    /**
+     * Próbki from..from+count = src[srcPos..srcPos+count) (zawężone do formatu kanału).
+     */
+    void write(int from, double[] src, int srcPos, int count);
+
+    /**
+     * dst[dstPos + k] = próbka from + k·step dla k < count - odczyt punktów
+     * zdecymowanych (wykresy, binning z krokiem).
+     */
+    default void gather(int from, int step, double[] dst, int dstPos, int count) {
+        if (step == 1) {
+            read(from, dst, dstPos, count);
+            return;
+        }
+        for (int k = 0; k < count; k++) {
+            dst[dstPos + k] = get(from + k * step);
+        }
+    }
+
+    /**
+     * Tablica double bez kopii albo null, gdy kanał przechowuje inny format.
+     */
+    default double[] array() {
+        return null;
+    }
+
+    /**
+     * Cały kanał jako double[] - bez kopii dla DoubleChannel, w przeciwnym razie
+     * nowa tablica (dla rzadkich operacji, np. predystorsji generatora).
+     */
+    default double[] toDoubleArray() {
+        double[] direct = array();
+        if (direct != null) return direct;
+        double[] copy = new double[length()];
+        read(0, copy, 0, copy.length);
+        return copy;
+    }
+
+    static SampleChannel of(double[] samples) {
+        return new DoubleChannel(samples);
+    }
+}
@@ -0,0 +1,82 @@
+package org.example.demo2.model;
+
+/**
+ * FORMAT PRZECHOWYWANIA PRÓBEK
+ * ============================
+ *
+ * Pamięć na sekundę pomiaru (ch0, ch1, ch0Integrated) przy 1 MHz:
+ * - FLOAT64: 3 × 8 B × 1e6 = 24 MB
+ * - FLOAT32: 3 × 4 B × 1e6 = 12 MB
+ * - INT16:   2 × 2 B × 1e6 + 4 B × 1e6 = 8 MB (całka jako float - derivedFormat)
+ */
+public enum SampleFormat {
+
+    FLOAT64("double (8 B)", 8) {
+        @Override
+        public SampleChannel allocate(int length) {
+            return new DoubleChannel(new double[length]);
+        }
+    },
+
+    FLOAT32("float (4 B)", 4) {
+        @Override
+        public SampleChannel allocate(int length) {
+            return new FloatChannel(new float[length]);
+        }
+    },
+
+    INT16("int16 - kody ADC (2 B)", 2) {
+        @Override
+        public SampleChannel allocate(int length) {
+            // Skalę kodów ustawia DataAcquisitionService po konfiguracji wejść (calibrate)
+            return new Int16Channel(new short[length], AcquisitionConfig.DEFAULT_INPUT_RANGE_V, 0);
+        }
+
+        @Override
+        public SampleFormat derivedFormat() {
+            return FLOAT32;
+        }
+    };
+
+    private final String label;
+    private final int bytesPerSample;
+
+    SampleFormat(String label, int bytesPerSample) {
+        this.label = label;
+        this.bytesPerSample = bytesPerSample;
+    }
+
+    public abstract SampleChannel allocate(int length);
+
+    /**
+     * Kanał na rekord dowolnej długości: do SegmentedChannel.SEGMENT_SIZE jedna
+     * tablica, powyżej łańcuch segmentów (bez jednej wielkiej alokacji).
+     */
+    public SampleChannel allocateRecord(int length) {
+        return length <= SegmentedChannel.SEGMENT_SIZE ? allocate(length) : new SegmentedChannel(this, length);
+    }
+
+    /**
+     * Pamięć na próbkę rekordu [B]: ch0, ch1 i całka ch0 (w derivedFormat).
+     */
+    public int getRecordBytesPerSample() {
+        return 2 * bytesPerSample + derivedFormat().bytesPerSample;
+    }
+
+    /**
+     * Format kanałów wyliczanych (np. całki) - kody ADC mają sens tylko dla
+     * napięć z przetwornika, więc INT16 przechowuje je jako float.
+     */
+    public SampleFormat derivedFormat() {
+        return this;
+    }
+
+    public int getBytesPerSample() {
+        return bytesPerSample;
+    }
+
+    @Override
+    public String toString() {
+        return label;
+    }
+}
@@ -0,0 +1,119 @@
+package org.example.demo2.model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * KANAŁ SEGMENTOWANY (DŁUGIE REKORDY)
+ * ===================================
+ *
+ * Łańcuch segmentów po SEGMENT_SIZE próbek w formacie SampleFormat. Rekord rośnie
+ * przez dołożenie kolejnego segmentu (grow) - bez realokacji i kopiowania
+ * dotychczasowych próbek, a żadna pojedyncza tablica nie przekracza SEGMENT_SIZE
+ * (8 MB dla double), więc długość rekordu ogranicza tylko dostępna pamięć.
+ *
+ * Indeks próbki i → segment i >>> SEGMENT_SHIFT, pozycja i & SEGMENT_MASK.
+ * read/write/gather dzielą zakres na kawałki w obrębie segmentów, więc serwisy
+ * przetwarzania (czytające kanały blokami) działają bez zmian.
+ */
+public final class SegmentedChannel implements SampleChannel {
+
+    // Rozmiar segmentu: 2^20 próbek
+    public static final int SEGMENT_SHIFT = 20;
+    public static final int SEGMENT_SIZE = 1 << SEGMENT_SHIFT;
+    private static final int SEGMENT_MASK = SEGMENT_SIZE - 1;
+
+    private final SampleFormat format;
+    private final List<SampleChannel> segments = new ArrayList<>();
+    private int length;
+
+    public SegmentedChannel(SampleFormat format, int length) {
+        this.format = format;
+        grow(length);
+    }
+
+    /**
+     * Wydłużenie kanału o count próbek (zerowych) - dokładane są tylko brakujące segmenty.
+     */
+    public void grow(int count) {
+        if (count < 0 || (long) length + count > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Nieprawidłowe wydłużenie kanału: " + length + " + " + count);
+        }
+        length += count;
+        int needed = (int) (((long) length + SEGMENT_MASK) >>> SEGMENT_SHIFT);
+        while (segments.size() < needed) {
+            segments.add(format.allocate(SEGMENT_SIZE));
+        }
+    }
+
+    /**
+     * Segmenty po SEGMENT_SIZE próbek (ostatni może być zapełniony częściowo) -
+     * np. do odczytu surowych kodów prosto do segmentu Int16Channel.
+     */
+    public List<SampleChannel> segments() {
+        return Collections.unmodifiableList(segments);
+    }
+
+    /**
+     * Segment zawierający cały zakres from..from+count albo null, gdy zakres
+     * przechodzi przez granicę segmentów. Pozycja w segmencie: offsetOf(from).
+     */
+    public SampleChannel segmentOf(int from, int count) {
+        int pos = offsetOf(from);
+        return pos + count <= SEGMENT_SIZE ? segments.get(from >>> SEGMENT_SHIFT) : null;
+    }
+
+    public static int offsetOf(int index) {
+        return index & SEGMENT_MASK;
+    }
+
+    @Override
+    public int length() {
+        return length;
+    }
+
+    @Override
+    public SampleFormat format() {
+        return format;
+    }
+
+    @Override
+    public double get(int index) {
+        return segments.get(index >>> SEGMENT_SHIFT).get(index & SEGMENT_MASK);
+    }
+
+    @Override
+    public void set(int index, double value) {
+        segments.get(index >>> SEGMENT_SHIFT).set(index & SEGMENT_MASK, value);
+    }
+
+    @Override
+    public void read(int from, double[] dst, int dstPos, int count) {
+        for (int done = 0, n; done < count; done += n) {
+            int i = from + done;
+            n = Math.min(count - done, SEGMENT_SIZE - (i & SEGMENT_MASK));
+            segments.get(i >>> SEGMENT_SHIFT).read(i & SEGMENT_MASK, dst, dstPos + done, n);
+        }
+    }
+
+    @Override
+    public void write(int from, double[] src, int srcPos, int count) {
+        for (int done = 0, n; done < count; done += n) {
+            int i = from + done;
+            n = Math.min(count - done, SEGMENT_SIZE - (i & SEGMENT_MASK));
+            segments.get(i >>> SEGMENT_SHIFT).write(i & SEGMENT_MASK, src, srcPos + done, n);
+        }
+    }
+
+    @Override
+    public void gather(int from, int step, double[] dst, int dstPos, int count) {
+        // Punkty z jednego segmentu czytane jednym wywołaniem gather segmentu
+        for (int done = 0, n; done < count; done += n) {
+            long i = from + (long) done * step;
+            int pos = (int) (i & SEGMENT_MASK);
+            n = Math.min(count - done, (SEGMENT_SIZE - 1 - pos) / step + 1);
+            segments.get((int) (i >>> SEGMENT_SHIFT)).gather(pos, step, dst, dstPos + done, n);
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package org.example.demo2.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * KONFIGURACJA SWEEPU WZBUDZENIA
+ * ==============================
+ *
+ * Opisuje serię pomiarów przy zmieniających się nastawach generatora.
+ * Każda kombinacja (częstotliwość, amplituda) to jeden punkt sweepu.
+ *
+ * - amplitudes: lista amplitud [V], mierzona w podanej kolejności
+ *   (rosnąco → krzywa pierwotnego magnesowania, pętle małe → duże)
+ * - frequencies: lista częstotliwości [Hz] - pętla zewnętrzna
+ * - settleTimeMs: czas ustalania się stanu po zmianie nastaw [ms]
+ *   Rdzeń potrzebuje kilku okresów, aby pętla przestała "dryfować"
+ * - customTable: tablica kształtu własnego (WaveformGenerator) lub null dla
+ *   funkcji wbudowanej wave; nie jest kopiowana - generator rozpoznaje po
+ *   tożsamości tablicę już wgraną do urządzenia
+ */
+public class SweepConfig {
+
+    private final String wave;
+    private final List<Double> amplitudes;
+    private final List<Double> frequencies;
+    private final double offset;
+    private final long settleTimeMs;
+    private final double[] customTable;
+
+    public SweepConfig(String wave, List<Double> amplitudes, List<Double> frequencies,
+                       double offset, long settleTimeMs) {
+        this(wave, null, amplitudes, frequencies, offset, settleTimeMs);
+    }
+
+    public SweepConfig(String wave, double[] customTable, List<Double> amplitudes, List<Double> frequencies,
+                       double offset, long settleTimeMs) {
+        if (amplitudes.isEmpty() || frequencies.isEmpty()) {
+            throw new IllegalArgumentException("Sweep needs at least one amplitude and one frequency");
+        }
+        this.wave = wave;
+        this.amplitudes = List.copyOf(amplitudes);
+        this.frequencies = List.copyOf(frequencies);
+        this.offset = offset;
+        this.settleTimeMs = settleTimeMs;
+        this.customTable = customTable;
+    }
+
+    /**
+     * Równomiernie rozłożone wartości od start do stop (włącznie), steps punktów.
+     */
+    public static List<Double> linearRange(double start, double stop, int steps) {
+        List<Double> values = new ArrayList<>();
+        if (steps <= 1) {
+            values.add(start);
+            return values;
+        }
+        double step = (stop - start) / (steps - 1);
+        for (int i = 0; i < steps; i++) {
+            values.add(start + i * step);
+        }
+        return values;
+    }
+
+    public String getWave() {
+        return wave;
+    }
+
+    /**
+     * Tablica kształtu własnego; null = funkcja wbudowana getWave().
+     */
+    public double[] getCustomTable() {
+        return customTable;
+    }
+
+    public List<Double> getAmplitudes() {
+        return amplitudes;
+    }
+
+    public List<Double> getFrequencies() {
+        return frequencies;
+    }
+
+    public double getOffset() {
+        return offset;
+    }
+
+    public long getSettleTimeMs() {
+        return settleTimeMs;
+    }
+
+    public int getPointCount() {
+        return amplitudes.size() * frequencies.size();
+    }
+}
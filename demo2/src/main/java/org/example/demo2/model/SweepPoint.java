@@ -0,0 +1,32 @@
+package org.example.demo2.model;
+
+/**
+ * JEDEN PUNKT SWEEPU WZBUDZENIA
+ *
+ * Nastawy generatora (amplituda, częstotliwość) i zmierzone dla nich parametry pętli.
+ * Zbiór punktów daje krzywą magnesowania B_peak(H_peak) oraz tabelę strat P(B_peak).
+ */
+public class SweepPoint {
+
+    private final double amplitude;
+    private final double frequency;
+    private final LoopMetrics metrics;
+
+    public SweepPoint(double amplitude, double frequency, LoopMetrics metrics) {
+        this.amplitude = amplitude;
+        this.frequency = frequency;
+        this.metrics = metrics;
+    }
+
+    public double getAmplitude() {
+        return amplitude;
+    }
+
+    public double getFrequency() {
+        return frequency;
+    }
+
+    public LoopMetrics getMetrics() {
+        return metrics;
+    }
+}
@@ -0,0 +1,38 @@
+package org.example.demo2.model;
+
+/**
+ * PARAMETRY PĘTLI ZAPISYWANE W TRENDZIE
+ *
+ * Kolejność stałych = kolejność kolumn w plikach TrendStore - nowe parametry
+ * dopisywać wyłącznie na końcu.
+ */
+public enum TrendMetric {
+
+    B_PEAK("B_peak [T]"),
+    BR("B_r [T]"),
+    HC("H_c [A/m]"),
+    LOSS("Straty na cykl [J/m³]");
+
+    private final String label;
+
+    TrendMetric(String label) {
+        this.label = label;
+    }
+
+    /**
+     * Wartość parametru dla domkniętego cyklu.
+     */
+    public double of(CycleMetrics cycle) {
+        return switch (this) {
+            case B_PEAK -> cycle.getBPeak();
+            case BR -> cycle.getBr();
+            case HC -> cycle.getHc();
+            case LOSS -> cycle.getLossPerCycle();
+        };
+    }
+
+    @Override
+    public String toString() {
+        return label;
+    }
+}
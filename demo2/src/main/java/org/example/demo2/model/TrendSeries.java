@@ -0,0 +1,50 @@
+package org.example.demo2.model;
+
+/**
+ * WYNIK ZAPYTANIA O TREND
+ *
+ * Punkty z jednego poziomu TrendStore: czas początku przedziału [ms od epoki]
+ * oraz min / średnia / max każdego parametru w przedziale. Dla danych surowych
+ * (resolutionMs = 0) min = średnia = max = wartość z cyklu. Przedziały bez
+ * poprawnej wartości parametru (np. brak przejścia B przez zero) mają NaN.
+ */
+public class TrendSeries {
+
+    private final long resolutionMs;
+    private final long[] time;
+    private final double[][] min;
+    private final double[][] mean;
+    private final double[][] max;
+
+    public TrendSeries(long resolutionMs, long[] time, double[][] min, double[][] mean, double[][] max) {
+        this.resolutionMs = resolutionMs;
+        this.time = time;
+        this.min = min;
+        this.mean = mean;
+        this.max = max;
+    }
+
+    public long getResolutionMs() {
+        return resolutionMs;
+    }
+
+    public int size() {
+        return time.length;
+    }
+
+    public long getTime(int i) {
+        return time[i];
+    }
+
+    public double getMin(TrendMetric metric, int i) {
+        return min[metric.ordinal()][i];
+    }
+
+    public double getMean(TrendMetric metric, int i) {
+        return mean[metric.ordinal()][i];
+    }
+
+    public double getMax(TrendMetric metric, int i) {
+        return max[metric.ordinal()][i];
+    }
+}
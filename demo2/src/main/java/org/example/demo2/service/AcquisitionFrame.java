@@ -0,0 +1,46 @@
+package org.example.demo2.service;
+
+import org.example.demo2.model.HysteresisData;
+
+import java.util.Queue;
+
+/**
+ * Ramka trybu ciągłego - zestaw buforów z puli ContinuousAcquisitionService.
+ *
+ * Dane są ważne do wywołania release(); potem bufory trafiają z powrotem do puli
+ * i urządzenie zapisuje do nich kolejny pomiar. Kto chce zachować dane dłużej,
+ * musi je skopiować albo wstrzymać release(). release() wywołuje się dokładnie raz.
+ */
+public class AcquisitionFrame {
+
+    private final HysteresisData data;
+    private final Queue<AcquisitionFrame> pool;
+    private long sequence;
+
+    AcquisitionFrame(int bufferSize, Queue<AcquisitionFrame> pool) {
+        this.data = new HysteresisData(new double[bufferSize], new double[bufferSize], new double[bufferSize]);
+        this.pool = pool;
+    }
+
+    public HysteresisData getData() {
+        return data;
+    }
+
+    /**
+     * Numer kolejny pomiaru (luki = ramki pominięte, bo przetwarzanie nie nadążało).
+     */
+    public long getSequence() {
+        return sequence;
+    }
+
+    void setSequence(long sequence) {
+        this.sequence = sequence;
+    }
+
+    /**
+     * Zwrot buforów do puli.
+     */
+    public void release() {
+        pool.offer(this); // pula z chwili utworzenia - po restarcie trybu ramka po prostu przepada
+    }
+}
@@ -0,0 +1,110 @@
+package org.example.demo2.service;
+
+/**
+ * INTERFEJS URZĄDZENIA POMIAROWEGO
+ * ================================
+ *
+ * Podzbiór API WaveForms SDK używany przez serwisy (wejścia analogowe, generator).
+ * Implementacja produkcyjna to DwfAnalogDevice (waveforms4j); interfejs pozwala
+ * podstawić urządzenie symulowane, np. w benchmarkach przepustowości.
+ *
+ * Metody zwracające boolean odpowiadają wywołaniom FDwf... - false oznacza błąd.
+ */
+public interface AnalogDevice {
+
+    // Tryby akwizycji z dwf.h (acqmode...)
+    int ACQMODE_SINGLE = 0;
+    int ACQMODE_RECORD = 3;
+
+    boolean open();
+
+    void closeAll();
+
+    // ===== WEJŚCIA ANALOGOWE =====
+
+    boolean analogInChannelEnable(int channel, boolean enable);
+
+    boolean analogInChannelRange(int channel, double rangeV);
+
+    boolean analogInFrequency(double hz);
+
+    boolean analogInBufferSize(int samples);
+
+    boolean analogInAcquisitionMode(int mode);
+
+    /**
+     * Długość nagrania w trybie ACQMODE_RECORD [s]; 0 = nagrywanie bez końca.
+     */
+    boolean analogInRecordLength(double seconds);
+
+    boolean analogInConfigure(boolean reconfigure, boolean start);
+
+    /**
+     * Odświeżenie stanu akwizycji (FDwfAnalogInStatus).
+     *
+     * @return false gdy wywołanie się nie powiodło (np. urządzenie odłączone) -
+     *         wywołujący traktuje to jak utratę urządzenia
+     */
+    boolean analogInStatus(boolean readData);
+
+    int analogInSamplesValid();
+
+    /**
+     * Stan nagrywania po ostatnim analogInStatus: [dostępne, utracone, uszkodzone].
+     */
+    void analogInStatusRecord(int[] availableLostCorrupt);
+
+    /**
+     * Czy analogInStatusRecord raportuje próbki utracone i uszkodzone
+     * (FDwfAnalogInStatusRecord). false = zawsze 0, luki w strumieniu niewykrywane.
+     */
+    default boolean analogInRecordLossSupported() {
+        return false;
+    }
+
+    double[] analogInData(int channel, int samples);
+
+    /**
+     * Rzeczywisty zakres kanału po konfiguracji [V]; NaN = nieznany (używany jest
+     * zakres zadany w AcquisitionConfig).
+     */
+    default double analogInChannelRangeGet(int channel) {
+        return Double.NaN;
+    }
+
+    /**
+     * Offset kanału [V]; NaN = nieznany (przyjmowane 0 V).
+     */
+    default double analogInChannelOffsetGet(int channel) {
+        return Double.NaN;
+    }
+
+    /**
+     * Surowe kody 16-bitowe (FDwfAnalogInStatusData16) do dst[dstPos..dstPos+samples);
+     * napięcie = kod × zakres/65536 + offset kanału.
+     *
+     * @return false, gdy urządzenie nie udostępnia odczytu kodów - wywołujący
+     *         używa wtedy analogInData
+     */
+    default boolean analogInData16(int channel, short[] dst, int dstPos, int samples) {
+        return false;
+    }
+
+    // ===== GENERATOR (WYJŚCIE ANALOGOWE) =====
+
+    boolean analogOutNodeEnable(int channel, boolean enable);
+
+    boolean analogOutNodeFunction(int channel, int function);
+
+    boolean analogOutNodeFrequency(int channel, double hz);
+
+    boolean analogOutNodeAmplitude(int channel, double amplitude);
+
+    boolean analogOutNodeOffset(int channel, double offset);
+
+    boolean analogOutNodeData(int channel, double[] data, int count);
+
+    boolean analogOutConfigure(int channel, boolean start);
+
+    boolean digitalOutReset();
+}
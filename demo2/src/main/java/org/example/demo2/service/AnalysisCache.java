@@ -0,0 +1,217 @@
+package org.example.demo2.service;
+
+import org.example.demo2.metrics.PipelineMetrics;
+import org.example.demo2.model.AveragedLoop;
+import org.example.demo2.model.BinningMode;
+import org.example.demo2.model.SampleChannel;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
+
+/**
+ * PAMIĘĆ PODRĘCZNA WYNIKÓW ANALIZY (LRU OGRANICZONE PAMIĘCIĄ)
+ * ===========================================================
+ *
+ * Statystyki kanałów i uśrednione pętle są zapamiętywane pod kluczem:
+ * odcisk danych (fingerprint - 64-bitowy skrót próbek analizowanych kanałów)
+ * + rodzaj wyniku + parametry przetwarzania (np. krok i liczba przedziałów binningu).
+ * Ten sam pomiar analizowany ponownie (drugi widok tej samej pętli, zmiana
+ * PhysicalParameters - skalowanie działa na wynikach w woltach) nie liczy się od nowa.
+ *
+ * Kanał CH0 jest już scałkowany (HysteresisData.getCh0IntegratedChannel()), więc
+ * odcisk obejmuje wynik całkowania - parametry integratora są w nim zawarte.
+ * Ramki trybu ciągłego wracają do puli z nową zawartością - klucz zależy od
+ * próbek, nie od obiektu, więc stary wynik nie zostanie pomylony z nowym.
+ *
+ * Eksmisja: najdawniej używane wpisy, gdy suma szacowanych rozmiarów przekroczy
+ * maxBytes. Obliczenie odbywa się poza blokadą - dwa wątki mogą policzyć ten sam
+ * wpis równocześnie (wynik jest ten sam, zostaje pierwszy).
+ */
+public class AnalysisCache {
+
+    // Domyślny limit: 1/32 sterty
+    public static final long DEFAULT_MAX_BYTES = Runtime.getRuntime().maxMemory() / 32;
+
+    private static final int BLOCK = 4096;
+
+    // Szacunek rozmiaru: obiekt Double w liście (nagłówek + wartość + referencja)
+    private static final long BYTES_PER_LOOP_POINT = 2 * (16 + 8);
+    private static final long BYTES_PER_ENTRY = 128;
+
+    private final ParallelAnalysisService analysis;
+    private final long maxBytes;
+    private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(64, 0.75f, true);
+    private long bytes;
+
+    public AnalysisCache(ParallelAnalysisService analysis, long maxBytes) {
+        if (maxBytes <= 0) {
+            throw new IllegalArgumentException("maxBytes must be positive: " + maxBytes);
+        }
+        this.analysis = analysis;
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Odcisk kanałów: długość, format i wszystkie próbki (po poszerzeniu do double).
+     * Czterotorowy skrót multiplikatywny z końcowym mieszaniem - koszt rzędu
+     * kopiowania kanału, znacznie mniejszy niż statystyki i binning razem.
+     */
+    public static long fingerprint(SampleChannel... channels) {
+        long h = 0x6A09E667F3BCC909L;
+        double[] block = null;
+        for (SampleChannel ch : channels) {
+            h = mix(h ^ ch.length()) ^ ch.format().ordinal();
+            double[] direct = ch.array();
+            long h0 = h, h1 = ~h, h2 = h * 3, h3 = h * 5;
+            int n = ch.length();
+            for (int i = 0; i < n; ) {
+                double[] src;
+                int off, count = Math.min(BLOCK, n - i);
+                if (direct != null) {
+                    src = direct;
+                    off = i;
+                } else {
+                    if (block == null) block = new double[BLOCK];
+                    ch.read(i, block, 0, count);
+                    src = block;
+                    off = 0;
+                }
+                int k = 0;
+                for (; k + 4 <= count; k += 4) {
+                    h0 = (h0 + Double.doubleToRawLongBits(src[off + k])) * 0x9E3779B97F4A7C15L;
+                    h1 = (h1 + Double.doubleToRawLongBits(src[off + k + 1])) * 0xC2B2AE3D27D4EB4FL;
+                    h2 = (h2 + Double.doubleToRawLongBits(src[off + k + 2])) * 0x165667B19E3779F9L;
+                    h3 = (h3 + Double.doubleToRawLongBits(src[off + k + 3])) * 0x27D4EB2F165667C5L;
+                }
+                for (; k < count; k++) {
+                    h0 = (h0 + Double.doubleToRawLongBits(src[off + k])) * 0x9E3779B97F4A7C15L;
+                }
+                i += count;
+            }
+            h = mix(h0) ^ mix(h1 + 1) ^ mix(h2 + 2) ^ mix(h3 + 3);
+        }
+        return h;
+    }
+
+    /**
+     * Statystyki kanału (ParallelAnalysisService.statistics) - channel to numer
+     * kanału w pomiarze o odcisku fingerprint.
+     */
+    public StatisticsService.Stats statistics(long fingerprint, int channel, SampleChannel ch) {
+        return computeIfAbsent(new Key("stats", fingerprint, channel),
+                () -> analysis.statistics(ch), s -> BYTES_PER_ENTRY);
+    }
+
+    /**
+     * Uśredniona pętla (ParallelAnalysisService.average) dla pomiaru o odcisku fingerprint.
+     */
+    public AveragedLoop average(long fingerprint, SampleChannel xSig, SampleChannel ySig, int step, int bins,
+                                BinningMode mode) {
+        return computeIfAbsent(new Key("average", fingerprint, step, bins, mode.ordinal()),
+                () -> analysis.average(xSig, ySig, step, bins, mode),
+                loop -> BYTES_PER_ENTRY + BYTES_PER_LOOP_POINT
+                        * (loop.getRisingX().size() + loop.getFallingX().size()));
+    }
+
+    /**
+     * Wynik spod klucza albo compute() zapamiętane z rozmiarem sizeOf(wynik) [B].
+     */
+    public <T> T computeIfAbsent(Key key, Supplier<T> compute, ToLongFunction<T> sizeOf) {
+        synchronized (this) {
+            Entry cached = entries.get(key);
+            if (cached != null) {
+                PipelineMetrics.CACHE_HITS.increment();
+                @SuppressWarnings("unchecked")
+                T value = (T) cached.value;
+                return value;
+            }
+        }
+        PipelineMetrics.CACHE_MISSES.increment();
+        T value = compute.get();
+        long size = sizeOf.applyAsLong(value);
+        synchronized (this) {
+            Entry previous = entries.putIfAbsent(key, new Entry(value, size));
+            if (previous != null) {
+                @SuppressWarnings("unchecked")
+                T first = (T) previous.value;
+                return first;
+            }
+            bytes += size;
+            evict();
+        }
+        return value;
+    }
+
+    public synchronized long getBytes() {
+        return bytes;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+        bytes = 0;
+    }
+
+    // Usuwanie najdawniej używanych, aż suma zmieści się w limicie (najnowszy zostaje zawsze)
+    private void evict() {
+        Iterator<Map.Entry<Key, Entry>> it = entries.entrySet().iterator();
+        while (bytes > maxBytes && entries.size() > 1 && it.hasNext()) {
+            bytes -= it.next().getValue().size;
+            it.remove();
+        }
+    }
+
+    private static long mix(long z) {
+        z = (z ^ (z >>> 33)) * 0xFF51AFD7ED558CCDL;
+        z = (z ^ (z >>> 33)) * 0xC4CEB9FE1A85EC53L;
+        return z ^ (z >>> 33);
+    }
+
+    /**
+     * Klucz: rodzaj wyniku, odcisk danych i parametry przetwarzania.
+     */
+    public static final class Key {
+
+        private final String kind;
+        private final long fingerprint;
+        private final long[] params;
+
+        public Key(String kind, long fingerprint, long... params) {
+            this.kind = kind;
+            this.fingerprint = fingerprint;
+            this.params = params;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key other = (Key) o;
+            return fingerprint == other.fingerprint && kind.equals(other.kind)
+                    && Arrays.equals(params, other.params);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * (31 * kind.hashCode() + Long.hashCode(fingerprint)) + Arrays.hashCode(params);
+        }
+    }
+
+    private static final class Entry {
+
+        final Object value;
+        final long size;
+
+        Entry(Object value, long size) {
+            this.value = value;
+            this.size = size;
+        }
+    }
+}
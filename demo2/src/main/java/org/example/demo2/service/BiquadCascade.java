@@ -0,0 +1,54 @@
+package org.example.demo2.service;
+
+import java.util.Arrays;
+
+/**
+ * KASKADA SEKCJI BIQUAD (IIR)
+ * ===========================
+ *
+ * Każda sekcja: y = b0·x + s1; s1 = b1·x - a1·y + s2; s2 = b2·x - a2·y
+ * (postać transponowana II - dwie zmienne stanu na sekcję, dobra numerycznie
+ * dla niskich częstotliwości odcięcia). Współczynniki po 5 na sekcję
+ * {b0, b1, b2, a1, a2}, a0 = 1 - projekt w FilterBank.butterworth().
+ *
+ * Sekcje przetwarzają porcję kolejno, każda w całości - stan w zmiennych
+ * lokalnych pętli, a nie w tablicy, dopiero na końcu porcji zapisywany.
+ */
+final class BiquadCascade implements SampleFilter {
+
+    private final double[] coefficients;
+    // Stan {s1, s2} każdej sekcji
+    private final double[] state;
+
+    BiquadCascade(double[] coefficients) {
+        if (coefficients.length == 0 || coefficients.length % 5 != 0) {
+            throw new IllegalArgumentException("Biquad coefficients must come in groups of 5");
+        }
+        this.coefficients = coefficients;
+        this.state = new double[coefficients.length / 5 * 2];
+    }
+
+    @Override
+    public void process(double[] buf, int from, int count) {
+        int end = from + count;
+        for (int s = 0, c = 0; c < coefficients.length; s += 2, c += 5) {
+            double b0 = coefficients[c], b1 = coefficients[c + 1], b2 = coefficients[c + 2];
+            double a1 = coefficients[c + 3], a2 = coefficients[c + 4];
+            double s1 = state[s], s2 = state[s + 1];
+            for (int i = from; i < end; i++) {
+                double x = buf[i];
+                double y = b0 * x + s1;
+                s1 = b1 * x - a1 * y + s2;
+                s2 = b2 * x - a2 * y;
+                buf[i] = y;
+            }
+            state[s] = s1;
+            state[s + 1] = s2;
+        }
+    }
+
+    @Override
+    public void reset() {
+        Arrays.fill(state, 0);
+    }
+}
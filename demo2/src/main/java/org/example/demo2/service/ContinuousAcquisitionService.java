@@ -0,0 +1,149 @@
+package org.example.demo2.service;
+
+import org.example.demo2.metrics.PipelineMetrics;
+import org.example.demo2.model.AcquisitionConfig;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.function.Consumer;
+
+/**
+ * CIĄGŁA AKWIZYCJA Z WIELOKROTNYM BUFOROWANIEM
+ * ============================================
+ *
+ * W trybie powtarzanym acquire() wykonuje kolejno: odczyt urządzenia, całkowanie,
+ * analizę i rysowanie - urządzenie stoi, dopóki wynik nie zostanie narysowany.
+ * Tutaj praca jest rozdzielona na dwa wątki i pulę buforów:
+ *
+ *   "acq-device":     bufor z puli → acquireInto() → kolejka do przetworzenia
+ *   "acq-processing": filtracja → całkowanie → consumer (analiza, rysowanie) → release()
+ *
+ * Urządzenie jest uzbrajane ponownie zaraz po zapełnieniu bufora A, więc bufor B
+ * zapełnia się w trakcie przetwarzania A. Przepustowość ogranicza czas urządzenia,
+ * a nie czas urządzenia + przetwarzania.
+ *
+ * PRZECIĄŻENIE:
+ * =============
+ * Gdy pula jest pusta, wątek urządzenia zabiera najstarszą ramkę czekającą na
+ * przetworzenie (licznik frames.dropped) - urządzenie nie czeka na wolniejsze
+ * przetwarzanie. Jeśli wszystkie ramki są u konsumenta, czeka na release().
+ *
+ * Głębokość puli: 2 = podwójne buforowanie, 3 = potrójne (DEFAULT_DEPTH); konsument,
+ * który przetrzymuje ostatnią ramkę (np. do wyświetlania), potrzebuje jednej więcej.
+ *
+ * Ramki mają stałą długość bufora urządzenia, więc przepróbkowanie do punktów na
+ * okres (CycleResampler) nie jest tu stosowane - dane mają częstotliwość sampleRateHz.
+ */
+public class ContinuousAcquisitionService {
+
+    public static final int DEFAULT_DEPTH = 3;
+
+    private final DataAcquisitionService acquisitionService;
+    private final SignalProcessingService signalProcessingService;
+
+    private BlockingQueue<AcquisitionFrame> pool;
+    private LinkedBlockingDeque<AcquisitionFrame> ready;
+    private Thread deviceThread;
+    private Thread processingThread;
+    private volatile boolean running;
+
+    public ContinuousAcquisitionService(DataAcquisitionService acquisitionService) {
+        this.acquisitionService = acquisitionService;
+        this.signalProcessingService = new SignalProcessingService();
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Start akwizycji ciągłej. consumer wywoływany na wątku "acq-processing" z ramką
+     * zawierającą już scałkowany sygnał; musi (od razu lub później) wywołać release().
+     *
+     * @param onError wywoływany, gdy akwizycja przerwie się błędem (np. utrata urządzenia)
+     */
+    public synchronized void start(AcquisitionConfig config, int depth,
+                                   Consumer<AcquisitionFrame> consumer, Consumer<Exception> onError) {
+        if (running) {
+            throw new IllegalStateException("Continuous acquisition already running");
+        }
+        if (depth < 2) {
+            throw new IllegalArgumentException("Pool depth must be at least 2");
+        }
+
+        AcquisitionConfig cfg = new AcquisitionConfig(config); // zmiany w UI nie wpływają na trwający tryb
+        // Jeden etap filtracji na cały przebieg - bufory robocze bez alokacji na ramkę;
+        // błędny filtr (odcięcie ≥ fs/2) zgłaszany tutaj, a nie w wątku przetwarzania
+        FilterStage filters = new FilterStage(cfg);
+        pool = new ArrayBlockingQueue<>(depth);
+        ready = new LinkedBlockingDeque<>();
+        for (int i = 0; i < depth; i++) {
+            pool.add(new AcquisitionFrame(cfg.getBufferSize(), pool));
+        }
+        running = true;
+
+        deviceThread = new Thread(() -> deviceLoop(cfg, onError), "acq-device");
+        processingThread = new Thread(() -> processingLoop(cfg, filters, consumer), "acq-processing");
+        deviceThread.setDaemon(true);
+        processingThread.setDaemon(true);
+        processingThread.start();
+        deviceThread.start();
+    }
+
+    /**
+     * Zatrzymanie - bieżący odczyt urządzenia jest przerywany.
+     */
+    public synchronized void stop() throws InterruptedException {
+        if (!running) return;
+        running = false;
+        deviceThread.interrupt();
+        processingThread.interrupt();
+        deviceThread.join();
+        processingThread.join();
+    }
+
+    private void deviceLoop(AcquisitionConfig config, Consumer<Exception> onError) {
+        long sequence = 0;
+        try {
+            while (running) {
+                AcquisitionFrame frame = pool.poll();
+                if (frame == null) {
+                    // Przetwarzanie nie nadąża - nadpisujemy najstarszą nieprzetworzoną ramkę
+                    frame = ready.pollFirst();
+                    if (frame != null) {
+                        PipelineMetrics.FRAMES_DROPPED.increment();
+                    } else {
+                        frame = pool.take(); // wszystkie ramki u konsumenta
+                    }
+                }
+
+                acquisitionService.acquireInto(config, frame.getData().getCh0Data(), frame.getData().getCh1Data());
+                frame.setSequence(++sequence);
+                ready.putLast(frame);
+            }
+        } catch (InterruptedException e) {
+            // stop()
+        } catch (Exception e) {
+            running = false;
+            processingThread.interrupt();
+            if (onError != null) onError.accept(e);
+        }
+    }
+
+    private void processingLoop(AcquisitionConfig config, FilterStage filters, Consumer<AcquisitionFrame> consumer) {
+        try {
+            while (running) {
+                AcquisitionFrame frame = ready.takeFirst();
+                // Ramki nie są ciągłe (przerwa między odczytami), więc stan od zera
+                filters.reset();
+                filters.apply(frame.getData().getCh0Data(), frame.getData().getCh1Data(), config.getBufferSize());
+                signalProcessingService.integrate(frame.getData().getCh0Data(), config.getSampleRateHz(),
+                        frame.getData().getCh0Integrated());
+                consumer.accept(frame);
+            }
+        } catch (InterruptedException e) {
+            // stop()
+        }
+    }
+}
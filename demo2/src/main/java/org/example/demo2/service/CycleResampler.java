@@ -0,0 +1,296 @@
+package org.example.demo2.service;
+
+import org.example.demo2.model.HysteresisData;
+import org.example.demo2.model.SampleChannel;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * PRZEPRÓBKOWANIE DO STAŁEJ LICZBY PUNKTÓW NA OKRES WZBUDZENIA
+ * ============================================================
+ *
+ * Przy dowolnych sampleRateHz i częstotliwości wzbudzenia liczba próbek na okres
+ * jest dowolna (np. 1 MHz / 50 Hz = 20000), a z nią koszt i dokładność statystyk,
+ * binningu, analizy pętli i zapisu. Resampler zamienia rekord na
+ * fOut = excitationHz · pointsPerCycle - każdy okres ma dokładnie pointsPerCycle
+ * punktów, a rekord obcinany jest do pełnych okresów.
+ *
+ * INTERPOLACJA (TABLICA POLIFAZOWA):
+ * ==================================
+ * y[k] = Σ x[j]·h(t_k - j), t_k = k·step, step = fs / fOut (próbki wejścia na wyjście).
+ * h - sinc z oknem Blackmana o odcięciu CUTOFF·min(fs, fOut): przy decymacji jest
+ * też filtrem antyaliasingowym (jądro szersze o 1/r), przy nadpróbkowaniu -
+ * interpolatorem pasma. Współczynniki dla PHASES+1 położeń ułamkowych liczone są
+ * raz na (szerokość jądra, odcięcie) i współdzielone (TABLES); położenie między
+ * fazami - liniowa interpolacja dwóch sąsiednich wierszy.
+ *
+ * Koszt: 2·taps mnożeń na próbkę wyjścia, taps ~ 2·ZERO_CROSSINGS/r, więc przy
+ * decymacji ~32 mnożenia na próbkę wejścia niezależnie od stopnia decymacji.
+ *
+ * TRYBY:
+ * - resample(HysteresisData) - cały rekord, brzegi przedłużane pierwszą/ostatnią
+ *   próbką; bez stanu, bezpieczne wątkowo
+ * - process() - strumień porcji ze stanem (historia wejścia, numer następnej
+ *   próbki wyjścia); opóźnienie taps/2 próbek wejścia, jedna instancja na kanał
+ */
+public final class CycleResampler {
+
+    // Przejścia przez zero jądra po każdej stronie (przy decymacji - w skali wyjścia)
+    static final int ZERO_CROSSINGS = 8;
+
+    // Położenia ułamkowe w tablicy
+    static final int PHASES = 512;
+
+    // Odcięcie jako ułamek niższej z częstotliwości fs, fOut (pasmo przejściowe do 0.5)
+    static final double CUTOFF = 0.45;
+
+    // Połowa jądra [próbki wejścia] - przy bardzo silnej decymacji jądro jest obcinane
+    static final int MAX_HALF = 4096;
+
+    // Największa tablica [współczynniki] - przy długim jądrze mniej faz
+    private static final int MAX_TABLE = 1 << 18;
+
+    // Tablice w pamięci (sweep po częstotliwościach tworzy nową na każdą) - potem od nowa
+    private static final int MAX_CACHED_TABLES = 16;
+
+    // Próbki wejścia czytane naraz w trybie rekordu
+    private static final int INPUT_BLOCK = 1 << 16;
+
+    private static final ConcurrentHashMap<TableKey, double[]> TABLES = new ConcurrentHashMap<>();
+
+    private final double outputRateHz;
+    private final int pointsPerCycle;
+    private final double step;
+    private final int half;
+    private final int phases;
+    private final double[] table;
+
+    // Stan trybu strumieniowego: [historia 2·half | porcja]
+    private double[] line = new double[0];
+    private long consumed;
+    private long next;
+    private boolean started;
+
+    /**
+     * @throws IllegalArgumentException gdy któraś z częstotliwości lub pointsPerCycle nie jest dodatnia
+     */
+    public CycleResampler(double inputRateHz, double excitationHz, int pointsPerCycle) {
+        if (!(inputRateHz > 0) || !(excitationHz > 0) || pointsPerCycle < 1) {
+            throw new IllegalArgumentException("Invalid resampling: " + inputRateHz + " Hz → "
+                    + pointsPerCycle + " points per " + excitationHz + " Hz cycle");
+        }
+        this.pointsPerCycle = pointsPerCycle;
+        this.outputRateHz = excitationHz * pointsPerCycle;
+        this.step = inputRateHz / outputRateHz;
+        double scale = Math.min(1, 1 / step);
+        this.half = (int) Math.min(MAX_HALF, Math.ceil(ZERO_CROSSINGS / scale));
+        this.phases = Math.max(16, Math.min(PHASES, MAX_TABLE / (2 * half) - 1));
+        double cutoff = CUTOFF * scale;
+        if (TABLES.size() >= MAX_CACHED_TABLES) TABLES.clear();
+        this.table = TABLES.computeIfAbsent(new TableKey(half, phases, cutoff),
+                key -> design(key.half, key.phases, key.cutoff));
+    }
+
+    /**
+     * (phases + 1) × 2·half współczynników, wiersz p dla położenia ułamkowego p / phases;
+     * współczynnik m mnoży próbkę floor(t) - half + 1 + m. cutoff w cyklach na próbkę wejścia.
+     */
+    private static double[] design(int half, int phases, double cutoff) {
+        int taps = 2 * half;
+        double[] table = new double[(phases + 1) * taps];
+        for (int p = 0; p <= phases; p++) {
+            double mu = (double) p / phases;
+            double sum = 0;
+            for (int m = 0; m < taps; m++) {
+                double d = mu + half - 1 - m;  // t - j
+                double x = 2 * cutoff * d;
+                double sinc = x == 0 ? 1 : Math.sin(Math.PI * x) / (Math.PI * x);
+                double w = d / half;
+                double window = 0.42 + 0.5 * Math.cos(Math.PI * w) + 0.08 * Math.cos(2 * Math.PI * w);
+                table[p * taps + m] = sinc * window;
+                sum += table[p * taps + m];
+            }
+            for (int m = 0; m < taps; m++) {
+                table[p * taps + m] /= sum;    // wzmocnienie DC = 1 w każdej fazie
+            }
+        }
+        return table;
+    }
+
+    public double getOutputRateHz() {
+        return outputRateHz;
+    }
+
+    public int getPointsPerCycle() {
+        return pointsPerCycle;
+    }
+
+    /**
+     * Próbki wejścia na jedną próbkę wyjścia (> 1 - decymacja).
+     */
+    public double getStep() {
+        return step;
+    }
+
+    /**
+     * Długość rekordu wyjściowego: pełne okresy po pointsPerCycle punktów albo,
+     * gdy rekord jest krótszy niż okres, wszystkie punkty mieszczące się w rekordzie.
+     */
+    public int outputLength(int inputLength) {
+        long cycles = (long) Math.floor(inputLength / (step * pointsPerCycle));
+        if (cycles >= 1) {
+            return (int) Math.min(Integer.MAX_VALUE - 8, cycles * pointsPerCycle);
+        }
+        return inputLength == 0 ? 0 : (int) Math.floor((inputLength - 1) / step) + 1;
+    }
+
+    /**
+     * Rekord przepróbkowany - kanały w formacie wejścia (int16 jako derivedFormat:
+     * wartości interpolowane nie są kodami przetwornika).
+     */
+    public HysteresisData resample(HysteresisData data) {
+        int m = outputLength(Math.min(data.getCh0Channel().length(), data.getCh1Channel().length()));
+        return new HysteresisData(resampled(data.getCh0Channel(), m), resampled(data.getCh1Channel(), m),
+                resampled(data.getCh0IntegratedChannel(), m));
+    }
+
+    private SampleChannel resampled(SampleChannel in, int m) {
+        SampleChannel out = in.format().derivedFormat().allocateRecord(m);
+        resample(in, out);
+        return out;
+    }
+
+    /**
+     * out[k] = wejście w chwili k·step dla k < out.length() (brzegi przedłużone).
+     */
+    public void resample(SampleChannel in, SampleChannel out) {
+        int n = in.length();
+        int m = out.length();
+        if (m == 0) return;
+        int maxOut = (int) Math.max(1, Math.min(INPUT_BLOCK / step, INPUT_BLOCK));
+        double[] x = new double[(int) Math.ceil(maxOut * step) + 2 * half + 2];
+        double[] y = new double[maxOut];
+        for (int k0 = 0, c; k0 < m; k0 += c) {
+            c = Math.min(maxOut, m - k0);
+            long lo = (long) Math.floor(k0 * step) - half + 1;
+            long hi = (long) Math.floor((k0 + c - 1) * step) + half;
+            readClamped(in, n, lo, hi, x);
+            for (int k = 0; k < c; k++) {
+                double t = (k0 + k) * step;
+                double whole = Math.floor(t);
+                y[k] = interpolate(x, (int) ((long) whole - lo), t - whole);
+            }
+            out.write(k0, y, 0, c);
+        }
+    }
+
+    // x[i] = in[lo + i] dla lo + i w [lo, hi], poza rekordem - próbka brzegowa
+    private static void readClamped(SampleChannel in, int n, long lo, long hi, double[] x) {
+        int from = (int) Math.max(0, lo);
+        int to = (int) Math.min(n - 1, hi);
+        int i = 0;
+        double first = in.get(0);
+        for (long j = lo; j < from; j++) x[i++] = first;
+        if (to >= from) {
+            in.read(from, x, i, to - from + 1);
+            i += to - from + 1;
+        }
+        double last = in.get(n - 1);
+        for (long j = Math.max(lo, to + 1); j <= hi; j++) x[i++] = last;
+    }
+
+    // Wartość w chwili floor(t) + mu, x[center] = próbka floor(t)
+    private double interpolate(double[] x, int center, double mu) {
+        int taps = 2 * half;
+        double position = mu * phases;
+        int p = (int) position;
+        double f = position - p;
+        int row0 = p * taps;
+        int row1 = row0 + taps;
+        int base = center - half + 1;
+        double a0 = 0, a1 = 0;
+        for (int m = 0; m < taps; m++) {
+            double v = x[base + m];
+            a0 += table[row0 + m] * v;
+            a1 += table[row1 + m] * v;
+        }
+        return a0 + f * (a1 - a0);
+    }
+
+    // ===== TRYB STRUMIENIOWY =====
+
+    /**
+     * Górna granica liczby próbek wyjścia z porcji count próbek (rozmiar out w process()).
+     */
+    public int maxOutput(int count) {
+        return (int) Math.ceil(count / step) + 2;
+    }
+
+    /**
+     * Kolejna porcja strumienia: out[0..wynik) = próbki wyjścia, dla których jest
+     * już całe okno wejścia. out musi mieć co najmniej maxOutput(count) elementów.
+     */
+    public int process(double[] in, int count, double[] out) {
+        int taps = 2 * half;
+        if (line.length < taps + count) {
+            double[] grown = new double[taps + count];
+            System.arraycopy(line, 0, grown, 0, Math.min(line.length, taps));
+            line = grown;
+        }
+        if (!started) {
+            if (count == 0) return 0;
+            Arrays.fill(line, 0, taps, in[0]);  // przed strumieniem - pierwsza próbka
+            started = true;
+        }
+        System.arraycopy(in, 0, line, taps, count);
+        long available = consumed + count;
+        long lineStart = consumed - taps;
+        int produced = 0;
+        while (true) {
+            double t = next * step;
+            long whole = (long) Math.floor(t);
+            if (whole + half >= available) break;
+            out[produced++] = interpolate(line, (int) (whole - lineStart), t - whole);
+            next++;
+        }
+        System.arraycopy(line, count, line, 0, taps);
+        consumed = available;
+        return produced;
+    }
+
+    /**
+     * Nowy strumień (np. po utracie próbek) - numeracja wyjścia od zera.
+     */
+    public void reset() {
+        consumed = 0;
+        next = 0;
+        started = false;
+    }
+
+    private static final class TableKey {
+        private final int half;
+        private final int phases;
+        private final double cutoff;
+
+        TableKey(int half, int phases, double cutoff) {
+            this.half = half;
+            this.phases = phases;
+            this.cutoff = cutoff;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof TableKey)) return false;
+            TableKey other = (TableKey) o;
+            return half == other.half && phases == other.phases
+                    && Double.compare(cutoff, other.cutoff) == 0;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(half, phases, cutoff);
+        }
+    }
+}
@@ -1,8 +1,19 @@
 package org.example.demo2.service;
 
+import org.example.demo2.metrics.AcquisitionEvent;
+import org.example.demo2.metrics.FifoPollEvent;
+import org.example.demo2.metrics.MetricsRegistry;
+import org.example.demo2.metrics.PipelineMetrics;
 import org.example.demo2.model.AcquisitionConfig;
 import org.example.demo2.model.HysteresisData;
-import org.knowm.waveforms4j.DWF;
+import org.example.demo2.model.Int16Channel;
+import org.example.demo2.model.SampleChannel;
+import org.example.demo2.model.SampleFormat;
+import org.example.demo2.model.SegmentedChannel;
+import org.example.demo2.service.DeviceStateCache.Setting;
+
+import java.util.Arrays;
+import java.util.function.BooleanSupplier;
 
 /**
  * Service for data acquisition from DWF device.
@@ -12,89 +23,455 @@ public class DataAcquisitionService {
     private static final int IN_CH1 = 1;
     private static final int OUT_CH0 = 0;
 
-    private final DWF dwf;
-    private final SignalProcessingService signalProcessingService;
+    // Czas oczekiwania na otwarcie urządzenia przed akwizycją [ms]
+    private static final long OPEN_TIMEOUT_MS = 10_000;
+
+    // Brak nowych próbek przez ten czas (ponad czas akwizycji) = utrata urządzenia [ms]
+    private static final long STALL_TIMEOUT_MS = 2_000;
+
+    // Ile razy ponowić akwizycję po ponownym połączeniu z urządzeniem
+    private static final int MAX_RECONNECT_RETRIES = 3;
+
+    // funcCustom z dwf.h - generator odtwarza tablicę wgraną przez FDwfAnalogOutNodeDataSet
+    private static final int FUNC_CUSTOM = 30;
+
+    private final AnalogDevice device;
+    private final DeviceSessionService session;
+    private final ParallelAnalysisService analysisService;
+    private final DeviceStateCache stateCache = new DeviceStateCache();
     private volatile boolean acquiring = false;
 
-    public DataAcquisitionService(DWF dwf) {
-        this.dwf = dwf;
-        this.signalProcessingService = new SignalProcessingService();
+    // Ostatnio zastosowana konfiguracja - odtwarzana po ponownym połączeniu z urządzeniem
+    private AcquisitionConfig lastAnalogIn;
+    private String lastWave;
+    private double[] lastCustomTable;
+    private double lastFrequency, lastAmplitude, lastOffset;
+    private boolean outputEnabled;
 
-        boolean successful = dwf.FDwfDeviceOpen();  // sprawdzenie czy udało się połączyć z analog discovery
-        System.out.println("successful: " + successful); // wypisanie tego w konsoli
+    // Ostatnio wgrana tablica funcCustom - identyczna tablica nie jest wgrywana ponownie
+    private double[] uploadedTable;
+    private int uploadedTableHash;
 
+    /**
+     * Urządzenie nie jest otwierane w konstruktorze - robi to DeviceSessionService
+     * w tle (openAsync), a acquire() czeka na stan OPEN.
+     */
+    public DataAcquisitionService(DeviceSessionService session) {
+        this.session = session;
+        this.device = session.getDevice();
+        this.analysisService = new ParallelAnalysisService();
+        session.setReconfigureHook(this::reapplyConfiguration);
+        // Suma od startu; wartość dla pojedynczej akwizycji - PipelineMetrics.CALLS_SAVED_LAST
+        MetricsRegistry.getDefault().gauge("device.calls.saved", stateCache::getSavedCalls);
+    }
+
+    public DeviceSessionService getSession() {
+        return session;
     }
 
     public boolean isAcquiring() {
         return acquiring;
     }
 
-    public void configureAnalogIn(AcquisitionConfig config) {
-        dwf.FDwfAnalogInChannelEnableSet(IN_CH0, true);
-        dwf.FDwfAnalogInChannelEnableSet(IN_CH1, true);
-        dwf.FDwfAnalogInChannelRangeSet(IN_CH0, config.getInputRangeV());
-        dwf.FDwfAnalogInChannelRangeSet(IN_CH1, config.getInputRangeV());
-        dwf.FDwfAnalogInFrequencySet(config.getSampleRateHz());
-        dwf.FDwfAnalogInBufferSizeSet(config.getBufferSize());
+    public DeviceStateCache getStateCache() {
+        return stateCache;
+    }
+
+    /**
+     * Konfiguracja wejść - wysyłane są tylko ustawienia różne od ostatnio zastosowanych.
+     * Rekord dłuższy niż bufor urządzenia (DEVICE_BUFFER_SIZE) jest nagrywany w trybie
+     * ACQMODE_RECORD o długości bufferSize / sampleRate.
+     */
+    public synchronized void configureAnalogIn(AcquisitionConfig config) {
+        configureAnalogIn(config, isLongRecord(config));
+    }
+
+    private synchronized void configureAnalogIn(AcquisitionConfig config, boolean record) {
+        configureAnalogIn(config, record,
+                record ? AcquisitionConfig.DEVICE_BUFFER_SIZE : config.getBufferSize(),
+                config.calculateTimeFromBuffer());
+    }
+
+    /**
+     * @param deviceBuffer rozmiar bufora (FIFO) urządzenia [próbki]
+     * @param recordSeconds długość nagrania w trybie RECORD [s]; 0 = bez końca
+     */
+    private synchronized void configureAnalogIn(AcquisitionConfig config, boolean record,
+                                                int deviceBuffer, double recordSeconds) {
+        lastAnalogIn = new AcquisitionConfig(config);
+        int mode = record ? AnalogDevice.ACQMODE_RECORD : AnalogDevice.ACQMODE_SINGLE;
+        apply(Setting.IN_ACQ_MODE, mode, () -> device.analogInAcquisitionMode(mode));
+        apply(Setting.IN_ENABLE_CH0, 1, () -> device.analogInChannelEnable(IN_CH0, true));
+        apply(Setting.IN_ENABLE_CH1, 1, () -> device.analogInChannelEnable(IN_CH1, true));
+        apply(Setting.IN_RANGE_CH0, config.getInputRangeV(), () -> device.analogInChannelRange(IN_CH0, config.getInputRangeV()));
+        apply(Setting.IN_RANGE_CH1, config.getInputRangeV(), () -> device.analogInChannelRange(IN_CH1, config.getInputRangeV()));
+        apply(Setting.IN_FREQUENCY, config.getSampleRateHz(), () -> device.analogInFrequency(config.getSampleRateHz()));
+        apply(Setting.IN_BUFFER_SIZE, deviceBuffer, () -> device.analogInBufferSize(deviceBuffer));
+        if (record) {
+            apply(Setting.IN_RECORD_LENGTH, recordSeconds, () -> device.analogInRecordLength(recordSeconds));
+        }
+    }
+
+    private static boolean isLongRecord(AcquisitionConfig config) {
+        return config.getBufferSize() > AcquisitionConfig.DEVICE_BUFFER_SIZE;
+    }
+
+    /**
+     * Wywołanie DWF tylko gdy wartość się zmieniła; błąd wywołania unieważnia zapamiętany stan.
+     */
+    private void apply(Setting setting, double value, BooleanSupplier call) {
+        if (stateCache.needsUpdate(setting, value) && !call.getAsBoolean()) {
+            stateCache.invalidate(setting);
+        }
     }
 
     public HysteresisData acquire(AcquisitionConfig config) throws Exception {
+        // Kanały w formacie z konfiguracji (FLOAT32 - połowa pamięci, INT16 - kody ADC);
+        // długie rekordy w segmentach (SegmentedChannel) zamiast jednej wielkiej tablicy
+        SampleFormat format = config.getSampleFormat();
+        SampleChannel ch0 = format.allocateRecord(config.getBufferSize());
+        SampleChannel ch1 = format.allocateRecord(config.getBufferSize());
+        acquireInto(config, ch0, ch1);
+        // Filtr szumów i kompensacja opóźnienia CH1 - nowy etap, bo rekordy są niezależne
+        new FilterStage(config).apply(ch0, ch1);
+        // Długie rekordy całkowane równolegle - wynik identyczny z całkowaniem sekwencyjnym
+        SampleChannel ch0Int = analysisService.integrate(ch0, config.getSampleRateHz(),
+                format.derivedFormat().allocateRecord(ch0.length()));
+
+        HysteresisData data = new HysteresisData(ch0, ch1, ch0Int);
+        if (config.isCycleResampling()) {
+            // Stała liczba punktów na okres - dalsze etapy (analiza, binning, wykresy)
+            // pracują na rekordzie o częstotliwości config.getAnalysisSampleRateHz()
+            data = new CycleResampler(config.getSampleRateHz(), config.getExcitationHz(),
+                    config.getPointsPerCycle()).resample(data);
+        }
+        return data;
+    }
+
+    /**
+     * Odczyt jednego bufora do tablic podanych przez wywołującego (bez całkowania) -
+     * używane przez ContinuousAcquisitionService z buforami z puli.
+     * Tablice muszą mieć co najmniej config.getBufferSize() elementów.
+     */
+    public void acquireInto(AcquisitionConfig config, double[] ch0, double[] ch1) throws Exception {
+        acquireInto(config, SampleChannel.of(ch0), SampleChannel.of(ch1));
+    }
+
+    /**
+     * Odczyt jednego bufora do kanałów w dowolnym formacie (SampleFormat).
+     */
+    public void acquireInto(AcquisitionConfig config, SampleChannel ch0, SampleChannel ch1) throws Exception {
         if (acquiring) {
             throw new IllegalStateException("Acquisition already in progress");
         }
 
         acquiring = true;
+        long savedBefore = stateCache.getSavedCalls();
+        AcquisitionEvent event = new AcquisitionEvent();
+        event.begin();
         try {
-            configureAnalogIn(config);
+            // Utrata urządzenia w trakcie pomiaru: czekamy na ponowne połączenie i powtarzamy
+            int attempt = 0;
+            for (; ; attempt++) {
+                if (!session.awaitOpen(OPEN_TIMEOUT_MS)) {
+                    throw new IllegalStateException("Device not connected (" + session.getState() + ")");
+                }
+                if (drain(config, ch0, ch1)) break;
 
-            double[] ch0 = new double[config.getBufferSize()];
-            double[] ch1 = new double[config.getBufferSize()];
-            int collected = 0;
+                session.markLost();
+                if (attempt >= MAX_RECONNECT_RETRIES) {
+                    throw new IllegalStateException("Device lost during acquisition");
+                }
+            }
 
-            dwf.FDwfAnalogInConfigure(false, true);
+            event.finish("snapshot", config, config.getBufferSize(), attempt);
+            PipelineMetrics.CALLS_SAVED_LAST.set(stateCache.getSavedCalls() - savedBefore);
+            PipelineMetrics.ACQUISITIONS.increment();
+            PipelineMetrics.SAMPLES_READ.add(config.getBufferSize());
+        } finally {
+            acquiring = false;
+        }
+    }
 
+    /**
+     * Odczyt bufora z urządzenia.
+     *
+     * @return false jeśli FDwfAnalogInStatus zwróciło błąd albo urządzenie przestało
+     *         dostarczać próbki (prawdopodobny zanik USB)
+     */
+    private boolean drain(AcquisitionConfig config, SampleChannel ch0, SampleChannel ch1) throws InterruptedException {
+        configureAnalogIn(config);
+        calibrate(IN_CH0, ch0, config);
+        calibrate(IN_CH1, ch1, config);
+        // Nagrywanie: FIFO urządzenia opróżniane w trakcie, próbki utracone są raportowane
+        boolean record = isLongRecord(config);
+        int fifoSize = record ? AcquisitionConfig.DEVICE_BUFFER_SIZE : config.getBufferSize();
+        int[] status = new int[3]; // dostępne, utracone, uszkodzone
+        int collected = 0;
+        long drainStart = System.nanoTime();
+
+        device.analogInConfigure(false, true);
+
+        long stallLimitNs = (STALL_TIMEOUT_MS + (long) (config.calculateTimeFromBuffer() * 1000)) * 1_000_000L;
+        long lastProgress = System.nanoTime();
+
+        try {
             while (collected < config.getBufferSize()) {
-                dwf.FDwfAnalogInStatus(true);
-                int n = dwf.FDwfAnalogInStatusSamplesValid();
-                if (n <= 0) continue;
+                if (Thread.interrupted()) throw new InterruptedException(); // stop trybu ciągłego
+                FifoPollEvent poll = new FifoPollEvent();
+                poll.begin();
+                long pollStart = System.nanoTime();
+                if (!device.analogInStatus(true)) {
+                    poll.finish(0, 0, 0);
+                    return false; // błąd FDwfAnalogInStatus - od razu utrata urządzenia, bez czekania na limit
+                }
+                int n;
+                if (record) {
+                    device.analogInStatusRecord(status);
+                    n = status[0];
+                    PipelineMetrics.SAMPLES_LOST.add(status[1]);
+                    PipelineMetrics.SAMPLES_CORRUPT.add(status[2]);
+                } else {
+                    n = device.analogInSamplesValid();
+                }
+                PipelineMetrics.DEVICE_POLL.recordSince(pollStart);
+                if (n <= 0) {
+                    poll.finish(n, 0, status[1]);
+                    if (System.nanoTime() - lastProgress > stallLimitNs) return false;
+                    continue;
+                }
 
                 int r = Math.min(n, config.getBufferSize() - collected);
 
-                System.arraycopy(dwf.FDwfAnalogInStatusData(IN_CH0, r), 0, ch0, collected, r);
-                System.arraycopy(dwf.FDwfAnalogInStatusData(IN_CH1, r), 0, ch1, collected, r);
+                read(IN_CH0, ch0, collected, r);
+                read(IN_CH1, ch1, collected, r);
+                poll.finish(n, r, status[1]);
 
                 collected += r;
+                lastProgress = System.nanoTime();
+                PipelineMetrics.FIFO_FILL.set((double) n / fifoSize);
             }
+        } finally {
+            // Nagrywanie trwa do końca zadanej długości - zatrzymujemy je po zebraniu rekordu
+            if (record) device.analogInConfigure(false, false);
+        }
+        PipelineMetrics.FIFO_DRAIN.recordSince(drainStart);
+        return true;
+    }
+
+    /**
+     * Skala kodów kanału INT16 z zakresu i offsetu odczytanych z urządzenia po konfiguracji.
+     * Bez odczytu z urządzenia: zakres zadany FDwfAnalogInChannelRangeSet, czyli
+     * inputRangeV (międzyszczytowo) - napięcia z analogInData kwantyzowane są w tej skali.
+     */
+    private void calibrate(int channel, SampleChannel ch, AcquisitionConfig config) {
+        if (ch instanceof SegmentedChannel segmented) {
+            for (SampleChannel segment : segmented.segments()) calibrate(channel, segment, config);
+            return;
+        }
+        if (!(ch instanceof Int16Channel codes)) return;
+        double range = device.analogInChannelRangeGet(channel);
+        double offset = device.analogInChannelOffsetGet(channel);
+        codes.calibrate(Double.isNaN(range) ? config.getInputRangeV() : range, Double.isNaN(offset) ? 0 : offset);
+    }
+
+    /**
+     * Odczyt count próbek do kanału od pozycji from - jedno wywołanie urządzenia na kanał.
+     * Kanał INT16: surowe kody wprost z urządzenia (bez konwersji na double), jeśli
+     * urządzenie je udostępnia, a porcja mieści się w jednym segmencie rekordu.
+     */
+    private void read(int channel, SampleChannel ch, int from, int count) {
+        SampleChannel target = ch;
+        int pos = from;
+        if (ch instanceof SegmentedChannel segmented) {
+            target = segmented.segmentOf(from, count);
+            pos = SegmentedChannel.offsetOf(from);
+        }
+        if (target instanceof Int16Channel codes && device.analogInData16(channel, codes.codes(), pos, count)) return;
+        ch.write(from, device.analogInData(channel, count), 0, count);
+    }
+
+    /**
+     * TRYB STRUMIENIOWY (ACQMODE_RECORD)
+     * ==================================
+     *
+     * Ciągły odczyt próbek bez zatrzymywania akwizycji - każda porcja dostępna
+     * w FIFO urządzenia trafia od razu do listenera. Działa na wątku wywołującego
+     * do momentu, gdy stop zwróci true.
+     *
+     * Rozmiar bufora z config określa FIFO urządzenia; długość nagrania nieograniczona.
+     *
+     * @return liczba odebranych próbek (na kanał)
+     */
+    public long stream(AcquisitionConfig config, SampleChunkListener listener, BooleanSupplier stop) throws Exception {
+        if (acquiring) {
+            throw new IllegalStateException("Acquisition already in progress");
+        }
+        if (!session.awaitOpen(OPEN_TIMEOUT_MS)) {
+            throw new IllegalStateException("Device not connected (" + session.getState() + ")");
+        }
+
+        acquiring = true;
+        long received = 0;
+        AcquisitionEvent event = new AcquisitionEvent();
+        event.begin();
+        try {
+            // Od razu tryb RECORD z FIFO z config i nagraniem bez końca (bez przejścia przez SINGLE)
+            configureAnalogIn(config, true, config.getBufferSize(), 0);
+            device.analogInConfigure(false, true);
 
-            double[] ch0Int = signalProcessingService.integrate(ch0, config.getSampleRateHz());
+            int[] status = new int[3]; // dostępne, utracone, uszkodzone
+            long lastProgress = System.nanoTime();
+            while (!stop.getAsBoolean()) {
+                FifoPollEvent poll = new FifoPollEvent();
+                poll.begin();
+                long pollStart = System.nanoTime();
+                if (!device.analogInStatus(true)) {
+                    poll.finish(0, 0, 0);
+                    session.markLost();
+                    throw new IllegalStateException("Device lost during streaming (FDwfAnalogInStatus failed)");
+                }
+                device.analogInStatusRecord(status);
+                PipelineMetrics.DEVICE_POLL.recordSince(pollStart);
+                int n = status[0];
+                if (n <= 0) {
+                    poll.finish(n, 0, status[1]);
+                    if (System.nanoTime() - lastProgress > STALL_TIMEOUT_MS * 1_000_000L) {
+                        session.markLost();
+                        throw new IllegalStateException("Device lost during streaming");
+                    }
+                    if (Thread.interrupted()) throw new InterruptedException();
+                    Thread.onSpinWait();
+                    continue;
+                }
 
-            return new HysteresisData(ch0, ch1, ch0Int);
+                long readStart = System.nanoTime();
+                double[] ch0 = device.analogInData(IN_CH0, n);
+                double[] ch1 = device.analogInData(IN_CH1, n);
+                PipelineMetrics.FIFO_DRAIN.recordSince(readStart);
+                poll.finish(n, n, status[1]);
+                PipelineMetrics.FIFO_FILL.set((double) n / config.getBufferSize());
+                PipelineMetrics.SAMPLES_READ.add(n);
+                PipelineMetrics.SAMPLES_LOST.add(status[1]);
+                PipelineMetrics.SAMPLES_CORRUPT.add(status[2]);
+
+                listener.onChunk(ch0, ch1, status[1]);
+                received += n;
+                lastProgress = System.nanoTime();
+            }
         } finally {
+            device.analogInConfigure(false, false);
             acquiring = false;
+            event.finish("streaming", config, received, 0);
+        }
+        return received;
+    }
+
+    /**
+     * Ponowne wysłanie ostatniej konfiguracji wejść i generatora
+     * (wywoływane przez DeviceSessionService po ponownym otwarciu urządzenia).
+     */
+    public synchronized void reapplyConfiguration() {
+        stateCache.invalidateAll(); // stan nowo otwartego urządzenia jest nieznany
+        if (lastAnalogIn != null) {
+            configureAnalogIn(lastAnalogIn);
+        }
+        if (lastCustomTable != null) {
+            uploadedTable = null; // nowe połączenie - urządzenie nie ma już naszej tablicy
+            configureAnalogOutCustom(lastCustomTable, lastFrequency, lastAmplitude, lastOffset);
+        } else if (lastWave != null) {
+            configureAnalogOut(lastWave, lastFrequency, lastAmplitude, lastOffset);
+        }
+        if (outputEnabled) {
+            device.analogOutConfigure(OUT_CH0, true);
         }
     }
 
-    public void configureAnalogOut(String wave, double frequency, double amplitude, double offset) {
+    /**
+     * Konfiguracja generatora z funkcją wbudowaną. Kształty własne (SINUS+DC, TRAPEZ)
+     * wymagają tablicy - configureAnalogOutCustom.
+     *
+     * @throws IllegalArgumentException nieznany kształt funkcji wbudowanej
+     */
+    public synchronized void configureAnalogOut(String wave, double frequency, double amplitude, double offset) {
         int func = switch (wave) {
+            case "SINUS" -> 1;
             case "PROSTOKĄT" -> 2;
             case "TRÓJKĄT" -> 3;
             case "STAŁA" -> 4;
-            default -> 1; // SINUS
+            default -> throw new IllegalArgumentException(
+                    "Kształt \"" + wave + "\" nie jest funkcją wbudowaną generatora - użyj configureAnalogOutCustom");
         };
 
-        dwf.FDwfAnalogOutNodeEnableSet(OUT_CH0, true);
-        dwf.FDwfAnalogOutNodeFunctionSet(OUT_CH0, func);
-        dwf.FDwfAnalogOutNodeFrequencySet(OUT_CH0, frequency);
-        dwf.FDwfAnalogOutNodeAmplitudeSet(OUT_CH0, amplitude);
-        dwf.FDwfAnalogOutNodeOffsetSet(OUT_CH0, offset);
+        apply(Setting.OUT_ENABLE, 1, () -> device.analogOutNodeEnable(OUT_CH0, true));
+        apply(Setting.OUT_FUNCTION, func, () -> device.analogOutNodeFunction(OUT_CH0, func));
+        apply(Setting.OUT_FREQUENCY, frequency, () -> device.analogOutNodeFrequency(OUT_CH0, frequency));
+        apply(Setting.OUT_AMPLITUDE, amplitude, () -> device.analogOutNodeAmplitude(OUT_CH0, amplitude));
+        apply(Setting.OUT_OFFSET, offset, () -> device.analogOutNodeOffset(OUT_CH0, offset));
+        uploadedTable = null; // funkcja wbudowana - tablica custom musi zostać wgrana ponownie
+
+        lastWave = wave;
+        lastCustomTable = null;
+        lastFrequency = frequency;
+        lastAmplitude = amplitude;
+        lastOffset = offset;
+    }
+
+    /**
+     * Konfiguracja generatora z własną tablicą próbek (WaveformGenerator).
+     * Tablica jest wgrywana tylko wtedy, gdy różni się od ostatnio wgranej.
+     * Konfiguracja jest zapamiętywana także przy błędzie wgrywania - po ponownym
+     * połączeniu reapplyConfiguration wgra tablicę jeszcze raz.
+     *
+     * @return true jeśli tablica została wgrana, false jeśli pominięto wgrywanie
+     * @throws IllegalStateException FDwfAnalogOutNodeDataSet nie powiodło się
+     */
+    public synchronized boolean configureAnalogOutCustom(double[] table, double frequency, double amplitude, double offset) {
+        int hash = Arrays.hashCode(table);
+        boolean upload = table != uploadedTable || hash != uploadedTableHash;
+
+        lastWave = null;
+        lastCustomTable = table;
+        lastFrequency = frequency;
+        lastAmplitude = amplitude;
+        lastOffset = offset;
+
+        apply(Setting.OUT_ENABLE, 1, () -> device.analogOutNodeEnable(OUT_CH0, true));
+        apply(Setting.OUT_FUNCTION, FUNC_CUSTOM, () -> device.analogOutNodeFunction(OUT_CH0, FUNC_CUSTOM));
+        if (upload) {
+            // Cache tablicy tylko po udanym wgraniu - inaczej kolejne wywołanie pominęłoby upload
+            uploadedTable = null;
+            if (!device.analogOutNodeData(OUT_CH0, table, table.length)) {
+                throw new IllegalStateException("Custom waveform upload failed (FDwfAnalogOutNodeDataSet)");
+            }
+            uploadedTable = table;
+            uploadedTableHash = hash;
+        }
+        apply(Setting.OUT_FREQUENCY, frequency, () -> device.analogOutNodeFrequency(OUT_CH0, frequency));
+        apply(Setting.OUT_AMPLITUDE, amplitude, () -> device.analogOutNodeAmplitude(OUT_CH0, amplitude));
+        apply(Setting.OUT_OFFSET, offset, () -> device.analogOutNodeOffset(OUT_CH0, offset));
+        return upload;
+    }
+
+    /**
+     * Zmiana samej amplitudy generatora (pętla regulacji) - bez ponownego
+     * ustawiania kształtu, częstotliwości i offsetu.
+     */
+    public synchronized void setAnalogOutAmplitude(double amplitude) {
+        lastAmplitude = amplitude;
+        outputEnabled = true;
+        apply(Setting.OUT_AMPLITUDE, amplitude, () -> device.analogOutNodeAmplitude(OUT_CH0, amplitude));
+        device.analogOutConfigure(OUT_CH0, true);
     }
 
-    public void enableAnalogOut(boolean enable) {
-        dwf.FDwfAnalogOutConfigure(OUT_CH0, enable);
+    public synchronized void enableAnalogOut(boolean enable) {
+        outputEnabled = enable;
+        device.analogOutConfigure(OUT_CH0, enable);
     }
 
-    public void reset() {
-        dwf.FDwfAnalogOutConfigure(OUT_CH0, false);
-        dwf.FDwfDigitalOutReset();
+    public synchronized void reset() {
+        outputEnabled = false;
+        device.analogOutConfigure(OUT_CH0, false);
+        device.digitalOutReset();
     }
 }
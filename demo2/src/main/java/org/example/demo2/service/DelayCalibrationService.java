@@ -0,0 +1,136 @@
+package org.example.demo2.service;
+
+import org.example.demo2.model.AcquisitionConfig;
+import org.example.demo2.model.ChannelDelay;
+import org.example.demo2.model.FilterSpec;
+import org.example.demo2.model.HysteresisData;
+import org.example.demo2.model.SampleChannel;
+
+/**
+ * KALIBRACJA OPÓŹNIENIA MIĘDZY KANAŁAMI CH0 I CH1
+ * ===============================================
+ *
+ * PROCEDURA:
+ * ==========
+ * Oba wejścia podłączone do tego samego sygnału odniesienia (np. wyjście
+ * generatora W1 - najlepiej prostokąt lub szum, bogate w harmoniczne).
+ * Każda różnica czasu między kanałami pochodzi wtedy z toru pomiarowego.
+ *
+ * ALGORYTM:
+ * =========
+ * 1. Surowy pomiar (bez filtru szumów, dotychczasowej kompensacji i przepróbkowania -
+ *    korelacja na próbkach przy sampleRateHz)
+ * 2. Korelacja wzajemna przez FFT: r[m] = Σ a[i]·b[i+m] - oba kanały rzeczywiste
+ *    w jednej transformacie (CH0 w części rzeczywistej, CH1 w urojonej), widma
+ *    rozdzielane z symetrii, potem R = conj(A)·B i transformata odwrotna
+ * 3. Szczyt r[m] dla |m| ≤ maxLag, część ułamkowa z paraboli przez trzy
+ *    punkty wokół szczytu
+ * 4. Znormalizowana korelacja w szczycie < MIN_CORRELATION oznacza, że kanały
+ *    nie widzą wspólnego sygnału - wynik byłby przypadkowy, więc jest błąd
+ *
+ * Dla sygnału okresowego korelacja ma szczyty co okres; suma po części wspólnej
+ * (bez zawijania) faworyzuje mniejsze |m|, a opóźnienia toru są rzędu próbek,
+ * więc wybierany jest szczyt najbliższy zera.
+ */
+public class DelayCalibrationService {
+
+    // Najdłuższy analizowany fragment - FFT 2× dłuższe, dwie tablice double
+    static final int MAX_SAMPLES = 1 << 18;
+
+    // Domyślny zakres szukania opóźnienia [próbki]
+    public static final int DEFAULT_MAX_LAG = 256;
+
+    // Minimalna znormalizowana korelacja wspólnego sygnału
+    static final double MIN_CORRELATION = 0.9;
+
+    private final DataAcquisitionService acquisitionService;
+
+    public DelayCalibrationService(DataAcquisitionService acquisitionService) {
+        this.acquisitionService = acquisitionService;
+    }
+
+    /**
+     * Pomiar sygnału odniesienia i estymacja opóźnienia. Metoda blokująca -
+     * wywoływać poza wątkiem JavaFX.
+     *
+     * @param baseConfig konfiguracja akwizycji (kopiowana; filtr, kompensacja i przepróbkowanie wyłączone)
+     */
+    public ChannelDelay calibrate(AcquisitionConfig baseConfig) throws Exception {
+        AcquisitionConfig config = new AcquisitionConfig(baseConfig);
+        config.setFilter(FilterSpec.NONE);
+        config.setChannelDelaySec(0);
+        config.setPointsPerCycle(0);    // dane przy sampleRateHz - opóźnienie w próbkach wejścia
+        HysteresisData data = acquisitionService.acquire(config);
+        int maxLag = Math.min(DEFAULT_MAX_LAG, data.getCh0Channel().length() / 4);
+        return estimate(data.getCh0Channel(), data.getCh1Channel(), config.getSampleRateHz(), maxLag);
+    }
+
+    /**
+     * Opóźnienie ch1 względem ch0 (> 0 - ch1 spóźniony) z korelacji wzajemnej.
+     *
+     * @throws IllegalStateException gdy kanały nie są skorelowane (brak wspólnego sygnału)
+     */
+    public static ChannelDelay estimate(SampleChannel ch0, SampleChannel ch1, int sampleRateHz, int maxLag) {
+        int n = Math.min(Math.min(ch0.length(), ch1.length()), MAX_SAMPLES);
+        if (maxLag < 1 || maxLag >= n / 2) {
+            throw new IllegalArgumentException("maxLag must be in 1.." + (n / 2 - 1) + ": " + maxLag);
+        }
+        int size = Fft.sizeFor(2 * n);  // zero-padding - korelacja bez zawijania
+        double[] re = new double[size];
+        double[] im = new double[size];
+        ch0.read(0, re, 0, n);
+        ch1.read(0, im, 0, n);
+        double energy0 = removeMean(re, n);
+        double energy1 = removeMean(im, n);
+        if (energy0 == 0 || energy1 == 0) {
+            throw new IllegalStateException("Reference signal missing on " + (energy0 == 0 ? "CH0" : "CH1"));
+        }
+
+        Fft fft = Fft.of(size);
+        fft.forward(re, im);
+        for (int k = 0; k <= size / 2; k++) {
+            int j = (size - k) & (size - 1);
+            // Z = A + iB: A[k] = (Z[k] + conj Z[-k]) / 2, B[k] = (Z[k] - conj Z[-k]) / 2i
+            double ar = 0.5 * (re[k] + re[j]), ai = 0.5 * (im[k] - im[j]);
+            double br = 0.5 * (im[k] + im[j]), bi = 0.5 * (re[j] - re[k]);
+            // R = conj(A)·B; r rzeczywiste, więc R[-k] = conj R[k]
+            double rr = ar * br + ai * bi;
+            double ri = ar * bi - ai * br;
+            re[k] = rr;
+            im[k] = ri;
+            re[j] = rr;
+            im[j] = -ri;
+        }
+        fft.inverse(re, im);
+
+        int best = 0;
+        for (int m = -maxLag; m <= maxLag; m++) {
+            if (re[m & (size - 1)] > re[best & (size - 1)]) best = m;
+        }
+        double peak = re[best & (size - 1)];
+        double left = re[(best - 1) & (size - 1)];
+        double right = re[(best + 1) & (size - 1)];
+        double curvature = left - 2 * peak + right;
+        double fraction = curvature < 0 ? 0.5 * (left - right) / curvature : 0;
+
+        double correlation = peak / Math.sqrt(energy0 * energy1);
+        if (correlation < MIN_CORRELATION) {
+            throw new IllegalStateException(String.format(
+                    "Channels do not share a reference signal (correlation %.3f)", correlation));
+        }
+        return new ChannelDelay(best + fraction, correlation, sampleRateHz);
+    }
+
+    // x[0..n) -= średnia; zwraca Σx² po odjęciu
+    private static double removeMean(double[] x, int n) {
+        double sum = 0;
+        for (int i = 0; i < n; i++) sum += x[i];
+        double mean = sum / n;
+        double energy = 0;
+        for (int i = 0; i < n; i++) {
+            x[i] -= mean;
+            energy += x[i] * x[i];
+        }
+        return energy;
+    }
+}
@@ -0,0 +1,217 @@
+package org.example.demo2.service;
+
+import org.example.demo2.metrics.PipelineMetrics;
+
+import java.lang.System.Logger.Level;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
+
+/**
+ * SESJA POŁĄCZENIA Z URZĄDZENIEM DWF
+ * ==================================
+ *
+ * Otwiera urządzenie asynchronicznie (UI startuje od razu, a FDwfDeviceOpen może trwać
+ * kilka sekund), udostępnia stan połączenia i automatycznie łączy się ponownie po utracie
+ * urządzenia (np. chwilowy zanik USB w trakcie długiego pomiaru).
+ *
+ * STANY:
+ * ======
+ * DISCONNECTED → CONNECTING → OPEN
+ *                    ↑          │ markLost() (błąd lub brak danych z FDwfAnalogInStatus)
+ *                    └── LOST ←─┘
+ *
+ * Po każdym otwarciu wywoływany jest hook reconfigure (DataAcquisitionService
+ * odtwarza ostatnią konfigurację wejść i generatora).
+ *
+ * Wszystkie operacje otwierania/zamykania wykonuje jeden wątek "dwf-session" - także
+ * close(), które czeka na zakończenie trwającego FDwfDeviceOpen zamiast wołać DWF
+ * równolegle z innego wątku.
+ */
+public class DeviceSessionService {
+
+    public enum State { DISCONNECTED, CONNECTING, OPEN, LOST }
+
+    // Odstępy między kolejnymi próbami połączenia [ms]
+    private static final long RETRY_INITIAL_MS = 500;
+    private static final long RETRY_MAX_MS = 5000;
+    // Maksymalny czas oczekiwania close() na wątek sesji (FDwfDeviceOpen trwa do kilku sekund)
+    private static final long CLOSE_TIMEOUT_MS = 10_000;
+
+    private static final System.Logger LOG = System.getLogger(DeviceSessionService.class.getName());
+
+    private final AnalogDevice device;
+    private final ScheduledExecutorService executor;
+    private final List<Consumer<State>> listeners = new CopyOnWriteArrayList<>();
+    private final Object stateLock = new Object();
+
+    private volatile State state = State.DISCONNECTED;
+    private volatile Runnable reconfigure;
+    // Po close() zaplanowane próby połączenia kończą się bez wołania DWF
+    private volatile boolean closed;
+    // Zapisywane tylko na wątku "dwf-session" (zadania executora); volatile dla odczytów z zewnątrz
+    private volatile long retryDelayMs = RETRY_INITIAL_MS;
+
+    public DeviceSessionService(AnalogDevice device) {
+        this.device = device;
+        this.executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "dwf-session");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    public AnalogDevice getDevice() {
+        return device;
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    public boolean isOpen() {
+        return state == State.OPEN;
+    }
+
+    /**
+     * Listener wywoływany przy każdej zmianie stanu (na wątku sesji).
+     */
+    public void addStateListener(Consumer<State> listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Akcja wykonywana po otwarciu urządzenia (przed przejściem w stan OPEN).
+     */
+    public void setReconfigureHook(Runnable reconfigure) {
+        this.reconfigure = reconfigure;
+    }
+
+    /**
+     * Rozpoczyna otwieranie urządzenia w tle. Nie blokuje wywołującego.
+     */
+    public void openAsync() {
+        synchronized (stateLock) {
+            if (closed || state == State.CONNECTING || state == State.OPEN) return;
+            setState(State.CONNECTING);
+        }
+        executor.execute(() -> {
+            retryDelayMs = RETRY_INITIAL_MS;
+            tryOpen(false);
+        });
+    }
+
+    /**
+     * Zgłoszenie utraty urządzenia (np. brak postępu w FDwfAnalogInStatus).
+     * Uruchamia ponowne łączenie w tle.
+     */
+    public void markLost() {
+        synchronized (stateLock) {
+            if (closed || state != State.OPEN) return;
+            setState(State.LOST);
+        }
+        PipelineMetrics.DEVICE_LOST.increment();
+        executor.execute(() -> {
+            retryDelayMs = RETRY_INITIAL_MS;
+            tryOpen(true);
+        });
+    }
+
+    /**
+     * Czeka, aż urządzenie będzie otwarte.
+     *
+     * @return true jeśli urządzenie jest otwarte, false po przekroczeniu czasu
+     */
+    public boolean awaitOpen(long timeoutMs) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeoutMs;
+        synchronized (stateLock) {
+            while (state != State.OPEN) {
+                long remaining = deadline - System.currentTimeMillis();
+                if (remaining <= 0) return false;
+                stateLock.wait(remaining);
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Zamyka sesję i połączenie z urządzeniem.
+     *
+     * FDwfDeviceCloseAll wykonuje wątek sesji po zakończeniu bieżącej próby otwarcia -
+     * trwające device.open() nie ustawi już stanu OPEN po DISCONNECTED. Blokuje
+     * wywołującego najwyżej CLOSE_TIMEOUT_MS.
+     */
+    public void close() {
+        Future<?> closing;
+        synchronized (stateLock) {
+            if (closed) return;
+            closed = true;
+            closing = executor.submit(() -> {
+                device.closeAll();
+                synchronized (stateLock) {
+                    setState(State.DISCONNECTED);
+                }
+            });
+        }
+        executor.shutdown();
+        try {
+            closing.get(CLOSE_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | TimeoutException e) {
+            LOG.log(Level.WARNING, "Zamknięcie urządzenia DWF nie powiodło się", e);
+        }
+        executor.shutdownNow(); // oczekujące ponowienia połączenia
+    }
+
+    private void tryOpen(boolean reconnect) {
+        if (closed) return;
+        if (reconnect) {
+            device.closeAll(); // zwolnienie uchwytu po utraconym urządzeniu
+        }
+
+        boolean opened = device.open();
+        if (opened) {
+            Runnable hook = reconfigure;
+            // Także przy pierwszym otwarciu - UI mógł ustawić generator, zanim urządzenie było gotowe
+            if (hook != null) {
+                try {
+                    hook.run();
+                } catch (RuntimeException e) {
+                    // Urządzenie otwarte, ale konfiguracja do ponowienia przy pomiarze
+                    LOG.log(Level.WARNING, "Odtworzenie konfiguracji po otwarciu urządzenia nie powiodło się", e);
+                }
+            }
+            synchronized (stateLock) {
+                // close() w trakcie open() - zadanie zamknięcia czeka w kolejce tego wątku
+                if (!closed) setState(State.OPEN);
+            }
+            return;
+        }
+
+        // Kolejna próba z rosnącym odstępem (pod stateLock - close() nie zamknie executora w międzyczasie)
+        long delay = retryDelayMs;
+        retryDelayMs = Math.min(RETRY_MAX_MS, retryDelayMs * 2);
+        synchronized (stateLock) {
+            if (closed) return;
+            setState(reconnect ? State.LOST : State.CONNECTING);
+            executor.schedule(() -> tryOpen(reconnect), delay, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    // Wywoływane z zajętym stateLock
+    private void setState(State newState) {
+        State old = state;
+        state = newState;
+        stateLock.notifyAll();
+        if (old != newState) {
+            for (Consumer<State> l : listeners) l.accept(newState);
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package org.example.demo2.service;
+
+import java.util.Arrays;
+
+/**
+ * PAMIĘĆ STANU URZĄDZENIA - POMIJANIE ZBĘDNYCH WYWOŁAŃ DWF
+ * ========================================================
+ *
+ * Przechowuje ostatnio wysłane do urządzenia wartości ustawień wejść i generatora.
+ * Przed każdym wywołaniem FDwf...Set serwis pyta needsUpdate() - jeśli wartość się nie
+ * zmieniła, wywołanie natywne jest pomijane i liczone jako zaoszczędzone.
+ *
+ * W trybie ciągłego odświeżania konfiguracja prawie nigdy się nie zmienia, więc
+ * configureAnalogIn() zamiast sześciu wywołań natywnych wykonuje zero.
+ *
+ * Po ponownym otwarciu urządzenia stan jest nieznany - należy wywołać invalidateAll().
+ */
+public class DeviceStateCache {
+
+    public enum Setting {
+        IN_ENABLE_CH0, IN_ENABLE_CH1,
+        IN_RANGE_CH0, IN_RANGE_CH1,
+        IN_FREQUENCY, IN_BUFFER_SIZE,
+        IN_ACQ_MODE, IN_RECORD_LENGTH,
+        OUT_ENABLE, OUT_FUNCTION, OUT_FREQUENCY, OUT_AMPLITUDE, OUT_OFFSET
+    }
+
+    private final double[] applied = new double[Setting.values().length];
+    private final boolean[] valid = new boolean[Setting.values().length];
+    private long savedCalls;
+    private long issuedCalls;
+
+    /**
+     * Sprawdza, czy ustawienie trzeba wysłać do urządzenia, i zapamiętuje nową wartość.
+     *
+     * @return true - wywołanie natywne konieczne; false - wartość już zastosowana
+     */
+    public synchronized boolean needsUpdate(Setting setting, double value) {
+        int i = setting.ordinal();
+        if (valid[i] && Double.compare(applied[i], value) == 0) {
+            savedCalls++;
+            return false;
+        }
+        applied[i] = value;
+        valid[i] = true;
+        issuedCalls++;
+        return true;
+    }
+
+    public boolean needsUpdate(Setting setting, boolean value) {
+        return needsUpdate(setting, value ? 1.0 : 0.0);
+    }
+
+    /**
+     * Unieważnia jedno ustawienie (np. gdy wywołanie DWF zwróciło błąd).
+     */
+    public synchronized void invalidate(Setting setting) {
+        valid[setting.ordinal()] = false;
+    }
+
+    /**
+     * Unieważnia cały stan (nowe połączenie z urządzeniem).
+     */
+    public synchronized void invalidateAll() {
+        Arrays.fill(valid, false);
+    }
+
+    public synchronized long getSavedCalls() {
+        return savedCalls;
+    }
+
+    public synchronized long getIssuedCalls() {
+        return issuedCalls;
+    }
+}
@@ -0,0 +1,133 @@
+package org.example.demo2.service;
+
+import org.knowm.waveforms4j.DWF;
+
+/**
+ * Implementacja AnalogDevice na bibliotece waveforms4j (Analog Discovery).
+ */
+public class DwfAnalogDevice implements AnalogDevice {
+
+    // FDwfAnalogInStatus zwraca stan DwfState (0..7); wartość ujemna = błąd wywołania
+    private static final int DWF_STATE_ERROR = -1;
+
+    private final DWF dwf;
+
+    public DwfAnalogDevice(DWF dwf) {
+        this.dwf = dwf;
+    }
+
+    @Override
+    public boolean open() {
+        return dwf.FDwfDeviceOpen();
+    }
+
+    @Override
+    public void closeAll() {
+        dwf.FDwfDeviceCloseAll();
+    }
+
+    @Override
+    public boolean analogInChannelEnable(int channel, boolean enable) {
+        return dwf.FDwfAnalogInChannelEnableSet(channel, enable);
+    }
+
+    @Override
+    public boolean analogInChannelRange(int channel, double rangeV) {
+        return dwf.FDwfAnalogInChannelRangeSet(channel, rangeV);
+    }
+
+    @Override
+    public boolean analogInFrequency(double hz) {
+        return dwf.FDwfAnalogInFrequencySet(hz);
+    }
+
+    @Override
+    public boolean analogInBufferSize(int samples) {
+        return dwf.FDwfAnalogInBufferSizeSet(samples);
+    }
+
+    @Override
+    public boolean analogInAcquisitionMode(int mode) {
+        return dwf.FDwfAnalogInAcquisitionModeSet(mode);
+    }
+
+    @Override
+    public boolean analogInRecordLength(double seconds) {
+        return dwf.FDwfAnalogInRecordLengthSet(seconds);
+    }
+
+    @Override
+    public boolean analogInConfigure(boolean reconfigure, boolean start) {
+        return dwf.FDwfAnalogInConfigure(reconfigure, start);
+    }
+
+    @Override
+    public boolean analogInStatus(boolean readData) {
+        return dwf.FDwfAnalogInStatus(readData) > DWF_STATE_ERROR;
+    }
+
+    @Override
+    public int analogInSamplesValid() {
+        return dwf.FDwfAnalogInStatusSamplesValid();
+    }
+
+    @Override
+    public void analogInStatusRecord(int[] availableLostCorrupt) {
+        // waveforms4j nie udostępnia FDwfAnalogInStatusRecord - dostępne próbki
+        // bierzemy z FDwfAnalogInStatusSamplesValid, straty nie są raportowane
+        // (analogInRecordLossSupported = false, ostrzeżenie w UI)
+        availableLostCorrupt[0] = dwf.FDwfAnalogInStatusSamplesValid();
+        availableLostCorrupt[1] = 0;
+        availableLostCorrupt[2] = 0;
+    }
+
+    @Override
+    public double[] analogInData(int channel, int samples) {
+        return dwf.FDwfAnalogInStatusData(channel, samples);
+    }
+
+    // analogInData16 / analogInChannelRangeGet / analogInChannelOffsetGet: waveforms4j nie
+    // udostępnia FDwfAnalogInStatusData16 ani odczytu zakresu i offsetu - domyślne metody
+    // AnalogDevice; kanały INT16 są wypełniane z analogInData (kwantyzacja do kodów przy
+    // zakresie z AcquisitionConfig)
+
+    @Override
+    public boolean analogOutNodeEnable(int channel, boolean enable) {
+        return dwf.FDwfAnalogOutNodeEnableSet(channel, enable);
+    }
+
+    @Override
+    public boolean analogOutNodeFunction(int channel, int function) {
+        return dwf.FDwfAnalogOutNodeFunctionSet(channel, function);
+    }
+
+    @Override
+    public boolean analogOutNodeFrequency(int channel, double hz) {
+        return dwf.FDwfAnalogOutNodeFrequencySet(channel, hz);
+    }
+
+    @Override
+    public boolean analogOutNodeAmplitude(int channel, double amplitude) {
+        return dwf.FDwfAnalogOutNodeAmplitudeSet(channel, amplitude);
+    }
+
+    @Override
+    public boolean analogOutNodeOffset(int channel, double offset) {
+        return dwf.FDwfAnalogOutNodeOffsetSet(channel, offset);
+    }
+
+    @Override
+    public boolean analogOutNodeData(int channel, double[] data, int count) {
+        return dwf.FDwfAnalogOutNodeDataSet(channel, data, count);
+    }
+
+    @Override
+    public boolean analogOutConfigure(int channel, boolean start) {
+        return dwf.FDwfAnalogOutConfigure(channel, start);
+    }
+
+    @Override
+    public boolean digitalOutReset() {
+        return dwf.FDwfDigitalOutReset();
+    }
+}
@@ -0,0 +1,150 @@
+package org.example.demo2.service;
+
+import org.example.demo2.model.AcquisitionConfig;
+import org.example.demo2.model.HysteresisData;
+import org.example.demo2.model.LoopMetrics;
+import org.example.demo2.model.RegulationResult;
+
+/**
+ * REGULACJA AMPLITUDY WZBUDZENIA W PĘTLI ZAMKNIĘTEJ
+ * =================================================
+ *
+ * Dobiera amplitudę generatora tak, aby zmierzone B_peak (lub H_peak) osiągnęło
+ * wartość zadaną z tolerancją względną. Porównywanie próbek wymaga pętli przy
+ * tej samej indukcji szczytowej - ręczne szukanie amplitudy trwa minuty.
+ *
+ * ALGORYTM:
+ * =========
+ * 1. Pierwszy krok - regulator proporcjonalny: A[k+1] = A[k] * target / zmierzone
+ *    (w zakresie liniowym B_peak ~ A)
+ * 2. Kolejne kroki - metoda siecznych na dwóch ostatnich punktach (A, zmierzone),
+ *    co uwzględnia nieliniowość krzywej magnesowania przy nasyceniu
+ * 3. Zmiana amplitudy ograniczona do MAX_STEP_RATIO na krok i do [0, MAX_AMPLITUDE]
+ *
+ * Pętla wewnętrzna używa krótkich akwizycji (INNER_CYCLES okresów wzbudzenia),
+ * a amplitudę zmienia tylko przez FDwfAnalogOutNodeAmplitudeSet. Gdy tyle okresów
+ * nie mieści się w buforze urządzenia, rekord regulacji próbkowany jest rzadziej;
+ * regulacja bez co najmniej MIN_CYCLES pełnych okresów w rekordzie jest odrzucana.
+ */
+public class ExcitationRegulationService {
+
+    public enum Target { B_PEAK, H_PEAK }
+
+    // Maksymalna amplituda generatora [V] - zgodna z zakresem ampSpinner
+    public static final double MAX_AMPLITUDE = 5.0;
+
+    // Liczba okresów wzbudzenia w krótkiej akwizycji pętli wewnętrznej
+    private static final int INNER_CYCLES = 3;
+
+    // Minimalna liczba pełnych okresów w rekordzie (analiza pętli na pełnych cyklach)
+    private static final int MIN_CYCLES = 2;
+
+    // Ile okresów odczekać po zmianie amplitudy, zanim pętla się ustali
+    private static final int SETTLE_CYCLES = 2;
+
+    // Maksymalna względna zmiana amplitudy w jednym kroku (ochrona przed przeregulowaniem)
+    private static final double MAX_STEP_RATIO = 2.0;
+
+    private final DataAcquisitionService acquisitionService;
+    private final LoopAnalysisService analysisService;
+
+    public ExcitationRegulationService(DataAcquisitionService acquisitionService, LoopAnalysisService analysisService) {
+        this.acquisitionService = acquisitionService;
+        this.analysisService = analysisService;
+    }
+
+    /**
+     * Metoda blokująca - wywoływać poza wątkiem JavaFX. Generator musi być już
+     * skonfigurowany (kształt, częstotliwość, offset) i włączony.
+     *
+     * @param target wielkość regulowana
+     * @param setpoint wartość zadana [T] lub [A/m]
+     * @param tolerance tolerancja względna (np. 0.01 = 1%)
+     * @param startAmplitude amplituda początkowa [V]
+     * @param excitationHz częstotliwość wzbudzenia [Hz]
+     * @param baseConfig konfiguracja akwizycji (kopiowana, bufor skracany do kilku okresów)
+     * @throws IllegalStateException gdy w buforze urządzenia nie mieszczą się MIN_CYCLES okresy
+     */
+    public RegulationResult regulate(Target target, double setpoint, double tolerance, int maxIterations,
+                                     double startAmplitude, double excitationHz,
+                                     AcquisitionConfig baseConfig, double hScale, double bScale) throws Exception {
+        AcquisitionConfig config = shortConfig(baseConfig, excitationHz);
+        long settleMs = Math.round(SETTLE_CYCLES * 1000.0 / excitationHz);
+        long t0 = System.nanoTime();
+
+        double amplitude = clamp(startAmplitude);
+        double prevAmplitude = Double.NaN;
+        double prevMeasured = Double.NaN;
+        double measured = Double.NaN;
+        int iterations = 0;
+
+        for (int iteration = 1; iteration <= maxIterations; iteration++) {
+            iterations = iteration;
+            acquisitionService.setAnalogOutAmplitude(amplitude);
+            Thread.sleep(settleMs);
+
+            HysteresisData data = acquisitionService.acquire(config);
+            LoopMetrics metrics = analysisService.analyze(
+                    data, config.getAnalysisSampleRateHz(), excitationHz, hScale, bScale);
+            measured = target == Target.B_PEAK ? metrics.getBPeak() : metrics.getHPeak();
+
+            if (Math.abs(measured - setpoint) <= tolerance * Math.abs(setpoint)) {
+                long elapsedMs = (System.nanoTime() - t0) / 1_000_000;
+                return new RegulationResult(true, amplitude, measured, iteration, elapsedMs);
+            }
+
+            double next;
+            double slope = (measured - prevMeasured) / (amplitude - prevAmplitude);
+            if (Double.isFinite(slope) && slope > 0) {
+                // Metoda siecznych
+                next = amplitude + (setpoint - measured) / slope;
+            } else if (measured > 0) {
+                // Regulator proporcjonalny (pierwszy krok lub niemonotoniczny pomiar)
+                next = amplitude * setpoint / measured;
+            } else {
+                // Brak sygnału - zwiększamy amplitudę maksymalnym krokiem
+                next = Math.max(amplitude, 0.05) * MAX_STEP_RATIO;
+            }
+
+            // Ograniczenie kroku względem bieżącej amplitudy
+            double floor = amplitude / MAX_STEP_RATIO;
+            double ceil = Math.max(amplitude, 0.05) * MAX_STEP_RATIO;
+            next = clamp(Math.min(Math.max(next, floor), ceil));
+
+            prevAmplitude = amplitude;
+            prevMeasured = measured;
+            if (next == amplitude) break; // Osiągnięto granicę zakresu generatora
+            amplitude = next;
+        }
+
+        long elapsedMs = (System.nanoTime() - t0) / 1_000_000;
+        return new RegulationResult(false, amplitude, measured, iterations, elapsedMs);
+    }
+
+    static AcquisitionConfig shortConfig(AcquisitionConfig base, double excitationHz) {
+        AcquisitionConfig config = new AcquisitionConfig(base);
+        // INNER_CYCLES okresów musi się zmieścić w buforze urządzenia - przy długich okresach
+        // obniżamy częstotliwość próbkowania zamiast obcinać rekord poniżej pełnego okresu
+        int maxRate = (int) Math.min(Integer.MAX_VALUE,
+                Math.floor(AcquisitionConfig.DEVICE_BUFFER_SIZE * excitationHz / INNER_CYCLES));
+        if (config.getSampleRateHz() > maxRate) {
+            config.setSampleRateHz(maxRate);
+        }
+        int rate = config.getSampleRateHz();
+        int samples = (int) Math.ceil(INNER_CYCLES * rate / excitationHz);
+        samples = Math.max(AcquisitionConfig.MIN_BUFFER_SIZE, Math.min(AcquisitionConfig.DEVICE_BUFFER_SIZE, samples));
+        if (rate <= 0 || Math.floor(samples * excitationHz / rate) < MIN_CYCLES) {
+            throw new IllegalStateException(String.format(
+                    "Regulacja wymaga co najmniej %d pełnych okresów w rekordzie (f = %.3g Hz, fs = %d Hz, bufor %d)",
+                    MIN_CYCLES, excitationHz, rate, samples));
+        }
+        config.setBufferSize(samples);
+        config.setAcquisitionTime(config.calculateTimeFromBuffer());
+        config.setExcitationHz(excitationHz);   // okres przepróbkowania (pointsPerCycle > 0)
+        return config;
+    }
+
+    private static double clamp(double amplitude) {
+        return Math.max(0.0, Math.min(MAX_AMPLITUDE, amplitude));
+    }
+}
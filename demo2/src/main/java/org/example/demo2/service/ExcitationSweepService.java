@@ -0,0 +1,184 @@
+package org.example.demo2.service;
+
+import org.example.demo2.model.AcquisitionConfig;
+import org.example.demo2.model.HysteresisData;
+import org.example.demo2.model.LoopMetrics;
+import org.example.demo2.model.SweepConfig;
+import org.example.demo2.model.SweepPoint;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * SERWIS AUTOMATYCZNEGO SWEEPU WZBUDZENIA
+ * =======================================
+ *
+ * Dla każdej pary (częstotliwość, amplituda) z SweepConfig:
+ * 1. ustawia generator (configureAnalogOut, kształt własny - configureAnalogOutCustom),
+ * 2. czeka settleTimeMs na ustalenie się stanu rdzenia,
+ * 3. wykonuje akwizycję,
+ * 4. przekazuje dane do analizy.
+ *
+ * POTOKOWANIE:
+ * ============
+ * Analiza punktu N odbywa się na osobnym wątku, w czasie gdy wątek sweepu
+ * przestawia generator i mierzy punkt N+1. Czas całego sweepu to w przybliżeniu
+ * suma (ustalanie + akwizycja), a nie (ustalanie + akwizycja + analiza).
+ *
+ * Metoda run() jest blokująca - należy ją wywoływać poza wątkiem JavaFX.
+ * Naraz może działać jeden sweep; po zakończeniu (także błędzie lub przerwaniu)
+ * wyjście generatora włączone przez sweep jest wyłączane.
+ *
+ * cancel() przerywa (interrupt) wątek sweepu: oczekiwanie na ustalenie i bieżąca
+ * akwizycja kończą się od razu, a run() zwraca punkty zmierzone wcześniej.
+ */
+public class ExcitationSweepService {
+
+    private final DataAcquisitionService acquisitionService;
+    private final LoopAnalysisService analysisService;
+    private volatile boolean cancelled = false;
+    private final AtomicBoolean running = new AtomicBoolean();
+    // Wątek wykonujący pętlę pomiarów (null poza nią); zmiany pod cancelLock - przerwanie
+    // nie trafi do wątku, który już wyszedł z pętli
+    private final Object cancelLock = new Object();
+    private Thread sweepThread;
+
+    public ExcitationSweepService(DataAcquisitionService acquisitionService, LoopAnalysisService analysisService) {
+        this.acquisitionService = acquisitionService;
+        this.analysisService = analysisService;
+    }
+
+    /**
+     * Przerywa sweep - bieżący punkt (ustalanie lub akwizycja) jest porzucany.
+     */
+    public void cancel() {
+        synchronized (cancelLock) {
+            cancelled = true;
+            if (sweepThread != null) sweepThread.interrupt();
+        }
+    }
+
+    public boolean isRunning() {
+        return running.get();
+    }
+
+    /**
+     * @param sweep konfiguracja sweepu
+     * @param acquisitionConfig parametry akwizycji dla każdego punktu (kopiowane)
+     * @param hScale współczynnik V → A/m
+     * @param bScale współczynnik ∫V → T
+     * @param onPoint wywoływany (na wątku analizy) po przeanalizowaniu każdego punktu
+     * @return punkty w kolejności pomiaru
+     * @throws IllegalStateException gdy inny sweep jest w toku
+     */
+    public List<SweepPoint> run(SweepConfig sweep, AcquisitionConfig acquisitionConfig,
+                                double hScale, double bScale,
+                                Consumer<SweepPoint> onPoint) throws Exception {
+        if (!running.compareAndSet(false, true)) {
+            throw new IllegalStateException("Sweep already in progress");
+        }
+        synchronized (cancelLock) {
+            cancelled = false;
+            sweepThread = Thread.currentThread();
+        }
+        AcquisitionConfig config = new AcquisitionConfig(acquisitionConfig);
+        List<Future<SweepPoint>> pending = new ArrayList<>();
+
+        ExecutorService analysisExecutor = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "sweep-analysis");
+            t.setDaemon(true);
+            return t;
+        });
+
+        boolean outputEnabled = false;
+        try {
+            for (double frequency : sweep.getFrequencies()) {
+                config.setExcitationHz(frequency);  // okres przepróbkowania (pointsPerCycle > 0)
+                double analysisRateHz = config.getAnalysisSampleRateHz();
+                for (double amplitude : sweep.getAmplitudes()) {
+                    if (cancelled) break;
+
+                    if (sweep.getCustomTable() != null) {
+                        // Tablica wgrywana raz - kolejne punkty zmieniają tylko częstotliwość i amplitudę
+                        acquisitionService.configureAnalogOutCustom(
+                                sweep.getCustomTable(), frequency, amplitude, sweep.getOffset());
+                    } else {
+                        acquisitionService.configureAnalogOut(sweep.getWave(), frequency, amplitude, sweep.getOffset());
+                    }
+                    if (!outputEnabled) {
+                        acquisitionService.enableAnalogOut(true);
+                        outputEnabled = true;
+                    }
+                    HysteresisData data;
+                    try {
+                        Thread.sleep(sweep.getSettleTimeMs());
+                        data = acquisitionService.acquire(config);
+                    } catch (InterruptedException e) {
+                        if (!cancelled) throw e;
+                        break;                      // cancel() - punkt porzucony
+                    }
+
+                    // Analiza punktu N rusza w tle, a pętla przechodzi od razu do punktu N+1
+                    pending.add(analysisExecutor.submit(() -> {
+                        LoopMetrics metrics = analysisService.analyze(
+                                data, analysisRateHz, frequency, hScale, bScale);
+                        SweepPoint point = new SweepPoint(amplitude, frequency, metrics);
+                        if (onPoint != null) onPoint.accept(point);
+                        return point;
+                    }));
+                }
+            }
+
+            endMeasurementLoop();
+
+            List<SweepPoint> results = new ArrayList<>(pending.size());
+            for (Future<SweepPoint> f : pending) {
+                try {
+                    results.add(f.get());
+                } catch (ExecutionException e) {
+                    throw new Exception("Sweep point analysis failed", e.getCause());
+                }
+            }
+            return results;
+        } finally {
+            endMeasurementLoop();
+            analysisExecutor.shutdown();
+            if (outputEnabled) {
+                acquisitionService.enableAnalogOut(false); // rdzeń nie zostaje wzbudzany po sweepie
+            }
+            running.set(false);
+        }
+    }
+
+    // Po pętli pomiarów cancel() już nie przerywa; przerwanie, które dotarło po
+    // ostatnim punkcie, jest kasowane - oczekiwanie na analizę i wywołujący go nie widzą
+    private void endMeasurementLoop() {
+        synchronized (cancelLock) {
+            if (sweepThread == null) return;
+            sweepThread = null;
+            if (cancelled) Thread.interrupted();
+        }
+    }
+
+    /**
+     * Formatuje wyniki jako tabelę: krzywa magnesowania i straty w funkcji B_peak.
+     */
+    public static String formatTable(List<SweepPoint> points) {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("%8s %8s %10s %10s %12s %12s%n",
+                "f[Hz]", "A[V]", "H_pk[A/m]", "B_pk[T]", "w[J/m³]", "P[W/m³]"));
+        for (SweepPoint p : points) {
+            LoopMetrics m = p.getMetrics();
+            sb.append(String.format("%8.1f %8.3f %10.3f %10.4f %12.4g %12.4g%n",
+                    p.getFrequency(), p.getAmplitude(), m.getHPeak(), m.getBPeak(),
+                    m.getLossPerCycle(), m.getSpecificPower()));
+        }
+        return sb.toString();
+    }
+}
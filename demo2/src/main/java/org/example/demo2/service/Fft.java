@@ -0,0 +1,107 @@
+package org.example.demo2.service;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * FFT RADIX-2 (ZESPOLONA, W MIEJSCU)
+ * ==================================
+ *
+ * Plan dla rozmiaru n (potęga dwójki): tablice cos/sin i permutacja
+ * bit-reversal liczone raz i współdzielone (of(n)) - transformacja nie alokuje.
+ * Plan jest niezmienny, więc można go używać z wielu wątków naraz.
+ *
+ * Sygnał rzeczywisty: dwa niezależne rzeczywiste bloki można transformować
+ * jednym wywołaniem (re, im) - dla filtru o rzeczywistej odpowiedzi splot
+ * nie miesza części rzeczywistej z urojoną (FirFilter).
+ */
+final class Fft {
+
+    private static final ConcurrentHashMap<Integer, Fft> PLANS = new ConcurrentHashMap<>();
+
+    private final int n;
+    private final double[] cos;
+    private final double[] sin;
+    private final int[] reversed;
+
+    private Fft(int n) {
+        this.n = n;
+        cos = new double[n / 2];
+        sin = new double[n / 2];
+        for (int k = 0; k < n / 2; k++) {
+            double angle = -2 * Math.PI * k / n;
+            cos[k] = Math.cos(angle);
+            sin[k] = Math.sin(angle);
+        }
+        reversed = new int[n];
+        int bits = Integer.numberOfTrailingZeros(n);
+        for (int i = 0; i < n; i++) {
+            reversed[i] = bits == 0 ? 0 : Integer.reverse(i) >>> (32 - bits);
+        }
+    }
+
+    /**
+     * Współdzielony plan dla rozmiaru n (potęga dwójki, ≥ 1).
+     */
+    static Fft of(int n) {
+        if (n < 1 || Integer.bitCount(n) != 1) {
+            throw new IllegalArgumentException("FFT size must be a power of two: " + n);
+        }
+        return PLANS.computeIfAbsent(n, Fft::new);
+    }
+
+    /**
+     * Najmniejsza potęga dwójki ≥ n.
+     */
+    static int sizeFor(int n) {
+        return n <= 1 ? 1 : Integer.highestOneBit(n - 1) << 1;
+    }
+
+    int size() {
+        return n;
+    }
+
+    /**
+     * X[k] = Σ x[j]·e^(-2πi·jk/n), w miejscu.
+     */
+    void forward(double[] re, double[] im) {
+        transform(re, im, 1);
+    }
+
+    /**
+     * Transformata odwrotna ze skalowaniem 1/n - inverse(forward(x)) = x.
+     */
+    void inverse(double[] re, double[] im) {
+        transform(re, im, -1);
+        double scale = 1.0 / n;
+        for (int i = 0; i < n; i++) {
+            re[i] *= scale;
+            im[i] *= scale;
+        }
+    }
+
+    private void transform(double[] re, double[] im, int sign) {
+        for (int i = 0; i < n; i++) {
+            int j = reversed[i];
+            if (j > i) {
+                double t = re[i]; re[i] = re[j]; re[j] = t;
+                t = im[i]; im[i] = im[j]; im[j] = t;
+            }
+        }
+        for (int half = 1, stride = n / 2; half < n; half <<= 1, stride >>= 1) {
+            for (int start = 0; start < n; start += half << 1) {
+                for (int k = 0, w = 0; k < half; k++, w += stride) {
+                    double wr = cos[w];
+                    double wi = sign * sin[w];
+                    int a = start + k;
+                    int b = a + half;
+                    double tr = re[b] * wr - im[b] * wi;
+                    double ti = re[b] * wi + im[b] * wr;
+                    re[b] = re[a] - tr;
+                    im[b] = im[a] - ti;
+                    re[a] += tr;
+                    im[a] += ti;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,172 @@
+package org.example.demo2.service;
+
+import org.example.demo2.model.FilterSpec;
+import org.example.demo2.model.FilterType;
+
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * BANK FILTRÓW SZUMÓW - PROJEKT I PAMIĘĆ WSPÓŁCZYNNIKÓW
+ * =====================================================
+ *
+ * create() tworzy nowy filtr strumieniowy (własny stan) dla FilterSpec i
+ * częstotliwości próbkowania. Współczynniki (jądro FIR z widmem dla overlap-save,
+ * sekcje biquad) projektowane są raz na parę (spec, fs) i współdzielone przez
+ * wszystkie filtry - kolejne pomiary z tymi samymi ustawieniami nie liczą
+ * projektu ani FFT jądra od nowa.
+ *
+ * PROJEKTY:
+ * - FIR: sinc z oknem Blackmana (tłumienie listków bocznych ~74 dB), nieparzysta
+ *   liczba współczynników (opóźnienie grupowe całkowite), wzmocnienie DC = 1
+ * - IIR: Butterworth rzędu N przez transformację biliniową z predystorsją
+ *   częstotliwości odcięcia - N/2 sekcji biquad (+ sekcja 1. rzędu dla N
+ *   nieparzystego), wzmocnienie DC = 1
+ */
+public final class FilterBank {
+
+    static final int MAX_FIR_TAPS = 8191;
+    static final int MAX_IIR_ORDER = 16;
+    static final int MAX_MEDIAN_WINDOW = 1001;
+
+    private static final ConcurrentHashMap<Key, double[][]> COEFFICIENTS = new ConcurrentHashMap<>();
+
+    private FilterBank() {
+    }
+
+    /**
+     * Nowy filtr dla spec przy sampleRateHz; null dla FilterType.NONE.
+     *
+     * @throws IllegalArgumentException gdy odcięcie nie leży poniżej fs/2
+     *                                  albo rząd przekracza zakres typu
+     */
+    public static SampleFilter create(FilterSpec spec, int sampleRateHz) {
+        if (spec.isNone()) return null;
+        if (sampleRateHz <= 0) {
+            throw new IllegalArgumentException("Sample rate must be positive: " + sampleRateHz);
+        }
+        if (spec.getType().hasCutoff() && spec.getCutoffHz() >= sampleRateHz / 2.0) {
+            throw new IllegalArgumentException("Filter cutoff " + spec.getCutoffHz()
+                    + " Hz must be below Nyquist frequency " + sampleRateHz / 2.0 + " Hz");
+        }
+        return switch (spec.getType()) {
+            case FIR_LOWPASS -> {
+                checkOrder(spec, MAX_FIR_TAPS);
+                double[][] c = coefficients(spec, sampleRateHz);
+                yield new FirFilter(c[0], c.length > 1 ? c[1] : null, c.length > 1 ? c[2] : null);
+            }
+            case BIQUAD_LOWPASS -> {
+                checkOrder(spec, MAX_IIR_ORDER);
+                yield new BiquadCascade(coefficients(spec, sampleRateHz)[0]);
+            }
+            case MEDIAN -> {
+                checkOrder(spec, MAX_MEDIAN_WINDOW);
+                yield new RunningMedianFilter(spec.getOrder());
+            }
+            case NONE -> null;
+        };
+    }
+
+    private static void checkOrder(FilterSpec spec, int max) {
+        if (spec.getOrder() > max) {
+            throw new IllegalArgumentException(spec.getType() + ": order " + spec.getOrder()
+                    + " exceeds maximum " + max);
+        }
+    }
+
+    private static double[][] coefficients(FilterSpec spec, int sampleRateHz) {
+        return COEFFICIENTS.computeIfAbsent(new Key(spec, sampleRateHz), key -> {
+            double cutoff = spec.getCutoffHz() / sampleRateHz;
+            if (spec.getType() == FilterType.BIQUAD_LOWPASS) {
+                return new double[][]{butterworth(spec.getOrder(), cutoff)};
+            }
+            double[] taps = lowPassFir(spec.getOrder(), cutoff);
+            if (taps.length <= FirFilter.DIRECT_MAX_TAPS) {
+                return new double[][]{taps};
+            }
+            double[][] spectrum = FirFilter.spectrum(taps, FirFilter.fftSizeFor(taps.length));
+            return new double[][]{taps, spectrum[0], spectrum[1]};
+        });
+    }
+
+    /**
+     * Jądro dolnoprzepustowe: taps (zaokrąglone w górę do nieparzystej) współczynników,
+     * odcięcie cutoff jako ułamek częstotliwości próbkowania (0 < cutoff < 0.5).
+     */
+    static double[] lowPassFir(int taps, double cutoff) {
+        int m = taps | 1;
+        int center = m / 2;
+        double[] h = new double[m];
+        double sum = 0;
+        for (int k = 0; k < m; k++) {
+            int t = k - center;
+            double sinc = t == 0 ? 2 * cutoff : Math.sin(2 * Math.PI * cutoff * t) / (Math.PI * t);
+            double phase = m == 1 ? 0 : 2 * Math.PI * k / (m - 1);
+            double window = 0.42 - 0.5 * Math.cos(phase) + 0.08 * Math.cos(2 * phase);
+            h[k] = sinc * window;
+            sum += h[k];
+        }
+        for (int k = 0; k < m; k++) {
+            h[k] /= sum;
+        }
+        return h;
+    }
+
+    /**
+     * Dolnoprzepustowy Butterworth rzędu order jako sekcje {b0, b1, b2, a1, a2}.
+     * Sekcja k ma dobroć Q = 1/(2·cos φ_k), φ_k - kąt pary biegunów prototypu
+     * analogowego od osi rzeczywistej; dla rzędu nieparzystego ostatnia sekcja
+     * jest pierwszego rzędu (biegun rzeczywisty, b2 = a2 = 0).
+     */
+    static double[] butterworth(int order, double cutoff) {
+        int pairs = order / 2;
+        int sections = pairs + (order & 1);
+        double[] c = new double[sections * 5];
+        double w0 = 2 * Math.PI * cutoff;
+        double cosW = Math.cos(w0);
+        double sinW = Math.sin(w0);
+        for (int k = 0; k < pairs; k++) {
+            double phi = (order & 1) == 0
+                    ? Math.PI * (2 * k + 1) / (2 * order)
+                    : Math.PI * (k + 1) / order;
+            double q = 1 / (2 * Math.cos(phi));
+            double alpha = sinW / (2 * q);
+            double a0 = 1 + alpha;
+            c[k * 5] = (1 - cosW) / 2 / a0;
+            c[k * 5 + 1] = (1 - cosW) / a0;
+            c[k * 5 + 2] = (1 - cosW) / 2 / a0;
+            c[k * 5 + 3] = -2 * cosW / a0;
+            c[k * 5 + 4] = (1 - alpha) / a0;
+        }
+        if ((order & 1) != 0) {
+            double t = Math.tan(w0 / 2);
+            int s = pairs * 5;
+            c[s] = t / (1 + t);
+            c[s + 1] = t / (1 + t);
+            c[s + 3] = (t - 1) / (t + 1);
+        }
+        return c;
+    }
+
+    private static final class Key {
+        private final FilterSpec spec;
+        private final int sampleRateHz;
+
+        Key(FilterSpec spec, int sampleRateHz) {
+            this.spec = spec;
+            this.sampleRateHz = sampleRateHz;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) return false;
+            Key other = (Key) o;
+            return sampleRateHz == other.sampleRateHz && spec.equals(other.spec);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(spec, sampleRateHz);
+        }
+    }
+}
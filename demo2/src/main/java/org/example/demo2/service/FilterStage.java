@@ -0,0 +1,161 @@
+package org.example.demo2.service;
+
+import org.example.demo2.metrics.PipelineMetrics;
+import org.example.demo2.model.AcquisitionConfig;
+import org.example.demo2.model.FilterSpec;
+import org.example.demo2.model.SampleChannel;
+
+/**
+ * ETAP FILTRACJI CH0/CH1 PRZED CAŁKOWANIEM
+ * ========================================
+ *
+ * Dla każdego kanału: filtr szumów (FilterBank), potem kompensacja opóźnienia
+ * między kanałami (FractionalDelay).
+ *
+ * FILTR SZUMÓW:
+ * Dwa filtry o tych samych współczynnikach - po jednym na kanał.
+ * Identyczny filtr liniowy na obu kanałach przesuwa fazę każdej harmonicznej
+ * H i dU/dt tak samo, a całkowanie jest liniowe, więc kształt pętli B(H) nie
+ * jest zniekształcany opóźnieniem filtru - znikają tylko składowe powyżej odcięcia.
+ *
+ * KOMPENSACJA OPÓŹNIENIA (AcquisitionConfig.channelDelaySec):
+ * Opóźnienie toru analogowego / indukcyjności bocznika przesuwa H względem B
+ * i zawyża pole pętli (straty). Kanału spóźnionego nie da się przyspieszyć,
+ * więc wcześniejszy kanał jest opóźniany o różnicę, a oba o wspólne
+ * FractionalDelay.LATENCY próbek - relatywne położenie wyrównane z
+ * dokładnością do ułamka próbki.
+ *
+ * Stan filtrów przechodzi między wywołaniami apply():
+ * - pomiar pojedynczy / tryb ciągły: reset() przed każdym rekordem (rekordy są
+ *   niezależne)
+ * - podgląd przewijany: jeden etap na cały strumień, reset() tylko przy utracie próbek
+ * Pierwsze próbki rekordu (długość filtru + opóźnienie) to rozbieg od zerowego stanu.
+ *
+ * Kanały bez tablicy double (float, int16, segmenty) filtrowane są blokami przez
+ * bufor roboczy etapu - kanał int16 po filtracji jest ponownie kwantowany do kodów ADC.
+ */
+public final class FilterStage {
+
+    // Maksymalne kompensowane opóźnienie między kanałami [próbki]
+    public static final int MAX_DELAY_SAMPLES = 4096;
+
+    // Poniżej tej różnicy [próbki] kanały traktowane jako równoczesne
+    private static final double MIN_DELAY_SAMPLES = 1e-3;
+
+    private static final int BLOCK = 4096;
+
+    private final FilterSpec spec;
+    private final SampleFilter ch0Filter;
+    private final SampleFilter ch1Filter;
+    private double[] scratch;
+
+    /**
+     * Sam filtr szumów, bez kompensacji opóźnienia.
+     *
+     * @throws IllegalArgumentException gdy spec nie pasuje do sampleRateHz (FilterBank.create)
+     */
+    public FilterStage(FilterSpec spec, int sampleRateHz) {
+        this(spec, 0, sampleRateHz);
+    }
+
+    /**
+     * Filtr szumów i kompensacja opóźnienia z konfiguracji akwizycji.
+     *
+     * @throws IllegalArgumentException gdy filtr nie pasuje do częstotliwości próbkowania
+     *                                  albo opóźnienie przekracza MAX_DELAY_SAMPLES
+     */
+    public FilterStage(AcquisitionConfig config) {
+        this(config.getFilter(), config.getChannelDelaySec(), config.getSampleRateHz());
+    }
+
+    private FilterStage(FilterSpec spec, double channelDelaySec, int sampleRateHz) {
+        this.spec = spec;
+        double delay = channelDelaySec * sampleRateHz;
+        if (Math.abs(delay) > MAX_DELAY_SAMPLES) {
+            throw new IllegalArgumentException("Channel delay " + delay + " samples exceeds maximum "
+                    + MAX_DELAY_SAMPLES);
+        }
+        boolean aligned = Math.abs(delay) < MIN_DELAY_SAMPLES;
+        // CH1 spóźniony (delay > 0) - opóźniamy CH0 i odwrotnie
+        this.ch0Filter = chain(FilterBank.create(spec, sampleRateHz),
+                aligned ? null : new FractionalDelay(Math.max(0, delay)));
+        this.ch1Filter = chain(FilterBank.create(spec, sampleRateHz),
+                aligned ? null : new FractionalDelay(Math.max(0, -delay)));
+    }
+
+    private static SampleFilter chain(SampleFilter first, SampleFilter second) {
+        if (first == null) return second;
+        if (second == null) return first;
+        return new SampleFilter() {
+            @Override
+            public void process(double[] buf, int from, int count) {
+                first.process(buf, from, count);
+                second.process(buf, from, count);
+            }
+
+            @Override
+            public void reset() {
+                first.reset();
+                second.reset();
+            }
+        };
+    }
+
+    public FilterSpec getSpec() {
+        return spec;
+    }
+
+    /**
+     * false bez filtru szumów i bez kompensacji opóźnienia - apply() nic nie robi.
+     */
+    public boolean isActive() {
+        return ch0Filter != null;
+    }
+
+    /**
+     * Filtracja w miejscu pierwszych count próbek obu kanałów (porcja strumienia).
+     */
+    public void apply(double[] ch0, double[] ch1, int count) {
+        if (!isActive()) return;
+        long t0 = System.nanoTime();
+        ch0Filter.process(ch0, 0, count);
+        ch1Filter.process(ch1, 0, count);
+        PipelineMetrics.FILTERING.recordSince(t0);
+    }
+
+    /**
+     * Filtracja w miejscu całych kanałów dowolnego formatu.
+     */
+    public void apply(SampleChannel ch0, SampleChannel ch1) {
+        if (!isActive()) return;
+        long t0 = System.nanoTime();
+        filter(ch0Filter, ch0);
+        filter(ch1Filter, ch1);
+        PipelineMetrics.FILTERING.recordSince(t0);
+    }
+
+    private void filter(SampleFilter filter, SampleChannel channel) {
+        double[] direct = channel.array();
+        if (direct != null) {
+            filter.process(direct, 0, direct.length);
+            return;
+        }
+        if (scratch == null) scratch = new double[BLOCK];
+        int n = channel.length();
+        for (int from = 0, count; from < n; from += count) {
+            count = Math.min(BLOCK, n - from);
+            channel.read(from, scratch, 0, count);
+            filter.process(scratch, 0, count);
+            channel.write(from, scratch, 0, count);
+        }
+    }
+
+    /**
+     * Początkowy stan obu filtrów.
+     */
+    public void reset() {
+        if (!isActive()) return;
+        ch0Filter.reset();
+        ch1Filter.reset();
+    }
+}
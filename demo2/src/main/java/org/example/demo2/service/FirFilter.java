@@ -0,0 +1,139 @@
+package org.example.demo2.service;
+
+import java.util.Arrays;
+
+/**
+ * FILTR FIR (SPLOT Z JĄDREM h)
+ * ============================
+ *
+ * y[i] = Σ h[k]·x[i-k], k = 0..M-1, z historią M-1 ostatnich próbek między porcjami.
+ *
+ * - M ≤ DIRECT_MAX_TAPS: splot bezpośredni blokami po BLOCK próbek
+ *   (koszt M mnożeń na próbkę)
+ * - dłuższe jądra: overlap-save z FFT rozmiaru N - blok to M-1 próbek historii
+ *   i do L = N-M+1 nowych, wyjście to ostatnie L próbek splotu cyklicznego
+ *   (koszt ~log N zamiast M na próbkę). Dwa kolejne bloki liczone są jednym
+ *   FFT: pierwszy w części rzeczywistej, drugi w urojonej - h jest rzeczywiste,
+ *   więc splot ich nie miesza.
+ *
+ * Wyjście nie ma dodatkowego opóźnienia poza (M-1)/2 próbek opóźnienia
+ * grupowego samego jądra - overlap-save nie czeka na pełny blok.
+ */
+final class FirFilter implements SampleFilter {
+
+    // Granica splotu bezpośredniego (poniżej FFT nie jest szybsze - zmierzone ~24 współczynniki)
+    static final int DIRECT_MAX_TAPS = 24;
+
+    private static final int BLOCK = 4096;
+
+    private final double[] taps;
+    // Widmo jądra dla overlap-save (null - splot bezpośredni); współdzielone, tylko odczyt
+    private final double[] kernelRe, kernelIm;
+    private final Fft fft;
+
+    // Bufory robocze: [historia M-1 | nowe próbki]
+    private final double[] re, im;
+    private final double[] history;
+
+    FirFilter(double[] taps, double[] kernelRe, double[] kernelIm) {
+        this.taps = taps;
+        this.kernelRe = kernelRe;
+        this.kernelIm = kernelIm;
+        this.history = new double[taps.length - 1];
+        if (kernelRe != null) {
+            fft = Fft.of(kernelRe.length);
+            re = new double[kernelRe.length];
+            im = new double[kernelRe.length];
+        } else {
+            fft = null;
+            re = new double[history.length + BLOCK];
+            im = null;
+        }
+    }
+
+    /**
+     * Rozmiar FFT dla jądra M współczynników - blok nowych próbek ≥ 3M,
+     * więc narzut historii to co najwyżej 1/4 transformaty.
+     */
+    static int fftSizeFor(int taps) {
+        return Math.max(256, Fft.sizeFor(4 * taps));
+    }
+
+    /**
+     * Widmo jądra zero-padowanego do n: {re, im}.
+     */
+    static double[][] spectrum(double[] taps, int n) {
+        double[] re = new double[n];
+        double[] im = new double[n];
+        System.arraycopy(taps, 0, re, 0, taps.length);
+        Fft.of(n).forward(re, im);
+        return new double[][]{re, im};
+    }
+
+    @Override
+    public void process(double[] buf, int from, int count) {
+        if (fft == null) {
+            for (int done = 0, c; done < count; done += c) {
+                c = Math.min(BLOCK, count - done);
+                direct(buf, from + done, c);
+            }
+        } else {
+            int block = re.length - history.length;
+            for (int done = 0, c1, c2; done < count; done += c1 + c2) {
+                c1 = Math.min(block, count - done);
+                c2 = Math.min(block, count - done - c1);
+                overlapSave(buf, from + done, c1, c2);
+            }
+        }
+    }
+
+    private void direct(double[] buf, int from, int count) {
+        int h = history.length;
+        System.arraycopy(history, 0, re, 0, h);
+        System.arraycopy(buf, from, re, h, count);
+        int m = taps.length;
+        for (int i = 0; i < count; i++) {
+            // re[i + h] = x[i], re[i + h - k] = x[i - k]
+            double acc = 0;
+            for (int k = 0; k < m; k++) {
+                acc += taps[k] * re[i + h - k];
+            }
+            buf[from + i] = acc;
+        }
+        System.arraycopy(re, count, history, 0, h);
+    }
+
+    /**
+     * Blok c1 próbek w części rzeczywistej i następny blok c2 (może być 0) w urojonej.
+     */
+    private void overlapSave(double[] buf, int from, int c1, int c2) {
+        int h = history.length;
+        int n = re.length;
+        // Re: [historia | x[0..c1)]
+        System.arraycopy(history, 0, re, 0, h);
+        System.arraycopy(buf, from, re, h, c1);
+        Arrays.fill(re, h + c1, n, 0);
+        // Im: [ostatnie h próbek przed blokiem 2 | x[c1..c1+c2)]
+        System.arraycopy(re, c1, im, 0, h);
+        System.arraycopy(buf, from + c1, im, h, c2);
+        Arrays.fill(im, h + c2, n, 0);
+        // Nowa historia - ostatnie h próbek wejścia obu bloków
+        System.arraycopy(c2 > 0 ? im : re, c2 > 0 ? c2 : c1, history, 0, h);
+
+        fft.forward(re, im);
+        for (int k = 0; k < n; k++) {
+            double xr = re[k], xi = im[k];
+            re[k] = xr * kernelRe[k] - xi * kernelIm[k];
+            im[k] = xr * kernelIm[k] + xi * kernelRe[k];
+        }
+        fft.inverse(re, im);
+
+        System.arraycopy(re, h, buf, from, c1);
+        System.arraycopy(im, h, buf, from + c1, c2);
+    }
+
+    @Override
+    public void reset() {
+        Arrays.fill(history, 0);
+    }
+}
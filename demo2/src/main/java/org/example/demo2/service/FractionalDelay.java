@@ -0,0 +1,113 @@
+package org.example.demo2.service;
+
+import java.util.Arrays;
+
+/**
+ * OPÓŹNIENIE UŁAMKOWE (TABLICA POLIFAZOWA)
+ * ========================================
+ *
+ * y[i] = x[i - LATENCY - delay] dla delay ≥ 0 niecałkowitego: część całkowita
+ * to przesunięcie w historii, część ułamkowa μ - filtr interpolujący TAPS
+ * współczynników (sinc z oknem Blackmana przesunięty o μ).
+ *
+ * Współczynniki dla PHASES+1 równo rozłożonych μ liczone są raz dla całej
+ * aplikacji (TABLE); filtr dla dowolnego μ to liniowa interpolacja dwóch
+ * sąsiednich faz, wyliczana w konstruktorze - zmiana opóźnienia nie wymaga
+ * projektowania filtru. Na próbkę: TAPS mnożeń (μ = 0: sama kopia).
+ *
+ * Pasmo: błąd amplitudy < 0.1% do ~0.3·fs - harmoniczne wzbudzenia leżą
+ * znacznie niżej. Stałe LATENCY próbek jest potrzebne, żeby filtr był
+ * przyczynowy; FilterStage opóźnia oba kanały o LATENCY, więc znosi się ono
+ * w pętli B(H).
+ */
+final class FractionalDelay implements SampleFilter {
+
+    static final int TAPS = 16;
+    static final int PHASES = 256;
+    // Opóźnienie filtru dla μ = 0 (jedyny niezerowy współczynnik)
+    static final int LATENCY = TAPS / 2 - 1;
+
+    private static final int BLOCK = 4096;
+
+    // (PHASES + 1) × TAPS, wiersz p - filtr dla μ = p / PHASES
+    private static final double[] TABLE = designTable();
+
+    private final int shift;
+    private final double[] taps;
+    private final boolean whole;
+    // [historia shift + TAPS - 1 | blok nowych próbek]
+    private final double[] line;
+    private final int history;
+
+    /**
+     * @param delay opóźnienie ponad LATENCY, w próbkach (≥ 0)
+     */
+    FractionalDelay(double delay) {
+        if (!(delay >= 0) || delay > FilterStage.MAX_DELAY_SAMPLES) {
+            throw new IllegalArgumentException("Delay out of range: " + delay + " samples");
+        }
+        shift = (int) Math.floor(delay);
+        double phase = (delay - shift) * PHASES;
+        int p = (int) phase;
+        double f = phase - p;
+        taps = new double[TAPS];
+        for (int m = 0; m < TAPS; m++) {
+            double lo = TABLE[p * TAPS + m];
+            taps[m] = f == 0 ? lo : lo + f * (TABLE[(p + 1) * TAPS + m] - lo);
+        }
+        whole = p == 0 && f == 0;
+        history = shift + TAPS - 1;
+        line = new double[history + BLOCK];
+    }
+
+    private static double[] designTable() {
+        double[] table = new double[(PHASES + 1) * TAPS];
+        for (int p = 0; p <= PHASES; p++) {
+            double mu = (double) p / PHASES;
+            double sum = 0;
+            for (int m = 0; m < TAPS; m++) {
+                double t = m - LATENCY - mu;  // odległość od punktu interpolacji
+                double sinc = t == 0 ? 1 : Math.sin(Math.PI * t) / (Math.PI * t);
+                double window = 0.42 + 0.5 * Math.cos(Math.PI * t / (TAPS / 2))
+                        + 0.08 * Math.cos(2 * Math.PI * t / (TAPS / 2));
+                table[p * TAPS + m] = sinc * window;
+                sum += table[p * TAPS + m];
+            }
+            for (int m = 0; m < TAPS; m++) {
+                table[p * TAPS + m] /= sum;   // wzmocnienie DC = 1 dla każdej fazy
+            }
+        }
+        return table;
+    }
+
+    @Override
+    public void process(double[] buf, int from, int count) {
+        for (int done = 0, c; done < count; done += c) {
+            c = Math.min(BLOCK, count - done);
+            block(buf, from + done, c);
+        }
+    }
+
+    private void block(double[] buf, int from, int count) {
+        System.arraycopy(buf, from, line, history, count);
+        if (whole) {
+            // line[history + i - shift - LATENCY] = x[i - shift - LATENCY]
+            System.arraycopy(line, history - shift - LATENCY, buf, from, count);
+        } else {
+            for (int i = 0; i < count; i++) {
+                int base = history + i - shift;
+                double acc = 0;
+                for (int m = 0; m < TAPS; m++) {
+                    acc += taps[m] * line[base - m];
+                }
+                buf[from + i] = acc;
+            }
+        }
+        System.arraycopy(line, count, line, 0, history);
+    }
+
+    @Override
+    public void reset() {
+        Arrays.fill(line, 0, history, 0);
+    }
+}
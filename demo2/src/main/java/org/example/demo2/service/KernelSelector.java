@@ -0,0 +1,132 @@
+package org.example.demo2.service;
+
+import java.lang.System.Logger.Level;
+import java.util.Random;
+
+/**
+ * WYBÓR IMPLEMENTACJI JĄDER PRZY STARCIE
+ * ======================================
+ *
+ * Moduł aplikacji ma "requires static jdk.incubator.vector" - moduł jest potrzebny
+ * do kompilacji, ale w czasie działania tylko wtedy, gdy JVM uruchomiono
+ * z --add-modules=jdk.incubator.vector. Dlatego VectorKernels ładujemy refleksyjnie,
+ * dopiero po sprawdzeniu, że moduł jest w warstwie startowej.
+ *
+ * Przed użyciem wersja wektorowa przechodzi samosprawdzenie (verify) względem
+ * ScalarKernels na danych przypominających pętlę histerezy, z niepełnym ogonem
+ * tablicy i odcinkami stałymi (|dx| = 0). Niezgodność trafia do logu (System.Logger)
+ * i do status() - pokazywanego w nakładce wydajności.
+ *
+ * Zysk z wersji wektorowej zależy od CPU (szerokość SIMD) i rozmiaru danych - mierzy
+ * go KernelBenchmark w module JMH (demo2/benchmarks), nie samosprawdzenie.
+ */
+public final class KernelSelector {
+
+    private static final System.Logger LOG = System.getLogger(KernelSelector.class.getName());
+
+    // Powód użycia wersji skalarnej mimo dostępnego Vector API (null = brak)
+    private static String fallbackReason;
+
+    static final SignalKernels SELECTED = select();
+
+    private static final String VECTOR_CLASS = "org.example.demo2.service.VectorKernels";
+    private static final String VECTOR_MODULE = "jdk.incubator.vector";
+
+    // Względna tolerancja sumy kwadratów (inna kolejność sumowania w SIMD)
+    private static final double SUM_TOLERANCE = 1e-12;
+
+    private KernelSelector() {
+    }
+
+    /**
+     * Wersja wektorowa albo null, gdy moduł Vector API nie jest dostępny.
+     * Bez samosprawdzenia - do porównań w benchmarkach.
+     */
+    public static SignalKernels vector() {
+        if (ModuleLayer.boot().findModule(VECTOR_MODULE).isEmpty()) return null;
+        try {
+            return (SignalKernels) Class.forName(VECTOR_CLASS).getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | LinkageError e) {
+            return null;
+        }
+    }
+
+    private static SignalKernels select() {
+        if (!Boolean.parseBoolean(System.getProperty("demo2.simd", "true"))) {
+            return ScalarKernels.INSTANCE;
+        }
+        SignalKernels vector = vector();
+        if (vector == null) return ScalarKernels.INSTANCE;
+        String mismatch = verify(vector);
+        if (mismatch != null) {
+            fallbackReason = "SIMD niezgodne: " + mismatch;
+            LOG.log(Level.WARNING, "Jądra SIMD niezgodne z wersją skalarną ({0}) - używana wersja skalarna", mismatch);
+            return ScalarKernels.INSTANCE;
+        }
+        return vector;
+    }
+
+    /**
+     * Wybrana implementacja i ewentualny powód powrotu do wersji skalarnej.
+     */
+    public static String status() {
+        String name = SELECTED.name();
+        return fallbackReason == null ? name : name + " (" + fallbackReason + ")";
+    }
+
+    /**
+     * Porównanie candidate z ScalarKernels dla kilku długości tablic i kroków.
+     *
+     * @return null gdy zgodne, w przeciwnym razie opis pierwszej różnicy
+     */
+    public static String verify(SignalKernels candidate) {
+        SignalKernels reference = ScalarKernels.INSTANCE;
+        Random random = new Random(42);
+        for (int n : new int[]{0, 1, 2, 3, 7, 64, 1001, 4099}) {
+            double[] x = new double[n];
+            double[] y = new double[n];
+            for (int i = 0; i < n; i++) {
+                double phase = 2 * Math.PI * 3 * i / Math.max(1, n);
+                x[i] = Math.sin(phase) + 0.01 * random.nextGaussian();
+                y[i] = Math.tanh(3 * (x[i] + 0.2 * Math.cos(phase)));
+                if (i % 17 == 5 && i > 0) x[i] = x[i - 1];  // odcinki pionowe
+            }
+
+            double[] a = new double[3], b = new double[3];
+            for (int from = 0; from <= Math.min(n, 3); from++) {
+                reference.minMaxSumSq(y, from, n, a);
+                candidate.minMaxSumSq(y, from, n, b);
+                if (a[0] != b[0] || a[1] != b[1]
+                        || Math.abs(a[2] - b[2]) > SUM_TOLERANCE * Math.max(1, Math.abs(a[2]))) {
+                    return "minMaxSumSq n=" + n + " from=" + from;
+                }
+            }
+
+            double[] sa = new double[n], sb = new double[n];
+            reference.scale(y, 795.8, sa, n);
+            candidate.scale(y, 795.8, sb, n);
+            for (int i = 0; i < n; i++) {
+                if (sa[i] != sb[i]) return "scale n=" + n + " i=" + i;
+            }
+
+            for (int step : new int[]{1, 2, 5}) {
+                boolean anyA = reference.movingRange(x, step, n, step, a);
+                boolean anyB = candidate.movingRange(x, step, n, step, b);
+                if (anyA != anyB || (anyA && (a[0] != b[0] || a[1] != b[1]))) {
+                    return "movingRange n=" + n + " step=" + step;
+                }
+                if (!anyA) continue;
+                int bins = 150;
+                double dx = (a[1] - a[0]) / (bins - 1);
+                long[] ca = new long[n], cb = new long[n];
+                int ka = reference.binCodes(x, step, n, step, a[0], dx, bins, ca);
+                int kb = candidate.binCodes(x, step, n, step, a[0], dx, bins, cb);
+                if (ka != kb) return "binCodes count n=" + n + " step=" + step;
+                for (int k = 0; k < ka; k++) {
+                    if (ca[k] != cb[k]) return "binCodes n=" + n + " step=" + step + " k=" + k;
+                }
+            }
+        }
+        return null;
+    }
+}
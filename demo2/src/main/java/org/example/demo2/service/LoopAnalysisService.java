@@ -0,0 +1,134 @@
+package org.example.demo2.service;
+
+import org.example.demo2.metrics.ProcessingEvent;
+import org.example.demo2.model.HysteresisData;
+import org.example.demo2.model.LoopMetrics;
+import org.example.demo2.model.SampleChannel;
+
+/**
+ * SERWIS ANALIZY PĘTLI HISTEREZY
+ * ==============================
+ *
+ * Wyznacza parametry pętli w jednostkach fizycznych bezpośrednio z surowych tablic,
+ * bez binningu - potrzebne tam, gdzie analiza ma być szybka i bez UI (sweep, regulacja).
+ *
+ * STRATY NA CYKL:
+ * ===============
+ * Pole pętli to energia tracona w jednostce objętości w jednym cyklu:
+ *
+ * w = ∮ H dB  [J/m³]
+ *
+ * Całkę liczymy metodą trapezów tylko po pełnych okresach wzbudzenia
+ * (niepełny okres na początku rekordu zawyżałby lub zaniżał wynik).
+ * Straty mocy: P = f × w  [W/m³]
+ *
+ * Kanały float czytane są blokami po BLOCK próbek (z jedną próbką zakładki dla
+ * trapezów); kanały double - bezpośrednio z tablic.
+ */
+public class LoopAnalysisService {
+
+    // Bufor poszerzania kanałów float [próbki]
+    private static final int BLOCK = 4096;
+
+    /**
+     * @param data dane z akwizycji (ch1 = napięcie na boczniku, ch0Integrated = ∫V)
+     * @param sampleRateHz częstotliwość próbkowania danych [Hz] (po przepróbkowaniu - getAnalysisSampleRateHz())
+     * @param excitationHz częstotliwość wzbudzenia [Hz]
+     * @param hScale współczynnik V → A/m (PhysicalParameters.hScale())
+     * @param bScale współczynnik ∫V → T (PhysicalParameters.bScale())
+     */
+    public LoopMetrics analyze(HysteresisData data, double sampleRateHz, double excitationHz,
+                               double hScale, double bScale) {
+        ProcessingEvent event = new ProcessingEvent();
+        event.begin();
+        SampleChannel hSig = data.getCh1Channel();
+        SampleChannel bSig = data.getCh0IntegratedChannel();
+        int n = Math.min(hSig.length(), bSig.length());
+
+        // Bierzemy ostatnie pełne okresy - początek rekordu jest najmniej ustalony
+        int cycles = fullCycles(n, sampleRateHz, excitationHz);
+        int areaFrom = cycles >= 1 ? areaFrom(n, cycles, sampleRateHz, excitationHz) : n;
+        double[] p = partial(hSig, bSig, 0, n, areaFrom);
+
+        LoopMetrics metrics = toMetrics(n, p[0], p[1], p[2], p[3], cycles, p[4], excitationHz, hScale, bScale);
+        event.finish(ProcessingEvent.LOOP_ANALYSIS, n);
+        return metrics;
+    }
+
+    /**
+     * {hMin, hMax, bMin, bMax, pole} dla próbek from..to; pole sumowane od
+     * max(from, areaFrom). Też dla fragmentów w ParallelAnalysisService.
+     */
+    static double[] partial(SampleChannel h, SampleChannel b, int from, int to, int areaFrom) {
+        if (h.array() != null && b.array() != null) {
+            return partial(h.array(), b.array(), 0, from, to, areaFrom);
+        }
+        double[] hBlock = new double[BLOCK + 1];
+        double[] bBlock = new double[BLOCK + 1];
+        double[] p = {Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY,
+                Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY, 0};
+        for (int i = from, count; i < to; i += count) {
+            count = Math.min(BLOCK, to - i);
+            // Pozycja 0 bufora = próbka i-1 (zakładka dla trapezu na granicy bloku)
+            int lo = i > 0 ? i - 1 : 0;
+            h.read(lo, hBlock, 0, i + count - lo);
+            b.read(lo, bBlock, 0, i + count - lo);
+            double[] q = partial(hBlock, bBlock, lo, i, i + count, areaFrom);
+            p[0] = Math.min(p[0], q[0]);
+            p[1] = Math.max(p[1], q[1]);
+            p[2] = Math.min(p[2], q[2]);
+            p[3] = Math.max(p[3], q[3]);
+            p[4] += q[4];
+        }
+        return p;
+    }
+
+    // Próbka i rekordu = hSig[i - offset]
+    private static double[] partial(double[] hSig, double[] bSig, int offset, int from, int to, int areaFrom) {
+        double hMin = Double.POSITIVE_INFINITY, hMax = Double.NEGATIVE_INFINITY;
+        double bMin = Double.POSITIVE_INFINITY, bMax = Double.NEGATIVE_INFINITY;
+        for (int i = from - offset; i < to - offset; i++) {
+            hMin = Math.min(hMin, hSig[i]);
+            hMax = Math.max(hMax, hSig[i]);
+            bMin = Math.min(bMin, bSig[i]);
+            bMax = Math.max(bMax, bSig[i]);
+        }
+        double area = 0;
+        for (int i = Math.max(from, areaFrom) - offset; i < to - offset; i++) {
+            area += 0.5 * (hSig[i] + hSig[i - 1]) * (bSig[i] - bSig[i - 1]);
+        }
+        return new double[]{hMin, hMax, bMin, bMax, area};
+    }
+
+    /**
+     * Liczba pełnych okresów wzbudzenia w rekordzie n próbek.
+     */
+    static int fullCycles(int n, double sampleRateHz, double excitationHz) {
+        double samplesPerCycle = sampleRateHz / excitationHz;
+        return (int) Math.floor(n / samplesPerCycle);
+    }
+
+    /**
+     * Pierwszy indeks i sumy trapezów (składnik z próbkami i-1, i) dla ostatnich
+     * cycles pełnych okresów.
+     */
+    static int areaFrom(int n, int cycles, double sampleRateHz, double excitationHz) {
+        int start = n - (int) Math.round(cycles * (sampleRateHz / excitationHz));
+        return Math.max(start, 0) + 1;
+    }
+
+    /**
+     * Wynik w jednostkach fizycznych z zakresów H/B i pola pętli (też po scaleniu
+     * wyników częściowych w ParallelAnalysisService).
+     */
+    static LoopMetrics toMetrics(int n, double hMin, double hMax, double bMin, double bMax,
+                                 int cycles, double area, double excitationHz, double hScale, double bScale) {
+        double hPeak = n > 0 ? 0.5 * (hMax - hMin) * hScale : 0;
+        double bPeak = n > 0 ? 0.5 * (bMax - bMin) * bScale : 0;
+        if (cycles < 1) {
+            return new LoopMetrics(bPeak, hPeak, Double.NaN, Double.NaN);
+        }
+        double lossPerCycle = Math.abs(area) * hScale * bScale / cycles;
+        return new LoopMetrics(bPeak, hPeak, lossPerCycle, lossPerCycle * excitationHz);
+    }
+}
@@ -0,0 +1,358 @@
+package org.example.demo2.service;
+
+import org.example.demo2.metrics.PipelineMetrics;
+import org.example.demo2.metrics.ProcessingEvent;
+import org.example.demo2.model.AveragedLoop;
+import org.example.demo2.model.BinningMode;
+import org.example.demo2.model.SampleChannel;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * SERWIS UŚREDNIANIA PĘTLI HISTEREZY (BINNING)
+ * ============================================
+ *
+ * Algorytm wcześniej powielony w MainController (wykres XY i Canvas):
+ * 1. Detekcja kierunku - punkty co step próbek, kierunek ze znaku dx
+ *    (punkty z |dx| < 1e-9 są pomijane - pionowe odcinki)
+ * 2. Podział osi X na bins przedziałów pomiędzy min i max X
+ * 3. Średnia Y w każdym przedziale, osobno dla gałęzi rosnącej i malejącej
+ *
+ * Wersja tablicowa - bez obiektów pośrednich na każdą próbkę. Kierunek i numer
+ * przedziału liczą jądra (SignalKernels.movingRange/binCodes) blokami po BLOCK
+ * punktów; sumowanie Y zostaje sekwencyjne, więc wynik nie zależy od jąder.
+ *
+ * Kanały float (SampleChannel bez tablicy double) czytane są blokami: punkty
+ * bloku zbierane są (gather) do krótkiego bufora double z poprzedzającym punktem
+ * na pozycji 0, a jądra liczą na buforze z krokiem 1 - te same różnice dx,
+ * więc te same kody co na pełnej tablicy.
+ *
+ * BINNING ADAPTACYJNY (BinningMode.EQUAL_COUNT / GRADIENT):
+ * ========================================================
+ * Ten sam przebieg sumowania, ale do SKETCH_CELLS drobnych komórek (szkic rozkładu
+ * X i średnich Y gałęzi). Granice przedziałów wyznacza się ze szkicu - bez
+ * kolejnego przebiegu po próbkach - i scala komórki: sumy i liczności dodają się
+ * dokładnie. X przedziału to środek ciężkości jego punktów (z dokładnością do
+ * połowy komórki), więc interpolacja B_r/H_c nie ma błędu "lewej krawędzi".
+ * Liczba przedziałów (bins ≤ 0) rośnie z liczbą punktów - autoBins().
+ */
+public class LoopAveragingService {
+
+    // Domyślna liczba przedziałów osi X
+    public static final int DEFAULT_BINS = 150;
+
+    // Liczba punktów na blok kodów binów
+    private static final int BLOCK = 1024;
+
+    // bins = AUTO_BINS: liczba przedziałów dobrana do liczby punktów (autoBins)
+    public static final int AUTO_BINS = 0;
+
+    // Komórki szkicu trybów adaptacyjnych i zakres automatycznej liczby przedziałów
+    static final int SKETCH_CELLS = 2048;
+    private static final int MIN_AUTO_BINS = 16;
+    private static final int MAX_AUTO_BINS = SKETCH_CELLS / 4;
+    // Komórki uśredniane razem przy szacowaniu nachylenia (tryb GRADIENT)
+    private static final int GRADIENT_GROUP = 8;
+
+    private final SignalKernels kernels;
+
+    public LoopAveragingService() {
+        this(SignalKernels.get());
+    }
+
+    public LoopAveragingService(SignalKernels kernels) {
+        this.kernels = kernels;
+    }
+
+    public AveragedLoop average(double[] xSig, double[] ySig, int step, int bins) {
+        return average(xSig, ySig, step, bins, BinningMode.UNIFORM);
+    }
+
+    /**
+     * Liczba przedziałów dla points punktów: ~2·√points (≈ √points na gałąź,
+     * czyli tyle samo przedziałów co punktów w przedziale), w granicach 16..512.
+     */
+    public static int autoBins(long points) {
+        long bins = Math.round(2 * Math.sqrt(points));
+        return (int) Math.max(MIN_AUTO_BINS, Math.min(MAX_AUTO_BINS, bins));
+    }
+
+    // Liczba przedziałów wyniku (AUTO_BINS rozwinięte) i komórek sumowania dla trybu
+    static int resolveBins(int n, int step, int bins) {
+        return bins > 0 ? bins : autoBins(n / step);
+    }
+
+    static int cells(BinningMode mode, int bins) {
+        return mode == BinningMode.UNIFORM ? bins : SKETCH_CELLS;
+    }
+
+    public AveragedLoop average(double[] xSig, double[] ySig, int step, int bins, BinningMode mode) {
+        long t0 = System.nanoTime();
+        ProcessingEvent event = new ProcessingEvent();
+        event.begin();
+        int n = Math.min(xSig.length, ySig.length);
+        bins = resolveBins(n, step, bins);
+
+        // Pierwszy przebieg: zakres X punktów z niezerowym dx
+        double[] range = new double[2];
+        boolean any = kernels.movingRange(xSig, step, n, step, range);
+
+        AveragedLoop loop;
+        if (!any) {
+            loop = new AveragedLoop(new ArrayList<>(), new ArrayList<>(), new ArrayList<>(), new ArrayList<>());
+        } else {
+            // Drugi przebieg: sumy Y w przedziałach (lub komórkach szkicu) dla obu kierunków
+            Bins sums = new Bins(range[0], range[1], cells(mode, bins));
+            accumulate(xSig, ySig, step, n, step, sums);
+            loop = sums.toLoop(mode, bins);
+        }
+        PipelineMetrics.BINNING.recordSince(t0);
+        event.finish(ProcessingEvent.BINNING, n);
+        return loop;
+    }
+
+    public AveragedLoop average(SampleChannel xSig, SampleChannel ySig, int step, int bins) {
+        return average(xSig, ySig, step, bins, BinningMode.UNIFORM);
+    }
+
+    /**
+     * Jak average(double[], double[], step, bins, mode) dla kanałów w dowolnym formacie.
+     */
+    public AveragedLoop average(SampleChannel xSig, SampleChannel ySig, int step, int bins, BinningMode mode) {
+        if (xSig.array() != null && ySig.array() != null) {
+            return average(xSig.array(), ySig.array(), step, bins, mode);
+        }
+        long t0 = System.nanoTime();
+        ProcessingEvent event = new ProcessingEvent();
+        event.begin();
+        int n = Math.min(xSig.length(), ySig.length());
+        bins = resolveBins(n, step, bins);
+
+        double[] range = new double[2];
+        AveragedLoop loop;
+        if (!movingRange(xSig, step, n, step, range)) {
+            loop = new AveragedLoop(new ArrayList<>(), new ArrayList<>(), new ArrayList<>(), new ArrayList<>());
+        } else {
+            Bins sums = new Bins(range[0], range[1], cells(mode, bins));
+            accumulate(xSig, ySig, step, n, step, sums);
+            loop = sums.toLoop(mode, bins);
+        }
+        PipelineMetrics.BINNING.recordSince(t0);
+        event.finish(ProcessingEvent.BINNING, n);
+        return loop;
+    }
+
+    /**
+     * SignalKernels.movingRange dla kanału - blokami po BLOCK punktów (from ≥ step).
+     */
+    boolean movingRange(SampleChannel xSig, int from, int to, int step, double[] out) {
+        if (xSig.array() != null) return kernels.movingRange(xSig.array(), from, to, step, out);
+        double[] xg = new double[BLOCK + 1];
+        double[] part = new double[2];
+        double xmin = Double.POSITIVE_INFINITY, xmax = Double.NEGATIVE_INFINITY;
+        boolean any = false;
+        for (int blockTo; from < to; from = blockTo) {
+            blockTo = (int) Math.min(to, from + (long) BLOCK * step);
+            int count = gather(xSig, from, blockTo, step, xg);
+            if (kernels.movingRange(xg, 1, count + 1, 1, part)) {
+                xmin = Math.min(xmin, part[0]);
+                xmax = Math.max(xmax, part[1]);
+                any = true;
+            }
+        }
+        out[0] = xmin;
+        out[1] = xmax;
+        return any;
+    }
+
+    /**
+     * accumulate dla kanałów - blokami po BLOCK punktów (from ≥ step).
+     */
+    void accumulate(SampleChannel xSig, SampleChannel ySig, int from, int to, int step, Bins sums) {
+        if (xSig.array() != null && ySig.array() != null) {
+            accumulate(xSig.array(), ySig.array(), from, to, step, sums);
+            return;
+        }
+        double[] xg = new double[BLOCK + 1];
+        double[] yg = new double[BLOCK];
+        long[] codes = new long[BLOCK];
+        for (int blockTo; from < to; from = blockTo) {
+            blockTo = (int) Math.min(to, from + (long) BLOCK * step);
+            int count = gather(xSig, from, blockTo, step, xg);
+            ySig.gather(from, step, yg, 0, count);
+            kernels.binCodes(xg, 1, count + 1, 1, sums.xmin, sums.dx, sums.bins, codes);
+            for (int k = 0; k < count; k++) {
+                long code = codes[k];
+                if (code == 0) continue;
+                if (code > 0) {
+                    sums.sumRising[(int) code - 1] += yg[k];
+                    sums.countRising[(int) code - 1]++;
+                } else {
+                    sums.sumFalling[(int) -code - 1] += yg[k];
+                    sums.countFalling[(int) -code - 1]++;
+                }
+            }
+        }
+    }
+
+    // xg[0] = x[from - step], xg[1..count] = x[from], x[from + step], ... < to
+    private static int gather(SampleChannel xSig, int from, int to, int step, double[] xg) {
+        int count = (int) (((long) to - from + step - 1) / step);
+        xg[0] = xSig.get(from - step);
+        xSig.gather(from, step, xg, 1, count);
+        return count;
+    }
+
+    /**
+     * Dodanie do sums punktów i = from, from + step, ... < to (from ≥ step).
+     * Używane też przez ParallelAnalysisService dla pojedynczych fragmentów rekordu.
+     */
+    void accumulate(double[] xSig, double[] ySig, int from, int to, int step, Bins sums) {
+        long[] codes = new long[BLOCK];
+        for (int blockTo; from < to; from = blockTo) {
+            blockTo = (int) Math.min(to, from + (long) BLOCK * step);
+            int coded = kernels.binCodes(xSig, from, blockTo, step, sums.xmin, sums.dx, sums.bins, codes);
+            for (int k = 0; k < coded; k++) {
+                long code = codes[k];
+                if (code == 0) continue;
+                int i = from + k * step;
+                if (code > 0) {
+                    sums.sumRising[(int) code - 1] += ySig[i];
+                    sums.countRising[(int) code - 1]++;
+                } else {
+                    sums.sumFalling[(int) -code - 1] += ySig[i];
+                    sums.countFalling[(int) -code - 1]++;
+                }
+            }
+        }
+    }
+
+    /**
+     * Sumy i liczności Y w przedziałach - wynik częściowy, który można scalać (merge).
+     */
+    static final class Bins {
+        final double xmin;
+        final double dx;  // Szerokość przedziału
+        final int bins;
+        final double[] sumRising, sumFalling;
+        final int[] countRising, countFalling;
+
+        Bins(double xmin, double xmax, int bins) {
+            this.xmin = xmin;
+            this.dx = (xmax - xmin) / (bins - 1);
+            this.bins = bins;
+            sumRising = new double[bins];
+            sumFalling = new double[bins];
+            countRising = new int[bins];
+            countFalling = new int[bins];
+        }
+
+        void merge(Bins other) {
+            for (int i = 0; i < bins; i++) {
+                sumRising[i] += other.sumRising[i];
+                sumFalling[i] += other.sumFalling[i];
+                countRising[i] += other.countRising[i];
+                countFalling[i] += other.countFalling[i];
+            }
+        }
+
+        /**
+         * Wynik dla trybu: UNIFORM - średnie w przedziałach, tryby adaptacyjne -
+         * komórki (szkic) scalone do bins przedziałów osobno dla każdej gałęzi.
+         */
+        AveragedLoop toLoop(BinningMode mode, int bins) {
+            if (mode == BinningMode.UNIFORM) return toLoop();
+            List<Double> risingX = new ArrayList<>();
+            List<Double> risingY = new ArrayList<>();
+            List<Double> fallingX = new ArrayList<>();
+            List<Double> fallingY = new ArrayList<>();
+            mergeCells(sumRising, countRising, mode, bins, risingX, risingY);
+            mergeCells(sumFalling, countFalling, mode, bins, fallingX, fallingY);
+            return new AveragedLoop(risingX, risingY, fallingX, fallingY);
+        }
+
+        // Granice przedziałów z wag komórek: przedział zamyka się, gdy skumulowana
+        // waga przekroczy kolejną część total / bins
+        private void mergeCells(double[] sum, int[] count, BinningMode mode, int target,
+                                List<Double> outX, List<Double> outY) {
+            double[] weight = new double[bins];
+            double total = 0;
+            if (mode == BinningMode.EQUAL_COUNT) {
+                for (int c = 0; c < bins; c++) {
+                    weight[c] = count[c];
+                    total += weight[c];
+                }
+            } else {
+                // Udział ΔX (każda komórka po równo) + udział |ΔY| - obie części sumują się
+                // do 1. ΔY między średnimi grup po GRADIENT_GROUP komórek (mniej szumu niż
+                // między pojedynczymi komórkami), rozłożone równo na komórki grupy
+                double dySum = 0, prev = Double.NaN;
+                for (int g = 0; g < bins; g += GRADIENT_GROUP) {
+                    int end = Math.min(bins, g + GRADIENT_GROUP);
+                    double groupSum = 0;
+                    long groupCount = 0;
+                    for (int c = g; c < end; c++) {
+                        groupSum += sum[c];
+                        groupCount += count[c];
+                    }
+                    if (groupCount == 0) continue;
+                    double mean = groupSum / groupCount;
+                    if (!Double.isNaN(prev)) {
+                        double dy = Math.abs(mean - prev) / (end - g);
+                        for (int c = g; c < end; c++) weight[c] = dy;
+                        dySum += dy * (end - g);
+                    }
+                    prev = mean;
+                }
+                for (int c = 0; c < bins; c++) {
+                    weight[c] = 1.0 / bins + (dySum > 0 ? weight[c] / dySum : 0);
+                    total += weight[c];
+                }
+            }
+            if (total == 0) return;
+
+            double quantum = total / target;
+            double cumulative = 0, next = quantum;
+            double sumY = 0, sumX = 0;
+            long n = 0;
+            for (int c = 0; c < bins; c++) {
+                if (count[c] > 0) {
+                    sumY += sum[c];
+                    sumX += count[c] * (xmin + (c + 0.5) * dx);  // środek komórki
+                    n += count[c];
+                }
+                cumulative += weight[c];
+                if (cumulative >= next || c == bins - 1) {
+                    if (n > 0) {
+                        outX.add(sumX / n);
+                        outY.add(sumY / n);
+                    }
+                    sumY = sumX = 0;
+                    n = 0;
+                    while (next <= cumulative) next += quantum;
+                }
+            }
+        }
+
+        // Średnie w przedziałach (X = lewa krawędź przedziału, jak w pierwotnym algorytmie)
+        AveragedLoop toLoop() {
+            List<Double> risingX = new ArrayList<>();
+            List<Double> risingY = new ArrayList<>();
+            List<Double> fallingX = new ArrayList<>();
+            List<Double> fallingY = new ArrayList<>();
+            for (int i = 0; i < bins; i++) {
+                double x = xmin + i * dx;
+                if (countRising[i] > 0) {
+                    risingX.add(x);
+                    risingY.add(sumRising[i] / countRising[i]);
+                }
+                if (countFalling[i] > 0) {
+                    fallingX.add(x);
+                    fallingY.add(sumFalling[i] / countFalling[i]);
+                }
+            }
+            return new AveragedLoop(risingX, risingY, fallingX, fallingY);
+        }
+    }
+}
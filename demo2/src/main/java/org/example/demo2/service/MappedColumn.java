@@ -0,0 +1,101 @@
+package org.example.demo2.service;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Kolumna 8-bajtowych wartości (long lub double) w pliku mapowanym do pamięci.
+ *
+ * Plik: 8 B nagłówka (liczba zapisanych wierszy) + wartości. Plik jest mapowany
+ * regionami po REGION_ROWS wierszy - kolumna rośnie bez przepisywania i bez
+ * limitu 2 GB pojedynczego MappedByteBuffer. Odczyt i zapis idą prosto do
+ * pamięci strony; trwałość zapewnia system (force() przy zamknięciu).
+ */
+final class MappedColumn implements AutoCloseable {
+
+    static final int REGION_SHIFT = 16;
+    static final int REGION_ROWS = 1 << REGION_SHIFT;  // 512 kB na region
+    private static final int HEADER = 8;
+
+    private final FileChannel file;
+    private final MappedByteBuffer header;
+    private final List<MappedByteBuffer> regions = new ArrayList<>();
+    private long rows;
+
+    MappedColumn(Path path) throws IOException {
+        file = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        header = file.map(FileChannel.MapMode.READ_WRITE, 0, HEADER);
+        rows = header.getLong(0);
+        while ((long) regions.size() << REGION_SHIFT < rows) {
+            mapRegion();
+        }
+    }
+
+    long rows() {
+        return rows;
+    }
+
+    /**
+     * Ustala liczbę wierszy w nagłówku - wywoływać po zapisaniu wartości wiersza.
+     */
+    void setRows(long rows) {
+        ensureCapacity(rows);
+        this.rows = rows;
+        header.putLong(0, rows);
+    }
+
+    long getLong(long row) {
+        return region(row).getLong(offset(row));
+    }
+
+    double getDouble(long row) {
+        return region(row).getDouble(offset(row));
+    }
+
+    void putLong(long row, long value) {
+        ensureCapacity(row + 1);
+        region(row).putLong(offset(row), value);
+    }
+
+    void putDouble(long row, double value) {
+        ensureCapacity(row + 1);
+        region(row).putDouble(offset(row), value);
+    }
+
+    @Override
+    public void close() throws IOException {
+        header.force();
+        for (MappedByteBuffer region : regions) {
+            region.force();
+        }
+        file.close();
+    }
+
+    private void ensureCapacity(long rows) {
+        while ((long) regions.size() << REGION_SHIFT < rows) {
+            try {
+                mapRegion();
+            } catch (IOException e) {
+                throw new IllegalStateException("Cannot grow trend column", e);
+            }
+        }
+    }
+
+    private void mapRegion() throws IOException {
+        long position = HEADER + ((long) regions.size() << REGION_SHIFT) * 8;
+        regions.add(file.map(FileChannel.MapMode.READ_WRITE, position, (long) REGION_ROWS * 8));
+    }
+
+    private MappedByteBuffer region(long row) {
+        return regions.get((int) (row >>> REGION_SHIFT));
+    }
+
+    private static int offset(long row) {
+        return (int) (row & (REGION_ROWS - 1)) * 8;
+    }
+}
@@ -0,0 +1,245 @@
+package org.example.demo2.service;
+
+import org.example.demo2.model.CycleMetrics;
+import org.example.demo2.model.SampleChannel;
+
+import java.util.function.Consumer;
+
+/**
+ * ŚLEDZENIE PĘTLI HISTEREZY ONLINE - PARAMETRY NA KAŻDY CYKL
+ * ==========================================================
+ *
+ * Przyjmuje kolejne próbki (H, B) w woltach (CH1 i scałkowany CH0) i po domknięciu
+ * każdego cyklu wzbudzenia wysyła CycleMetrics: B_peak, H_peak, B_r±, H_c± i straty.
+ * Długi rekord lub strumień daje w ten sposób przebieg parametrów w czasie bez
+ * osobnego przejścia analizy po całym rekordzie.
+ *
+ * Granica cyklu: przejście H przez zero w górę. Przejścia są wykrywane z histerezą
+ * (przerzutnik Schmitta) - po przejściu w górę kolejne liczy się dopiero po zmianie
+ * kierunku, tzn. gdy sygnał zejdzie poniżej -próg. Próg to DEADBAND × amplituda
+ * poprzedniego cyklu, więc szum w okolicy zera nie dzieli cyklu na kawałki.
+ *
+ * B_r± to B przy H = 0 (gałąź opadająca / narastająca), H_c± to H przy B = 0
+ * (gałąź narastająca / opadająca) - obie z interpolacji liniowej między próbkami.
+ * Całka CH0 ma dowolną stałą, dlatego B jest liczone względem linii środkowej
+ * (B_max + B_min) / 2 poprzedniego cyklu.
+ *
+ * Stan: kilkanaście liczb na bieżący cykl (min/max, pole, przejścia) - O(1) pamięci
+ * niezależnie od długości pomiaru. Klasa nie jest bezpieczna wątkowo - próbki
+ * podaje jeden wątek (np. "acq-roll"); odbiorca dostaje wyniki w tym samym wątku.
+ */
+public class OnlineLoopTracker {
+
+    // Próg przerzutnika jako ułamek amplitudy poprzedniego cyklu
+    public static final double DEADBAND = 0.05;
+
+    private static final int BLOCK = 4096;
+
+    private final double sampleRateHz;
+    private final double hScale;
+    private final double bScale;
+    private final Consumer<CycleMetrics> listener;
+
+    private final ZeroCrossing hCross = new ZeroCrossing();
+    private final ZeroCrossing bCross = new ZeroCrossing();
+
+    // Próbki od startu i poprzednia próbka (fresh: brak poprzedniej - start lub przerwa)
+    private long sample;
+    private boolean fresh;
+    private double hPrev, bPrev;
+
+    // Bieżący cykl
+    private long cycles;
+    private boolean inCycle;                      // false do pierwszego przejścia H w górę (rozbieg)
+    private double cycleStart;
+    private double hMin, hMax, bMin, bMax;
+    private double area;
+    private double brPlus, brMinus, hcPlus, hcMinus;
+    private double bLevel;                        // Linia środkowa B z poprzedniego cyklu
+
+    // Bufory bloków dla kanałów nie-double
+    private double[] hBlock, bBlock;
+
+    public OnlineLoopTracker(double sampleRateHz, double hScale, double bScale, Consumer<CycleMetrics> listener) {
+        if (!(sampleRateHz > 0)) {
+            throw new IllegalArgumentException("sampleRateHz must be positive: " + sampleRateHz);
+        }
+        this.sampleRateHz = sampleRateHz;
+        this.hScale = hScale;
+        this.bScale = bScale;
+        this.listener = listener;
+        reset();
+    }
+
+    /**
+     * Zapomina stan - następny cykl zaczyna się od nowego rozbiegu.
+     */
+    public void reset() {
+        sample = 0;
+        cycles = 0;
+        bLevel = 0;
+        hCross.band = 0;
+        bCross.band = 0;
+        gap(0);
+    }
+
+    /**
+     * Przerwa w danych (np. próbki utracone przy przepełnieniu bufora urządzenia):
+     * bieżący cykl jest odrzucany, następny zaczyna się od rozbiegu. Numeracja
+     * cykli i położenie w próbkach są zachowane.
+     */
+    public void gap(int lost) {
+        sample += lost;
+        fresh = true;
+        inCycle = false;
+        hCross.armed = 0;
+        bCross.armed = 0;
+    }
+
+    public long getCycleCount() {
+        return cycles;
+    }
+
+    public void accept(double h, double b) {
+        if (fresh) {
+            hPrev = h;
+            bPrev = b;
+            startCycle(sample);
+            fresh = false;
+        } else {
+            step(h, b);
+            hPrev = h;
+            bPrev = b;
+        }
+        sample++;
+    }
+
+    public void accept(double[] h, double[] b, int count) {
+        for (int i = 0; i < count; i++) {
+            accept(h[i], b[i]);
+        }
+    }
+
+    /**
+     * Cały rekord (lub jego część from..to) - blokami, bez kopii kanału.
+     */
+    public void accept(SampleChannel h, SampleChannel b, int from, int to) {
+        double[] ha = h.array(), ba = b.array();
+        if (ha != null && ba != null) {
+            for (int i = from; i < to; i++) {
+                accept(ha[i], ba[i]);
+            }
+            return;
+        }
+        if (hBlock == null) {
+            hBlock = new double[BLOCK];
+            bBlock = new double[BLOCK];
+        }
+        for (int i = from; i < to; ) {
+            int count = Math.min(BLOCK, to - i);
+            h.read(i, hBlock, 0, count);
+            b.read(i, bBlock, 0, count);
+            accept(hBlock, bBlock, count);
+            i += count;
+        }
+    }
+
+    private void step(double h, double b) {
+        if (!inCycle) {
+            // Rozbieg: brak poprzedniego cyklu - próg z dotychczasowej amplitudy
+            hCross.band = Math.max(hCross.band, DEADBAND * Math.abs(h));
+            bCross.band = Math.max(bCross.band, DEADBAND * Math.abs(b - bLevel));
+        }
+        // Pole pętli ∮H dB - trapezy jak w LoopAnalysisService
+        area += 0.5 * (h + hPrev) * (b - bPrev);
+
+        int hDir = hCross.update(hPrev, h);
+        if (hDir != 0) {
+            double t = hCross.fraction;
+            double bAt = bPrev + t * (b - bPrev) - bLevel;
+            if (hDir < 0) {
+                brPlus = bAt;
+            } else {
+                brMinus = bAt;
+                closeCycle(sample - 1 + t);
+            }
+        }
+
+        int bDir = bCross.update(bPrev - bLevel, b - bLevel);
+        if (bDir != 0) {
+            double hAt = hPrev + bCross.fraction * (h - hPrev);
+            if (bDir > 0) {
+                hcPlus = hAt;
+            } else {
+                hcMinus = hAt;
+            }
+        }
+
+        if (h < hMin) hMin = h;
+        if (h > hMax) hMax = h;
+        if (b < bMin) bMin = b;
+        if (b > bMax) bMax = b;
+    }
+
+    private void closeCycle(double end) {
+        double hPeak = 0.5 * (hMax - hMin);
+        double bPeak = 0.5 * (bMax - bMin);
+        if (inCycle) {
+            double length = end - cycleStart;
+            double loss = Math.abs(area) * hScale * bScale;
+            listener.accept(new CycleMetrics(cycles, cycleStart, end,
+                    bPeak * bScale, hPeak * hScale,
+                    brPlus * bScale, brMinus * bScale,
+                    hcPlus * hScale, hcMinus * hScale,
+                    loss, loss * sampleRateHz / length));
+            cycles++;
+        }
+        // Progi i linia środkowa następnego cyklu z tego cyklu (także z rozbiegu)
+        hCross.band = DEADBAND * hPeak;
+        bCross.band = DEADBAND * bPeak;
+        bLevel = 0.5 * (bMax + bMin);
+        inCycle = true;
+        startCycle(end);
+    }
+
+    private void startCycle(double start) {
+        cycleStart = start;
+        hMin = hMax = hPrev;
+        bMin = bMax = bPrev;
+        area = 0;
+        brPlus = brMinus = hcPlus = hcMinus = Double.NaN;
+    }
+
+    /**
+     * Przerzutnik Schmitta z interpolacją miejsca przejścia przez zero.
+     */
+    private static final class ZeroCrossing {
+
+        // +1: sygnał był powyżej +band (czeka na przejście w dół), -1: poniżej -band, 0: nieuzbrojony
+        int armed;
+        double band;
+        double fraction;
+
+        /**
+         * @return +1 przejście w górę, -1 w dół, 0 brak; fraction = położenie między prev i x
+         */
+        int update(double prev, double x) {
+            int crossed = 0;
+            if (armed < 0 && prev < 0 && x >= 0) {
+                crossed = 1;
+            } else if (armed > 0 && prev >= 0 && x < 0) {
+                crossed = -1;
+            }
+            if (crossed != 0) {
+                fraction = prev / (prev - x);
+                armed = 0;
+            }
+            if (x < -band) {
+                armed = -1;
+            } else if (x > band) {
+                armed = 1;
+            }
+            return crossed;
+        }
+    }
+}
@@ -0,0 +1,332 @@
+package org.example.demo2.service;
+
+import org.example.demo2.metrics.PipelineMetrics;
+import org.example.demo2.metrics.ProcessingEvent;
+import org.example.demo2.model.AveragedLoop;
+import org.example.demo2.model.BinningMode;
+import org.example.demo2.model.HysteresisData;
+import org.example.demo2.model.LoopMetrics;
+import org.example.demo2.model.SampleChannel;
+
+import java.util.ArrayList;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.BinaryOperator;
+import java.util.function.IntConsumer;
+import java.util.function.IntFunction;
+
+/**
+ * RÓWNOLEGŁA ANALIZA DŁUGICH REKORDÓW (FORK-JOIN)
+ * ===============================================
+ *
+ * Rekord dzielony jest na fragmenty po chunkSize próbek. Dla każdego fragmentu
+ * liczony jest wynik częściowy, a wyniki scalane są parami w kolejności fragmentów:
+ * - statystyki: min, max, Σx²
+ * - binning: zakres X (pierwszy przebieg), potem sumy/liczności Y w przedziałach
+ *   (LoopAveragingService.Bins)
+ * - analiza pętli: zakresy H i B oraz częściowe sumy pola ∮H dB
+ *
+ * Granice fragmentów zależą tylko od chunkSize (nie od liczby wątków), a drzewo
+ * scalania tylko od liczby fragmentów - wynik jest taki sam przy każdej puli.
+ * Min, max, liczności i przynależność do przedziałów są identyczne z wersją
+ * sekwencyjną; sumy (Σx², sumy Y, pole) różnią się od niej wyłącznie kolejnością
+ * dodawania (błąd rzędu 1e-16 względnie).
+ *
+ * CAŁKOWANIE (FILTR IIR) PRZEZ GRANICE FRAGMENTÓW:
+ * ================================================
+ * y[i] = a·y[i-1] + b·(x[i] + x[i-1]) jest liniowe względem stanu początkowego,
+ * więc wyjście fragmentu o długości L to odpowiedź na stan zerowy z[i] plus
+ * a^(k+1)·Y, gdzie Y = y[początek-1]. Wejście x[początek-1] jest znane wprost.
+ *
+ * 1. Równolegle: z[koniec] każdego fragmentu przy Y = 0
+ * 2. Prefiks: Y(c) = z_koniec(c-1) + a^L · Y(c-1) - O(liczba fragmentów)
+ * 3. Równolegle: zwykła rekurencja każdego fragmentu od Y(c)
+ * 4. Naprawa (sekwencyjnie po fragmentach): Y(c) z kroku 2 może różnić się od
+ *    dokładnego y[początek-1] o kilka ulp. Rekurencję od dokładnego stanu
+ *    powtarzamy tylko do pierwszej próbki zgodnej bitowo - od niej oba przebiegi
+ *    są identyczne. Filtr jest zbieżny (|a| < 1), więc różnica wygasa w ciągu
+ *    kilku stałych czasowych, a wynik jest bitowo równy
+ *    SignalProcessingService.integrate(). Fragment całkowania ma co najmniej
+ *    SYNC_TIME_CONSTANTS stałych czasowych. Gdy zgodność nie nastąpi, naprawa
+ *    przelicza cały fragment - wynik nadal dokładny, tylko bez przyspieszenia.
+ *
+ * Krótkie rekordy (poniżej 2 fragmentów) i pula jednowątkowa - zwykłe serwisy
+ * sekwencyjne.
+ *
+ * KANAŁY FLOAT (SampleFormat.FLOAT32):
+ * ====================================
+ * Statystyki, binning i analiza pętli czytają fragment blokami przez SampleChannel.
+ * Całkowanie kanałów float jest sekwencyjne (blokami) - naprawa z kroku 4
+ * porównuje bitowo wartości double, których kanał float nie przechowuje.
+ */
+public class ParallelAnalysisService {
+
+    // Domyślny rozmiar fragmentu [próbki] - 2 MB na kanał, mieści się w L2/L3
+    public static final int DEFAULT_CHUNK = 1 << 18;
+
+    // Minimalna długość fragmentu całkowania w stałych czasowych filtru 1/(1-a) -
+    // tyle potrzeba, żeby błąd przeniesienia wygasł i naprawa zatrzymała się wcześnie
+    private static final double SYNC_TIME_CONSTANTS = 16;
+
+    private final ForkJoinPool pool;
+    private final int chunkSize;
+    private final StatisticsService statistics;
+    private final LoopAveragingService averaging;
+    private final SignalProcessingService signalProcessing;
+    private final LoopAnalysisService loopAnalysis = new LoopAnalysisService();
+
+    public ParallelAnalysisService() {
+        this(ForkJoinPool.commonPool(), DEFAULT_CHUNK, SignalKernels.get());
+    }
+
+    public ParallelAnalysisService(ForkJoinPool pool, int chunkSize, SignalKernels kernels) {
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("Rozmiar fragmentu musi być dodatni: " + chunkSize);
+        }
+        this.pool = pool;
+        this.chunkSize = chunkSize;
+        this.statistics = new StatisticsService(kernels);
+        this.averaging = new LoopAveragingService(kernels);
+        this.signalProcessing = new SignalProcessingService(kernels);
+    }
+
+    // ===== CAŁKOWANIE =====
+
+    /**
+     * Jak SignalProcessingService.integrate(v, sampleRateHz, out) - wynik bitowo identyczny.
+     */
+    public double[] integrate(double[] v, int sampleRateHz, double[] out) {
+        int n = v.length;
+        double[] ab = SignalProcessingService.filterCoefficients(sampleRateHz);
+        double a = ab[0], b = ab[1];
+        // Przy wysokich częstotliwościach próbkowania a → 1 i stała czasowa rośnie
+        // (100 MHz: ~75 tys. próbek) - fragment musi być odpowiednio dłuższy
+        int length = (int) Math.min(Integer.MAX_VALUE,
+                Math.max(chunkSize, Math.ceil(SYNC_TIME_CONSTANTS / (1 - Math.abs(a)))));
+        if (!parallel(n, length)) return signalProcessing.integrate(v, sampleRateHz, out);
+        long t0 = System.nanoTime();
+        ProcessingEvent event = new ProcessingEvent();
+        event.begin();
+        int chunks = chunks(n, length);
+
+        // 1. Odpowiedź każdego fragmentu na stan zerowy
+        double[] zeroStateEnd = new double[chunks];
+        forEachChunk(chunks, c -> zeroStateEnd[c] =
+                SignalProcessingService.filter(v, lo(c, length), hi(c, length, n), a, b, 0, out));
+
+        // 2. Przeniesienie stanu przez granice (złożenie prefiksowe)
+        double[] carry = new double[chunks];
+        double decay = Math.pow(a, length);  // a^L - wszystkie fragmenty poza ostatnim mają pełną długość
+        for (int c = 1; c < chunks; c++) {
+            carry[c] = zeroStateEnd[c - 1] + decay * carry[c - 1];
+        }
+
+        // 3. Rekurencja od przeniesionego stanu (fragment 0 jest już dokładny)
+        forEachChunk(chunks - 1, c -> SignalProcessingService.filter(
+                v, lo(c + 1, length), hi(c + 1, length, n), a, b, carry[c + 1], out));
+
+        // 4. Naprawa do pierwszej próbki zgodnej bitowo
+        for (int c = 1; c < chunks; c++) {
+            repair(v, lo(c, length), hi(c, length, n), a, b, out);
+        }
+
+        PipelineMetrics.INTEGRATION.recordSince(t0);
+        event.finish(ProcessingEvent.INTEGRATION, n);
+        return out;
+    }
+
+    private static void repair(double[] v, int from, int to, double a, double b, double[] out) {
+        double yPrev = out[from - 1];
+        double xPrev = v[from - 1];
+        for (int i = from; i < to; i++) {
+            double y = a * yPrev + b * (v[i] + xPrev);
+            if (Double.doubleToRawLongBits(y) == Double.doubleToRawLongBits(out[i])) return;
+            out[i] = y;
+            yPrev = y;
+            xPrev = v[i];
+        }
+    }
+
+    /**
+     * Jak SignalProcessingService.integrate(in, sampleRateHz, out); równolegle tylko dla kanałów double.
+     */
+    public SampleChannel integrate(SampleChannel in, int sampleRateHz, SampleChannel out) {
+        if (in.array() != null && out.array() != null) {
+            integrate(in.array(), sampleRateHz, out.array());
+            return out;
+        }
+        return signalProcessing.integrate(in, sampleRateHz, out);
+    }
+
+    // ===== STATYSTYKI =====
+
+    public StatisticsService.Stats statistics(double[] v) {
+        return statistics(SampleChannel.of(v));
+    }
+
+    public StatisticsService.Stats statistics(SampleChannel v) {
+        int n = v.length();
+        if (!parallel(n, chunkSize)) return statistics.compute(v);
+        long t0 = System.nanoTime();
+        ProcessingEvent event = new ProcessingEvent();
+        event.begin();
+
+        double[] mms = reduce(chunks(n, chunkSize), c -> {
+            double[] part = new double[3];
+            statistics.minMaxSumSq(v, lo(c, chunkSize), hi(c, chunkSize, n), part);
+            return part;
+        }, (l, r) -> new double[]{Math.min(l[0], r[0]), Math.max(l[1], r[1]), l[2] + r[2]});
+
+        StatisticsService.Stats stats = StatisticsService.of(mms[0], mms[1], mms[2], n);
+        PipelineMetrics.STATISTICS.recordSince(t0);
+        event.finish(ProcessingEvent.STATISTICS, n);
+        return stats;
+    }
+
+    // ===== BINNING =====
+
+    /**
+     * Jak LoopAveragingService.average(xSig, ySig, step, bins).
+     */
+    public AveragedLoop average(double[] xSig, double[] ySig, int step, int bins) {
+        return average(SampleChannel.of(xSig), SampleChannel.of(ySig), step, bins);
+    }
+
+    public AveragedLoop average(SampleChannel xSig, SampleChannel ySig, int step, int bins) {
+        return average(xSig, ySig, step, bins, BinningMode.UNIFORM);
+    }
+
+    /**
+     * Jak LoopAveragingService.average(xSig, ySig, step, bins, mode) - szkic trybów
+     * adaptacyjnych scala się z fragmentów tak samo jak przedziały.
+     */
+    public AveragedLoop average(SampleChannel xSig, SampleChannel ySig, int step, int bins, BinningMode mode) {
+        int n = Math.min(xSig.length(), ySig.length());
+        // Fragment musi zawierać całkowitą liczbę kroków, żeby punkty i = k·step się nie przesunęły
+        int length = (int) Math.min(Integer.MAX_VALUE, ((long) chunkSize + step - 1) / step * step);
+        if (!parallel(n, length)) return averaging.average(xSig, ySig, step, bins, mode);
+        int resolved = LoopAveragingService.resolveBins(n, step, bins);
+        int cells = LoopAveragingService.cells(mode, resolved);
+        long t0 = System.nanoTime();
+        ProcessingEvent event = new ProcessingEvent();
+        event.begin();
+        int chunks = chunks(n, length);
+
+        // Pierwszy przebieg: zakres X (null - fragment bez ruchu)
+        double[] range = reduce(chunks, c -> {
+            double[] part = new double[2];
+            int from = Math.max(step, lo(c, length));
+            return averaging.movingRange(xSig, from, hi(c, length, n), step, part) ? part : null;
+        }, (l, r) -> l == null ? r : r == null ? l
+                : new double[]{Math.min(l[0], r[0]), Math.max(l[1], r[1])});
+
+        AveragedLoop loop;
+        if (range == null) {
+            loop = new AveragedLoop(new ArrayList<>(), new ArrayList<>(), new ArrayList<>(), new ArrayList<>());
+        } else {
+            // Drugi przebieg: sumy Y w przedziałach
+            LoopAveragingService.Bins sums = reduce(chunks, c -> {
+                LoopAveragingService.Bins part = new LoopAveragingService.Bins(range[0], range[1], cells);
+                averaging.accumulate(xSig, ySig, Math.max(step, lo(c, length)), hi(c, length, n), step, part);
+                return part;
+            }, (l, r) -> {
+                l.merge(r);
+                return l;
+            });
+            loop = sums.toLoop(mode, resolved);
+        }
+        PipelineMetrics.BINNING.recordSince(t0);
+        event.finish(ProcessingEvent.BINNING, n);
+        return loop;
+    }
+
+    // ===== ANALIZA PĘTLI =====
+
+    /**
+     * Jak LoopAnalysisService.analyze(...).
+     */
+    public LoopMetrics analyzeLoop(HysteresisData data, double sampleRateHz, double excitationHz,
+                                   double hScale, double bScale) {
+        SampleChannel hSig = data.getCh1Channel();
+        SampleChannel bSig = data.getCh0IntegratedChannel();
+        int n = Math.min(hSig.length(), bSig.length());
+        if (!parallel(n, chunkSize)) {
+            return loopAnalysis.analyze(data, sampleRateHz, excitationHz, hScale, bScale);
+        }
+        ProcessingEvent event = new ProcessingEvent();
+        event.begin();
+
+        int cycles = LoopAnalysisService.fullCycles(n, sampleRateHz, excitationHz);
+        int areaFrom = cycles >= 1 ? LoopAnalysisService.areaFrom(n, cycles, sampleRateHz, excitationHz) : n;
+
+        // {hMin, hMax, bMin, bMax, częściowe pole}
+        double[] part = reduce(chunks(n, chunkSize), c -> LoopAnalysisService.partial(
+                hSig, bSig, lo(c, chunkSize), hi(c, chunkSize, n), areaFrom),
+                (l, r) -> new double[]{Math.min(l[0], r[0]), Math.max(l[1], r[1]),
+                Math.min(l[2], r[2]), Math.max(l[3], r[3]), l[4] + r[4]});
+
+        LoopMetrics metrics = LoopAnalysisService.toMetrics(n, part[0], part[1], part[2], part[3],
+                cycles, part[4], excitationHz, hScale, bScale);
+        event.finish(ProcessingEvent.LOOP_ANALYSIS, n);
+        return metrics;
+    }
+
+    // ===== PODZIAŁ NA FRAGMENTY =====
+
+    private boolean parallel(int n, int length) {
+        return pool.getParallelism() > 1 && n >= 2L * length;
+    }
+
+    private static int chunks(int n, int length) {
+        return (int) (((long) n + length - 1) / length);
+    }
+
+    private static int lo(int chunk, int length) {
+        return (int) ((long) chunk * length);
+    }
+
+    private static int hi(int chunk, int length, int n) {
+        return (int) Math.min(n, (long) (chunk + 1) * length);
+    }
+
+    private <P> P reduce(int chunks, IntFunction<P> leaf, BinaryOperator<P> merge) {
+        return pool.invoke(new ChunkTask<>(0, chunks, leaf, merge));
+    }
+
+    private void forEachChunk(int chunks, IntConsumer body) {
+        if (chunks <= 0) return;
+        reduce(chunks, c -> {
+            body.accept(c);
+            return null;
+        }, (l, r) -> null);
+    }
+
+    /**
+     * Fragmenty [lo, hi) dzielone na pół aż do pojedynczych; wynik scalany
+     * jako merge(lewa, prawa), więc kolejność sumowania nie zależy od wątków.
+     */
+    private static final class ChunkTask<P> extends RecursiveTask<P> {
+        private static final long serialVersionUID = 1L;
+
+        private final int lo, hi;
+        private final IntFunction<P> leaf;
+        private final BinaryOperator<P> merge;
+
+        ChunkTask(int lo, int hi, IntFunction<P> leaf, BinaryOperator<P> merge) {
+            this.lo = lo;
+            this.hi = hi;
+            this.leaf = leaf;
+            this.merge = merge;
+        }
+
+        @Override
+        protected P compute() {
+            if (hi - lo == 1) return leaf.apply(lo);
+            int mid = (lo + hi) >>> 1;
+            ChunkTask<P> left = new ChunkTask<>(lo, mid, leaf, merge);
+            left.fork();
+            P right = new ChunkTask<>(mid, hi, leaf, merge).compute();
+            return merge.apply(left.join(), right);
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package org.example.demo2.service;
+
+import org.example.demo2.model.AcquisitionConfig;
+
+import java.util.function.Consumer;
+
+/**
+ * PODGLĄD PRZEWIJANY (ROLL) - MONITOROWANIE BEZ KOŃCA
+ * ===================================================
+ *
+ * Wątek "acq-roll" odbiera porcje z DataAcquisitionService.stream() (ACQMODE_RECORD),
+ * filtruje i wyrównuje w czasie CH0/CH1 (FilterStage ze stanem przez cały strumień;
+ * reset po utracie próbek), całkuje CH0 z zachowaniem stanu filtru między porcjami i dopisuje próbki do
+ * RollingSampleBuffer. UI czyta z bufora migawki obwiedni bez blokowania pisarza.
+ * Opcjonalny OnlineLoopTracker dostaje te same porcje (H = CH1, B = całka CH0)
+ * i wylicza parametry pętli dla każdego domkniętego cyklu.
+ *
+ * Przy przepróbkowaniu (AcquisitionConfig.isCycleResampling) H i B przechodzą
+ * przez CycleResampler przed buforem i trackerem - bufor, tracker i trend
+ * pracują na getAnalysisSampleRateHz(), a okno bufora jest przeliczane na tę
+ * częstotliwość.
+ *
+ * Pamięć: bufor o stałej pojemności (okno) + bufor roboczy całkowania rozmiaru
+ * największej porcji - niezależnie od czasu trwania pomiaru.
+ */
+public class RollingAcquisitionService {
+
+    private final DataAcquisitionService acquisitionService;
+
+    private Thread thread;
+    private volatile boolean running;
+    private volatile RollingSampleBuffer buffer;
+
+    // Stan filtru całkującego między porcjami (wątek "acq-roll")
+    private double xPrev, yPrev;
+    private double[] scratchIn = new double[0], scratchOut = new double[0];
+    // Wyjście przepróbkowania porcji (H, B)
+    private double[] resampledH = new double[0], resampledB = new double[0];
+
+    public RollingAcquisitionService(DataAcquisitionService acquisitionService) {
+        this.acquisitionService = acquisitionService;
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    public RollingSampleBuffer getBuffer() {
+        return buffer;
+    }
+
+    /**
+     * Start strumienia do nowego bufora o oknie windowSamples próbek
+     * (próbek urządzenia - przy przepróbkowaniu przeliczane).
+     *
+     * @param onError wywoływany, gdy strumień przerwie się błędem (np. utrata urządzenia)
+     */
+    public RollingSampleBuffer start(AcquisitionConfig config, int windowSamples,
+                                     Consumer<Exception> onError) {
+        return start(config, windowSamples, null, onError);
+    }
+
+    /**
+     * Jak start(config, windowSamples, onError), dodatkowo każda porcja trafia do
+     * tracker (może być null). Tracker jest wywoływany w wątku "acq-roll".
+     */
+    public synchronized RollingSampleBuffer start(AcquisitionConfig config, int windowSamples,
+                                                  OnlineLoopTracker tracker, Consumer<Exception> onError) {
+        if (running) {
+            throw new IllegalStateException("Rolling acquisition already running");
+        }
+        AcquisitionConfig cfg = new AcquisitionConfig(config);
+        cfg.setBufferSize(AcquisitionConfig.DEVICE_BUFFER_SIZE);  // w trybie strumieniowym = FIFO urządzenia
+        double[] ab = SignalProcessingService.filterCoefficients(cfg.getSampleRateHz());
+        FilterStage filters = new FilterStage(cfg);
+        CycleResampler hResampler = cfg.isCycleResampling() ? resampler(cfg) : null;
+        CycleResampler bResampler = cfg.isCycleResampling() ? resampler(cfg) : null;
+        int window = hResampler == null ? windowSamples
+                : (int) Math.max(1, Math.ceil(windowSamples / hResampler.getStep()));
+        RollingSampleBuffer ring = new RollingSampleBuffer(window, RollingSampleBuffer.DEFAULT_BUCKETS);
+        xPrev = 0;
+        yPrev = 0;
+        buffer = ring;
+        running = true;
+
+        thread = new Thread(() -> {
+            try {
+                acquisitionService.stream(cfg,
+                        (ch0, ch1, lost) -> {
+                            if (lost > 0) filters.reset();  // stan sprzed dziury nie pasuje do nowych próbek
+                            filters.apply(ch0, ch1, ch1.length);
+                            double[] b = integrate(ch0, ab[0], ab[1]);
+                            double[] h = ch1;
+                            int n = ch1.length;
+                            if (hResampler != null) {
+                                if (lost > 0) {
+                                    hResampler.reset();
+                                    bResampler.reset();
+                                }
+                                if (resampledH.length < hResampler.maxOutput(n)) {
+                                    resampledH = new double[hResampler.maxOutput(n)];
+                                    resampledB = new double[hResampler.maxOutput(n)];
+                                }
+                                int m = hResampler.process(h, n, resampledH);
+                                bResampler.process(b, n, resampledB);
+                                h = resampledH;
+                                b = resampledB;
+                                n = m;
+                            }
+                            ring.write(b, h, n);
+                            if (tracker != null) {
+                                if (lost > 0) {                   // cykl z dziurą nie ma sensu
+                                    tracker.gap(hResampler == null ? lost
+                                            : (int) Math.round(lost / hResampler.getStep()));
+                                }
+                                tracker.accept(h, b, n);
+                            }
+                        },
+                        () -> !running);
+            } catch (InterruptedException e) {
+                // stop()
+            } catch (Exception e) {
+                if (running) onError.accept(e);
+            } finally {
+                running = false;
+            }
+        }, "acq-roll");
+        thread.setDaemon(true);
+        thread.start();
+        return ring;
+    }
+
+    private static CycleResampler resampler(AcquisitionConfig config) {
+        return new CycleResampler(config.getSampleRateHz(), config.getExcitationHz(), config.getPointsPerCycle());
+    }
+
+    public synchronized void stop() throws InterruptedException {
+        if (thread == null) return;
+        running = false;
+        thread.interrupt();
+        thread.join();
+        thread = null;
+    }
+
+    // Całka porcji jak SignalProcessingService.integrate, kontynuowana od poprzedniej porcji
+    private double[] integrate(double[] ch0, double a, double b) {
+        int n = ch0.length;
+        if (scratchIn.length < n + 1) {
+            scratchIn = new double[n + 1];
+            scratchOut = new double[n + 1];
+        }
+        scratchIn[0] = xPrev;
+        System.arraycopy(ch0, 0, scratchIn, 1, n);
+        yPrev = SignalProcessingService.filter(scratchIn, 1, n + 1, a, b, yPrev, scratchOut);
+        if (n > 0) xPrev = ch0[n - 1];
+        System.arraycopy(scratchOut, 1, ch0, 0, n);  // porcja należy do nas - nadpisujemy wejście
+        return ch0;
+    }
+}
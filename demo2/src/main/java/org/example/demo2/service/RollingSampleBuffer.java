@@ -0,0 +1,184 @@
+package org.example.demo2.service;
+
+import java.lang.invoke.VarHandle;
+
+/**
+ * BUFOR PIERŚCIENIOWY PODGLĄDU PRZEWIJANEGO (ROLL)
+ * ================================================
+ *
+ * Ostatnie capacity próbek CH0/CH1 w tablicach o stałym rozmiarze oraz obwiednia
+ * min/max w buckets przedziałach po bucketSize próbek (capacity = buckets × bucketSize).
+ * Pamięć i koszt odczytu nie zależą od czasu trwania monitorowania.
+ *
+ * JEDEN PISZĄCY, WIELU CZYTAJĄCYCH (BEZ BLOKAD):
+ * ==============================================
+ * Pisarz (wątek strumienia) przed zapisem porcji ogłasza claimed = koniec porcji,
+ * zapisuje próbki i domknięte przedziały obwiedni, a potem publikuje published.
+ * Czytelnik kopiuje próbki do published i po kopii czyta claimed: wszystko, co
+ * pisarz mógł w tym czasie nadpisać (próbki starsze niż claimed - capacity), jest
+ * odrzucane - wynik to spójna migawka, być może krótsza o nadpisany początek.
+ *
+ * Obwiednia zawiera tylko domknięte przedziały - rysowanie jest opóźnione
+ * o co najwyżej jeden przedział.
+ */
+public final class RollingSampleBuffer {
+
+    // Domyślna liczba przedziałów obwiedni (punktów wykresu na kanał)
+    public static final int DEFAULT_BUCKETS = 1000;
+
+    private final int bucketSize;
+    private final int buckets;
+    private final int capacity;
+    private final double[] ch0, ch1;
+    private final double[] min0, max0, min1, max1;
+
+    // Próbki ogłoszone do zapisu / opublikowane (od startu)
+    private volatile long claimed;
+    private volatile long published;
+
+    // Stan pisarza: bieżący (niedomknięty) przedział obwiedni
+    private long written;
+    private int bucketFill;
+    private double bMin0, bMax0, bMin1, bMax1;
+
+    /**
+     * @param minCapacity minimalna liczba przechowywanych próbek (zaokrąglana w górę
+     *                    do wielokrotności buckets)
+     */
+    public RollingSampleBuffer(int minCapacity, int buckets) {
+        if (minCapacity < 1 || buckets < 1) {
+            throw new IllegalArgumentException("Nieprawidłowy rozmiar bufora: " + minCapacity + "/" + buckets);
+        }
+        this.buckets = buckets;
+        this.bucketSize = (int) (((long) minCapacity + buckets - 1) / buckets);
+        this.capacity = Math.multiplyExact(bucketSize, buckets);
+        ch0 = new double[capacity];
+        ch1 = new double[capacity];
+        min0 = new double[buckets];
+        max0 = new double[buckets];
+        min1 = new double[buckets];
+        max1 = new double[buckets];
+        resetBucket();
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public int getBucketSize() {
+        return bucketSize;
+    }
+
+    public int getBuckets() {
+        return buckets;
+    }
+
+    /**
+     * Liczba próbek zapisanych od startu.
+     */
+    public long getWritten() {
+        return published;
+    }
+
+    // ===== ZAPIS (JEDEN WĄTEK) =====
+
+    public void write(double[] c0, double[] c1, int count) {
+        // Porcje po co najwyżej pół bufora - czytelnik traci najwyżej tę część migawki
+        int piece = Math.max(1, capacity / 2);
+        for (int done = 0, n; done < count; done += n) {
+            n = Math.min(piece, count - done);
+            writePiece(c0, c1, done, n);
+        }
+    }
+
+    private void writePiece(double[] c0, double[] c1, int from, int n) {
+        long pos = written;
+        claimed = pos + n;
+        VarHandle.storeStoreFence();  // ogłoszenie przed nadpisaniem próbek
+
+        int slot = (int) (pos % capacity);
+        long bucket = pos / bucketSize;
+        for (int k = from; k < from + n; k++) {
+            double v0 = c0[k], v1 = c1[k];
+            ch0[slot] = v0;
+            ch1[slot] = v1;
+            if (++slot == capacity) slot = 0;
+
+            bMin0 = Math.min(bMin0, v0);
+            bMax0 = Math.max(bMax0, v0);
+            bMin1 = Math.min(bMin1, v1);
+            bMax1 = Math.max(bMax1, v1);
+            if (++bucketFill == bucketSize) {
+                int b = (int) (bucket++ % buckets);
+                min0[b] = bMin0;
+                max0[b] = bMax0;
+                min1[b] = bMin1;
+                max1[b] = bMax1;
+                resetBucket();
+            }
+        }
+        written = pos + n;
+        published = written;
+    }
+
+    private void resetBucket() {
+        bucketFill = 0;
+        bMin0 = bMin1 = Double.POSITIVE_INFINITY;
+        bMax0 = bMax1 = Double.NEGATIVE_INFINITY;
+    }
+
+    // ===== ODCZYT (DOWOLNY WĄTEK) =====
+
+    /**
+     * Ostatnie (co najwyżej) count próbek, od najstarszej, do dst0/dst1[0..wynik).
+     */
+    public int snapshot(double[] dst0, double[] dst1, int count) {
+        long end = published;
+        long start = Math.max(0, end - Math.min(count, capacity));
+        int n = (int) (end - start);
+        int slot = (int) (start % capacity);
+        int first = Math.min(n, capacity - slot);
+        System.arraycopy(ch0, slot, dst0, 0, first);
+        System.arraycopy(ch1, slot, dst1, 0, first);
+        System.arraycopy(ch0, 0, dst0, first, n - first);
+        System.arraycopy(ch1, 0, dst1, first, n - first);
+
+        VarHandle.loadLoadFence();  // kopia przed odczytem claimed
+        long valid = claimed - capacity;
+        if (valid <= start) return n;
+        // Początek nadpisany w trakcie kopiowania - zostaje spójna końcówka
+        int skip = (int) Math.min(n, valid - start);
+        System.arraycopy(dst0, skip, dst0, 0, n - skip);
+        System.arraycopy(dst1, skip, dst1, 0, n - skip);
+        return n - skip;
+    }
+
+    /**
+     * Obwiednia min/max domkniętych przedziałów, od najstarszego, do tablic [0..wynik)
+     * (każda o długości co najmniej buckets). Przedział k obejmuje bucketSize próbek
+     * kończących się (wynik - k - 1) × bucketSize próbek przed ostatnim domkniętym.
+     */
+    public int envelope(double[] dMin0, double[] dMax0, double[] dMin1, double[] dMax1) {
+        long end = published / bucketSize;  // liczba domkniętych przedziałów
+        long start = Math.max(0, end - buckets);
+        for (long j = start; j < end; j++) {
+            int b = (int) (j % buckets), k = (int) (j - start);
+            dMin0[k] = min0[b];
+            dMax0[k] = max0[b];
+            dMin1[k] = min1[b];
+            dMax1[k] = max1[b];
+        }
+
+        VarHandle.loadLoadFence();
+        // Przedział j jest nadpisywany przy domknięciu przedziału j + buckets
+        long valid = claimed / bucketSize - buckets;
+        int n = (int) (end - start);
+        if (valid <= start) return n;
+        int skip = (int) Math.min(n, valid - start);
+        System.arraycopy(dMin0, skip, dMin0, 0, n - skip);
+        System.arraycopy(dMax0, skip, dMax0, 0, n - skip);
+        System.arraycopy(dMin1, skip, dMin1, 0, n - skip);
+        System.arraycopy(dMax1, skip, dMax1, 0, n - skip);
+        return n - skip;
+    }
+}
@@ -0,0 +1,88 @@
+package org.example.demo2.service;
+
+import java.util.Arrays;
+
+/**
+ * MEDIANA RUCHOMA (PRZYCZYNOWA)
+ * =============================
+ *
+ * y[i] = mediana x[i-W+1..i] dla okna W (nieparzystego) - pojedyncza szpilka
+ * krótsza niż W/2 próbek znika całkowicie, a zbocze jest tylko opóźnione
+ * o (W-1)/2 próbek (tak jak w FIR o tej samej długości), nie rozmyte.
+ *
+ * Okno trzymane jest dwa razy: w kolejności przyjścia (bufor cykliczny) i
+ * posortowane. Nowa próbka zastępuje najstarszą - wyszukiwanie binarne i
+ * przesunięcie fragmentu posortowanej tablicy, O(W) na próbkę bez alokacji.
+ * Na początku strumienia (mniej niż W próbek) mediana liczona jest z tego, co jest.
+ *
+ * Porządek wszędzie według Double.compare (jak Arrays.binarySearch/sort): -0.0 < 0.0,
+ * NaN na końcu - inaczej wyszukiwanie nie znajdzie próbki po przesunięciach.
+ */
+final class RunningMedianFilter implements SampleFilter {
+
+    private final double[] ring;
+    private final double[] sorted;
+    private int size;
+    private int head;
+
+    RunningMedianFilter(int window) {
+        if (window < 1) {
+            throw new IllegalArgumentException("Median window must be positive: " + window);
+        }
+        int w = window | 1;  // okno nieparzyste - jedna próbka środkowa
+        ring = new double[w];
+        sorted = new double[w];
+    }
+
+    @Override
+    public void process(double[] buf, int from, int count) {
+        int w = ring.length;
+        for (int i = from, end = from + count; i < end; i++) {
+            double x = buf[i];
+            if (size < w) {
+                insert(x, size);
+                ring[size++] = x;
+            } else {
+                double old = ring[head];
+                ring[head] = x;
+                if (++head == w) head = 0;
+                replace(old, x);
+            }
+            // Przy parzystym size (rozbieg) - średnia dwóch środkowych
+            buf[i] = (size & 1) != 0 ? sorted[size >> 1]
+                    : 0.5 * (sorted[(size >> 1) - 1] + sorted[size >> 1]);
+        }
+    }
+
+    // Wstawienie x do sorted[0..n)
+    private void insert(double x, int n) {
+        int pos = Arrays.binarySearch(sorted, 0, n, x);
+        if (pos < 0) pos = -pos - 1;
+        System.arraycopy(sorted, pos, sorted, pos + 1, n - pos);
+        sorted[pos] = x;
+    }
+
+    // Zamiana wartości old (obecnej w oknie) na x z zachowaniem porządku
+    private void replace(double old, double x) {
+        int n = sorted.length;
+        int pos = Arrays.binarySearch(sorted, 0, n, old);
+        if (Double.compare(x, old) > 0) {
+            while (pos + 1 < n && Double.compare(sorted[pos + 1], x) < 0) {
+                sorted[pos] = sorted[pos + 1];
+                pos++;
+            }
+        } else {
+            while (pos > 0 && Double.compare(sorted[pos - 1], x) > 0) {
+                sorted[pos] = sorted[pos - 1];
+                pos--;
+            }
+        }
+        sorted[pos] = x;
+    }
+
+    @Override
+    public void reset() {
+        size = 0;
+        head = 0;
+    }
+}
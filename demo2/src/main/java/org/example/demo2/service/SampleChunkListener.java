@@ -0,0 +1,18 @@
+package org.example.demo2.service;
+
+/**
+ * Odbiorca kolejnych porcji próbek w trybie strumieniowym (DataAcquisitionService.stream).
+ *
+ * Wywoływany na wątku akwizycji - powinien szybko wrócić, inaczej bufor urządzenia
+ * się przepełni i próbki zostaną utracone.
+ */
+@FunctionalInterface
+public interface SampleChunkListener {
+
+    /**
+     * @param ch0  próbki kanału 0 (napięcie cewki pomiarowej)
+     * @param ch1  próbki kanału 1 (napięcie na boczniku)
+     * @param lost liczba próbek utraconych przed tą porcją (przepełnienie bufora urządzenia)
+     */
+    void onChunk(double[] ch0, double[] ch1, int lost);
+}
@@ -0,0 +1,25 @@
+package org.example.demo2.service;
+
+/**
+ * FILTR STRUMIENIOWY Z STANEM
+ * ===========================
+ *
+ * process() filtruje porcję w miejscu i zachowuje stan (historię wejścia,
+ * zmienne stanu IIR) do następnej porcji - podział strumienia na porcje nie
+ * zmienia wyniku. Bufory robocze alokowane są w konstruktorze, więc porcja
+ * dowolnej długości nie alokuje.
+ *
+ * Instancja nie jest bezpieczna wątkowo - jeden filtr na kanał i wątek.
+ */
+public interface SampleFilter {
+
+    /**
+     * buf[from..from+count) = wyjście filtru dla kolejnych count próbek strumienia.
+     */
+    void process(double[] buf, int from, int count);
+
+    /**
+     * Powrót do stanu początkowego (nowy, niezależny rekord lub przerwa w strumieniu).
+     */
+    void reset();
+}
@@ -0,0 +1,74 @@
+package org.example.demo2.service;
+
+/**
+ * Skalarne wersje jąder - te same pętle, które wcześniej były w serwisach.
+ * Wynik referencyjny dla samosprawdzenia VectorKernels.
+ */
+public final class ScalarKernels implements SignalKernels {
+
+    public static final ScalarKernels INSTANCE = new ScalarKernels();
+
+    private ScalarKernels() {
+    }
+
+    @Override
+    public String name() {
+        return "scalar";
+    }
+
+    @Override
+    public void minMaxSumSq(double[] v, int from, int to, double[] out) {
+        double min = Double.POSITIVE_INFINITY;
+        double max = Double.NEGATIVE_INFINITY;
+        double sumSq = 0;
+        for (int i = from; i < to; i++) {
+            double x = v[i];
+            min = Math.min(min, x);
+            max = Math.max(max, x);
+            sumSq += x * x;
+        }
+        out[0] = min;
+        out[1] = max;
+        out[2] = sumSq;
+    }
+
+    @Override
+    public void scale(double[] src, double factor, double[] dst, int n) {
+        for (int i = 0; i < n; i++) {
+            dst[i] = src[i] * factor;
+        }
+    }
+
+    @Override
+    public boolean movingRange(double[] x, int from, int to, int step, double[] out) {
+        double xmin = Double.POSITIVE_INFINITY;
+        double xmax = Double.NEGATIVE_INFINITY;
+        boolean any = false;
+        for (int i = from; i < to; i += step) {
+            double d = x[i] - x[i - step];
+            if (Math.abs(d) < MIN_STEP) continue;
+            xmin = Math.min(xmin, x[i]);
+            xmax = Math.max(xmax, x[i]);
+            any = true;
+        }
+        out[0] = xmin;
+        out[1] = xmax;
+        return any;
+    }
+
+    @Override
+    public int binCodes(double[] x, int from, int to, int step, double xmin, double dx, int bins, long[] codes) {
+        int k = 0;
+        for (int i = from; i < to; i += step) {
+            codes[k++] = code(x[i] - x[i - step], x[i], xmin, dx, bins);
+        }
+        return k;
+    }
+
+    static long code(double d, double xi, double xmin, double dx, int bins) {
+        if (Math.abs(d) < MIN_STEP) return 0;
+        int b = (int) ((xi - xmin) / dx);
+        if (b < 0 || b >= bins) return 0;
+        return d > 0 ? b + 1 : -(b + 1);
+    }
+}
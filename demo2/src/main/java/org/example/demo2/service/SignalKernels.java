@@ -0,0 +1,67 @@
+package org.example.demo2.service;
+
+/**
+ * JĄDRA OBLICZENIOWE PRZETWARZANIA PRÓBEK
+ * =======================================
+ *
+ * Proste pętle element po elemencie, wydzielone z serwisów, żeby można było
+ * podmienić ich implementację:
+ * - ScalarKernels: zwykłe pętle (zawsze dostępne, wynik referencyjny)
+ * - VectorKernels: SIMD na jdk.incubator.vector (Vector API)
+ *
+ * Wybór następuje raz, przy pierwszym użyciu (get()):
+ * 1. -Ddemo2.simd=false wymusza wersję skalarną
+ * 2. VectorKernels tylko gdy moduł jdk.incubator.vector jest w warstwie startowej
+ *    (uruchomienie z --add-modules=jdk.incubator.vector)
+ * 3. Samosprawdzenie (verify) na danych testowych - przy niezgodności
+ *    zostaje wersja skalarna
+ *
+ * KODY BINÓW (binCodes):
+ * ======================
+ * Dla każdego rozpatrywanego punktu i jedna liczba:
+ * - 0: punkt pominięty (|dx| < 1e-9 albo poza zakresem przedziałów)
+ * - b + 1: przedział b, gałąź rosnąca (dx > 0)
+ * - -(b + 1): przedział b, gałąź malejąca
+ */
+public interface SignalKernels {
+
+    // Minimalne |dx| traktowane jako ruch (mniejsze = pionowy odcinek, pomijany)
+    double MIN_STEP = 1e-9;
+
+    String name();
+
+    /**
+     * Min, max i suma kwadratów v[from..to) → out[0], out[1], out[2].
+     * Suma kwadratów w wersji SIMD różni się od skalarnej tylko zaokrągleniami
+     * (inna kolejność dodawania).
+     */
+    void minMaxSumSq(double[] v, int from, int to, double[] out);
+
+    /**
+     * dst[i] = src[i] * factor dla i < n (np. V → A/m z hScale(), ∫V → T z bScale()).
+     */
+    void scale(double[] src, double factor, double[] dst, int n);
+
+    /**
+     * Zakres X punktów i = from, from + step, ... < to z |x[i] - x[i-step]| ≥ MIN_STEP.
+     * from musi być ≥ step. Wynik w out[0] (min) i out[1] (max).
+     *
+     * @return false gdy żaden punkt się nie kwalifikuje
+     */
+    boolean movingRange(double[] x, int from, int to, int step, double[] out);
+
+    /**
+     * Kody binów (patrz opis klasy) dla punktów i = from, from + step, ... < to.
+     * from musi być ≥ step.
+     *
+     * @return liczba zapisanych kodów
+     */
+    int binCodes(double[] x, int from, int to, int step, double xmin, double dx, int bins, long[] codes);
+
+    /**
+     * Implementacja wybrana przy starcie.
+     */
+    static SignalKernels get() {
+        return KernelSelector.SELECTED;
+    }
+}
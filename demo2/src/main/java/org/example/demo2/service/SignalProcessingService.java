@@ -1,5 +1,9 @@
 package org.example.demo2.service;
 
+import org.example.demo2.metrics.PipelineMetrics;
+import org.example.demo2.metrics.ProcessingEvent;
+import org.example.demo2.model.SampleChannel;
+
 /**
  * SERWIS PRZETWARZANIA SYGNAŁÓW
  * ==============================
@@ -8,6 +12,7 @@ package org.example.demo2.service;
  * Główne zadania:
  * 1. Całkowanie sygnału z cewki pomiarowej (symulacja filtru RC)
  * 2. Interpolacja liniowa do znajdowania wartości charakterystycznych
+ * 3. Przeliczenie na jednostki fizyczne (H [A/m], B [T])
  *
  * TEORIA - DLACZEGO CAŁKUJEMY SYGNAŁ?
  * ====================================
@@ -44,6 +49,19 @@ package org.example.demo2.service;
  */
 public class SignalProcessingService {
 
+    // Bufor poszerzania kanałów float przy całkowaniu [próbki]
+    private static final int BLOCK = 4096;
+
+    private final SignalKernels kernels;
+
+    public SignalProcessingService() {
+        this(SignalKernels.get());
+    }
+
+    public SignalProcessingService(SignalKernels kernels) {
+        this.kernels = kernels;
+    }
+
     /**
      * CYFROWE CAŁKOWANIE SYGNAŁU - SYMULACJA FILTRU RC
      * =================================================
@@ -122,6 +140,72 @@ public class SignalProcessingService {
      *         (wyjście z całkowania)
      */
     public double[] integrate(double[] v, int sampleRateHz) {
+        return integrate(v, sampleRateHz, new double[v.length]);
+    }
+
+    /**
+     * Wariant całkowania do podanej tablicy wyjściowej (bufory z puli w trybie ciągłym).
+     * out musi mieć co najmniej v.length elementów; zwracana jest ta sama tablica.
+     */
+    public double[] integrate(double[] v, int sampleRateHz, double[] out) {
+        long t0 = System.nanoTime();
+        ProcessingEvent event = new ProcessingEvent();
+        event.begin();
+
+        double[] ab = filterCoefficients(sampleRateHz);
+
+        // Filtr startuje z zerowym stanem: y[-1] = 0, x[-1] = 0
+        filter(v, 0, v.length, ab[0], ab[1], 0, out);
+
+        // Zwrócenie scałkowanego sygnału
+        // INTERPRETACJA FIZYCZNA:
+        // Każdy element out[i] jest proporcjonalny do indukcji magnetycznej B
+        // w momencie czasu t = i * dt
+        // Aby otrzymać rzeczywiste wartości B [T], należy przemnożyć przez bScale()
+        PipelineMetrics.INTEGRATION.recordSince(t0);
+        event.finish(ProcessingEvent.INTEGRATION, v.length);
+        return out;
+    }
+
+    /**
+     * Całkowanie kanału w dowolnym formacie (np. float) do kanału out.
+     * Stan filtru (yPrev) przechodzi między blokami w double - zaokrąglany jest
+     * tylko zapis wyniku, więc błąd nie kumuluje się wzdłuż rekordu.
+     */
+    public SampleChannel integrate(SampleChannel in, int sampleRateHz, SampleChannel out) {
+        if (in.array() != null && out.array() != null) {
+            integrate(in.array(), sampleRateHz, out.array());
+            return out;
+        }
+        long t0 = System.nanoTime();
+        ProcessingEvent event = new ProcessingEvent();
+        event.begin();
+
+        double[] ab = filterCoefficients(sampleRateHz);
+        int n = in.length();
+        // x[0] = poprzednia próbka wejścia (x[-1] = 0 na początku rekordu)
+        double[] x = new double[BLOCK + 1];
+        double[] y = new double[BLOCK + 1];
+        double yPrev = 0;
+        for (int from = 0, count; from < n; from += count) {
+            count = Math.min(BLOCK, n - from);
+            x[0] = from > 0 ? in.get(from - 1) : 0;
+            in.read(from, x, 1, count);
+            yPrev = filter(x, 1, count + 1, ab[0], ab[1], yPrev, y);
+            out.write(from, y, 1, count);
+        }
+
+        PipelineMetrics.INTEGRATION.recordSince(t0);
+        event.finish(ProcessingEvent.INTEGRATION, n);
+        return out;
+    }
+
+    /**
+     * Współczynniki filtru {a, b} dla danej częstotliwości próbkowania.
+     * Wspólne dla całkowania sekwencyjnego i równoległego (ParallelAnalysisService) -
+     * oba muszą liczyć dokładnie te same wartości.
+     */
+    static double[] filterCoefficients(int sampleRateHz) {
         // ===== PARAMETRY FILTRU RC =====
 
         // Stała czasowa filtru RC: τ = R * C
@@ -145,19 +229,24 @@ public class SignalProcessingService {
         // Im większe τ, tym mniejsze b (słabsze wzmocnienie wejścia)
         double b = dt / (2 * tau + dt);
 
-        // ===== INICJALIZACJA =====
-
-        // Tablica wyjściowa - ta sama długość co wejściowa
-        double[] out = new double[v.length];
+        return new double[]{a, b};
+    }
 
+    /**
+     * Filtracja próbek v[from..to) do out, zaczynając od stanu y[from-1] = yPrev.
+     * Wejście poprzednie x[from-1] brane jest z v (0 dla from = 0).
+     *
+     * @return ostatnia wartość wyjścia y[to-1] (yPrev, gdy zakres jest pusty)
+     */
+    static double filter(double[] v, int from, int to, double a, double b, double yPrev, double[] out) {
         // Zmienne stanu filtru (pamięć poprzednich wartości)
-        double yPrev = 0;  // Poprzednia wartość wyjścia y[n-1]
-        double xPrev = 0;  // Poprzednia wartość wejścia x[n-1]
+        // yPrev - poprzednia wartość wyjścia y[n-1]
+        double xPrev = from > 0 ? v[from - 1] : 0;  // Poprzednia wartość wejścia x[n-1]
 
         // ===== PĘTLA GŁÓWNA - FILTRACJA REKURENCYJNA =====
 
         // Przechodzimy przez wszystkie próbki
-        for (int i = 0; i < v.length; i++) {
+        for (int i = from; i < to; i++) {
             // WZÓR REKURENCYJNY FILTRU:
             // y[n] = a * y[n-1] + b * (x[n] + x[n-1])
             //
@@ -180,12 +269,21 @@ public class SignalProcessingService {
             yPrev = y;      // Obecne wyjście staje się poprzednim
             xPrev = v[i];   // Obecne wejście staje się poprzednim
         }
+        return yPrev;
+    }
 
-        // Zwrócenie scałkowanego sygnału
-        // INTERPRETACJA FIZYCZNA:
-        // Każdy element out[i] jest proporcjonalny do indukcji magnetycznej B
-        // w momencie czasu t = i * dt
-        // Aby otrzymać rzeczywiste wartości B [T], należy przemnożyć przez bScale()
+    /**
+     * PRZELICZENIE NA JEDNOSTKI FIZYCZNE
+     * ==================================
+     *
+     * out[i] = v[i] * scale, np.:
+     * - ch1Data × hScale()        → H [A/m]
+     * - ch0Integrated × bScale()  → B [T]
+     *
+     * out musi mieć co najmniej v.length elementów; zwracana jest ta sama tablica.
+     */
+    public double[] scale(double[] v, double scale, double[] out) {
+        kernels.scale(v, scale, out, v.length);
         return out;
     }
 
@@ -1,10 +1,18 @@
 package org.example.demo2.service;
 
+import org.example.demo2.metrics.PipelineMetrics;
+import org.example.demo2.metrics.ProcessingEvent;
+import org.example.demo2.model.Int16Channel;
+import org.example.demo2.model.SampleChannel;
+
 /**
  * Service for computing signal statistics.
  */
 public class StatisticsService {
 
+    // Bufor poszerzania kanałów float [próbki]
+    private static final int BLOCK = 4096;
+
     public static class Stats {
         private final double min;
         private final double max;
@@ -35,18 +43,104 @@ public class StatisticsService {
         }
     }
 
+    private final SignalKernels kernels;
+
+    public StatisticsService() {
+        this(SignalKernels.get());
+    }
+
+    public StatisticsService(SignalKernels kernels) {
+        this.kernels = kernels;
+    }
+
     public Stats compute(double[] v) {
-        double min = Double.POSITIVE_INFINITY;
-        double max = Double.NEGATIVE_INFINITY;
-        double sumSq = 0;
+        long t0 = System.nanoTime();
+        ProcessingEvent event = new ProcessingEvent();
+        event.begin();
+        double[] mms = new double[3];
+        kernels.minMaxSumSq(v, 0, v.length, mms);
+
+        Stats stats = of(mms[0], mms[1], mms[2], v.length);
+        PipelineMetrics.STATISTICS.recordSince(t0);
+        event.finish(ProcessingEvent.STATISTICS, v.length);
+        return stats;
+    }
 
-        for (double x : v) {
-            min = Math.min(min, x);
-            max = Math.max(max, x);
-            sumSq += x * x;
+    /**
+     * Statystyki kanału w dowolnym formacie - float czytany blokami po BLOCK próbek,
+     * kody int16 bez poszerzania.
+     */
+    public Stats compute(SampleChannel v) {
+        if (v.array() != null) return compute(v.array());
+        long t0 = System.nanoTime();
+        ProcessingEvent event = new ProcessingEvent();
+        event.begin();
+        double[] mms = new double[3];
+        minMaxSumSq(v, 0, v.length(), mms);
+
+        Stats stats = of(mms[0], mms[1], mms[2], v.length());
+        PipelineMetrics.STATISTICS.recordSince(t0);
+        event.finish(ProcessingEvent.STATISTICS, v.length());
+        return stats;
+    }
+
+    /**
+     * SignalKernels.minMaxSumSq dla próbek from..to kanału (też dla fragmentów
+     * w ParallelAnalysisService).
+     */
+    void minMaxSumSq(SampleChannel v, int from, int to, double[] out) {
+        if (v.array() != null) {
+            kernels.minMaxSumSq(v.array(), from, to, out);
+            return;
+        }
+        if (v instanceof Int16Channel codes) {
+            minMaxSumSq(codes, from, to, out);
+            return;
+        }
+        double[] block = new double[BLOCK];
+        double[] part = new double[3];
+        double min = Double.POSITIVE_INFINITY, max = Double.NEGATIVE_INFINITY, sumSq = 0;
+        for (int i = from, count; i < to; i += count) {
+            count = Math.min(BLOCK, to - i);
+            v.read(i, block, 0, count);
+            kernels.minMaxSumSq(block, 0, count, part);
+            min = Math.min(min, part[0]);
+            max = Math.max(max, part[1]);
+            sumSq += part[2];
         }
+        out[0] = min;
+        out[1] = max;
+        out[2] = sumSq;
+    }
+
+    /**
+     * Statystyki wprost na kodach ADC (bez poszerzania do double): sumy kodów są
+     * całkowite i dokładne, skala x = c·g + o stosowana raz na końcu:
+     * Σx² = g²·Σc² + 2·g·o·Σc + n·o²
+     */
+    private static void minMaxSumSq(Int16Channel v, int from, int to, double[] out) {
+        short[] c = v.codes();
+        int min = Short.MAX_VALUE, max = Short.MIN_VALUE;
+        long sum = 0, sumSq = 0;
+        for (int i = from; i < to; i++) {
+            int code = c[i];
+            min = Math.min(min, code);
+            max = Math.max(max, code);
+            sum += code;
+            sumSq += code * code;
+        }
+        double g = v.getGain(), o = v.getOffset();
+        out[0] = from < to ? min * g + o : Double.POSITIVE_INFINITY;
+        out[1] = from < to ? max * g + o : Double.NEGATIVE_INFINITY;
+        out[2] = g * g * sumSq + 2 * g * o * sum + (double) (to - from) * o * o;
+    }
 
-        double rms = Math.sqrt(sumSq / v.length);
+    /**
+     * Stats z min, max i sumy kwadratów n próbek (też po scaleniu wyników
+     * częściowych w ParallelAnalysisService).
+     */
+    static Stats of(double min, double max, double sumSq, long n) {
+        double rms = Math.sqrt(sumSq / n);
         return new Stats(min, max, max - min, rms);
     }
 }
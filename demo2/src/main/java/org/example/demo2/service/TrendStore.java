@@ -0,0 +1,238 @@
+package org.example.demo2.service;
+
+import org.example.demo2.model.CycleMetrics;
+import org.example.demo2.model.TrendMetric;
+import org.example.demo2.model.TrendSeries;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * MAGAZYN TRENDU PARAMETRÓW PĘTLI (TESTY STARZENIOWE / TEMPERATUROWE)
+ * ===================================================================
+ *
+ * Kolumnowy zapis "tylko dopisywanie" parametrów z każdego cyklu (TrendMetric)
+ * w plikach mapowanych do pamięci (MappedColumn), w katalogu:
+ * - raw_time, raw_b_peak, raw_br, ... - wartości z każdego cyklu
+ * - 1s_*, 1min_*, 1h_* - poziomy zagregowane: na każdy przedział czasu
+ *   początek przedziału oraz min, max, suma i liczba poprawnych wartości
+ *
+ * Agregaty liczone są przy dopisywaniu - ostatni wiersz każdego poziomu to
+ * bieżący (otwarty) przedział, nadpisywany aż do przejścia do następnego.
+ * Zapytanie query() wybiera najdrobniejszy poziom, który w zadanym oknie ma nie
+ * więcej niż maxPoints wierszy: doba to 1440 wierszy poziomu 1 min, tydzień
+ * 168 wierszy poziomu 1 h. Początek okna szukany binarnie w kolumnie czasu.
+ *
+ * Czas w ms od epoki, niemalejący - wcześniejszy czas jest przesuwany do
+ * ostatniego zapisanego. Metody są synchronizowane: pisze wątek akwizycji,
+ * czyta wątek FX.
+ */
+public class TrendStore implements AutoCloseable {
+
+    // Rozdzielczości poziomów [ms]; 0 = dane surowe
+    public static final long[] RESOLUTIONS_MS = {0, 1_000, 60_000, 3_600_000};
+    private static final String[] TIER_NAMES = {"raw", "1s", "1min", "1h"};
+
+    private static final int METRICS = TrendMetric.values().length;
+
+    private final Tier[] tiers = new Tier[RESOLUTIONS_MS.length];
+    private long lastTime = Long.MIN_VALUE;
+
+    public TrendStore(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        for (int t = 0; t < tiers.length; t++) {
+            tiers[t] = new Tier(directory, TIER_NAMES[t], RESOLUTIONS_MS[t]);
+        }
+        Tier raw = tiers[0];
+        if (raw.rows() > 0) lastTime = raw.time.getLong(raw.rows() - 1);
+    }
+
+    public synchronized void append(long timeMillis, CycleMetrics cycle) {
+        double[] values = new double[METRICS];
+        for (TrendMetric metric : TrendMetric.values()) {
+            values[metric.ordinal()] = metric.of(cycle);
+        }
+        append(timeMillis, values);
+    }
+
+    /**
+     * Dopisuje wiersz wartości w kolejności TrendMetric.values().
+     */
+    public synchronized void append(long timeMillis, double[] values) {
+        if (values.length != METRICS) {
+            throw new IllegalArgumentException("Expected " + METRICS + " values, got " + values.length);
+        }
+        long time = Math.max(timeMillis, lastTime);
+        for (Tier tier : tiers) {
+            tier.append(time, values);
+        }
+        lastTime = time;
+    }
+
+    /**
+     * Liczba wierszy na poziomie (0 = surowe, 1 = 1 s, 2 = 1 min, 3 = 1 h).
+     */
+    public synchronized long rows(int tier) {
+        return tiers[tier].rows();
+    }
+
+    /**
+     * Punkty z okna [fromMillis, toMillis) z najdrobniejszego poziomu o co najwyżej
+     * maxPoints wierszach (lub z najgrubszego, gdy żaden się nie mieści).
+     */
+    public synchronized TrendSeries query(long fromMillis, long toMillis, int maxPoints) {
+        Tier tier = tiers[tiers.length - 1];
+        long lo = 0, hi = 0;
+        for (Tier candidate : tiers) {
+            // Przedział zagregowany zaczęty przed fromMillis też zawiera dane z okna
+            lo = candidate.lowerBound(candidate.resolutionMs == 0 ? fromMillis
+                    : fromMillis - candidate.resolutionMs + 1);
+            hi = candidate.lowerBound(toMillis);
+            tier = candidate;
+            if (hi - lo <= maxPoints) break;
+        }
+        return tier.read(lo, hi);
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        for (Tier tier : tiers) {
+            tier.close();
+        }
+    }
+
+    /**
+     * Jeden poziom: kolumna czasu + kolumny wartości (surowy) lub min/max/suma/liczba.
+     */
+    private static final class Tier {
+
+        final long resolutionMs;
+        final MappedColumn time;
+        final MappedColumn[] min = new MappedColumn[METRICS];
+        final MappedColumn[] max = new MappedColumn[METRICS];
+        final MappedColumn[] sum = new MappedColumn[METRICS];
+        final MappedColumn[] count = new MappedColumn[METRICS];
+
+        Tier(Path directory, String name, long resolutionMs) throws IOException {
+            this.resolutionMs = resolutionMs;
+            time = new MappedColumn(directory.resolve(name + "_time"));
+            for (TrendMetric metric : TrendMetric.values()) {
+                int m = metric.ordinal();
+                String prefix = name + "_" + metric.name().toLowerCase();
+                if (resolutionMs == 0) {
+                    min[m] = new MappedColumn(directory.resolve(prefix));
+                } else {
+                    min[m] = new MappedColumn(directory.resolve(prefix + "_min"));
+                    max[m] = new MappedColumn(directory.resolve(prefix + "_max"));
+                    sum[m] = new MappedColumn(directory.resolve(prefix + "_sum"));
+                    count[m] = new MappedColumn(directory.resolve(prefix + "_count"));
+                }
+            }
+        }
+
+        long rows() {
+            return time.rows();
+        }
+
+        void append(long t, double[] values) {
+            long rows = rows();
+            if (resolutionMs == 0) {
+                for (int m = 0; m < METRICS; m++) {
+                    min[m].putDouble(rows, values[m]);
+                    min[m].setRows(rows + 1);
+                }
+                time.putLong(rows, t);
+                time.setRows(rows + 1);  // liczba wierszy czasu jako ostatnia - wiersz kompletny
+                return;
+            }
+
+            long bucket = Math.floorDiv(t, resolutionMs) * resolutionMs;
+            boolean open = rows > 0 && time.getLong(rows - 1) == bucket;
+            long row = open ? rows - 1 : rows;
+            for (int m = 0; m < METRICS; m++) {
+                double v = values[m];
+                long n = open ? count[m].getLong(row) : 0;
+                if (Double.isNaN(v)) {
+                    if (!open) {
+                        min[m].putDouble(row, Double.NaN);
+                        max[m].putDouble(row, Double.NaN);
+                        sum[m].putDouble(row, 0);
+                    }
+                } else if (n == 0) {
+                    min[m].putDouble(row, v);
+                    max[m].putDouble(row, v);
+                    sum[m].putDouble(row, v);
+                    n = 1;
+                } else {
+                    min[m].putDouble(row, Math.min(min[m].getDouble(row), v));
+                    max[m].putDouble(row, Math.max(max[m].getDouble(row), v));
+                    sum[m].putDouble(row, sum[m].getDouble(row) + v);
+                    n++;
+                }
+                count[m].putLong(row, n);
+                if (!open) {
+                    min[m].setRows(row + 1);
+                    max[m].setRows(row + 1);
+                    sum[m].setRows(row + 1);
+                    count[m].setRows(row + 1);
+                }
+            }
+            if (!open) {
+                time.putLong(row, bucket);
+                time.setRows(row + 1);
+            }
+        }
+
+        /**
+         * Pierwszy wiersz o czasie ≥ t (wyszukiwanie binarne - czas niemalejący).
+         */
+        long lowerBound(long t) {
+            long lo = 0, hi = rows();
+            while (lo < hi) {
+                long mid = (lo + hi) >>> 1;
+                if (time.getLong(mid) < t) lo = mid + 1;
+                else hi = mid;
+            }
+            return lo;
+        }
+
+        TrendSeries read(long from, long to) {
+            int n = (int) (to - from);
+            long[] t = new long[n];
+            double[][] mn = new double[METRICS][n];
+            double[][] mean = new double[METRICS][n];
+            double[][] mx = new double[METRICS][n];
+            for (int i = 0; i < n; i++) {
+                t[i] = time.getLong(from + i);
+            }
+            for (int m = 0; m < METRICS; m++) {
+                for (int i = 0; i < n; i++) {
+                    long row = from + i;
+                    if (resolutionMs == 0) {
+                        double v = min[m].getDouble(row);
+                        mn[m][i] = mean[m][i] = mx[m][i] = v;
+                    } else {
+                        long c = count[m].getLong(row);
+                        mn[m][i] = min[m].getDouble(row);
+                        mx[m][i] = max[m].getDouble(row);
+                        mean[m][i] = c > 0 ? sum[m].getDouble(row) / c : Double.NaN;
+                    }
+                }
+            }
+            return new TrendSeries(resolutionMs, t, mn, mean, mx);
+        }
+
+        void close() throws IOException {
+            time.close();
+            for (int m = 0; m < METRICS; m++) {
+                min[m].close();
+                if (resolutionMs != 0) {
+                    max[m].close();
+                    sum[m].close();
+                    count[m].close();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package org.example.demo2.service;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.LongVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * JĄDRA SIMD (VECTOR API)
+ * =======================
+ *
+ * Główna pętla przetwarza D.length() próbek naraz (4 na AVX2, 8 na AVX-512),
+ * reszta tablicy idzie pętlą skalarną.
+ *
+ * - minMaxSumSq: akumulatory wektorowe min/max/Σx², redukcja na końcu
+ * - scale: mnożenie przez skalar
+ * - movingRange / binCodes: dx liczone jako x[i..] - x[i-1..] (dwa odczyty
+ *   przesunięte o jedną próbkę), maski zamiast gałęzi. binCodes liczy wektorowo
+ *   kierunek, maskę pominięcia i (x - xmin) / dx, a samo obcięcie do numeru
+ *   przedziału robi krótką pętlą po bloku w L1 - kody są identyczne ze skalarnymi.
+ *   Dla step > 1 (punkty nie leżą obok siebie w pamięci) wersja skalarna.
+ *
+ * Klasa ładowana wyłącznie refleksyjnie przez KernelSelector - bez modułu
+ * jdk.incubator.vector nie da się jej nawet zlinkować.
+ */
+final class VectorKernels implements SignalKernels {
+
+    private static final VectorSpecies<Double> D = DoubleVector.SPECIES_PREFERRED;
+
+    @Override
+    public String name() {
+        return "vector(" + D.length() + "x64)";
+    }
+
+    @Override
+    public void minMaxSumSq(double[] v, int from, int to, double[] out) {
+        int i = from;
+        int upper = from + D.loopBound(to - from);
+        DoubleVector vmin = DoubleVector.broadcast(D, Double.POSITIVE_INFINITY);
+        DoubleVector vmax = DoubleVector.broadcast(D, Double.NEGATIVE_INFINITY);
+        DoubleVector vsum = DoubleVector.zero(D);
+        for (; i < upper; i += D.length()) {
+            DoubleVector x = DoubleVector.fromArray(D, v, i);
+            vmin = vmin.min(x);
+            vmax = vmax.max(x);
+            vsum = vsum.add(x.mul(x));
+        }
+        double min = vmin.reduceLanes(VectorOperators.MIN);
+        double max = vmax.reduceLanes(VectorOperators.MAX);
+        double sumSq = vsum.reduceLanes(VectorOperators.ADD);
+        for (; i < to; i++) {
+            double x = v[i];
+            min = Math.min(min, x);
+            max = Math.max(max, x);
+            sumSq += x * x;
+        }
+        out[0] = min;
+        out[1] = max;
+        out[2] = sumSq;
+    }
+
+    @Override
+    public void scale(double[] src, double factor, double[] dst, int n) {
+        int i = 0;
+        int upper = D.loopBound(n);
+        for (; i < upper; i += D.length()) {
+            DoubleVector.fromArray(D, src, i).mul(factor).intoArray(dst, i);
+        }
+        for (; i < n; i++) {
+            dst[i] = src[i] * factor;
+        }
+    }
+
+    @Override
+    public boolean movingRange(double[] x, int from, int to, int step, double[] out) {
+        if (step != 1) return ScalarKernels.INSTANCE.movingRange(x, from, to, step, out);
+        DoubleVector vmin = DoubleVector.broadcast(D, Double.POSITIVE_INFINITY);
+        DoubleVector vmax = DoubleVector.broadcast(D, Double.NEGATIVE_INFINITY);
+        boolean any = false;
+        int i = from;
+        int upper = from + D.loopBound(Math.max(0, to - from));
+        for (; i < upper; i += D.length()) {
+            DoubleVector cur = DoubleVector.fromArray(D, x, i);
+            DoubleVector prev = DoubleVector.fromArray(D, x, i - 1);
+            VectorMask<Double> still = cur.sub(prev).abs().compare(VectorOperators.LT, MIN_STEP);
+            any |= !still.allTrue();
+            vmin = vmin.min(cur.blend(Double.POSITIVE_INFINITY, still));
+            vmax = vmax.max(cur.blend(Double.NEGATIVE_INFINITY, still));
+        }
+        double xmin = vmin.reduceLanes(VectorOperators.MIN);
+        double xmax = vmax.reduceLanes(VectorOperators.MAX);
+        for (; i < to; i++) {
+            if (Math.abs(x[i] - x[i - 1]) < MIN_STEP) continue;
+            xmin = Math.min(xmin, x[i]);
+            xmax = Math.max(xmax, x[i]);
+            any = true;
+        }
+        out[0] = xmin;
+        out[1] = xmax;
+        return any;
+    }
+
+    @Override
+    public int binCodes(double[] x, int from, int to, int step, double xmin, double dx, int bins, long[] codes) {
+        if (step != 1) return ScalarKernels.INSTANCE.binCodes(x, from, to, step, xmin, dx, bins, codes);
+        int i = from;
+        int k = 0;
+        int upper = from + D.loopBound(Math.max(0, to - from));
+        for (; i < upper; i += D.length(), k += D.length()) {
+            DoubleVector cur = DoubleVector.fromArray(D, x, i);
+            DoubleVector d = cur.sub(DoubleVector.fromArray(D, x, i - 1));
+            DoubleVector q = cur.sub(xmin).div(dx);
+            // (int) q < 0 ⇔ q ≤ -1, (int) q ≥ bins ⇔ q ≥ bins (obcinanie w stronę zera)
+            VectorMask<Double> skip = d.abs().compare(VectorOperators.LT, MIN_STEP)
+                    .or(q.compare(VectorOperators.LE, -1))
+                    .or(q.compare(VectorOperators.GE, bins));
+            // q z (-1, 0) obcina się do 0 - max(q, 0) nie zmienia numeru przedziału,
+            // a pozwala zapisać kierunek bitem znaku (-0.0 dla przedziału 0)
+            DoubleVector encoded = q.max(0);
+            encoded = encoded.blend(encoded.neg(), d.compare(VectorOperators.GT, 0).not())
+                    .blend(Double.POSITIVE_INFINITY, skip);
+            encoded.reinterpretAsLongs().intoArray(codes, k);
+        }
+        // Rzutowanie na numer przedziału skalarnie - konwersje D2L/D2I w Vector API
+        // na JDK 17 nie są zamieniane na instrukcje SIMD i byłyby wolniejsze
+        for (int j = 0; j < k; j++) {
+            codes[j] = decode(Double.longBitsToDouble(codes[j]));
+        }
+        for (; i < to; i++) {
+            codes[k++] = ScalarKernels.code(x[i] - x[i - 1], x[i], xmin, dx, bins);
+        }
+        return k;
+    }
+
+    /**
+     * +∞ → punkt pominięty; NaN → przedział 0 gałęzi malejącej (jak (int) NaN
+     * i dx = NaN w wersji skalarnej); bit znaku → gałąź malejąca.
+     */
+    private static long decode(double encoded) {
+        if (encoded == Double.POSITIVE_INFINITY) return 0;
+        if (encoded != encoded) return -1;
+        long code = (long) Math.abs(encoded) + 1;
+        return Double.doubleToRawLongBits(encoded) < 0 ? -code : code;
+    }
+}
@@ -0,0 +1,191 @@
+package org.example.demo2.service;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * GENERATOR WŁASNYCH PRZEBIEGÓW WZBUDZENIA (funcCustom)
+ * =====================================================
+ *
+ * Wbudowane funkcje generatora DWF (sinus, prostokąt, trójkąt) nie pozwalają na testy
+ * przy kontrolowanym dB/dt. Ta klasa buduje tablice próbek jednego okresu, które są
+ * wgrywane do generatora przez FDwfAnalogOutNodeDataSet.
+ *
+ * FORMAT TABLICY:
+ * ===============
+ * - TABLE_SIZE próbek na jeden okres
+ * - wartości znormalizowane do [-1, 1] - generator mnoży je przez amplitudę
+ *   i dodaje offset, tak jak dla funkcji wbudowanych
+ *
+ * BUFORY:
+ * =======
+ * Tablice dla kształtów parametrycznych są budowane raz i trzymane w cache (LRU)
+ * kluczowanym parametrami - ponowny wybór tego samego kształtu nie alokuje pamięci.
+ * Zwrócone tablice należy traktować jako tylko do odczytu.
+ *
+ * Predystorsja pracuje na dwóch stałych buforach (naprzemiennie), więc kolejne
+ * iteracje korekcji również nie alokują.
+ */
+public class WaveformGenerator {
+
+    // Liczba próbek jednego okresu - kompromis między rozdzielczością a czasem wgrywania
+    public static final int TABLE_SIZE = 4096;
+
+    // Ile różnych tablic parametrycznych trzymamy w pamięci
+    private static final int CACHE_CAPACITY = 16;
+
+    private final Map<List<Object>, double[]> cache =
+            new LinkedHashMap<>(CACHE_CAPACITY, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<List<Object>, double[]> eldest) {
+                    return size() > CACHE_CAPACITY;
+                }
+            };
+
+    // Bufory predystorsji - zapisujemy naprzemiennie, aby nie nadpisać tablicy,
+    // która może być jeszcze wejściem kolejnej iteracji
+    private final double[][] predistortBuffers = new double[2][TABLE_SIZE];
+    private int predistortIndex = 0;
+
+    /**
+     * SINUS ZE SKŁADOWĄ STAŁĄ
+     *
+     * x(t) = (sin(2πt) + bias) / (1 + |bias|)
+     *
+     * bias jest względny względem amplitudy składowej zmiennej (np. 0.5 = 50%),
+     * normalizacja utrzymuje wartości w [-1, 1].
+     */
+    public synchronized double[] sineWithBias(double bias) {
+        return cache.computeIfAbsent(List.of("SINE_DC", bias), k -> {
+            double[] t = new double[TABLE_SIZE];
+            double norm = 1.0 + Math.abs(bias);
+            for (int i = 0; i < TABLE_SIZE; i++) {
+                t[i] = (Math.sin(2 * Math.PI * i / TABLE_SIZE) + bias) / norm;
+            }
+            return t;
+        });
+    }
+
+    /**
+     * TRAPEZ - STAŁE dB/dt NA ZBOCZACH
+     *
+     * riseFraction to część okresu przypadająca na jedno zbocze (0 < r ≤ 0.5).
+     * r = 0.5 daje trójkąt, małe r zbliża przebieg do prostokąta.
+     * W fazach płaskich prąd jest stały, na zboczach zmienia się liniowo.
+     */
+    public synchronized double[] trapezoid(double riseFraction) {
+        double r = Math.max(1e-3, Math.min(0.5, riseFraction));
+        return cache.computeIfAbsent(List.of("TRAPEZOID", r), k -> {
+            double[] t = new double[TABLE_SIZE];
+            double flat = 0.5 - r;
+            for (int i = 0; i < TABLE_SIZE; i++) {
+                // Faza przesunięta o r/2, aby zbocze narastające przechodziło przez zero w t = 0
+                double p = ((double) i / TABLE_SIZE + r / 2) % 1.0;
+                if (p < r) t[i] = -1 + 2 * p / r;                          // zbocze narastające
+                else if (p < r + flat) t[i] = 1;                            // górna półka
+                else if (p < 2 * r + flat) t[i] = 1 - 2 * (p - r - flat) / r; // zbocze opadające
+                else t[i] = -1;                                             // dolna półka
+            }
+            return t;
+        });
+    }
+
+    /**
+     * PREDYSTORSJA NA PODSTAWIE OSTATNIEGO POMIARU
+     * ============================================
+     *
+     * Jeden krok korekcji iteracyjnej (iterative learning control), której celem
+     * jest sinusoidalny przebieg B(t) mimo nieliniowości rdzenia.
+     *
+     * 1. Z ostatniego pełnego okresu CH1 (prąd ~ napięcie wzbudzenia) wyznaczamy fazę
+     *    harmonicznej podstawowej - to punkt odniesienia tablicy generatora.
+     * 2. Okres B(t) (CH0 scałkowane) przepróbkowujemy do TABLE_SIZE punktów od tej fazy.
+     * 3. Cel: sinus o amplitudzie i fazie harmonicznej podstawowej zmierzonego B.
+     * 4. Nowa tablica: x' = x + gain * (B_cel - B_zmierzone) / |B_1|,
+     *    po czym normalizacja do [-1, 1].
+     *
+     * @param current tablica aktualnie wgrana do generatora
+     * @param bSignal scałkowany CH0 z ostatniej akwizycji
+     * @param hSignal CH1 z ostatniej akwizycji
+     * @param samplesPerCycle sampleRateHz / częstotliwość wzbudzenia
+     * @param gain wzmocnienie korekcji (typowo 0.3 - 0.8)
+     * @return nowa tablica (bufor wewnętrzny - ważny do dwóch kolejnych wywołań)
+     */
+    public synchronized double[] predistort(double[] current, double[] bSignal, double[] hSignal,
+                                            double samplesPerCycle, double gain) {
+        int n = Math.min(bSignal.length, hSignal.length);
+        if (current.length != TABLE_SIZE || samplesPerCycle < 8 || n < samplesPerCycle + 1) {
+            throw new IllegalArgumentException("Need at least one full excitation cycle and a " + TABLE_SIZE + "-point table");
+        }
+
+        // Ostatni pełny okres w rekordzie
+        double start = n - 1 - samplesPerCycle;
+
+        // Faza odniesienia z harmonicznej podstawowej prądu
+        double refPhase = fundamentalPhase(hSignal, start, samplesPerCycle);
+
+        double[] out = predistortBuffers[predistortIndex];
+        predistortIndex ^= 1;
+
+        // B zmierzone w układzie fazy tablicy (zapis tymczasowo do out)
+        double offset = refPhase / (2 * Math.PI) * samplesPerCycle;
+        double mean = 0;
+        for (int i = 0; i < TABLE_SIZE; i++) {
+            double pos = start + (offset + (double) i / TABLE_SIZE * samplesPerCycle) % samplesPerCycle;
+            int i0 = (int) pos;
+            double frac = pos - i0;
+            out[i] = bSignal[i0] + frac * (bSignal[Math.min(i0 + 1, n - 1)] - bSignal[i0]);
+            mean += out[i];
+        }
+        mean /= TABLE_SIZE;
+
+        // Harmoniczna podstawowa zmierzonego B (składowe cos/sin)
+        double re = 0, im = 0;
+        for (int i = 0; i < TABLE_SIZE; i++) {
+            double w = 2 * Math.PI * i / TABLE_SIZE;
+            re += (out[i] - mean) * Math.cos(w);
+            im += (out[i] - mean) * Math.sin(w);
+        }
+        re *= 2.0 / TABLE_SIZE;
+        im *= 2.0 / TABLE_SIZE;
+        double b1 = Math.hypot(re, im);
+        if (b1 == 0) {
+            throw new IllegalArgumentException("Measured B has no fundamental component");
+        }
+
+        // Korekcja i normalizacja
+        double peak = 0;
+        for (int i = 0; i < TABLE_SIZE; i++) {
+            double w = 2 * Math.PI * i / TABLE_SIZE;
+            double target = re * Math.cos(w) + im * Math.sin(w);
+            double error = (target - (out[i] - mean)) / b1;
+            out[i] = current[i] + gain * error;
+            peak = Math.max(peak, Math.abs(out[i]));
+        }
+        if (peak > 0) {
+            for (int i = 0; i < TABLE_SIZE; i++) out[i] /= peak;
+        }
+        return out;
+    }
+
+    /**
+     * Faza harmonicznej podstawowej sygnału w oknie [start, start + samplesPerCycle) [rad],
+     * liczona jako przesunięcie zera sinusa względem początku okna.
+     */
+    private static double fundamentalPhase(double[] sig, double start, double samplesPerCycle) {
+        int first = (int) Math.ceil(start);
+        int count = (int) Math.floor(samplesPerCycle);
+        double re = 0, im = 0;
+        for (int k = 0; k < count; k++) {
+            double w = 2 * Math.PI * (first + k - start) / samplesPerCycle;
+            re += sig[first + k] * Math.cos(w);
+            im += sig[first + k] * Math.sin(w);
+        }
+        // sig ≈ A sin(w + φ) → re ~ A sin φ, im ~ A cos φ
+        double phase = Math.atan2(re, im);
+        // Przesunięcie, po którym sygnał zaczyna się od fazy 0
+        double shift = -phase;
+        return shift < 0 ? shift + 2 * Math.PI : shift;
+    }
+}
@@ -0,0 +1,37 @@
+package org.example.demo2.model;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Kwantyzacja napięć do kodów INT16 (ścieżka bez FDwfAnalogInStatusData16):
+ * skala z zakresu międzyszczytowego, błąd ≤ pół kroku kodu, obcięcie poza zakresem.
+ */
+class Int16ChannelTest {
+
+    @Test
+    void quantizesWithinPeakToPeakRange() {
+        double range = AcquisitionConfig.DEFAULT_INPUT_RANGE_V;
+        Int16Channel channel = (Int16Channel) SampleFormat.INT16.allocate(1001);
+        channel.calibrate(range, 0);
+        double step = range / 65536;
+
+        double[] volts = new double[1001];
+        for (int i = 0; i < volts.length; i++) volts[i] = -range / 2 + 0.999 * range * i / (volts.length - 1);
+        channel.write(0, volts, 0, volts.length);
+        for (int i = 0; i < volts.length; i++) {
+            assertEquals(volts[i], channel.get(i), step / 2 + 1e-12, "i=" + i);
+        }
+    }
+
+    @Test
+    void clipsOutsideRangeAndAppliesOffset() {
+        Int16Channel channel = new Int16Channel(new short[3], 10, 1.0);
+        channel.write(0, new double[]{100, -100, 1.0}, 0, 3);
+        assertEquals(Short.MAX_VALUE, channel.codes()[0]);
+        assertEquals(Short.MIN_VALUE, channel.codes()[1]);
+        assertEquals(1.0, channel.get(2));
+        assertEquals(1.0 + 5.0, channel.get(0), 10.0 / 65536);
+    }
+}
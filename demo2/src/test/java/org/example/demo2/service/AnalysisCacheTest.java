@@ -0,0 +1,151 @@
+package org.example.demo2.service;
+
+import org.example.demo2.metrics.PipelineMetrics;
+import org.example.demo2.model.SampleChannel;
+import org.example.demo2.model.SampleFormat;
+import org.example.demo2.model.SegmentedChannel;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Pamięć podręczna analizy: eksmisja LRU po przekroczeniu limitu bajtów (odczyt
+ * odświeża wpis), trafienia i chybienia po kluczu oraz odcisk danych - zależny od
+ * próbek, długości, formatu i kolejności kanałów, a nie od obiektu kanału.
+ */
+class AnalysisCacheTest {
+
+    private final ParallelAnalysisService analysis = new ParallelAnalysisService();
+
+    @Test
+    void evictsLeastRecentlyUsedBeyondByteLimit() {
+        AnalysisCache cache = new AnalysisCache(analysis, 300);
+        AtomicInteger computed = new AtomicInteger();
+
+        for (String name : new String[]{"a", "b", "c"}) {
+            get(cache, name, 100, computed);
+        }
+        assertEquals(3, computed.get());
+        assertEquals(300, cache.getBytes());
+
+        // Odczyt "a" czyni "b" najdawniej używanym - to on wypada przy dodaniu "d"
+        assertEquals("a", get(cache, "a", 100, computed));
+        get(cache, "d", 100, computed);
+        assertEquals(4, computed.get());
+        assertEquals(3, cache.size());
+        assertEquals(300, cache.getBytes());
+
+        get(cache, "a", 100, computed);
+        get(cache, "c", 100, computed);
+        get(cache, "d", 100, computed);
+        assertEquals(4, computed.get(), "a, c, d w pamięci");
+        get(cache, "b", 100, computed);
+        assertEquals(5, computed.get(), "b eksmitowane");
+    }
+
+    @Test
+    void keepsNewestEntryLargerThanLimit() {
+        AnalysisCache cache = new AnalysisCache(analysis, 300);
+        AtomicInteger computed = new AtomicInteger();
+        get(cache, "a", 100, computed);
+        get(cache, "b", 100, computed);
+        get(cache, "big", 1_000, computed);
+        assertEquals(1, cache.size());
+        assertEquals(1_000, cache.getBytes());
+        get(cache, "big", 1_000, computed);
+        assertEquals(3, computed.get());
+
+        cache.clear();
+        assertEquals(0, cache.size());
+        assertEquals(0, cache.getBytes());
+        assertThrows(IllegalArgumentException.class, () -> new AnalysisCache(analysis, 0));
+    }
+
+    @Test
+    void keyParametersSeparateEntries() {
+        AnalysisCache cache = new AnalysisCache(analysis, 1 << 20);
+        AtomicInteger computed = new AtomicInteger();
+        cache.computeIfAbsent(new AnalysisCache.Key("average", 7, 1, 100), () -> computed.incrementAndGet(), v -> 1);
+        cache.computeIfAbsent(new AnalysisCache.Key("average", 7, 1, 100), () -> computed.incrementAndGet(), v -> 1);
+        assertEquals(1, computed.get());
+        cache.computeIfAbsent(new AnalysisCache.Key("average", 7, 2, 100), () -> computed.incrementAndGet(), v -> 1);
+        cache.computeIfAbsent(new AnalysisCache.Key("average", 8, 1, 100), () -> computed.incrementAndGet(), v -> 1);
+        cache.computeIfAbsent(new AnalysisCache.Key("stats", 7, 1, 100), () -> computed.incrementAndGet(), v -> 1);
+        assertEquals(4, computed.get());
+    }
+
+    @Test
+    void statisticsHitOnSameSamplesInNewChannel() {
+        AnalysisCache cache = new AnalysisCache(analysis, 1 << 20);
+        double[] samples = noise(10_003, 1);
+        SampleChannel first = SampleChannel.of(samples);
+        // Ramka z puli z tą samą zawartością - inny obiekt, ten sam odcisk
+        SampleChannel second = SampleChannel.of(samples.clone());
+
+        long hits = PipelineMetrics.CACHE_HITS.get();
+        long misses = PipelineMetrics.CACHE_MISSES.get();
+        StatisticsService.Stats a = cache.statistics(AnalysisCache.fingerprint(first), 0, first);
+        StatisticsService.Stats b = cache.statistics(AnalysisCache.fingerprint(second), 0, second);
+        assertSame(a, b, "drugi odczyt z pamięci");
+        assertEquals(hits + 1, PipelineMetrics.CACHE_HITS.get());
+        assertEquals(misses + 1, PipelineMetrics.CACHE_MISSES.get());
+
+        // Zmieniona próbka - nowy odcisk, wynik liczony od nowa
+        second.set(5_000, second.get(5_000) + 1e-9);
+        StatisticsService.Stats c = cache.statistics(AnalysisCache.fingerprint(second), 0, second);
+        assertNotSame(a, c);
+        assertEquals(misses + 2, PipelineMetrics.CACHE_MISSES.get());
+    }
+
+    @Test
+    void fingerprintDependsOnSamplesNotStorage() {
+        double[] samples = noise(10_003, 2);   // kilka bloków i ogon spoza pętli po 4
+        long base = AnalysisCache.fingerprint(SampleChannel.of(samples));
+
+        // Odczyt blokami (kanał bez tablicy double) - ten sam odcisk co tablica wprost
+        SampleChannel segmented = new SegmentedChannel(SampleFormat.FLOAT64, samples.length);
+        segmented.write(0, samples, 0, samples.length);
+        assertEquals(base, AnalysisCache.fingerprint(segmented));
+
+        // Każda próbka, także w ogonie, zmienia odcisk
+        for (int i : new int[]{0, 1, 2, 3, 4_096, samples.length - 1}) {
+            double[] changed = samples.clone();
+            changed[i] = Math.nextUp(changed[i]);
+            assertNotEquals(base, AnalysisCache.fingerprint(SampleChannel.of(changed)), "i=" + i);
+        }
+        // Długość (dopisane zero), format i kolejność kanałów
+        double[] longer = new double[samples.length + 1];
+        System.arraycopy(samples, 0, longer, 0, samples.length);
+        assertNotEquals(base, AnalysisCache.fingerprint(SampleChannel.of(longer)));
+
+        SampleChannel asFloat = SampleFormat.FLOAT32.allocate(4);
+        SampleChannel asDouble = SampleChannel.of(new double[]{0.5, 1, -2, 0.25});
+        asFloat.write(0, new double[]{0.5, 1, -2, 0.25}, 0, 4);
+        assertNotEquals(AnalysisCache.fingerprint(asDouble), AnalysisCache.fingerprint(asFloat));
+
+        SampleChannel other = SampleChannel.of(noise(10_003, 3));
+        SampleChannel ch = SampleChannel.of(samples);
+        assertNotEquals(AnalysisCache.fingerprint(ch, other), AnalysisCache.fingerprint(other, ch));
+    }
+
+    private static String get(AnalysisCache cache, String name, long size, AtomicInteger computed) {
+        return cache.computeIfAbsent(new AnalysisCache.Key(name, 0), () -> {
+            computed.incrementAndGet();
+            return name;
+        }, v -> size);
+    }
+
+    private static double[] noise(int n, long seed) {
+        Random random = new Random(seed);
+        double[] x = new double[n];
+        for (int i = 0; i < n; i++) x[i] = random.nextGaussian();
+        return x;
+    }
+}
@@ -0,0 +1,104 @@
+package org.example.demo2.service;
+
+import org.example.demo2.model.HysteresisData;
+import org.example.demo2.model.SampleChannel;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Przepróbkowanie do pointsPerCycle punktów na okres: ton o częstotliwości wzbudzenia
+ * zachowuje amplitudę i fazę (decymacja i nadpróbkowanie), a tryb strumieniowy przy
+ * dowolnym podziale na porcje daje te same próbki co przepróbkowanie całego rekordu.
+ */
+class CycleResamplerTest {
+
+    private static final double EXCITATION_HZ = 50;
+
+    @Test
+    void toneAtExcitationKeepsAmplitudeAndPhase() {
+        // 200 kHz / 1 kHz - decymacja, 3 kHz przy 256 pkt/okres (12.8 kHz) - nadpróbkowanie
+        for (int fs : new int[]{200_000, 10_000, 3_000}) {
+            for (int points : new int[]{256, 1024}) {
+                double amplitude = 1.7;
+                double phase = 0.6;
+                double[] x = tone(fs, fs, amplitude, phase);
+
+                CycleResampler resampler = new CycleResampler(fs, EXCITATION_HZ, points);
+                int m = resampler.outputLength(x.length);
+                assertEquals(0, m % points, "pełne okresy");
+                SampleChannel out = SampleChannel.of(new double[m]);
+                resampler.resample(SampleChannel.of(x), out);
+
+                // Składowa podstawowa z pełnych okresów środka rekordu (bez brzegów)
+                int cycles = m / points;
+                double re = 0, im = 0;
+                for (int k = points; k < (cycles - 1) * points; k++) {
+                    double w = 2 * Math.PI * k / points;
+                    re += out.get(k) * Math.cos(w);
+                    im += out.get(k) * Math.sin(w);
+                }
+                int length = (cycles - 2) * points;
+                String at = "fs=" + fs + " points=" + points;
+                assertEquals(amplitude, 2 * Math.hypot(re, im) / length, 1e-4 * amplitude, at);
+                // sin(ωt + φ) = Im: Σ y·sin → A/2·cos φ, Σ y·cos → A/2·sin φ
+                assertEquals(phase, Math.atan2(re, im), 1e-4, at);
+            }
+        }
+    }
+
+    @Test
+    void streamingMatchesRecordForAnyChunking() {
+        int fs = 100_000;
+        double[] x = tone(fs, 2 * fs / 5, 1.0, 0.3);
+        Random random = new Random(7);
+        for (int i = 0; i < x.length; i++) x[i] += 0.05 * random.nextGaussian();
+
+        for (int points : new int[]{256, 4096}) {
+            CycleResampler resampler = new CycleResampler(fs, EXCITATION_HZ, points);
+            SampleChannel ch = SampleChannel.of(x);
+            HysteresisData record = resampler.resample(new HysteresisData(ch, ch, ch));
+            SampleChannel expected = record.getCh0Channel();
+
+            for (int maxChunk : new int[]{1, 37, 1000, 65_536}) {
+                resampler.reset();
+                double[] streamed = stream(resampler, x, maxChunk, random);
+                // Strumień kończy się taps/2 próbek wejścia przed końcem - reszta z rekordu
+                int common = Math.min(streamed.length, expected.length());
+                assertTrue(common > expected.length() * 9 / 10, "za mało próbek strumienia: " + common);
+                for (int k = 0; k < common; k++) {
+                    assertEquals(expected.get(k), streamed[k], "points=" + points + " chunk=" + maxChunk + " k=" + k);
+                }
+            }
+        }
+    }
+
+    private static double[] stream(CycleResampler resampler, double[] x, int maxChunk, Random random) {
+        double[] result = new double[resampler.maxOutput(x.length)];
+        double[] out = new double[resampler.maxOutput(maxChunk)];
+        double[] chunk = new double[maxChunk];
+        int produced = 0;
+        for (int pos = 0, count; pos < x.length; pos += count) {
+            count = Math.min(x.length - pos, 1 + random.nextInt(maxChunk));
+            System.arraycopy(x, pos, chunk, 0, count);
+            int r = resampler.process(chunk, count, out);
+            System.arraycopy(out, 0, result, produced, r);
+            produced += r;
+        }
+        double[] trimmed = new double[produced];
+        System.arraycopy(result, 0, trimmed, 0, produced);
+        return trimmed;
+    }
+
+    // A·sin(2π·f·t + φ) przy częstotliwości wzbudzenia, n próbek przy fs
+    private static double[] tone(int fs, int n, double amplitude, double phase) {
+        double[] x = new double[n];
+        for (int i = 0; i < n; i++) {
+            x[i] = amplitude * Math.sin(2 * Math.PI * EXCITATION_HZ * i / fs + phase);
+        }
+        return x;
+    }
+}
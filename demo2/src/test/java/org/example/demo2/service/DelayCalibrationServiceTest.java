@@ -0,0 +1,116 @@
+package org.example.demo2.service;
+
+import org.example.demo2.model.ChannelDelay;
+import org.example.demo2.model.SampleChannel;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Estymacja opóźnienia na sygnale syntetycznym: CH1 to ten sam przebieg wyliczony
+ * analitycznie w chwilach przesuniętych o niecałkowitą liczbę próbek. FractionalDelay
+ * względem przesunięcia analitycznego i w obiegu zamkniętym z estimate().
+ */
+class DelayCalibrationServiceTest {
+
+    private static final int FS = 100_000;
+    private static final int N = 1 << 15;
+
+    // Okresy składowych [próbki] - niewspółmierne, poniżej 0.3·fs (pasmo FractionalDelay)
+    private static final double[] PERIODS = {97.3, 41.7, 23.1, 8.9, 4.3};
+    private static final double[] AMPLITUDES = {1.0, 0.6, 0.4, 0.25, 0.15};
+
+    @Test
+    void estimatesKnownFractionalDelay() {
+        for (double delay : new double[]{3.37, -3.37, 0.5, 12.81}) {
+            ChannelDelay result = DelayCalibrationService.estimate(
+                    SampleChannel.of(signal(N, 0)), SampleChannel.of(signal(N, delay)), FS, 64);
+            // Interpolacja paraboliczna szczytu - obciążenie rzędu 0.02 próbki
+            assertEquals(delay, result.getDelaySamples(), 0.05, "delay=" + delay);
+            assertEquals(delay / FS, result.getDelaySeconds(), 0.05 / FS, "delay=" + delay);
+            assertTrue(result.getCorrelation() > 0.99, "korelacja " + result.getCorrelation());
+        }
+    }
+
+    @Test
+    void estimateToleratesNoise() {
+        Random random = new Random(3);
+        double[] ch0 = signal(N, 0);
+        double[] ch1 = signal(N, 3.37);
+        for (int i = 0; i < N; i++) {
+            ch0[i] += 0.02 * random.nextGaussian();
+            ch1[i] += 0.02 * random.nextGaussian();
+        }
+        ChannelDelay result = DelayCalibrationService.estimate(SampleChannel.of(ch0), SampleChannel.of(ch1), FS, 64);
+        assertEquals(3.37, result.getDelaySamples(), 0.05);
+    }
+
+    @Test
+    void rejectsUncorrelatedChannels() {
+        Random random = new Random(5);
+        double[] a = new double[N];
+        double[] b = new double[N];
+        for (int i = 0; i < N; i++) {
+            a[i] = random.nextGaussian();
+            b[i] = random.nextGaussian();
+        }
+        assertThrows(IllegalStateException.class,
+                () -> DelayCalibrationService.estimate(SampleChannel.of(a), SampleChannel.of(b), FS, 64));
+        assertThrows(IllegalStateException.class,
+                () -> DelayCalibrationService.estimate(SampleChannel.of(a), SampleChannel.of(new double[N]), FS, 64));
+    }
+
+    @Test
+    void fractionalDelayMatchesAnalyticShift() {
+        Random random = new Random(9);
+        for (double delay : new double[]{0, 0.25, 2.63, 7.5, 31.9}) {
+            double[] y = signal(N, 0);
+            FractionalDelay filter = new FractionalDelay(delay);
+            for (int pos = 0, count; pos < N; pos += count) {
+                count = Math.min(N - pos, 1 + random.nextInt(5000));
+                filter.process(y, pos, count);
+            }
+            // y[i] = x(i - LATENCY - delay); pierwsze próbki - stan początkowy filtru (zera)
+            double[] expected = signal(N, FractionalDelay.LATENCY + delay);
+            double maxError = 0;
+            for (int i = FractionalDelay.TAPS + (int) delay; i < N; i++) {
+                maxError = Math.max(maxError, Math.abs(expected[i] - y[i]));
+            }
+            // Błąd amplitudy < 0.1% w paśmie do ~0.3·fs (opis FractionalDelay)
+            assertTrue(maxError < 1e-3 * total(), "delay=" + delay + " błąd " + maxError);
+        }
+    }
+
+    @Test
+    void fractionalDelayRoundTripsThroughEstimate() {
+        for (double delay : new double[]{0.37, 3.37, 10.5}) {
+            double[] x = signal(N, 0);
+            double[] y = x.clone();
+            new FractionalDelay(delay).process(y, 0, N);
+            ChannelDelay result = DelayCalibrationService.estimate(SampleChannel.of(x), SampleChannel.of(y), FS, 64);
+            assertEquals(FractionalDelay.LATENCY + delay, result.getDelaySamples(), 0.05, "delay=" + delay);
+        }
+    }
+
+    // Σ A·sin(2π·(i - delay)/T) - przebieg w chwilach przesuniętych o delay próbek
+    private static double[] signal(int n, double delay) {
+        double[] x = new double[n];
+        for (int i = 0; i < n; i++) {
+            double t = i - delay;
+            for (int k = 0; k < PERIODS.length; k++) {
+                x[i] += AMPLITUDES[k] * Math.sin(2 * Math.PI * t / PERIODS[k] + k);
+            }
+        }
+        return x;
+    }
+
+    private static double total() {
+        double sum = 0;
+        for (double a : AMPLITUDES) sum += a;
+        return sum;
+    }
+}
@@ -0,0 +1,42 @@
+package org.example.demo2.service;
+
+import org.example.demo2.model.AcquisitionConfig;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Rekord pętli wewnętrznej regulacji: zawsze kilka pełnych okresów w buforze urządzenia.
+ */
+class ExcitationRegulationServiceTest {
+
+    @Test
+    void shortConfigKeepsRateWhenCyclesFit() {
+        AcquisitionConfig base = new AcquisitionConfig();
+        base.setSampleRateHz(10_000);
+        AcquisitionConfig config = ExcitationRegulationService.shortConfig(base, 50);
+        assertEquals(10_000, config.getSampleRateHz());
+        assertEquals(600, config.getBufferSize());   // 3 okresy po 200 próbek
+    }
+
+    @Test
+    void shortConfigLowersRateForLongPeriods() {
+        AcquisitionConfig base = new AcquisitionConfig();
+        base.setSampleRateHz(1_000_000);
+        AcquisitionConfig config = ExcitationRegulationService.shortConfig(base, 50);
+        // 3 okresy 50 Hz przy 1 MHz to 60 000 próbek - więcej niż bufor urządzenia
+        assertTrue(config.getSampleRateHz() < base.getSampleRateHz());
+        assertTrue(config.getBufferSize() <= AcquisitionConfig.DEVICE_BUFFER_SIZE);
+        double cycles = config.getBufferSize() * 50.0 / config.getSampleRateHz();
+        assertTrue(cycles >= 2.99, "okresy w rekordzie: " + cycles);
+        assertEquals(1_000_000, base.getSampleRateHz());   // konfiguracja bazowa bez zmian
+    }
+
+    @Test
+    void shortConfigRefusesWhenTwoCyclesDoNotFit() {
+        AcquisitionConfig base = new AcquisitionConfig();
+        assertThrows(IllegalStateException.class, () -> ExcitationRegulationService.shortConfig(base, 1e-4));
+    }
+}
@@ -0,0 +1,184 @@
+package org.example.demo2.service;
+
+import org.example.demo2.model.FilterSpec;
+import org.example.demo2.model.FilterType;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Filtry szumów względem implementacji wzorcowych: FIR (overlap-save i postać
+ * bezpośrednia) względem splotu wprost, Butterworth -3 dB na częstotliwości
+ * granicznej, mediana względem posortowanego okna. Każdy filtr przetwarzany
+ * porcjami losowej długości - stan między porcjami nie może zmieniać wyniku.
+ */
+class FilterBankTest {
+
+    private static final int FS = 10_000;
+
+    private final Random random = new Random(1);
+
+    @Test
+    void firMatchesDirectConvolution() {
+        double[] x = noise(50_000);
+        // Poniżej i powyżej FirFilter.DIRECT_MAX_TAPS (postać bezpośrednia / overlap-save)
+        for (int taps : new int[]{7, 24, 25, 63, 255, 1001}) {
+            double[] h = FilterBank.lowPassFir(taps, 1000.0 / FS);
+            double[] expected = convolve(h, x);
+            double[] y = x.clone();
+            processInChunks(FilterBank.create(new FilterSpec(FilterType.FIR_LOWPASS, 1000, taps), FS), y);
+            assertEquals(0, maxError(expected, y), 1e-12, "taps=" + taps);
+        }
+    }
+
+    @Test
+    void butterworthIsMinus3dBAtCutoff() {
+        for (int order : new int[]{1, 2, 3, 4, 5, 8}) {
+            double[] c = FilterBank.butterworth(order, 500.0 / FS);
+            assertEquals(1.0, magnitude(c, 0), 1e-9, "DC order=" + order);
+            assertEquals(-3.0103, 20 * Math.log10(magnitude(c, 500.0 / FS)), 1e-3, "fc order=" + order);
+        }
+    }
+
+    @Test
+    void biquadCascadeAttenuatesToneAtCutoffBy3dB() {
+        int n = 40_000;
+        double[] y = new double[n];
+        for (int i = 0; i < n; i++) y[i] = Math.sin(2 * Math.PI * 500 * i / FS);
+        processInChunks(FilterBank.create(new FilterSpec(FilterType.BIQUAD_LOWPASS, 500, 4), FS), y);
+
+        // Amplituda w stanie ustalonym (ostatnie 100 okresów)
+        double peak = 0;
+        for (int i = n - 2000; i < n; i++) peak = Math.max(peak, Math.abs(y[i]));
+        assertEquals(Math.sqrt(0.5), peak, 2e-3);
+    }
+
+    @Test
+    void biquadIsChunkInvariant() {
+        double[] x = noise(20_000);
+        double[] whole = x.clone();
+        double[] chunked = x.clone();
+        FilterSpec spec = new FilterSpec(FilterType.BIQUAD_LOWPASS, 700, 6);
+        FilterBank.create(spec, FS).process(whole, 0, whole.length);
+        processInChunks(FilterBank.create(spec, FS), chunked);
+        assertEquals(0, maxError(whole, chunked));
+    }
+
+    @Test
+    void medianMatchesSortedWindowAcrossChunks() {
+        double[] x = noise(20_000);
+        for (int window : new int[]{3, 7, 31}) {
+            double[] y = x.clone();
+            SampleFilter filter = FilterBank.create(new FilterSpec(FilterType.MEDIAN, 0, window), FS);
+            // Porcje krótsze od okna - okno obejmuje próbki z kilku poprzednich porcji
+            int pos = 0;
+            while (pos < y.length) {
+                int count = Math.min(y.length - pos, 1 + random.nextInt(2 * window));
+                filter.process(y, pos, count);
+                pos += count;
+            }
+            for (int i = window - 1; i < x.length; i++) {
+                double[] w = Arrays.copyOfRange(x, i - window + 1, i + 1);
+                Arrays.sort(w);
+                assertEquals(w[window / 2], y[i], "window=" + window + " i=" + i);
+            }
+        }
+    }
+
+    @Test
+    void medianHandlesSignedZerosAndNaN() {
+        // Okno mieszające 0.0 i -0.0 oraz pojedyncze NaN - porządek Double.compare jak Arrays.sort
+        double[] x = new double[2_000];
+        for (int i = 0; i < x.length; i++) {
+            int r = random.nextInt(10);
+            x[i] = r < 4 ? 0.0 : r < 8 ? -0.0 : r == 8 ? Double.NaN : random.nextGaussian();
+        }
+        int window = 5;
+        double[] y = x.clone();
+        SampleFilter filter = FilterBank.create(new FilterSpec(FilterType.MEDIAN, 0, window), FS);
+        for (int pos = 0, count; pos < y.length; pos += count) {
+            count = Math.min(y.length - pos, 1 + random.nextInt(7));
+            filter.process(y, pos, count);
+        }
+        for (int i = window - 1; i < x.length; i++) {
+            double[] w = Arrays.copyOfRange(x, i - window + 1, i + 1);
+            Arrays.sort(w);
+            assertEquals(w[window / 2], y[i], "i=" + i);
+        }
+    }
+
+    @Test
+    void resetStartsFromCleanState() {
+        double[] x = noise(5_000);
+        SampleFilter filter = FilterBank.create(new FilterSpec(FilterType.BIQUAD_LOWPASS, 700, 4), FS);
+        double[] first = x.clone();
+        filter.process(first, 0, first.length);
+        filter.reset();
+        double[] second = x.clone();
+        filter.process(second, 0, second.length);
+        assertEquals(0, maxError(first, second));
+    }
+
+    @Test
+    void rejectsCutoffAboveNyquist() {
+        assertThrows(IllegalArgumentException.class,
+                () -> FilterBank.create(new FilterSpec(FilterType.FIR_LOWPASS, FS / 2.0, 63), FS));
+        assertNull(FilterBank.create(FilterSpec.NONE, FS));
+    }
+
+    private void processInChunks(SampleFilter filter, double[] y) {
+        int pos = 0;
+        while (pos < y.length) {
+            int count = Math.min(y.length - pos, 1 + random.nextInt(9000));
+            filter.process(y, pos, count);
+            pos += count;
+        }
+    }
+
+    private double[] noise(int n) {
+        double[] x = new double[n];
+        for (int i = 0; i < n; i++) x[i] = random.nextGaussian();
+        return x;
+    }
+
+    // Splot przyczynowy wprost: y[i] = Σ h[k]·x[i-k]
+    private static double[] convolve(double[] h, double[] x) {
+        double[] y = new double[x.length];
+        for (int i = 0; i < x.length; i++) {
+            double acc = 0;
+            for (int k = 0; k < h.length && k <= i; k++) acc += h[k] * x[i - k];
+            y[i] = acc;
+        }
+        return y;
+    }
+
+    // |H(e^jω)| kaskady sekcji {b0, b1, b2, a1, a2} dla częstotliwości względnej f = f/fs
+    private static double magnitude(double[] c, double f) {
+        double w = 2 * Math.PI * f;
+        double re = 1, im = 0;
+        for (int s = 0; s < c.length; s += 5) {
+            double nr = c[s] + c[s + 1] * Math.cos(w) + c[s + 2] * Math.cos(2 * w);
+            double ni = -c[s + 1] * Math.sin(w) - c[s + 2] * Math.sin(2 * w);
+            double dr = 1 + c[s + 3] * Math.cos(w) + c[s + 4] * Math.cos(2 * w);
+            double di = -c[s + 3] * Math.sin(w) - c[s + 4] * Math.sin(2 * w);
+            double d = dr * dr + di * di;
+            double hr = (nr * dr + ni * di) / d;
+            double hi = (ni * dr - nr * di) / d;
+            double t = re * hr - im * hi;
+            im = re * hi + im * hr;
+            re = t;
+        }
+        return Math.hypot(re, im);
+    }
+
+    private static double maxError(double[] a, double[] b) {
+        double max = 0;
+        for (int i = 0; i < a.length; i++) max = Math.max(max, Math.abs(a[i] - b[i]));
+        return max;
+    }
+}
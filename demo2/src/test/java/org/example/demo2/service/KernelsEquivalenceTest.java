@@ -0,0 +1,112 @@
+package org.example.demo2.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Równoważność VectorKernels i ScalarKernels: każda długość tablicy od 0 do kilku
+ * szerokości wektora (ogon pętli skalarnej) oraz kroki step > 1 w binningu.
+ * Bez modułu jdk.incubator.vector (surefire dodaje go w argLine) testy SIMD są pomijane.
+ */
+class KernelsEquivalenceTest {
+
+    // Ponad 4 × 8 próbek - pełne bloki AVX-512 plus każda możliwa długość ogona
+    private static final int MAX_LENGTH = 4 * 8 + 7;
+
+    private final SignalKernels scalar = ScalarKernels.INSTANCE;
+    private SignalKernels vector;
+
+    @BeforeEach
+    void loadVector() {
+        vector = KernelSelector.vector();
+    }
+
+    @Test
+    void scalarKernelsPassSelfCheck() {
+        assertNull(KernelSelector.verify(ScalarKernels.INSTANCE));
+    }
+
+    @Test
+    void vectorKernelsPassSelfCheck() {
+        assumeTrue(vector != null, "jdk.incubator.vector niedostępny");
+        assertNull(KernelSelector.verify(vector));
+    }
+
+    @Test
+    void minMaxSumSqMatchesForEveryTail() {
+        assumeTrue(vector != null, "jdk.incubator.vector niedostępny");
+        double[] a = new double[3];
+        double[] b = new double[3];
+        for (int n = 0; n <= MAX_LENGTH; n++) {
+            double[] v = loop(n, 1);
+            for (int from = 0; from <= Math.min(n, 9); from++) {
+                scalar.minMaxSumSq(v, from, n, a);
+                vector.minMaxSumSq(v, from, n, b);
+                String at = "n=" + n + " from=" + from;
+                assertEquals(a[0], b[0], at);
+                assertEquals(a[1], b[1], at);
+                // Σx² - inna kolejność dodawania w SIMD, różnica tylko na zaokrągleniach
+                assertEquals(a[2], b[2], 1e-12 * Math.max(1, a[2]), at);
+            }
+        }
+    }
+
+    @Test
+    void scaleIsBitExactForEveryTail() {
+        assumeTrue(vector != null, "jdk.incubator.vector niedostępny");
+        for (int n = 0; n <= MAX_LENGTH; n++) {
+            double[] v = loop(n, 2);
+            double[] a = new double[n];
+            double[] b = new double[n];
+            scalar.scale(v, 795.8, a, n);
+            vector.scale(v, 795.8, b, n);
+            assertArrayEquals(a, b, "n=" + n);
+        }
+    }
+
+    @Test
+    void movingRangeAndBinCodesMatchForStridesAndTails() {
+        assumeTrue(vector != null, "jdk.incubator.vector niedostępny");
+        double[] a = new double[2];
+        double[] b = new double[2];
+        for (int step = 1; step <= 4; step++) {
+            for (int n = step; n <= MAX_LENGTH; n++) {
+                double[] x = loop(n, 3);
+                String at = "n=" + n + " step=" + step;
+                boolean anyA = scalar.movingRange(x, step, n, step, a);
+                boolean anyB = vector.movingRange(x, step, n, step, b);
+                assertEquals(anyA, anyB, at);
+                if (!anyA) continue;
+                assertEquals(a[0], b[0], at);
+                assertEquals(a[1], b[1], at);
+
+                int bins = 17;
+                double dx = (a[1] - a[0]) / (bins - 1);
+                long[] ca = new long[n];
+                long[] cb = new long[n];
+                int ka = scalar.binCodes(x, step, n, step, a[0], dx, bins, ca);
+                int kb = vector.binCodes(x, step, n, step, a[0], dx, bins, cb);
+                assertEquals(ka, kb, at);
+                assertArrayEquals(ca, cb, at);
+            }
+        }
+    }
+
+    // Sinus z szumem i odcinkami stałymi (|dx| = 0 - punkty pomijane w binningu)
+    private static double[] loop(int n, long seed) {
+        Random random = new Random(seed);
+        double[] x = new double[n];
+        for (int i = 0; i < n; i++) {
+            x[i] = Math.sin(2 * Math.PI * i / 13.0) + 0.01 * random.nextGaussian();
+            if (i % 5 == 3) x[i] = x[i - 1];
+        }
+        return x;
+    }
+}
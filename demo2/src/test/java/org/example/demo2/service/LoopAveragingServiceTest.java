@@ -0,0 +1,121 @@
+package org.example.demo2.service;
+
+import org.example.demo2.model.AveragedLoop;
+import org.example.demo2.model.BinningMode;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.function.DoubleUnaryOperator;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Binning adaptacyjny na pętlach syntetycznych o znanym rozkładzie X: EQUAL_COUNT daje
+ * przedziały o równej liczbie punktów (Y = dystrybuanta X, więc średnia Y przedziału k
+ * to (k + ½) / bins), GRADIENT zagęszcza przedziały tam, gdzie gałąź jest stroma -
+ * połowa przedziałów rozłożona po X, połowa proporcjonalnie do |ΔY|.
+ */
+class LoopAveragingServiceTest {
+
+    private static final int BINS = 32;
+    // Punkty na gałąź w jednym okresie i liczba okresów
+    private static final int BRANCH = 5_000;
+    private static final int PERIODS = 8;
+
+    private final LoopAveragingService service = new LoopAveragingService(ScalarKernels.INSTANCE);
+
+    @Test
+    void equalCountBinsHoldEqualPopulations() {
+        // Gęstość X zmienia się 4× wzdłuż gałęzi: x = u + 0.6·sin(2πu)/2π, u - położenie na gałęzi
+        DoubleUnaryOperator position = u -> u + 0.6 * Math.sin(2 * Math.PI * u) / (2 * Math.PI);
+        double[][] loop = loop(position, u -> u, u -> u);
+        AveragedLoop result = service.average(loop[0], loop[1], 1, BINS, BinningMode.EQUAL_COUNT);
+
+        assertQuantiles(result.getRisingY(), "rosnąca");
+        assertQuantiles(result.getFallingY(), "malejąca");
+        // Środki ciężkości przedziałów rosną - przedziały nie nachodzą na siebie
+        assertIncreasing(result.getRisingX());
+        assertIncreasing(result.getFallingX());
+
+        // Dla porównania: równe przedziały X mają liczności proporcjonalne do gęstości
+        AveragedLoop uniform = service.average(loop[0], loop[1], 1, BINS, BinningMode.UNIFORM);
+        double maxStep = 0;
+        List<Double> y = uniform.getRisingY();
+        for (int k = 1; k < y.size(); k++) maxStep = Math.max(maxStep, y.get(k) - y.get(k - 1));
+        assertTrue(maxStep > 1.5 / BINS, "UNIFORM: największy krok Y " + maxStep);
+    }
+
+    @Test
+    void gradientBinsConcentrateOnSteepSegment() {
+        // Gałęzie tanh o szerokości 0.05 przy x = 0.65 i 0.35 (strome jak przy koercji), x w [0, 1]
+        double width = 0.05;
+        double[][] loop = loop(u -> u,
+                u -> Math.tanh((u - 0.65) / width),
+                u -> Math.tanh((u - 0.35) / width));
+        AveragedLoop result = service.average(loop[0], loop[1], 1, BINS, BinningMode.GRADIENT);
+
+        // Udział przedziałów w |x - xc| ≤ 2·width: ½·(szerokość obszaru) + ½·(udział ΔY)
+        double expected = 0.5 * 4 * width + 0.5 * Math.tanh(2) / Math.tanh(0.35 / width);
+        assertEquals(expected, fractionNear(result.getRisingX(), 0.65, 2 * width), 0.06, "rosnąca");
+        assertEquals(expected, fractionNear(result.getFallingX(), 0.35, 2 * width), 0.06, "malejąca");
+
+        AveragedLoop uniform = service.average(loop[0], loop[1], 1, BINS, BinningMode.UNIFORM);
+        assertTrue(fractionNear(uniform.getRisingX(), 0.65, 2 * width) < 0.3, "UNIFORM");
+    }
+
+    @Test
+    void gradientOnStraightBranchesSpacesBinsEvenly() {
+        // Stałe nachylenie - oba udziały równe, przedziały równej szerokości
+        double[][] loop = loop(u -> u, u -> 2 * u, u -> 2 * u - 0.5);
+        AveragedLoop result = service.average(loop[0], loop[1], 1, BINS, BinningMode.GRADIENT);
+        for (List<Double> x : List.of(result.getRisingX(), result.getFallingX())) {
+            assertEquals(BINS, x.size());
+            for (int k = 0; k < x.size(); k++) {
+                assertEquals((k + 0.5) / BINS, x.get(k), 0.01, "k=" + k);
+            }
+        }
+    }
+
+    // Średnia Y przedziału k to (k + ½) / bins, gdy każdy przedział ma 1/bins punktów gałęzi
+    private static void assertQuantiles(List<Double> y, String branch) {
+        assertEquals(BINS, y.size(), branch);
+        for (int k = 0; k < BINS; k++) {
+            assertEquals((k + 0.5) / BINS, y.get(k), 0.005, branch + " k=" + k);
+        }
+    }
+
+    private static void assertIncreasing(List<Double> x) {
+        for (int k = 1; k < x.size(); k++) {
+            assertTrue(x.get(k) > x.get(k - 1), "k=" + k);
+        }
+    }
+
+    private static double fractionNear(List<Double> x, double center, double radius) {
+        int near = 0;
+        for (double v : x) {
+            if (Math.abs(v - center) <= radius) near++;
+        }
+        return (double) near / x.size();
+    }
+
+    /**
+     * Okresy złożone z gałęzi rosnącej (x = position(u), u = 0 → 1) i malejącej
+     * (u = 1 → 0); Y gałęzi jako funkcja u.
+     */
+    private static double[][] loop(DoubleUnaryOperator position, DoubleUnaryOperator rising,
+                                   DoubleUnaryOperator falling) {
+        int n = 2 * BRANCH * PERIODS;
+        double[] x = new double[n];
+        double[] y = new double[n];
+        for (int i = 0; i < n; i++) {
+            int k = i % (2 * BRANCH);
+            boolean up = k < BRANCH;
+            // Środek kroku - żaden punkt nie leży na zwrocie gałęzi
+            double u = up ? (k + 0.5) / BRANCH : (2 * BRANCH - k - 0.5) / BRANCH;
+            x[i] = position.applyAsDouble(u);
+            y[i] = up ? rising.applyAsDouble(u) : falling.applyAsDouble(u);
+        }
+        return new double[][]{x, y};
+    }
+}
@@ -0,0 +1,130 @@
+package org.example.demo2.service;
+
+import org.example.demo2.model.CycleMetrics;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Śledzenie pętli na modelu eliptycznym H = sin θ, B = sin(θ - φ) + stała: parametry
+ * cyklu względem wartości analitycznych, podział na cykle przy szumie w okolicy zera
+ * (przerzutnik Schmitta) i odrzucenie cyklu przerwanego luką w danych.
+ */
+class OnlineLoopTrackerTest {
+
+    private static final int FS = 10_000;
+    // 200 próbek na okres
+    private static final double F = 50;
+    private static final double PHI = 0.4;
+    // Faza H w pierwszej próbce - rozbieg przed pierwszym przejściem w górę
+    private static final double PHASE = 0.3;
+    private static final double H_SCALE = 2.0;
+    private static final double B_SCALE = 3.0;
+
+    @Test
+    void cycleMetricsMatchEllipticLoop() {
+        List<CycleMetrics> cycles = new ArrayList<>();
+        OnlineLoopTracker tracker = new OnlineLoopTracker(FS, H_SCALE, B_SCALE, cycles::add);
+        double[][] loop = loop(FS, 40, 0, new Random(1));
+        // Porcje jak z bufora strumienia
+        for (int pos = 0; pos < loop[0].length; pos += 333) {
+            int count = Math.min(333, loop[0].length - pos);
+            double[] h = new double[count], b = new double[count];
+            System.arraycopy(loop[0], pos, h, 0, count);
+            System.arraycopy(loop[1], pos, b, 0, count);
+            tracker.accept(h, b, count);
+        }
+
+        // Rozbieg do pierwszego przejścia H w górę nie daje wyniku
+        assertEquals(39, cycles.size());
+        assertEquals(39, tracker.getCycleCount());
+        double s = Math.sin(PHI);
+        for (CycleMetrics c : cycles) {
+            String at = "cykl " + c.getIndex();
+            assertEquals(FS / F, c.getEndSample() - c.getStartSample(), 1e-3, at);
+            assertEquals(B_SCALE, c.getBPeak(), 1e-3, at);
+            assertEquals(H_SCALE, c.getHPeak(), 1e-3, at);
+            assertEquals(s * B_SCALE, c.getBrPlus(), 1e-3, at);
+            assertEquals(-s * B_SCALE, c.getBrMinus(), 1e-3, at);
+            assertEquals(s * H_SCALE, c.getHcPlus(), 1e-3, at);
+            assertEquals(-s * H_SCALE, c.getHcMinus(), 1e-3, at);
+            // Pole elipsy π·A_H·A_B·sin φ
+            double area = Math.PI * s * H_SCALE * B_SCALE;
+            assertEquals(area, c.getLossPerCycle(), 1e-3 * area, at);
+            assertEquals(c.getLossPerCycle() * F, c.getSpecificPower(), 1e-3 * area * F, at);
+        }
+    }
+
+    @Test
+    void noiseNearZeroDoesNotSplitCycles() {
+        // 2000 próbek na okres i szum σ = 1% amplitudy: przy zerze sygnał zmienia się między
+        // próbkami o ~0.3σ, więc surowy sygnał przecina zero w górę ~3.5 razy na okres;
+        // próg przerzutnika (5% amplitudy) to 5σ
+        int fs = 100_000;
+        for (long seed = 0; seed < 5; seed++) {
+            List<CycleMetrics> cycles = new ArrayList<>();
+            OnlineLoopTracker tracker = new OnlineLoopTracker(fs, H_SCALE, B_SCALE, cycles::add);
+            double[][] loop = loop(fs, 40, 0.01, new Random(seed));
+            tracker.accept(loop[0], loop[1], loop[0].length);
+
+            assertEquals(39, cycles.size(), "seed=" + seed);
+            // Szum przesuwa chwilę przejścia o ~σ/nachylenie ≈ 3 próbki; średnia bez dryfu
+            double first = cycles.get(0).getStartSample();
+            double last = cycles.get(cycles.size() - 1).getEndSample();
+            assertEquals(fs / F, (last - first) / cycles.size(), 1.0, "seed=" + seed);
+            for (CycleMetrics c : cycles) {
+                String at = "seed=" + seed + " cykl " + c.getIndex();
+                assertEquals(fs / F, c.getEndSample() - c.getStartSample(), 25.0, at);
+                // Ekstrema zawierają szum (do ~4σ)
+                assertEquals(H_SCALE, c.getHPeak(), 0.05 * H_SCALE, at);
+            }
+        }
+    }
+
+    @Test
+    void gapDropsInterruptedCycle() {
+        List<CycleMetrics> cycles = new ArrayList<>();
+        OnlineLoopTracker tracker = new OnlineLoopTracker(FS, H_SCALE, B_SCALE, cycles::add);
+        double[][] loop = loop(FS, 20, 0, new Random(3));
+        int half = 10 * FS / (int) F + 57;   // w połowie 11. okresu
+        tracker.accept(loop[0], loop[1], half);
+        int before = cycles.size();
+        assertEquals(9, before);
+
+        int lost = 1000;
+        tracker.gap(lost);
+        double[] h = new double[loop[0].length - half - lost];
+        double[] b = new double[h.length];
+        System.arraycopy(loop[0], half + lost, h, 0, h.length);
+        System.arraycopy(loop[1], half + lost, b, 0, h.length);
+        tracker.accept(h, b, h.length);
+
+        // Po luce nowy rozbieg; numeracja ciągła, położenie w próbkach obejmuje lukę
+        CycleMetrics first = cycles.get(before);
+        assertEquals(before, first.getIndex());
+        double period = FS / F;
+        // Przejście H w górę przy θ = 2πk, czyli 0.3 rad przed pełnym okresem próbek
+        assertEquals(period - PHASE / (2 * Math.PI) * period, first.getStartSample() % period, 1e-3);
+        assertEquals(period, first.getEndSample() - first.getStartSample(), 1e-3);
+        for (int i = before; i < cycles.size(); i++) {
+            assertEquals(i, cycles.get(i).getIndex());
+        }
+    }
+
+    // {H, B} dla periods okresów od fazy PHASE; B z dowolną stałą całkowania
+    private static double[][] loop(int fs, int periods, double noise, Random random) {
+        int n = (int) (periods * fs / F);
+        double[] h = new double[n];
+        double[] b = new double[n];
+        for (int i = 0; i < n; i++) {
+            double theta = 2 * Math.PI * F * i / fs + PHASE;
+            h[i] = Math.sin(theta) + noise * random.nextGaussian();
+            b[i] = Math.sin(theta - PHI) + 0.7;
+        }
+        return new double[][]{h, b};
+    }
+}
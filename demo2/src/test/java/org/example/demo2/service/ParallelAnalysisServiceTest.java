@@ -0,0 +1,78 @@
+package org.example.demo2.service;
+
+import org.example.demo2.model.FloatChannel;
+import org.example.demo2.model.SampleChannel;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Całkowanie równoległe (fragmenty + przeniesienie stanu + naprawa) musi dawać
+ * wynik bitowo identyczny z sekwencyjnym SignalProcessingService.integrate.
+ */
+class ParallelAnalysisServiceTest {
+
+    private static final int CHUNK = 4096;
+
+    private final ForkJoinPool pool = new ForkJoinPool(4);
+    private final ParallelAnalysisService parallel =
+            new ParallelAnalysisService(pool, CHUNK, ScalarKernels.INSTANCE);
+    private final SignalProcessingService serial = new SignalProcessingService(ScalarKernels.INSTANCE);
+
+    @AfterEach
+    void shutdown() {
+        pool.shutdownNow();
+    }
+
+    @Test
+    void integrateIsBitExactWithSerial() {
+        // Różne fs - przy wysokich a → 1 i fragment wydłużany jest do 16 stałych czasowych
+        for (int fs : new int[]{10_000, 100_000, 1_000_000, 10_000_000}) {
+            // Niepełny ostatni fragment i długości tuż przy granicy fragmentów
+            for (int n : new int[]{2 * CHUNK, 2 * CHUNK + 1, 7 * CHUNK - 3, 1_000_003}) {
+                double[] v = signal(n, fs);
+                double[] expected = serial.integrate(v, fs, new double[n]);
+                double[] actual = parallel.integrate(v, fs, new double[n]);
+                assertArrayEquals(expected, actual, "fs=" + fs + " n=" + n);
+            }
+        }
+    }
+
+    @Test
+    void integrateChannelMatchesSerialForDoubleAndFloat() {
+        int fs = 100_000;
+        int n = 300_001;
+        double[] v = signal(n, fs);
+
+        SampleChannel expected = serial.integrate(SampleChannel.of(v), fs, SampleChannel.of(new double[n]));
+        SampleChannel actual = parallel.integrate(SampleChannel.of(v), fs, SampleChannel.of(new double[n]));
+        assertArrayEquals(expected.array(), actual.array());
+
+        // Kanały float - ścieżka sekwencyjna, ten sam wynik co SignalProcessingService
+        float[] f = new float[n];
+        for (int i = 0; i < n; i++) f[i] = (float) v[i];
+        float[] fe = new float[n];
+        float[] fa = new float[n];
+        serial.integrate(new FloatChannel(f), fs, new FloatChannel(fe));
+        parallel.integrate(new FloatChannel(f), fs, new FloatChannel(fa));
+        assertArrayEquals(fe, fa, "float");
+        assertEquals(n, fa.length);
+    }
+
+    // Napięcie z cewki pomiarowej: harmoniczne 50 Hz z szumem i składową stałą
+    private static double[] signal(int n, int fs) {
+        Random random = new Random(n ^ fs);
+        double[] v = new double[n];
+        for (int i = 0; i < n; i++) {
+            double t = (double) i / fs;
+            v[i] = Math.sin(2 * Math.PI * 50 * t) + 0.3 * Math.sin(2 * Math.PI * 150 * t)
+                    + 0.01 + 0.02 * random.nextGaussian();
+        }
+        return v;
+    }
+}
@@ -0,0 +1,158 @@
+package org.example.demo2.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Bufor pierścieniowy podglądu: migawka i obwiednia względem pełnej historii zapisu
+ * przy porcjach dowolnej długości (także dłuższych od bufora - wielokrotne zawinięcie),
+ * oraz spójność migawek czytanych równolegle z zapisem.
+ */
+class RollingSampleBufferTest {
+
+    private final Random random = new Random(11);
+
+    @Test
+    void capacityRoundsUpToWholeBuckets() {
+        RollingSampleBuffer buffer = new RollingSampleBuffer(95, 10);
+        assertEquals(10, buffer.getBucketSize());
+        assertEquals(100, buffer.getCapacity());
+        assertThrows(IllegalArgumentException.class, () -> new RollingSampleBuffer(0, 10));
+        assertThrows(IllegalArgumentException.class, () -> new RollingSampleBuffer(100, 0));
+    }
+
+    @Test
+    void snapshotReturnsLatestSamplesAcrossWrapAround() {
+        RollingSampleBuffer buffer = new RollingSampleBuffer(100, 10);
+        int total = 2_000;
+        double[] x0 = noise(total);
+        double[] x1 = noise(total);
+        double[] dst0 = new double[buffer.getCapacity()];
+        double[] dst1 = new double[buffer.getCapacity()];
+
+        int written = 0;
+        while (written < total) {
+            // Porcje od 1 próbki do 2.5 pojemności bufora
+            int count = Math.min(total - written, 1 + random.nextInt(250));
+            buffer.write(slice(x0, written, count), slice(x1, written, count), count);
+            written += count;
+            assertEquals(written, buffer.getWritten());
+
+            for (int request : new int[]{buffer.getCapacity(), 37, 1}) {
+                int n = buffer.snapshot(dst0, dst1, request);
+                assertEquals(Math.min(written, request), n, "written=" + written);
+                for (int k = 0; k < n; k++) {
+                    String at = "written=" + written + " request=" + request + " k=" + k;
+                    assertEquals(x0[written - n + k], dst0[k], at);
+                    assertEquals(x1[written - n + k], dst1[k], at);
+                }
+            }
+        }
+    }
+
+    @Test
+    void envelopeCoversClosedBucketsOnly() {
+        RollingSampleBuffer buffer = new RollingSampleBuffer(100, 10);
+        int size = buffer.getBucketSize();
+        int total = 1_337;
+        double[] x0 = noise(total);
+        double[] x1 = noise(total);
+        double[] min0 = new double[10], max0 = new double[10], min1 = new double[10], max1 = new double[10];
+
+        int written = 0;
+        while (written < total) {
+            int count = Math.min(total - written, 1 + random.nextInt(130));
+            buffer.write(slice(x0, written, count), slice(x1, written, count), count);
+            written += count;
+
+            int closed = written / size;
+            int n = buffer.envelope(min0, max0, min1, max1);
+            assertEquals(Math.min(closed, buffer.getBuckets()), n, "written=" + written);
+            for (int k = 0; k < n; k++) {
+                int from = (closed - n + k) * size;
+                String at = "written=" + written + " k=" + k;
+                assertEquals(min(x0, from, size), min0[k], at);
+                assertEquals(max(x0, from, size), max0[k], at);
+                assertEquals(min(x1, from, size), min1[k], at);
+                assertEquals(max(x1, from, size), max1[k], at);
+            }
+        }
+    }
+
+    @Test
+    void concurrentReadersSeeConsistentSnapshots() throws Exception {
+        // Rampa ch0 = i, ch1 = -i: spójna migawka to kolejne liczby, przedział obwiedni
+        // j ma min = j·bucketSize i max = min + bucketSize - 1
+        RollingSampleBuffer buffer = new RollingSampleBuffer(64, 8);
+        int size = buffer.getBucketSize();
+        AtomicBoolean done = new AtomicBoolean();
+        Thread writer = new Thread(() -> {
+            double[] c0 = new double[100];
+            double[] c1 = new double[100];
+            Random r = new Random(2);
+            long next = 0;
+            while (next < 2_000_000) {
+                int count = 1 + r.nextInt(c0.length);
+                for (int k = 0; k < count; k++, next++) {
+                    c0[k] = next;
+                    c1[k] = -(double) next;   // -0.0 dla próbki 0, jak -dst0[k] w sprawdzeniu
+                }
+                buffer.write(c0, c1, count);
+            }
+            done.set(true);
+        }, "rolling-writer");
+        writer.start();
+
+        double[] dst0 = new double[buffer.getCapacity()];
+        double[] dst1 = new double[buffer.getCapacity()];
+        double[] min0 = new double[8], max0 = new double[8], min1 = new double[8], max1 = new double[8];
+        long checks = 0;
+        while (!done.get() || checks == 0) {
+            int n = buffer.snapshot(dst0, dst1, buffer.getCapacity());
+            for (int k = 0; k < n; k++) {
+                assertEquals(dst0[0] + k, dst0[k], "migawka k=" + k);
+                assertEquals(-dst0[k], dst1[k], "migawka k=" + k);
+            }
+            int m = buffer.envelope(min0, max0, min1, max1);
+            for (int k = 0; k < m; k++) {
+                assertEquals(min0[0] + k * size, min0[k], "obwiednia k=" + k);
+                assertEquals(min0[k] + size - 1, max0[k], "obwiednia k=" + k);
+                assertEquals(-max0[k], min1[k], "obwiednia k=" + k);
+                assertEquals(-min0[k], max1[k], "obwiednia k=" + k);
+            }
+            checks++;
+        }
+        writer.join();
+        assertTrue(checks > 0);
+    }
+
+    private double[] noise(int n) {
+        double[] x = new double[n];
+        for (int i = 0; i < n; i++) x[i] = random.nextGaussian();
+        return x;
+    }
+
+    private static double[] slice(double[] x, int from, int count) {
+        double[] s = new double[count];
+        System.arraycopy(x, from, s, 0, count);
+        return s;
+    }
+
+    private static double min(double[] x, int from, int count) {
+        double m = Double.POSITIVE_INFINITY;
+        for (int i = from; i < from + count; i++) m = Math.min(m, x[i]);
+        return m;
+    }
+
+    private static double max(double[] x, int from, int count) {
+        double m = Double.NEGATIVE_INFINITY;
+        for (int i = from; i < from + count; i++) m = Math.max(m, x[i]);
+        return m;
+    }
+}
@@ -0,0 +1,222 @@
+package org.example.demo2.service;
+
+import org.example.demo2.model.TrendMetric;
+import org.example.demo2.model.TrendSeries;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Magazyn trendu na plikach tymczasowych: agregaty poziomów 1 s / 1 min / 1 h względem
+ * agregacji wprost (z lukami NaN - pojedyncze wartości i całe przedziały), wybór poziomu
+ * w query() oraz ponowne otwarcie plików - kolumna dłuższa niż jeden region mapowania
+ * i przedział otwarty w chwili zamknięcia.
+ */
+class TrendStoreTest {
+
+    // Nie na granicy godziny - pierwszy i ostatni przedział każdego poziomu niepełne
+    private static final long START = 1_700_000_123_456L;
+    private static final long STEP_MS = 250;
+    // 2.5 h po 4 wiersze na sekundę
+    private static final int ROWS = 36_000;
+
+    private static final int METRICS = TrendMetric.values().length;
+
+    private Path directory;
+
+    @BeforeEach
+    void createDirectory() throws IOException {
+        directory = Files.createTempDirectory("trend-test");
+    }
+
+    @AfterEach
+    void deleteDirectory() throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+        }
+    }
+
+    @Test
+    void tiersAggregateWithNaNGaps() throws IOException {
+        try (TrendStore store = new TrendStore(directory)) {
+            for (int i = 0; i < ROWS; i++) {
+                store.append(START + i * STEP_MS, values(i));
+            }
+            assertEquals(ROWS, store.rows(0));
+            long end = START + ROWS * STEP_MS;
+
+            // Próg maxPoints wybiera kolejno: surowe, 1 s, 1 min, 1 h
+            assertTier(store.query(START, end, ROWS), 0);
+            assertTier(store.query(START, end, 10_000), 1);
+            assertTier(store.query(START, end, 200), 2);
+            assertTier(store.query(START, end, 5), 3);
+        }
+    }
+
+    @Test
+    void queryWindowIncludesBucketStartedBeforeIt() throws IOException {
+        try (TrendStore store = new TrendStore(directory)) {
+            for (int i = 0; i < ROWS; i++) {
+                store.append(START + i * STEP_MS, values(i));
+            }
+            // Okno 10 min w środku - poziom 1 min, pierwszy przedział zaczęty przed oknem
+            long from = START + 3_600_000 + 30_000;
+            TrendSeries series = store.query(from, from + 600_000, 20);
+            assertEquals(60_000, series.getResolutionMs());
+            assertEquals(11, series.size());
+            assertTrue(series.getTime(0) <= from && from < series.getTime(0) + 60_000);
+        }
+    }
+
+    @Test
+    void reopenContinuesColumnsAndOpenBuckets() throws IOException {
+        // Ponad REGION_ROWS wierszy - kolumny na kilku regionach mapowania
+        int rows = MappedColumn.REGION_ROWS + 10_000;
+        int split = rows / 2 + 1;   // zamknięcie w środku przedziału 1 s / 1 min / 1 h
+        try (TrendStore store = new TrendStore(directory)) {
+            for (int i = 0; i < split; i++) {
+                store.append(START + i * STEP_MS, values(i));
+            }
+        }
+        try (TrendStore store = new TrendStore(directory)) {
+            assertEquals(split, store.rows(0));
+            // Czas wcześniejszy od ostatniego zapisanego przesuwany do ostatniego
+            // (także po ponownym otwarciu)
+            store.append(START, values(split));
+            for (int i = split + 1; i < rows; i++) {
+                store.append(START + i * STEP_MS, values(i));
+            }
+            assertEquals(rows, store.rows(0));
+            TrendSeries raw = store.query(START, START + rows * STEP_MS, rows);
+            assertEquals(rows, raw.size());
+            assertEquals(START + (split - 1) * STEP_MS, raw.getTime(split));
+            for (int i = 0; i < rows; i += 997) {
+                assertEquals(values(i)[0], raw.getMean(TrendMetric.B_PEAK, i), "i=" + i);
+            }
+
+            // Agregaty jak w magazynie zapisanym bez zamykania: przedział otwarty
+            // przy zamknięciu jest kontynuowany, nie zaczynany od nowa
+            try (TrendStore reference = new TrendStore(directory.resolve("reference"))) {
+                for (int i = 0; i < rows; i++) {
+                    reference.append(i == split ? START : START + i * STEP_MS, values(i));
+                }
+                for (int maxPoints : new int[]{rows / 2, 1_000, 10}) {
+                    assertSameSeries(reference.query(START, START + rows * STEP_MS, maxPoints),
+                            store.query(START, START + rows * STEP_MS, maxPoints));
+                }
+            }
+        }
+    }
+
+    @Test
+    void mappedColumnSurvivesReopenAcrossRegions() throws IOException {
+        Path file = directory.resolve("column");
+        long rows = 2L * MappedColumn.REGION_ROWS + 123;
+        try (MappedColumn column = new MappedColumn(file)) {
+            for (long row = 0; row < rows; row++) {
+                column.putLong(row, row * 31 - 7);
+                column.setRows(row + 1);
+            }
+        }
+        try (MappedColumn column = new MappedColumn(file)) {
+            assertEquals(rows, column.rows());
+            for (long row = 0; row < rows; row++) {
+                assertEquals(row * 31 - 7, column.getLong(row), "row=" + row);
+            }
+            column.putDouble(rows, Math.PI);
+            column.setRows(rows + 1);
+        }
+        try (MappedColumn column = new MappedColumn(file)) {
+            assertEquals(rows + 1, column.rows());
+            assertEquals(Math.PI, column.getDouble(rows));
+        }
+    }
+
+    private static void assertSameSeries(TrendSeries expected, TrendSeries actual) {
+        assertEquals(expected.getResolutionMs(), actual.getResolutionMs());
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            String at = "res=" + expected.getResolutionMs() + " i=" + i;
+            assertEquals(expected.getTime(i), actual.getTime(i), at);
+            for (TrendMetric metric : TrendMetric.values()) {
+                assertEquals(expected.getMin(metric, i), actual.getMin(metric, i), at);
+                assertEquals(expected.getMean(metric, i), actual.getMean(metric, i), at);
+                assertEquals(expected.getMax(metric, i), actual.getMax(metric, i), at);
+            }
+        }
+    }
+
+    // Wartości wiersza i: BR - co 7. wiersz NaN, HC - cała 5. minuta NaN (puste przedziały)
+    private static double[] values(int i) {
+        double[] v = new double[METRICS];
+        for (int m = 0; m < METRICS; m++) {
+            v[m] = (m + 1) * Math.sin(0.013 * i + m) + 0.001 * (i % 17);
+        }
+        if (i % 7 == 3) v[TrendMetric.BR.ordinal()] = Double.NaN;
+        long minute = (START + i * STEP_MS) / 60_000 - START / 60_000;
+        if (minute == 5) v[TrendMetric.HC.ordinal()] = Double.NaN;
+        return v;
+    }
+
+    // Agregacja wprost: przedziały [k·res, (k+1)·res) ze wszystkich wierszy
+    private static void assertTier(TrendSeries series, int tier) {
+        long resolution = TrendStore.RESOLUTIONS_MS[tier];
+        assertEquals(resolution, series.getResolutionMs());
+
+        Map<Long, double[][]> expected = new TreeMap<>();  // czas → [metryka][min, max, suma, liczba]
+        for (int i = 0; i < ROWS; i++) {
+            long t = START + i * STEP_MS;
+            long key = resolution == 0 ? i : Math.floorDiv(t, resolution) * resolution;
+            double[][] acc = expected.computeIfAbsent(key, k -> {
+                double[][] a = new double[METRICS][];
+                for (int m = 0; m < METRICS; m++) {
+                    a[m] = new double[]{Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY, 0, 0};
+                }
+                return a;
+            });
+            double[] v = values(i);
+            for (int m = 0; m < METRICS; m++) {
+                if (Double.isNaN(v[m])) continue;
+                acc[m][0] = Math.min(acc[m][0], v[m]);
+                acc[m][1] = Math.max(acc[m][1], v[m]);
+                acc[m][2] += v[m];
+                acc[m][3]++;
+            }
+        }
+
+        assertEquals(expected.size(), series.size(), "tier=" + tier);
+        int i = 0;
+        boolean sawEmpty = false;
+        for (Map.Entry<Long, double[][]> entry : expected.entrySet()) {
+            if (resolution != 0) assertEquals((long) entry.getKey(), series.getTime(i));
+            for (TrendMetric metric : TrendMetric.values()) {
+                double[] acc = entry.getValue()[metric.ordinal()];
+                String at = "tier=" + tier + " i=" + i + " " + metric.name();
+                if (acc[3] == 0) {
+                    sawEmpty = true;
+                    assertTrue(Double.isNaN(series.getMin(metric, i)), at);
+                    assertTrue(Double.isNaN(series.getMean(metric, i)), at);
+                    assertTrue(Double.isNaN(series.getMax(metric, i)), at);
+                } else {
+                    assertEquals(acc[0], series.getMin(metric, i), at);
+                    assertEquals(acc[1], series.getMax(metric, i), at);
+                    assertEquals(acc[2] / acc[3], series.getMean(metric, i), 1e-12, at);
+                }
+            }
+            i++;
+        }
+        // Surowe i 1 s / 1 min mają przedziały bez poprawnej wartości (luki NaN)
+        if (tier < 3) assertTrue(sawEmpty, "tier=" + tier);
+    }
+}